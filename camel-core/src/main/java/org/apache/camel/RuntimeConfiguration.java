@@ -66,6 +66,42 @@ public interface RuntimeConfiguration {
      */
     Boolean isMessageHistory();
 
+    /**
+     * Sets the sample rate to use for message history, which means that only every n'th {@link Exchange} has
+     * its message history recorded. The decision is taken once per exchange when the exchange is routed by the consumer.
+     * <p/>
+     * This allows to keep message history enabled in production with a bounded overhead.
+     * The default is <tt>null</tt> or <tt>1</tt> which records message history for every exchange.
+     *
+     * @param sampleRate the sample rate, eg <tt>100</tt> to record message history for 1 in 100 exchanges
+     */
+    void setMessageHistorySampleRate(Integer sampleRate);
+
+    /**
+     * Gets the sample rate to use for message history.
+     *
+     * @return the sample rate, or <tt>null</tt> if every exchange has its message history recorded
+     */
+    Integer getMessageHistorySampleRate();
+
+    /**
+     * Sets the sample period in millis to use for message history, which means that at most one {@link Exchange}
+     * per period has its message history recorded. The decision is taken once per exchange when the exchange
+     * is routed by the consumer. This can be combined with the sample rate.
+     * <p/>
+     * The default is <tt>null</tt> or <tt>0</tt> which does not limit the message history by a period.
+     *
+     * @param samplePeriod the sample period in millis, eg <tt>1000</tt> to record message history for at most 1 exchange per second
+     */
+    void setMessageHistorySamplePeriod(Long samplePeriod);
+
+    /**
+     * Gets the sample period in millis to use for message history.
+     *
+     * @return the sample period, or <tt>null</tt> if the message history is not limited by a period
+     */
+    Long getMessageHistorySamplePeriod();
+
     /**
      * Sets whether fault handling is enabled or not (default is disabled).
      *
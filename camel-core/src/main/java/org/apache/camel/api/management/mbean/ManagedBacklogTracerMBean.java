@@ -71,6 +71,18 @@ public interface ManagedBacklogTracerMBean {
     @ManagedAttribute(description = "Number of maximum chars in the message body in the trace message. Use zero or negative value to have unlimited size.")
     void setBodyMaxChars(int bodyMaxChars);
 
+    @ManagedAttribute(description = "To only trace 1 in every n messages. Use 1 to trace every message.")
+    int getTraceSampleRate();
+
+    @ManagedAttribute(description = "To only trace 1 in every n messages. Use 1 to trace every message.")
+    void setTraceSampleRate(int traceSampleRate);
+
+    @ManagedAttribute(description = "To only trace at most 1 message per period in millis. Use 0 or negative value to not limit by a period.")
+    long getTraceSamplePeriod();
+
+    @ManagedAttribute(description = "To only trace at most 1 message per period in millis. Use 0 or negative value to not limit by a period.")
+    void setTraceSamplePeriod(long traceSamplePeriod);
+
     @ManagedAttribute(description = "Whether to include stream based message body in the trace message.")
     boolean isBodyIncludeStreams();
 
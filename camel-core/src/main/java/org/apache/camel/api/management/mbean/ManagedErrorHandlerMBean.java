@@ -47,6 +47,9 @@ public interface ManagedErrorHandlerMBean {
     @ManagedAttribute(description = "Number of Exchanges scheduled for redelivery (waiting to be redelivered in the future)")
     Integer getPendingRedeliveryCount();
 
+    @ManagedAttribute(description = "Number of Exchanges scheduled for asynchronous delayed redelivery (not blocking any thread while waiting)")
+    Integer getScheduledRedeliveryCount();
+
     @ManagedAttribute(description = "RedeliveryPolicy for maximum redeliveries")
     Integer getMaximumRedeliveries();
 
@@ -161,4 +164,10 @@ public interface ManagedErrorHandlerMBean {
     @ManagedAttribute(description = "RedeliveryPolicy for allow redelivery while stopping")
     void setAllowRedeliveryWhileStopping(Boolean allow);
 
+    @ManagedAttribute(description = "RedeliveryPolicy for asynchronous delayed redelivery")
+    Boolean getAsyncDelayedRedelivery();
+
+    @ManagedAttribute(description = "RedeliveryPolicy for asynchronous delayed redelivery")
+    void setAsyncDelayedRedelivery(Boolean async);
+
 }
\ No newline at end of file
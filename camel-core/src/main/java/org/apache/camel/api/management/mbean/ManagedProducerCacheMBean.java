@@ -39,6 +39,18 @@ public interface ManagedProducerCacheMBean extends ManagedServiceMBean {
     @ManagedAttribute(description = "Cache evicted")
     Long getEvicted();
 
+    @ManagedAttribute(description = "Number of pooled producers acquired from the service pool")
+    Long getPoolHits();
+
+    @ManagedAttribute(description = "Number of times the service pool was exhausted so a new producer was created")
+    Long getPoolMisses();
+
+    @ManagedAttribute(description = "Mean time in nanos to acquire a producer which was not cached")
+    Long getMeanAcquireTime();
+
+    @ManagedAttribute(description = "Max time in nanos to acquire a producer which was not cached")
+    Long getMaxAcquireTime();
+
     @ManagedOperation(description = "Reset cache statistics")
     void resetStatistics();
 
@@ -51,7 +51,7 @@ public class DefaultErrorHandlerBuilder extends ErrorHandlerBuilderSupport {
     protected String deadLetterUri;
     protected boolean deadLetterHandleNewException = true;
     protected boolean useOriginalMessage;
-    protected boolean asyncDelayedRedelivery;
+    protected boolean asyncDelayedRedelivery = true;
     protected String executorServiceRef;
     protected ScheduledExecutorService executorService;
     protected Processor onPrepareFailure;
@@ -224,6 +224,18 @@ public class DefaultErrorHandlerBuilder extends ErrorHandlerBuilderSupport {
         return this;
     }
 
+    /**
+     * Controls whether to use asynchronous delayed redeliveries, which is enabled by default.
+     *
+     * @param asyncDelayedRedelivery <tt>true</tt> to schedule redeliveries, <tt>false</tt> to block the current thread while waiting
+     * @see org.apache.camel.processor.RedeliveryPolicy#setAsyncDelayedRedelivery(boolean)
+     * @return the builder
+     */
+    public DefaultErrorHandlerBuilder asyncDelayedRedelivery(boolean asyncDelayedRedelivery) {
+        getRedeliveryPolicy().setAsyncDelayedRedelivery(asyncDelayedRedelivery);
+        return this;
+    }
+
     /**
      * Controls whether to allow redelivery while stopping/shutting down a route that uses error handling.
      *
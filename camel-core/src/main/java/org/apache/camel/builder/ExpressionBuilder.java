@@ -48,6 +48,7 @@ import org.apache.camel.spi.Language;
 import org.apache.camel.spi.RouteContext;
 import org.apache.camel.spi.UnitOfWork;
 import org.apache.camel.support.ExpressionAdapter;
+import org.apache.camel.support.ParallelTokenizeExpressionIterator;
 import org.apache.camel.support.TokenPairExpressionIterator;
 import org.apache.camel.support.TokenXMLExpressionIterator;
 import org.apache.camel.support.XMLTokenExpressionIterator;
@@ -55,6 +56,7 @@ import org.apache.camel.util.ExchangeHelper;
 import org.apache.camel.util.FileUtil;
 import org.apache.camel.util.GroupIterator;
 import org.apache.camel.util.IOHelper;
+import org.apache.camel.util.LiteralTokenIterator;
 import org.apache.camel.util.ObjectHelper;
 import org.apache.camel.util.OgnlHelper;
 
@@ -1255,6 +1257,9 @@ public final class ExpressionBuilder {
      */
     public static Expression tokenizeExpression(final Expression expression,
                                                 final String token) {
+        if (LiteralTokenIterator.isLiteral(token)) {
+            return tokenizeExpression(expression, token, 1);
+        }
         return new ExpressionAdapter() {
             public Object evaluate(Exchange exchange) {
                 Object value = expression.evaluate(exchange, Object.class);
@@ -1270,6 +1275,46 @@ public final class ExpressionBuilder {
         };
     }
 
+    /**
+     * Returns a tokenize expression which will tokenize the string with the
+     * given literal token, and group the given number of tokens together
+     * (including the tokens in between).
+     *
+     * @see LiteralTokenIterator
+     */
+    public static Expression tokenizeExpression(final Expression expression,
+                                                final String token, final int group) {
+        if (!LiteralTokenIterator.isLiteral(token)) {
+            throw new IllegalArgumentException("Token must be a literal token, was: " + token);
+        }
+        return new ExpressionAdapter() {
+            public Object evaluate(Exchange exchange) {
+                Object value = expression.evaluate(exchange, Object.class);
+                return LiteralTokenIterator.createIterator(exchange, value, token, group);
+            }
+
+            @Override
+            public String toString() {
+                if (group > 1) {
+                    return "tokenize(" + expression + ", " + token + ", " + group + ")";
+                }
+                return "tokenize(" + expression + ", " + token + ")";
+            }
+        };
+    }
+
+    /**
+     * Returns a tokenize expression which tokenizes file based values in parallel chunks.
+     *
+     * @param expression  the expression returning the file to tokenize
+     * @param token       the literal token
+     * @param parallelism number of chunks to tokenize in parallel
+     * @see ParallelTokenizeExpressionIterator
+     */
+    public static Expression tokenizeInParallelExpression(Expression expression, String token, int parallelism) {
+        return new ParallelTokenizeExpressionIterator(expression, token, parallelism);
+    }
+
     /**
      * Returns an {@link TokenPairExpressionIterator} expression
      */
@@ -185,6 +185,19 @@ public class ValueBuilder implements Expression, Predicate {
         return onNewValueBuilder(newExp);
     }
 
+    /**
+     * Tokenizes the file of this expression using the given literal token, where the file
+     * is read and tokenized in parallel chunks.
+     *
+     * @param token       the literal token
+     * @param parallelism number of chunks to tokenize in parallel
+     * @see org.apache.camel.support.ParallelTokenizeExpressionIterator
+     */
+    public ValueBuilder tokenizeInParallel(String token, int parallelism) {
+        Expression newExp = ExpressionBuilder.tokenizeInParallelExpression(expression, token, parallelism);
+        return onNewValueBuilder(newExp);
+    }
+
     public ValueBuilder tokenizeXML(String tagName, String inheritNamespaceTagName) {
         Expression newExp = ExpressionBuilder.tokenizeXMLExpression(tagName, inheritNamespaceTagName);
         return onNewValueBuilder(newExp);
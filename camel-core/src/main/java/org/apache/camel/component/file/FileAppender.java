@@ -0,0 +1,406 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.camel.component.file;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.Reader;
+import java.io.Writer;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
+import java.text.SimpleDateFormat;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+
+import org.apache.camel.support.ServiceSupport;
+import org.apache.camel.util.FileUtil;
+import org.apache.camel.util.IOHelper;
+import org.apache.camel.util.LRUCache;
+import org.apache.camel.util.ServiceHelper;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Appends data to files using {@link FileChannel}s which are kept open between writes.
+ * <p/>
+ * The open files are kept in a bounded cache, and the least recently used file is closed when
+ * the cache is full. Concurrent writers to the same file are grouped together, so the data
+ * from all the writers waiting is written using a single gathering write, followed by a
+ * single force to the file system (group commit). The append methods returns when the data
+ * has been written (and forced if enabled). Data from streams is not read into memory, but
+ * copied to the file by the writer holding the file lock.
+ * <p/>
+ * The files can be rolled over by size and/or time, where the current file is renamed
+ * using a timestamp suffix, and a new file is started.
+ */
+public class FileAppender extends ServiceSupport {
+
+    private static final Logger LOG = LoggerFactory.getLogger(FileAppender.class);
+
+    private final LRUCache<String, AppendFile> files;
+    // the files evicted from the cache, which are closed outside the lock on the cache
+    private final Queue<AppendFile> evictedFiles = new ConcurrentLinkedQueue<AppendFile>();
+    private final boolean force;
+    private final long rollSize;
+    private final long rollInterval;
+
+    /**
+     * Creates the appender.
+     *
+     * @param maxOpenFiles the maximum number of files to keep open
+     * @param force        whether to force the data to the file system before returning
+     * @param rollSize     roll the file when it would exceed this size in bytes, use zero to not roll by size
+     * @param rollInterval roll the file when it has been written to for this long in millis, use zero to not roll by time
+     */
+    public FileAppender(int maxOpenFiles, boolean force, long rollSize, long rollInterval) {
+        // the evicted files is closed by the appender, as closing a file may need to wait for its writers
+        this.files = new LRUCache<String, AppendFile>(16, maxOpenFiles, false) {
+            @Override
+            public void onEviction(String key, AppendFile value) {
+                super.onEviction(key, value);
+                evictedFiles.add(value);
+            }
+        };
+        this.force = force;
+        this.rollSize = rollSize;
+        this.rollInterval = rollInterval;
+    }
+
+    /**
+     * Appends the data to the file, and waits until the data has been written.
+     *
+     * @param file the file to append to
+     * @param data the data
+     * @throws IOException is thrown if the data could not be written
+     */
+    public void append(File file, byte[] data) throws IOException {
+        append(file, new AppendRequest(ByteBuffer.wrap(data), null, null, null));
+    }
+
+    /**
+     * Appends the data from the stream to the file, and waits until the data has been written.
+     * The stream is not closed.
+     *
+     * @param file the file to append to
+     * @param in   the stream with the data
+     * @throws IOException is thrown if the data could not be read or written
+     */
+    public void append(File file, InputStream in) throws IOException {
+        append(file, new AppendRequest(null, in, null, null));
+    }
+
+    /**
+     * Appends the data from the reader to the file using the given charset, and waits until the data has been written.
+     * The reader is not closed.
+     *
+     * @param file    the file to append to
+     * @param reader  the reader with the data
+     * @param charset the charset to use when writing the data
+     * @throws IOException is thrown if the data could not be read or written
+     */
+    public void append(File file, Reader reader, String charset) throws IOException {
+        append(file, new AppendRequest(null, null, reader, charset));
+    }
+
+    private void append(File file, AppendRequest request) throws IOException {
+        String key = file.getAbsolutePath();
+        while (true) {
+            AppendFile target;
+            synchronized (files) {
+                target = files.get(key);
+                if (target == null) {
+                    target = new AppendFile(file);
+                    files.put(key, target);
+                }
+            }
+            // close any evicted files outside the lock
+            closeEvicted();
+
+            if (target.append(request)) {
+                return;
+            }
+            // the file was closed (evicted from the cache) so try again with a new one
+            synchronized (files) {
+                if (files.get(key) == target) {
+                    files.remove(key);
+                }
+            }
+        }
+    }
+
+    private void closeEvicted() {
+        AppendFile file;
+        while ((file = evictedFiles.poll()) != null) {
+            try {
+                ServiceHelper.stopService(file);
+            } catch (Exception e) {
+                LOG.warn("Error closing file: " + file + ". This exception will be ignored.", e);
+            }
+        }
+    }
+
+    /**
+     * Number of files currently kept open
+     */
+    public int getOpenFiles() {
+        return files.size();
+    }
+
+    @Override
+    protected void doStart() throws Exception {
+        ServiceHelper.startService(files);
+    }
+
+    @Override
+    protected void doStop() throws Exception {
+        List<AppendFile> open;
+        synchronized (files) {
+            open = new ArrayList<AppendFile>(files.values());
+            files.clear();
+        }
+        closeEvicted();
+        ServiceHelper.stopServices(open);
+    }
+
+    /**
+     * The data to append, which is either in memory, or a stream or reader to be copied to the file.
+     */
+    private static final class AppendRequest {
+        private final ByteBuffer data;
+        private final InputStream stream;
+        private final Reader reader;
+        private final String charset;
+        private volatile boolean done;
+        private IOException cause;
+
+        private AppendRequest(ByteBuffer data, InputStream stream, Reader reader, String charset) {
+            this.data = data;
+            this.stream = stream;
+            this.reader = reader;
+            this.charset = charset;
+        }
+    }
+
+    /**
+     * A file kept open for appending.
+     */
+    private final class AppendFile extends ServiceSupport {
+        private final File file;
+        private final Queue<AppendRequest> pending = new ConcurrentLinkedQueue<AppendRequest>();
+        // writers waiting for this lock has their data written by the writer holding the lock
+        private final Lock writeLock = new ReentrantLock();
+        private FileChannel channel;
+        // buffer used for copying streams to the channel
+        private ByteBuffer buffer;
+        private long size;
+        private long openedAt;
+        private boolean closed;
+
+        private AppendFile(File file) {
+            this.file = file;
+        }
+
+        /**
+         * Appends the data and waits until its written.
+         *
+         * @return <tt>false</tt> if this file has been closed and the data was not written
+         */
+        boolean append(AppendRequest request) throws IOException {
+            pending.add(request);
+
+            writeLock.lock();
+            try {
+                if (!request.done) {
+                    if (closed) {
+                        pending.remove(request);
+                        return false;
+                    }
+                    // write our own data together with all the data from the other waiting writers
+                    writePending();
+                }
+            } finally {
+                writeLock.unlock();
+            }
+
+            if (request.cause != null) {
+                throw request.cause;
+            }
+            return true;
+        }
+
+        private void writePending() {
+            List<AppendRequest> batch = new ArrayList<AppendRequest>();
+            long length = 0;
+            AppendRequest request;
+            while ((request = pending.poll()) != null) {
+                batch.add(request);
+                if (request.data != null) {
+                    // the length of the streams is not known
+                    length += request.data.remaining();
+                }
+            }
+            if (batch.isEmpty()) {
+                return;
+            }
+
+            IOException cause = null;
+            try {
+                if (channel == null) {
+                    open();
+                } else if (shouldRoll(length)) {
+                    roll();
+                }
+
+                // the data in memory is written using gathering writes, and the streams are copied in between
+                List<ByteBuffer> buffers = new ArrayList<ByteBuffer>(batch.size());
+                for (AppendRequest next : batch) {
+                    if (next.data != null) {
+                        buffers.add(next.data);
+                    } else {
+                        writeBuffers(buffers);
+                        writeStream(next);
+                    }
+                }
+                writeBuffers(buffers);
+                size = channel.position();
+                if (force) {
+                    channel.force(true);
+                }
+                LOG.trace("Appended data from {} writers to file: {}", batch.size(), file);
+            } catch (IOException e) {
+                cause = e;
+                // close the channel so the file is opened again on next write
+                IOHelper.close(channel, file.getName(), LOG);
+                channel = null;
+            }
+
+            for (AppendRequest done : batch) {
+                done.cause = cause;
+                done.done = true;
+            }
+        }
+
+        private void writeBuffers(List<ByteBuffer> buffers) throws IOException {
+            if (buffers.isEmpty()) {
+                return;
+            }
+            ByteBuffer[] array = buffers.toArray(new ByteBuffer[buffers.size()]);
+            long remaining = 0;
+            for (ByteBuffer data : array) {
+                remaining += data.remaining();
+            }
+            while (remaining > 0) {
+                remaining -= channel.write(array);
+            }
+            buffers.clear();
+        }
+
+        private void writeStream(AppendRequest request) throws IOException {
+            if (request.reader != null) {
+                // encode the characters directly to the channel (do not close the writer as it closes the channel)
+                Writer writer = Channels.newWriter(channel, request.charset);
+                char[] chars = new char[IOHelper.DEFAULT_BUFFER_SIZE];
+                int read;
+                while ((read = request.reader.read(chars)) != -1) {
+                    writer.write(chars, 0, read);
+                }
+                writer.flush();
+            } else {
+                if (buffer == null) {
+                    buffer = ByteBuffer.allocate(IOHelper.DEFAULT_BUFFER_SIZE);
+                }
+                byte[] bytes = buffer.array();
+                int read;
+                while ((read = request.stream.read(bytes)) != -1) {
+                    buffer.clear();
+                    buffer.limit(read);
+                    while (buffer.hasRemaining()) {
+                        channel.write(buffer);
+                    }
+                }
+                buffer.clear();
+            }
+        }
+
+        private boolean shouldRoll(long length) {
+            if (size == 0) {
+                return false;
+            }
+            if (rollSize > 0 && size + length > rollSize) {
+                return true;
+            }
+            return rollInterval > 0 && System.currentTimeMillis() - openedAt >= rollInterval;
+        }
+
+        private void open() throws IOException {
+            // open in append mode, so the data is written at the end of the file even if the file is written
+            // by another channel, such as a file evicted from the cache which is being closed
+            channel = FileChannel.open(file.toPath(), StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.APPEND);
+            size = channel.size();
+            openedAt = System.currentTimeMillis();
+            LOG.debug("Opened file: {} for appending", file);
+        }
+
+        private void roll() throws IOException {
+            IOHelper.close(channel, file.getName(), LOG);
+            channel = null;
+
+            String suffix = new SimpleDateFormat("yyyyMMddHHmmssSSS").format(new Date());
+            File rolled = new File(file.getPath() + "." + suffix);
+            for (int i = 1; rolled.exists(); i++) {
+                rolled = new File(file.getPath() + "." + suffix + "-" + i);
+            }
+            LOG.debug("Rolling file: {} to: {}", file, rolled);
+            if (!FileUtil.renameFile(file, rolled, true)) {
+                throw new IOException("Cannot roll file: " + file + " to: " + rolled);
+            }
+            open();
+        }
+
+        @Override
+        protected void doStart() throws Exception {
+            // noop
+        }
+
+        @Override
+        protected void doStop() throws Exception {
+            writeLock.lock();
+            try {
+                // write the data from any waiting writers before closing
+                writePending();
+                closed = true;
+                IOHelper.close(channel, file.getName(), LOG);
+                channel = null;
+            } finally {
+                writeLock.unlock();
+            }
+        }
+
+        @Override
+        public String toString() {
+            return "AppendFile[" + file + "]";
+        }
+    }
+}
@@ -17,11 +17,19 @@
 package org.apache.camel.component.file;
 
 import java.io.File;
-import java.util.Arrays;
+import java.io.IOException;
+import java.nio.file.DirectoryIteratorException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Iterator;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Set;
 
 import org.apache.camel.Processor;
 import org.apache.camel.util.FileUtil;
+import org.apache.camel.util.IOHelper;
 import org.apache.camel.util.ObjectHelper;
 
 /**
@@ -30,6 +38,11 @@ import org.apache.camel.util.ObjectHelper;
 public class FileConsumer extends GenericFileConsumer<File> {
 
     private String endpointPath;
+    private FileWatcher watcher;
+    // the files which has been created or modified and should be polled
+    private final Set<File> candidates = new LinkedHashSet<File>();
+    private long lastReconcile;
+    private boolean reconcile;
 
     public FileConsumer(GenericFileEndpoint<File> endpoint, Processor processor, GenericFileOperations<File> operations) {
         super(endpoint, processor, operations);
@@ -38,6 +51,16 @@ public class FileConsumer extends GenericFileConsumer<File> {
 
     @Override
     protected boolean pollDirectory(String fileName, List<GenericFile<File>> fileList, int depth) {
+        if (watcher != null && depth == 0) {
+            return pollWatchedDirectory(fileName, fileList);
+        }
+        return scanDirectory(fileName, fileList, depth);
+    }
+
+    /**
+     * Lists the files in the directory (and its sub directories if recursive)
+     */
+    protected boolean scanDirectory(String fileName, List<GenericFile<File>> fileList, int depth) {
         log.trace("pollDirectory from fileName: {}", fileName);
 
         depth++;
@@ -52,61 +75,191 @@ public class FileConsumer extends GenericFileConsumer<File> {
         }
 
         log.trace("Polling directory: {}", directory.getPath());
-        File[] dirFiles = directory.listFiles();
-        if (dirFiles == null || dirFiles.length == 0) {
-            // no files in this directory to poll
-            if (log.isTraceEnabled()) {
-                log.trace("No files found in directory: {}", directory.getPath());
-            }
+        if (watcher != null) {
+            watcher.register(directory);
+        }
+        // stream the directory listing so we do not need to hold all the files in memory,
+        // and can stop listing as soon we cannot poll more files
+        DirectoryStream<Path> stream;
+        try {
+            stream = Files.newDirectoryStream(directory.toPath());
+        } catch (IOException e) {
+            log.debug("Cannot list files in directory: " + directory.getPath() + " due " + e.getMessage() + ". This exception is ignored.", e);
             return true;
-        } else {
-            // we found some files
-            if (log.isTraceEnabled()) {
-                log.trace("Found {} in directory: {}", dirFiles.length, directory.getPath());
+        }
+
+        try {
+            for (Path path : stream) {
+                // check if we can continue polling in files
+                if (!canPollMoreFiles(fileList)) {
+                    return false;
+                }
+
+                File file = path.toFile();
+
+                // trace log as Windows/Unix can have different views what the file is?
+                if (log.isTraceEnabled()) {
+                    log.trace("Found file: {} [isAbsolute: {}, isDirectory: {}, isFile: {}, isHidden: {}]",
+                            new Object[]{file, file.isAbsolute(), file.isDirectory(), file.isFile(), file.isHidden()});
+                }
+
+                // creates a generic file
+                GenericFile<File> gf = asGenericFile(endpointPath, file, getEndpoint().getCharset());
+
+                if (file.isDirectory()) {
+                    if (endpoint.isRecursive() && depth < endpoint.getMaxDepth() && isValidFile(gf, true, null)) {
+                        // recursive scan and add the sub files and folders
+                        String subDirectory = fileName + File.separator + file.getName();
+                        boolean canPollMore = pollDirectory(subDirectory, fileList, depth);
+                        if (!canPollMore) {
+                            return false;
+                        }
+                    }
+                } else {
+                    // Windows can report false to a file on a share so regard it always as a file (if its not a directory)
+                    if (depth >= endpoint.minDepth && isValidFile(gf, false, null)) {
+                        log.trace("Adding valid file: {}", file);
+                        // matched file so add
+                        fileList.add(gf);
+                        if (watcher != null) {
+                            // keep as candidate so the watcher polls the file again if it was not processed,
+                            // eg when it was discarded due max messages per poll
+                            candidates.add(file);
+                        }
+                    } else if (watcher != null && isPending(gf)) {
+                        // keep as candidate so the watcher polls the file again, eg when its done file is written
+                        candidates.add(file);
+                    }
+                }
             }
+        } catch (DirectoryIteratorException e) {
+            log.debug("Error listing files in directory: " + directory.getPath() + " due " + e.getMessage() + ". This exception is ignored.", e);
+        } finally {
+            IOHelper.close(stream, "directory", log);
         }
-        List<File> files = Arrays.asList(dirFiles);
 
-        for (File file : files) {
+        return true;
+    }
+
+    /**
+     * Polls the files which has been created or modified according to the {@link FileWatcher}, instead of
+     * listing the directories. A full scan of the directories is done on the first poll, if events was lost,
+     * and periodically according to the watch reconcile interval.
+     * <p/>
+     * The files are kept as candidates until they are no longer valid to be polled (eg consumed and moved/deleted,
+     * or filtered/idempotent), so files which was not processed (eg due max messages per poll, or the read lock
+     * could not be acquired) are polled again.
+     */
+    protected boolean pollWatchedDirectory(String fileName, List<GenericFile<File>> fileList) {
+        File directory = new File(fileName);
+
+        for (File file : watcher.drainEvents()) {
+            if (file.isDirectory()) {
+                watchNewDirectory(file);
+            } else {
+                candidates.add(file);
+            }
+        }
+
+        long interval = getEndpoint().getWatchReconcileInterval();
+        boolean due = lastReconcile == 0 || (interval > 0 && System.currentTimeMillis() - lastReconcile >= interval);
+        if (reconcile || due || watcher.isOverflow() || !watcher.isWatching(directory)) {
+            log.debug("Reconciling watched directory using a full scan: {}", directory);
+            watcher.clearOverflow();
+            lastReconcile = System.currentTimeMillis();
+
+            // the scanned files are kept as candidates, so they are polled again if they was not processed
+            boolean answer = scanDirectory(fileName, fileList, 0);
+            // if we hit the limit then we must continue scanning on next poll
+            reconcile = !answer;
+            return answer;
+        }
+
+        log.trace("Polling {} candidate files in watched directory: {}", candidates.size(), directory);
+        Iterator<File> it = candidates.iterator();
+        while (it.hasNext()) {
             // check if we can continue polling in files
             if (!canPollMoreFiles(fileList)) {
                 return false;
             }
 
-            // trace log as Windows/Unix can have different views what the file is?
-            if (log.isTraceEnabled()) {
-                log.trace("Found file: {} [isAbsolute: {}, isDirectory: {}, isFile: {}, isHidden: {}]",
-                        new Object[]{file, file.isAbsolute(), file.isDirectory(), file.isFile(), file.isHidden()});
+            File file = it.next();
+            if (!file.exists() || file.isDirectory()) {
+                it.remove();
+                continue;
             }
 
-            // creates a generic file
             GenericFile<File> gf = asGenericFile(endpointPath, file, getEndpoint().getCharset());
+            if (depthOf(file) >= endpoint.minDepth && isValidFile(gf, false, null)) {
+                log.trace("Adding valid file: {}", file);
+                fileList.add(gf);
+            } else if (!isPending(gf)) {
+                // the file is not valid so do not keep it as candidate
+                it.remove();
+            }
+        }
 
-            if (file.isDirectory()) {
-                if (endpoint.isRecursive() && depth < endpoint.getMaxDepth() && isValidFile(gf, true, files)) {
-                    // recursive scan and add the sub files and folders
-                    String subDirectory = fileName + File.separator + file.getName();
-                    boolean canPollMore = pollDirectory(subDirectory, fileList, depth);
-                    if (!canPollMore) {
-                        return false;
-                    }
-                }
-            } else {
-                // Windows can report false to a file on a share so regard it always as a file (if its not a directory)
-                if (depth >= endpoint.minDepth && isValidFile(gf, false, files)) {
-                    log.trace("Adding valid file: {}", file);
-                    // matched file so add
-                    fileList.add(gf);
-                }
+        return true;
+    }
+
+    /**
+     * Starts watching a sub directory which has been created, and adds its files as candidates.
+     */
+    private void watchNewDirectory(File directory) {
+        if (!endpoint.isRecursive() || depthOf(directory) >= endpoint.getMaxDepth()) {
+            return;
+        }
+        GenericFile<File> gf = asGenericFile(endpointPath, directory, getEndpoint().getCharset());
+        if (!isValidFile(gf, true, null) || !watcher.register(directory)) {
+            return;
+        }
 
+        // files may have been added before we started watching the directory
+        File[] files = directory.listFiles();
+        if (files != null) {
+            for (File file : files) {
+                if (file.isDirectory()) {
+                    watchNewDirectory(file);
+                } else {
+                    candidates.add(file);
+                }
             }
         }
+    }
 
-        return true;
+    /**
+     * Whether the file is not valid right now, but may become valid later, such as when its being processed,
+     * or is waiting for its done file.
+     */
+    private boolean isPending(GenericFile<File> file) {
+        if (endpoint.getInProgressRepository().contains(file.getAbsoluteFilePath())) {
+            return true;
+        }
+        if (endpoint.getDoneFileName() != null && !endpoint.isDoneFile(file.getFileNameOnly())) {
+            String doneFileName = endpoint.createDoneFileName(file.getAbsoluteFilePath());
+            return doneFileName != null && !new File(doneFileName).exists();
+        }
+        return false;
+    }
+
+    /**
+     * The depth of the file relative to the starting directory, where files in the starting directory has depth 1.
+     */
+    private int depthOf(File file) {
+        return new File(endpointPath).toPath().relativize(file.toPath()).getNameCount();
     }
 
     @Override
     protected boolean isMatched(GenericFile<File> file, String doneFileName, List<File> files) {
+        if (files == null) {
+            // the directory listing is streamed so check the file system
+            if (new File(doneFileName).exists()) {
+                return true;
+            }
+            log.trace("Done file: {} does not exist", doneFileName);
+            return false;
+        }
+
         String onlyName = FileUtil.stripPath(doneFileName);
         // the done file name must be among the files
         for (File f : files) {
@@ -173,4 +326,25 @@ public class FileConsumer extends GenericFileConsumer<File> {
     public FileEndpoint getEndpoint() {
         return (FileEndpoint) super.getEndpoint();
     }
+
+    @Override
+    protected void doStart() throws Exception {
+        if (getEndpoint().isUseWatchService()) {
+            // must create the watcher before starting which schedules the polling
+            watcher = new FileWatcher();
+            lastReconcile = 0;
+            reconcile = true;
+        }
+        super.doStart();
+    }
+
+    @Override
+    protected void doStop() throws Exception {
+        super.doStop();
+        if (watcher != null) {
+            watcher.close();
+            watcher = null;
+        }
+        candidates.clear();
+    }
 }
@@ -29,6 +29,7 @@ import org.apache.camel.spi.UriParam;
 import org.apache.camel.spi.UriPath;
 import org.apache.camel.util.FileUtil;
 import org.apache.camel.util.ObjectHelper;
+import org.apache.camel.util.ServiceHelper;
 
 /**
  * File endpoint.
@@ -46,6 +47,19 @@ public class FileEndpoint extends GenericFileEndpoint<File> {
     private boolean renameUsingCopy;
     @UriParam(label = "producer", defaultValue = "true")
     private boolean forceWrites = true;
+    @UriParam(label = "consumer,advanced")
+    private boolean useWatchService;
+    @UriParam(label = "consumer,advanced", defaultValue = "60000")
+    private long watchReconcileInterval = 60000;
+    @UriParam(label = "producer,advanced")
+    private boolean appendKeepOpen;
+    @UriParam(label = "producer,advanced", defaultValue = "100")
+    private int appendMaxOpenFiles = 100;
+    @UriParam(label = "producer,advanced")
+    private long appendRollSize;
+    @UriParam(label = "producer,advanced")
+    private long appendRollInterval;
+    private volatile FileAppender appender;
 
     public FileEndpoint() {
         // use marker file as default exclusive read locks
@@ -117,9 +131,37 @@ public class FileEndpoint extends GenericFileEndpoint<File> {
             throw new IllegalArgumentException("You must configure fileExist=Move when moveExisting has been set");
         }
 
+        if (isAppendKeepOpen()) {
+            if (getFileExist() != GenericFileExist.Append) {
+                throw new IllegalArgumentException("You must configure fileExist=Append when appendKeepOpen has been set");
+            }
+            if (getAppendMaxOpenFiles() <= 0) {
+                throw new IllegalArgumentException("AppendMaxOpenFiles must be a positive value, was " + getAppendMaxOpenFiles());
+            }
+            synchronized (this) {
+                if (appender == null) {
+                    appender = new FileAppender(getAppendMaxOpenFiles(), isForceWrites(), getAppendRollSize(), getAppendRollInterval());
+                    ServiceHelper.startService(appender);
+                }
+            }
+        }
+
         return new GenericFileProducer<File>(this, operations);
     }
 
+    /**
+     * Gets the appender used when appending to files which are kept open, is <tt>null</tt> if not in use.
+     */
+    public FileAppender getAppender() {
+        return appender;
+    }
+
+    @Override
+    public boolean isLockTargetFileOnWrite() {
+        // the appender groups concurrent writes to the same file together so they must not be serialized
+        return !appendKeepOpen;
+    }
+
     public Exchange createExchange(GenericFile<File> file) {
         Exchange exchange = createExchange();
         if (file != null) {
@@ -152,6 +194,13 @@ public class FileEndpoint extends GenericFileEndpoint<File> {
         getConfiguration().setDirectory(FileUtil.isAbsolute(file) ? file.getAbsolutePath() : file.getPath());
     }
 
+    @Override
+    protected void doStop() throws Exception {
+        super.doStop();
+        ServiceHelper.stopService(appender);
+        appender = null;
+    }
+
     @Override
     public String getScheme() {
         return "file";
@@ -209,4 +258,81 @@ public class FileEndpoint extends GenericFileEndpoint<File> {
     public void setForceWrites(boolean forceWrites) {
         this.forceWrites = forceWrites;
     }
+
+    public boolean isUseWatchService() {
+        return useWatchService;
+    }
+
+    /**
+     * Whether the consumer should use the file system watch service to keep track of the files which has been created or modified,
+     * instead of listing the directory on every poll. This can be used to poll directories with a large number of files.
+     * The directory is scanned on startup, and periodically according to the watchReconcileInterval option,
+     * to pickup any files the watch service may have missed.
+     */
+    public void setUseWatchService(boolean useWatchService) {
+        this.useWatchService = useWatchService;
+    }
+
+    public long getWatchReconcileInterval() {
+        return watchReconcileInterval;
+    }
+
+    /**
+     * When using the watch service, then the interval in millis to scan the directory to reconcile any files
+     * the watch service may have missed. Use zero to only scan on startup and when the watch service reports that events has been lost.
+     */
+    public void setWatchReconcileInterval(long watchReconcileInterval) {
+        this.watchReconcileInterval = watchReconcileInterval;
+    }
+
+    public boolean isAppendKeepOpen() {
+        return appendKeepOpen;
+    }
+
+    /**
+     * When using fileExist=Append, then whether to keep the files open between writes, instead of opening and closing the file for every message.
+     * Concurrent messages appending to the same file are grouped together and written using a single write, and a single force
+     * to the file system when forceWrites is enabled. Each message completes when the group it belongs to has been written.
+     * This can be used to append a high number of small messages to the same files, such as audit logs.
+     */
+    public void setAppendKeepOpen(boolean appendKeepOpen) {
+        this.appendKeepOpen = appendKeepOpen;
+    }
+
+    public int getAppendMaxOpenFiles() {
+        return appendMaxOpenFiles;
+    }
+
+    /**
+     * When using appendKeepOpen, then the maximum number of files to keep open. The least recently used file is closed when the limit is reached.
+     */
+    public void setAppendMaxOpenFiles(int appendMaxOpenFiles) {
+        this.appendMaxOpenFiles = appendMaxOpenFiles;
+    }
+
+    public long getAppendRollSize() {
+        return appendRollSize;
+    }
+
+    /**
+     * When using appendKeepOpen, then roll over the file when appending would make the file larger than this size in bytes.
+     * The file is rolled by renaming it with a timestamp suffix, and then a new file is started.
+     * Use zero to not roll by size.
+     */
+    public void setAppendRollSize(long appendRollSize) {
+        this.appendRollSize = appendRollSize;
+    }
+
+    public long getAppendRollInterval() {
+        return appendRollInterval;
+    }
+
+    /**
+     * When using appendKeepOpen, then roll over the file when it has been appended to for this long in millis.
+     * The file is rolled by renaming it with a timestamp suffix, and then a new file is started.
+     * Use zero to not roll by time.
+     */
+    public void setAppendRollInterval(long appendRollInterval) {
+        this.appendRollInterval = appendRollInterval;
+    }
 }
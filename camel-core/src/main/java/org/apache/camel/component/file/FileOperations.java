@@ -206,6 +206,19 @@ public class FileOperations implements GenericFileOperations<File> {
             }
         }
 
+        // append using the files kept open by the endpoint
+        FileAppender appender = endpoint.getAppender();
+        if (appender != null) {
+            try {
+                writeFileByAppender(appender, exchange, file);
+                return true;
+            } catch (IOException e) {
+                throw new GenericFileOperationFailedException("Cannot store file: " + file, e);
+            } catch (InvalidPayloadException e) {
+                throw new GenericFileOperationFailedException("Cannot store file: " + file, e);
+            }
+        }
+
         // we can write the file by 3 different techniques
         // 1. write file to file
         // 2. rename a file from a local work path
@@ -406,6 +419,46 @@ public class FileOperations implements GenericFileOperations<File> {
         }
     }
 
+    private void writeFileByAppender(FileAppender appender, Exchange exchange, File target) throws IOException, InvalidPayloadException {
+        Object body = exchange.getIn().getBody();
+        String charset = endpoint.getCharset();
+        if (body instanceof String || body instanceof byte[]) {
+            // the data is already in memory, so it can be written together with the data from other writers
+            byte[] data;
+            if (charset != null) {
+                String text = exchange.getIn().getMandatoryBody(String.class);
+                data = text.getBytes(charset);
+            } else {
+                data = exchange.getIn().getMandatoryBody(byte[].class);
+            }
+            LOG.trace("Using FileAppender to append {} bytes to file: {}", data.length, target);
+            appender.append(target, data);
+        } else if (charset != null) {
+            // charset configured so we must use a reader so we can write with encoding
+            Reader in = exchange.getContext().getTypeConverter().tryConvertTo(Reader.class, exchange, body);
+            if (in == null) {
+                InputStream is = exchange.getIn().getMandatoryBody(InputStream.class);
+                in = new InputStreamReader(is);
+            }
+            in = IOHelper.buffered(in);
+            try {
+                LOG.trace("Using FileAppender to append Reader to file: {} with charset: {}", target, charset);
+                appender.append(target, in, charset);
+            } finally {
+                IOHelper.close(in, target.getName(), LOG);
+            }
+        } else {
+            // stream the data so we do not need to read it into memory
+            InputStream in = exchange.getIn().getMandatoryBody(InputStream.class);
+            try {
+                LOG.trace("Using FileAppender to append InputStream to file: {}", target);
+                appender.append(target, in);
+            } finally {
+                IOHelper.close(in, target.getName(), LOG);
+            }
+        }
+    }
+
     private void writeFileByReaderWithCharset(Reader in, File target, String charset) throws IOException {
         boolean append = endpoint.getFileExist() == GenericFileExist.Append;
         FileOutputStream os = new FileOutputStream(target, append);
@@ -0,0 +1,140 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.camel.component.file;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.FileSystems;
+import java.nio.file.Path;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Set;
+
+import org.apache.camel.util.IOHelper;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Watches directories using a {@link WatchService} to keep track of the files which has been
+ * created or modified, so the {@link FileConsumer} do not have to list the directories on every poll.
+ * <p/>
+ * The events are drained by the consumer when it polls, so there is no background thread in use.
+ * If the file system could not keep up and events was lost (overflow), or a watched directory
+ * is no longer valid, then {@link #isOverflow()} returns <tt>true</tt> and the consumer should
+ * reconcile by scanning the directories.
+ */
+public class FileWatcher {
+
+    private static final Logger LOG = LoggerFactory.getLogger(FileWatcher.class);
+
+    private final WatchService watchService;
+    private final Map<WatchKey, File> directories = new HashMap<WatchKey, File>();
+    private final Map<File, WatchKey> keys = new HashMap<File, WatchKey>();
+    private boolean overflow;
+
+    public FileWatcher() throws IOException {
+        this.watchService = FileSystems.getDefault().newWatchService();
+    }
+
+    /**
+     * Starts watching the given directory (not its sub directories) if not already watched.
+     *
+     * @param directory the directory
+     * @return <tt>true</tt> if the directory is watched
+     */
+    public boolean register(File directory) {
+        if (keys.containsKey(directory)) {
+            return true;
+        }
+        try {
+            WatchKey key = directory.toPath().register(watchService, StandardWatchEventKinds.ENTRY_CREATE, StandardWatchEventKinds.ENTRY_MODIFY);
+            directories.put(key, directory);
+            keys.put(directory, key);
+            LOG.trace("Watching directory: {}", directory);
+            return true;
+        } catch (IOException e) {
+            LOG.debug("Cannot watch directory: " + directory + " due " + e.getMessage() + ". This exception is ignored.", e);
+            return false;
+        } catch (ClosedWatchServiceException e) {
+            return false;
+        }
+    }
+
+    /**
+     * Whether the given directory is watched.
+     */
+    public boolean isWatching(File directory) {
+        return keys.containsKey(directory);
+    }
+
+    /**
+     * Drains the pending events.
+     *
+     * @return the files and directories which has been created or modified since last time
+     */
+    public Set<File> drainEvents() {
+        Set<File> answer = new LinkedHashSet<File>();
+        try {
+            WatchKey key;
+            while ((key = watchService.poll()) != null) {
+                File directory = directories.get(key);
+                for (WatchEvent<?> event : key.pollEvents()) {
+                    if (event.kind() == StandardWatchEventKinds.OVERFLOW) {
+                        LOG.debug("Events has been lost when watching directory: {}", directory);
+                        overflow = true;
+                    } else if (directory != null) {
+                        File file = new File(directory, ((Path) event.context()).toString());
+                        answer.add(file);
+                    }
+                }
+                if (!key.reset()) {
+                    // the directory is no longer accessible (eg deleted)
+                    LOG.debug("Directory is no longer watched: {}", directory);
+                    directories.remove(key);
+                    keys.remove(directory);
+                    overflow = true;
+                }
+            }
+        } catch (ClosedWatchServiceException e) {
+            // we have been stopped
+        }
+        return answer;
+    }
+
+    /**
+     * Whether events may have been lost since the overflow flag was cleared, which requires to reconcile the directories
+     */
+    public boolean isOverflow() {
+        return overflow;
+    }
+
+    public void clearOverflow() {
+        overflow = false;
+    }
+
+    public void close() {
+        IOHelper.close(watchService, "watchService", LOG);
+        directories.clear();
+        keys.clear();
+    }
+}
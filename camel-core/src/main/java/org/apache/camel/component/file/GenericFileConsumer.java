@@ -19,8 +19,10 @@ package org.apache.camel.component.file;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.Deque;
+import java.util.IdentityHashMap;
 import java.util.LinkedList;
 import java.util.List;
+import java.util.Map;
 import java.util.Queue;
 
 import org.apache.camel.AsyncCallback;
@@ -109,7 +111,16 @@ public abstract class GenericFileConsumer<T> extends ScheduledBatchPollingConsum
         }
 
         // gather list of files to process
-        List<GenericFile<T>> files = new ArrayList<GenericFile<T>>();
+        List<GenericFile<T>> files;
+        TopFileList top = null;
+        if (endpoint.isBoundedSortedPoll() && !eagerLimitMaxMessagesPerPoll && maxMessagesPerPoll > 0 && !endpoint.isShuffle()
+                && (endpoint.getSorter() != null || endpoint.getSortBy() != null)) {
+            // only keep the first files according to the sort order, so we use bounded memory
+            top = new TopFileList(maxMessagesPerPoll);
+            files = top;
+        } else {
+            files = new ArrayList<GenericFile<T>>();
+        }
         String name = endpoint.getConfiguration().getDirectory();
 
         // time how long time it takes to poll
@@ -135,23 +146,26 @@ public abstract class GenericFileConsumer<T> extends ScheduledBatchPollingConsum
             log.debug("Limiting maximum messages to poll at {} files as there was more messages in this poll.", maxMessagesPerPoll);
         }
 
-        // sort files using file comparator if provided
-        if (endpoint.getSorter() != null) {
-            Collections.sort(files, endpoint.getSorter());
-        }
-
-        // sort using build in sorters so we can use expressions
         // use a linked list so we can dequeue the exchanges
-        LinkedList<Exchange> exchanges = new LinkedList<Exchange>();
-        for (GenericFile<T> file : files) {
-            Exchange exchange = endpoint.createExchange(file);
-            endpoint.configureExchange(exchange);
-            endpoint.configureMessage(file, exchange.getIn());
-            exchanges.add(exchange);
-        }
-        // sort files using exchange comparator if provided
-        if (endpoint.getSortBy() != null) {
-            Collections.sort(exchanges, endpoint.getSortBy());
+        LinkedList<Exchange> exchanges;
+        if (top != null) {
+            // the files has already been sorted and limited
+            exchanges = top.toExchanges();
+        } else {
+            // sort files using file comparator if provided
+            if (endpoint.getSorter() != null) {
+                Collections.sort(files, endpoint.getSorter());
+            }
+
+            // sort using build in sorters so we can use expressions
+            exchanges = new LinkedList<Exchange>();
+            for (GenericFile<T> file : files) {
+                exchanges.add(createPolledExchange(file));
+            }
+            // sort files using exchange comparator if provided
+            if (endpoint.getSortBy() != null) {
+                Collections.sort(exchanges, endpoint.getSortBy());
+            }
         }
         if (endpoint.isShuffle()) {
             Collections.shuffle(exchanges);
@@ -182,6 +196,13 @@ public abstract class GenericFileConsumer<T> extends ScheduledBatchPollingConsum
         return polledMessages;
     }
 
+    private Exchange createPolledExchange(GenericFile<T> file) {
+        Exchange exchange = endpoint.createExchange(file);
+        endpoint.configureExchange(exchange);
+        endpoint.configureMessage(file, exchange.getIn());
+        return exchange;
+    }
+
     public int processBatch(Queue<Object> exchanges) {
         int total = exchanges.size();
         int answer = total;
@@ -682,4 +703,78 @@ public abstract class GenericFileConsumer<T> extends ScheduledBatchPollingConsum
         prepareOnStartup = false;
         super.doStop();
     }
+
+    /**
+     * A list of the polled files which only keeps the first n files according to the sort order
+     * (sortBy, then sorter, then the order the files was polled), so polling a limited number of files
+     * from a large directory only use memory for the files being kept.
+     * <p/>
+     * The files are kept sorted in the list, and files which are discarded are removed from the in progress repository.
+     */
+    private final class TopFileList extends ArrayList<GenericFile<T>> {
+
+        private final int limit;
+        // the exchanges used for sorting when sortBy is in use
+        private final Map<GenericFile<T>, Exchange> exchanges = new IdentityHashMap<GenericFile<T>, Exchange>();
+
+        private TopFileList(int limit) {
+            super(limit + 1);
+            this.limit = limit;
+        }
+
+        @Override
+        public boolean add(GenericFile<T> file) {
+            if (endpoint.getSortBy() != null) {
+                exchanges.put(file, createPolledExchange(file));
+            }
+            if (size() >= limit && compare(file, get(size() - 1)) >= 0) {
+                // the file is after all the files we keep
+                discard(file);
+                return true;
+            }
+
+            // insert after the files which are equal, so the files are kept in the order they was polled
+            int low = 0;
+            int high = size();
+            while (low < high) {
+                int mid = (low + high) >>> 1;
+                if (compare(file, get(mid)) < 0) {
+                    high = mid;
+                } else {
+                    low = mid + 1;
+                }
+            }
+            super.add(low, file);
+
+            if (size() > limit) {
+                discard(remove(size() - 1));
+            }
+            return true;
+        }
+
+        private void discard(GenericFile<T> file) {
+            exchanges.remove(file);
+            endpoint.getInProgressRepository().remove(file.getAbsoluteFilePath());
+        }
+
+        private int compare(GenericFile<T> o1, GenericFile<T> o2) {
+            int answer = 0;
+            if (endpoint.getSortBy() != null) {
+                answer = endpoint.getSortBy().compare(exchanges.get(o1), exchanges.get(o2));
+            }
+            if (answer == 0 && endpoint.getSorter() != null) {
+                answer = endpoint.getSorter().compare(o1, o2);
+            }
+            return answer;
+        }
+
+        private LinkedList<Exchange> toExchanges() {
+            LinkedList<Exchange> answer = new LinkedList<Exchange>();
+            for (GenericFile<T> file : this) {
+                Exchange exchange = exchanges.get(file);
+                answer.add(exchange != null ? exchange : createPolledExchange(file));
+            }
+            return answer;
+        }
+    }
 }
@@ -121,6 +121,8 @@ public abstract class GenericFileEndpoint<T> extends ScheduledPollEndpoint imple
     protected int maxMessagesPerPoll;
     @UriParam(label = "consumer", defaultValue = "true")
     protected boolean eagerMaxMessagesPerPoll = true;
+    @UriParam(label = "consumer")
+    protected boolean boundedSortedPoll;
     @UriParam(label = "consumer", defaultValue = "" + Integer.MAX_VALUE)
     protected int maxDepth = Integer.MAX_VALUE;
     @UriParam(label = "consumer")
@@ -204,6 +206,15 @@ public abstract class GenericFileEndpoint<T> extends ScheduledPollEndpoint imple
 
     public abstract boolean isAbsolute(String name);
 
+    /**
+     * Whether the producer should serialize concurrent writes to the same target file.
+     * <p/>
+     * Endpoints which coordinate concurrent writes to the same file on their own can return <tt>false</tt>.
+     */
+    public boolean isLockTargetFileOnWrite() {
+        return true;
+    }
+
     /**
      * Return the file name that will be auto-generated for the given message if
      * none is provided
@@ -1108,6 +1119,19 @@ public abstract class GenericFileEndpoint<T> extends ScheduledPollEndpoint imple
         this.eagerMaxMessagesPerPoll = eagerMaxMessagesPerPoll;
     }
 
+    public boolean isBoundedSortedPoll() {
+        return boundedSortedPoll;
+    }
+
+    /**
+     * Whether to only keep the first maxMessagesPerPoll files according to the sort order in memory while scanning the files,
+     * when the limit from maxMessagesPerPoll is not eager and the files are sorted using sorter and/or sortBy.
+     * This allows to poll a limited number of sorted files from a directory with many files using bounded memory.
+     */
+    public void setBoundedSortedPoll(boolean boundedSortedPoll) {
+        this.boundedSortedPoll = boundedSortedPoll;
+    }
+
     public int getMaxDepth() {
         return maxDepth;
     }
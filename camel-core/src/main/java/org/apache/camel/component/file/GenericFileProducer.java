@@ -65,22 +65,26 @@ public class GenericFileProducer<T> extends DefaultProducer {
 
         // use lock for same file name to avoid concurrent writes to the same file
         // for example when you concurrently append to the same file
-        Lock lock;
-        synchronized (locks) {
-            lock = locks.get(target);
-            if (lock == null) {
-                lock = new ReentrantLock();
-                locks.put(target, lock);
+        Lock lock = null;
+        if (endpoint.isLockTargetFileOnWrite()) {
+            synchronized (locks) {
+                lock = locks.get(target);
+                if (lock == null) {
+                    lock = new ReentrantLock();
+                    locks.put(target, lock);
+                }
             }
+            lock.lock();
         }
 
-        lock.lock();
         try {
             processExchange(exchange, target);
         } finally {
             // do not remove as the locks cache has an upper bound
             // this ensure the locks is appropriate reused
-            lock.unlock();
+            if (lock != null) {
+                lock.unlock();
+            }
             // and remove the write file name header as we only want to use it once (by design)
             exchange.getIn().removeHeader(Exchange.OVERRULE_FILE_NAME);
             // and restore existing file name
@@ -167,6 +167,13 @@ public class ActiveMQUuidGenerator implements UuidGenerator {
         }
     }
 
+    /**
+     * The seed which is the prefix of all the generated ids
+     */
+    protected String getSeed() {
+        return seed;
+    }
+
     public String generateUuid() {
         StringBuilder sb = new StringBuilder(length);
         sb.append(seed);
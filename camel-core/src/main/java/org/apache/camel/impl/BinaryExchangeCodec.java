@@ -0,0 +1,334 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.camel.impl;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInput;
+import java.io.DataInputStream;
+import java.io.DataOutput;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.nio.charset.Charset;
+import java.util.Date;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import org.apache.camel.CamelContext;
+import org.apache.camel.util.CamelObjectInputStream;
+import org.apache.camel.util.IOHelper;
+import org.apache.camel.util.ObjectHelper;
+
+/**
+ * A compact and versioned binary format for {@link DefaultExchangeHolder}, which is faster and smaller
+ * than Java serialization of the holder.
+ * <p/>
+ * The header and property values are written with a type tag. Strings and byte arrays are written as raw bytes,
+ * and the primitive wrapper types and dates in their binary form, so no class descriptors are written.
+ * Other types can be written by adding a {@link Serializer} for the type, otherwise they are written using
+ * Java serialization.
+ * <p/>
+ * Data written using Java serialization of the holder can be read as well, which allows to switch an existing
+ * store over to this codec.
+ */
+public class BinaryExchangeCodec {
+
+    /**
+     * The version of the format written by this codec.
+     */
+    public static final int VERSION = 1;
+
+    // the first two bytes, which is not the same as the first bytes of a Java serialization stream (0xACED)
+    private static final int MAGIC = 0xCAEC;
+    private static final Charset UTF8 = Charset.forName("UTF-8");
+
+    private static final byte NULL = 0;
+    private static final byte STRING = 1;
+    private static final byte BYTES = 2;
+    private static final byte INTEGER = 3;
+    private static final byte LONG = 4;
+    private static final byte BOOLEAN = 5;
+    private static final byte DOUBLE = 6;
+    private static final byte FLOAT = 7;
+    private static final byte SHORT = 8;
+    private static final byte BYTE = 9;
+    private static final byte CHARACTER = 10;
+    private static final byte DATE = 11;
+    private static final byte CUSTOM = 20;
+    private static final byte SERIALIZED = 30;
+
+    private final Map<String, Serializer<?>> serializers = new ConcurrentHashMap<String, Serializer<?>>();
+    private final CopyOnWriteArrayList<Serializer<?>> serializerList = new CopyOnWriteArrayList<Serializer<?>>();
+
+    /**
+     * Writes and reads values of a given type, which otherwise would be written using Java serialization.
+     */
+    public interface Serializer<T> {
+
+        /**
+         * The type of the values, where the values of subclasses are written using this serializer as well.
+         */
+        Class<T> getType();
+
+        void write(T value, DataOutput out) throws IOException;
+
+        T read(DataInput in) throws IOException;
+    }
+
+    /**
+     * Adds a serializer for the values of the given type.
+     *
+     * @return this codec
+     */
+    public BinaryExchangeCodec addSerializer(Serializer<?> serializer) {
+        ObjectHelper.notNull(serializer, "serializer");
+        serializers.put(serializer.getType().getName(), serializer);
+        serializerList.add(serializer);
+        return this;
+    }
+
+    /**
+     * Whether the data has been written by this codec (instead of Java serialization).
+     */
+    public static boolean isBinary(byte[] data) {
+        return data != null && data.length > 2 && ((data[0] & 0xFF) << 8 | (data[1] & 0xFF)) == MAGIC;
+    }
+
+    /**
+     * Writes the holder in the binary format.
+     */
+    public byte[] marshal(DefaultExchangeHolder holder) throws IOException {
+        ObjectHelper.notNull(holder, "holder");
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(256);
+        DataOutputStream out = new DataOutputStream(bytes);
+        out.writeShort(MAGIC);
+        out.writeByte(VERSION);
+        holder.writeTo(this, out);
+        out.flush();
+        return bytes.toByteArray();
+    }
+
+    /**
+     * Reads the holder from data written in the binary format or by Java serialization.
+     *
+     * @param camelContext the camel context used for loading classes, may be <tt>null</tt>
+     * @param data         the data
+     * @return the holder
+     * @throws IOException is thrown if the data cannot be read
+     */
+    public DefaultExchangeHolder unmarshal(CamelContext camelContext, byte[] data) throws IOException {
+        ObjectHelper.notNull(data, "data");
+        if (!isBinary(data)) {
+            Object answer = deserialize(camelContext, data);
+            if (!(answer instanceof DefaultExchangeHolder)) {
+                throw new IOException("Data is not a DefaultExchangeHolder, was: " + ObjectHelper.className(answer));
+            }
+            return (DefaultExchangeHolder) answer;
+        }
+
+        DataInputStream in = new DataInputStream(new ByteArrayInputStream(data));
+        in.readShort();
+        int version = in.readUnsignedByte();
+        if (version != VERSION) {
+            throw new IOException("Unsupported version: " + version + " of the binary exchange format, expected: " + VERSION);
+        }
+        return DefaultExchangeHolder.readFrom(this, camelContext, in);
+    }
+
+    void writeString(String value, DataOutput out) throws IOException {
+        if (value == null) {
+            out.writeInt(-1);
+        } else {
+            byte[] bytes = value.getBytes(UTF8);
+            out.writeInt(bytes.length);
+            out.write(bytes);
+        }
+    }
+
+    String readString(DataInput in) throws IOException {
+        int length = in.readInt();
+        if (length < 0) {
+            return null;
+        }
+        byte[] bytes = new byte[length];
+        in.readFully(bytes);
+        return new String(bytes, UTF8);
+    }
+
+    void writeMap(Map<String, Object> map, DataOutput out) throws IOException {
+        if (map == null) {
+            out.writeInt(-1);
+            return;
+        }
+        out.writeInt(map.size());
+        for (Map.Entry<String, Object> entry : map.entrySet()) {
+            writeString(entry.getKey(), out);
+            writeValue(entry.getValue(), out);
+        }
+    }
+
+    Map<String, Object> readMap(CamelContext camelContext, DataInput in) throws IOException {
+        int size = in.readInt();
+        if (size < 0) {
+            return null;
+        }
+        Map<String, Object> answer = new LinkedHashMap<String, Object>(size * 2);
+        for (int i = 0; i < size; i++) {
+            String key = readString(in);
+            answer.put(key, readValue(camelContext, in));
+        }
+        return answer;
+    }
+
+    @SuppressWarnings("unchecked")
+    void writeValue(Object value, DataOutput out) throws IOException {
+        if (value == null) {
+            out.writeByte(NULL);
+        } else if (value instanceof String) {
+            out.writeByte(STRING);
+            writeString((String) value, out);
+        } else if (value instanceof byte[]) {
+            byte[] bytes = (byte[]) value;
+            out.writeByte(BYTES);
+            out.writeInt(bytes.length);
+            out.write(bytes);
+        } else if (value instanceof Integer) {
+            out.writeByte(INTEGER);
+            out.writeInt((Integer) value);
+        } else if (value instanceof Long) {
+            out.writeByte(LONG);
+            out.writeLong((Long) value);
+        } else if (value instanceof Boolean) {
+            out.writeByte(BOOLEAN);
+            out.writeBoolean((Boolean) value);
+        } else if (value instanceof Double) {
+            out.writeByte(DOUBLE);
+            out.writeDouble((Double) value);
+        } else if (value instanceof Float) {
+            out.writeByte(FLOAT);
+            out.writeFloat((Float) value);
+        } else if (value instanceof Short) {
+            out.writeByte(SHORT);
+            out.writeShort((Short) value);
+        } else if (value instanceof Byte) {
+            out.writeByte(BYTE);
+            out.writeByte((Byte) value);
+        } else if (value instanceof Character) {
+            out.writeByte(CHARACTER);
+            out.writeChar((Character) value);
+        } else if (value.getClass() == Date.class) {
+            out.writeByte(DATE);
+            out.writeLong(((Date) value).getTime());
+        } else {
+            Serializer<Object> serializer = (Serializer<Object>) lookupSerializer(value.getClass());
+            if (serializer != null) {
+                out.writeByte(CUSTOM);
+                writeString(serializer.getType().getName(), out);
+                serializer.write(value, out);
+            } else {
+                byte[] bytes = serialize(value);
+                out.writeByte(SERIALIZED);
+                out.writeInt(bytes.length);
+                out.write(bytes);
+            }
+        }
+    }
+
+    Object readValue(CamelContext camelContext, DataInput in) throws IOException {
+        byte type = in.readByte();
+        switch (type) {
+        case NULL:
+            return null;
+        case STRING:
+            return readString(in);
+        case BYTES:
+            byte[] bytes = new byte[in.readInt()];
+            in.readFully(bytes);
+            return bytes;
+        case INTEGER:
+            return in.readInt();
+        case LONG:
+            return in.readLong();
+        case BOOLEAN:
+            return in.readBoolean();
+        case DOUBLE:
+            return in.readDouble();
+        case FLOAT:
+            return in.readFloat();
+        case SHORT:
+            return in.readShort();
+        case BYTE:
+            return in.readByte();
+        case CHARACTER:
+            return in.readChar();
+        case DATE:
+            return new Date(in.readLong());
+        case CUSTOM:
+            String name = readString(in);
+            Serializer<?> serializer = serializers.get(name);
+            if (serializer == null) {
+                throw new IOException("No serializer added for type: " + name);
+            }
+            return serializer.read(in);
+        case SERIALIZED:
+            byte[] data = new byte[in.readInt()];
+            in.readFully(data);
+            return deserialize(camelContext, data);
+        default:
+            throw new IOException("Unknown type: " + type + " in the binary exchange format");
+        }
+    }
+
+    private Serializer<?> lookupSerializer(Class<?> type) {
+        if (serializers.isEmpty()) {
+            return null;
+        }
+        Serializer<?> answer = serializers.get(type.getName());
+        if (answer == null) {
+            for (Serializer<?> serializer : serializerList) {
+                if (serializer.getType().isAssignableFrom(type)) {
+                    return serializer;
+                }
+            }
+        }
+        return answer;
+    }
+
+    private static byte[] serialize(Object value) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        ObjectOutputStream out = new ObjectOutputStream(bytes);
+        out.writeObject(value);
+        out.close();
+        return bytes.toByteArray();
+    }
+
+    private static Object deserialize(CamelContext camelContext, byte[] data) throws IOException {
+        ObjectInputStream in = new CamelObjectInputStream(new ByteArrayInputStream(data), camelContext);
+        try {
+            return in.readObject();
+        } catch (ClassNotFoundException e) {
+            throw new IOException("Cannot deserialize object", e);
+        } finally {
+            IOHelper.close(in);
+        }
+    }
+
+}
@@ -211,6 +211,8 @@ public class DefaultCamelContext extends ServiceSupport implements ModelCamelCon
     private Boolean autoStartup = Boolean.TRUE;
     private Boolean trace = Boolean.FALSE;
     private Boolean messageHistory = Boolean.TRUE;
+    private Integer messageHistorySampleRate;
+    private Long messageHistorySamplePeriod;
     private Boolean streamCache = Boolean.FALSE;
     private Boolean handleFault = Boolean.FALSE;
     private Boolean disableJMX = Boolean.FALSE;
@@ -2392,6 +2394,22 @@ public class DefaultCamelContext extends ServiceSupport implements ModelCamelCon
         this.messageHistory = messageHistory;
     }
 
+    public Integer getMessageHistorySampleRate() {
+        return messageHistorySampleRate;
+    }
+
+    public void setMessageHistorySampleRate(Integer messageHistorySampleRate) {
+        this.messageHistorySampleRate = messageHistorySampleRate;
+    }
+
+    public Long getMessageHistorySamplePeriod() {
+        return messageHistorySamplePeriod;
+    }
+
+    public void setMessageHistorySamplePeriod(Long messageHistorySamplePeriod) {
+        this.messageHistorySamplePeriod = messageHistorySamplePeriod;
+    }
+
     public Boolean isHandleFault() {
         return handleFault;
     }
@@ -3894,7 +3912,7 @@ public class DefaultCamelContext extends ServiceSupport implements ModelCamelCon
             // either "Production" or "Development"
             return new JavaUuidGenerator();
         } else {
-            return new ActiveMQUuidGenerator();
+            return new StripedUuidGenerator();
         }
     }
 
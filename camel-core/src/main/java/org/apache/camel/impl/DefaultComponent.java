@@ -18,8 +18,11 @@ package org.apache.camel.impl;
 
 import java.net.URI;
 import java.util.ArrayList;
+import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 
@@ -28,7 +31,10 @@ import org.apache.camel.Component;
 import org.apache.camel.ComponentConfiguration;
 import org.apache.camel.Endpoint;
 import org.apache.camel.EndpointConfiguration;
+import org.apache.camel.NoTypeConversionAvailableException;
 import org.apache.camel.ResolveEndpointFailedException;
+import org.apache.camel.spi.ClassResolver;
+import org.apache.camel.spi.PropertyConfigurer;
 import org.apache.camel.support.ServiceSupport;
 import org.apache.camel.util.CamelContextHelper;
 import org.apache.camel.util.EndpointHelper;
@@ -47,6 +53,13 @@ import org.slf4j.LoggerFactory;
 public abstract class DefaultComponent extends ServiceSupport implements Component {
     private static final Logger LOG = LoggerFactory.getLogger(DefaultComponent.class);
 
+    private static final PropertyConfigurer NO_CONFIGURER = new PropertyConfigurer() {
+        public boolean configure(CamelContext camelContext, Object target, String name, Object value) {
+            return false;
+        }
+    };
+
+    private final ConcurrentMap<Class<?>, PropertyConfigurer> configurers = new ConcurrentHashMap<Class<?>, PropertyConfigurer>();
     private CamelContext camelContext;
 
     public DefaultComponent() {
@@ -260,7 +273,70 @@ public abstract class DefaultComponent extends ServiceSupport implements Compone
     protected void setProperties(Object bean, Map<String, Object> parameters) throws Exception {        
         // set reference properties first as they use # syntax that fools the regular properties setter
         EndpointHelper.setReferenceProperties(getCamelContext(), bean, parameters);
-        EndpointHelper.setProperties(getCamelContext(), bean, parameters);
+        // use the generated configurer (if any) to set the options without reflection
+        PropertyConfigurer configurer = resolvePropertyConfigurer(bean.getClass());
+        if (configurer != null) {
+            setProperties(configurer, bean, parameters);
+        }
+        // and fallback to introspection for any options left
+        if (!parameters.isEmpty()) {
+            EndpointHelper.setProperties(getCamelContext(), bean, parameters);
+        }
+    }
+
+    private void setProperties(PropertyConfigurer configurer, Object bean, Map<String, Object> parameters) throws Exception {
+        Iterator<Map.Entry<String, Object>> it = parameters.entrySet().iterator();
+        while (it.hasNext()) {
+            Map.Entry<String, Object> entry = it.next();
+            Object value = entry.getValue();
+            // null and reference values are left for the introspection which has special handling for these
+            if (value == null || (value instanceof String && EndpointHelper.isReferenceParameter((String) value))) {
+                continue;
+            }
+            try {
+                if (configurer.configure(getCamelContext(), bean, entry.getKey(), value)) {
+                    it.remove();
+                }
+            } catch (NoTypeConversionAvailableException e) {
+                // the value could not be converted so the setter was not called,
+                // leave the option for the introspection which may find another setter or reports the failure
+                LOG.trace("Cannot configure option {} using configurer {} due {}", new Object[]{entry.getKey(), configurer, e.getMessage()});
+            }
+            // any other exception is thrown by the setter, which should not be called again using introspection
+        }
+    }
+
+    /**
+     * Resolves the generated {@link PropertyConfigurer} for the given type, which is the class with the same name
+     * and a <tt>Configurer</tt> suffix, looking up the class hierarchy.
+     *
+     * @param type  the type of the bean to configure
+     * @return the configurer, or <tt>null</tt> if there is no configurer for the type
+     */
+    protected PropertyConfigurer resolvePropertyConfigurer(Class<?> type) throws Exception {
+        PropertyConfigurer answer = configurers.get(type);
+        if (answer == null) {
+            ClassResolver resolver = getCamelContext().getClassResolver();
+            if (resolver == null) {
+                // such as a mocked CamelContext, then use introspection
+                return null;
+            }
+            answer = NO_CONFIGURER;
+            for (Class<?> clazz = type; clazz != null && clazz != Object.class; clazz = clazz.getSuperclass()) {
+                ClassLoader loader = clazz.getClassLoader();
+                if (loader == null) {
+                    break;
+                }
+                Class<?> configurerType = resolver.resolveClass(clazz.getName() + "Configurer", loader);
+                if (configurerType != null && PropertyConfigurer.class.isAssignableFrom(configurerType)) {
+                    answer = (PropertyConfigurer) getCamelContext().getInjector().newInstance(configurerType);
+                    LOG.debug("Using configurer {} for {}", configurerType.getName(), type.getName());
+                    break;
+                }
+            }
+            configurers.putIfAbsent(type, answer);
+        }
+        return answer != NO_CONFIGURER ? answer : null;
     }
 
     /**
@@ -16,12 +16,16 @@
  */
 package org.apache.camel.impl;
 
+import java.io.DataInput;
+import java.io.DataOutput;
 import java.io.File;
+import java.io.IOException;
 import java.io.Serializable;
 import java.util.Collection;
 import java.util.LinkedHashMap;
 import java.util.Map;
 
+import org.apache.camel.CamelContext;
 import org.apache.camel.Exchange;
 import org.apache.camel.RuntimeExchangeException;
 import org.apache.camel.WrappedFile;
@@ -169,6 +173,38 @@ public class DefaultExchangeHolder implements Serializable {
         payload.properties.put(key, property);
     }
 
+    /**
+     * Writes this holder using the binary format of the given codec.
+     */
+    void writeTo(BinaryExchangeCodec codec, DataOutput out) throws IOException {
+        codec.writeString(exchangeId, out);
+        codec.writeValue(inBody, out);
+        codec.writeValue(outBody, out);
+        codec.writeValue(inFaultFlag, out);
+        codec.writeValue(outFaultFlag, out);
+        codec.writeMap(inHeaders, out);
+        codec.writeMap(outHeaders, out);
+        codec.writeMap(properties, out);
+        codec.writeValue(exception, out);
+    }
+
+    /**
+     * Reads a holder written in the binary format of the given codec.
+     */
+    static DefaultExchangeHolder readFrom(BinaryExchangeCodec codec, CamelContext context, DataInput in) throws IOException {
+        DefaultExchangeHolder payload = new DefaultExchangeHolder();
+        payload.exchangeId = codec.readString(in);
+        payload.inBody = codec.readValue(context, in);
+        payload.outBody = codec.readValue(context, in);
+        payload.inFaultFlag = (Boolean) codec.readValue(context, in);
+        payload.outFaultFlag = (Boolean) codec.readValue(context, in);
+        payload.inHeaders = codec.readMap(context, in);
+        payload.outHeaders = codec.readMap(context, in);
+        payload.properties = codec.readMap(context, in);
+        payload.exception = (Exception) codec.readValue(context, in);
+        return payload;
+    }
+
     public String toString() {
         StringBuilder sb = new StringBuilder("DefaultExchangeHolder[exchangeId=").append(exchangeId);
         sb.append("inBody=").append(inBody).append(", outBody=").append(outBody);
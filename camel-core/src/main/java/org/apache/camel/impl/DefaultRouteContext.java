@@ -60,6 +60,8 @@ public class DefaultRouteContext implements RouteContext {
     private boolean routeAdded;
     private Boolean trace;
     private Boolean messageHistory;
+    private Integer messageHistorySampleRate;
+    private Long messageHistorySamplePeriod;
     private Boolean streamCache;
     private Boolean handleFault;
     private Long delay;
@@ -163,6 +165,13 @@ public class DefaultRouteContext implements RouteContext {
             CamelInternalProcessor internal = new CamelInternalProcessor(target);
             internal.addAdvice(new CamelInternalProcessor.UnitOfWorkProcessorAdvice(this));
 
+            // only record message history for a sample of the exchanges if configured
+            int sampleRate = getMessageHistorySampleRate() != null ? getMessageHistorySampleRate() : 1;
+            long samplePeriod = getMessageHistorySamplePeriod() != null ? getMessageHistorySamplePeriod() : 0;
+            if (isMessageHistory() && (sampleRate > 1 || samplePeriod > 0)) {
+                internal.addAdvice(new CamelInternalProcessor.MessageHistorySamplingAdvice(sampleRate, samplePeriod));
+            }
+
             // and then optionally add route policy processor if a custom policy is set
             List<RoutePolicy> routePolicyList = getRoutePolicyList();
             if (routePolicyList != null && !routePolicyList.isEmpty()) {
@@ -283,6 +292,32 @@ public class DefaultRouteContext implements RouteContext {
         }
     }
 
+    public void setMessageHistorySampleRate(Integer messageHistorySampleRate) {
+        this.messageHistorySampleRate = messageHistorySampleRate;
+    }
+
+    public Integer getMessageHistorySampleRate() {
+        if (messageHistorySampleRate != null) {
+            return messageHistorySampleRate;
+        } else {
+            // fallback to the option from camel context
+            return getCamelContext().getMessageHistorySampleRate();
+        }
+    }
+
+    public void setMessageHistorySamplePeriod(Long messageHistorySamplePeriod) {
+        this.messageHistorySamplePeriod = messageHistorySamplePeriod;
+    }
+
+    public Long getMessageHistorySamplePeriod() {
+        if (messageHistorySamplePeriod != null) {
+            return messageHistorySamplePeriod;
+        } else {
+            // fallback to the option from camel context
+            return getCamelContext().getMessageHistorySamplePeriod();
+        }
+    }
+
     public void setStreamCaching(Boolean cache) {
         this.streamCache = cache;
     }
@@ -18,10 +18,11 @@ package org.apache.camel.impl;
 
 import java.util.ArrayList;
 import java.util.Collection;
-import java.util.concurrent.ArrayBlockingQueue;
-import java.util.concurrent.BlockingQueue;
+import java.util.Queue;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
 import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import org.apache.camel.spi.ServicePool;
 import org.apache.camel.support.ServiceSupport;
@@ -31,14 +32,58 @@ import org.slf4j.LoggerFactory;
 
 /**
  * Default implementation to inherit for a basic service pool.
+ * <p/>
+ * The pool is lock-free, where each key has its own queue of free services, so services for different keys
+ * (and services for the same key) can be acquired and released concurrently.
  *
  * @version 
  */
 public abstract class DefaultServicePool<Key, Service> extends ServiceSupport implements ServicePool<Key, Service> {
     protected final Logger log = LoggerFactory.getLogger(getClass());
-    protected final ConcurrentMap<Key, BlockingQueue<Service>> pool = new ConcurrentHashMap<Key, BlockingQueue<Service>>();
+    protected final ConcurrentMap<Key, PooledServices<Service>> pool = new ConcurrentHashMap<Key, PooledServices<Service>>();
     protected int capacity = 100;
 
+    /**
+     * The free services for a given key.
+     */
+    protected static final class PooledServices<Service> {
+        private final Queue<Service> services = new ConcurrentLinkedQueue<Service>();
+        private final AtomicInteger size = new AtomicInteger();
+
+        boolean offer(Service service, int capacity) {
+            // reserve a slot before adding so we never exceed the capacity
+            while (true) {
+                int current = size.get();
+                if (current >= capacity) {
+                    return false;
+                }
+                if (size.compareAndSet(current, current + 1)) {
+                    services.add(service);
+                    return true;
+                }
+            }
+        }
+
+        Service poll() {
+            Service answer = services.poll();
+            if (answer != null) {
+                size.decrementAndGet();
+            }
+            return answer;
+        }
+
+        int size() {
+            return size.get();
+        }
+
+        void drainTo(Collection<Service> collection) {
+            Service service;
+            while ((service = poll()) != null) {
+                collection.add(service);
+            }
+        }
+    }
+
     protected DefaultServicePool() {
     }
 
@@ -54,19 +99,22 @@ public abstract class DefaultServicePool<Key, Service> extends ServiceSupport im
         this.capacity = capacity;
     }
 
-    public synchronized int size() {
+    public int size() {
         int size = 0;
-        for (BlockingQueue<Service> entry : pool.values()) {
+        for (PooledServices<Service> entry : pool.values()) {
             size += entry.size();
         }
         return size;
     }
 
-    public synchronized Service addAndAcquire(Key key, Service service) {
-        BlockingQueue<Service> entry = pool.get(key);
+    public Service addAndAcquire(Key key, Service service) {
+        PooledServices<Service> entry = pool.get(key);
         if (entry == null) {
-            entry = new ArrayBlockingQueue<Service>(capacity);
-            pool.put(key, entry);
+            entry = new PooledServices<Service>();
+            PooledServices<Service> existing = pool.putIfAbsent(key, entry);
+            if (existing != null) {
+                entry = existing;
+            }
         }
         log.trace("AddAndAcquire key: {} service: {}", key, service);
 
@@ -77,23 +125,23 @@ public abstract class DefaultServicePool<Key, Service> extends ServiceSupport im
         return service;
     }
 
-    public synchronized Service acquire(Key key) {
-        BlockingQueue<Service> services = pool.get(key);
-        if (services == null || services.isEmpty()) {
+    public Service acquire(Key key) {
+        PooledServices<Service> services = pool.get(key);
+        Service answer = services != null ? services.poll() : null;
+        if (answer == null) {
             log.trace("No free services in pool to acquire for key: {}", key);
             return null;
         }
 
-        Service answer = services.poll();
         log.trace("Acquire: {} service: {}", key, answer);
         return answer;
     }
 
-    public synchronized void release(Key key, Service service) {
+    public void release(Key key, Service service) {
         log.trace("Release: {} service: {}", key, service);
-        BlockingQueue<Service> services = pool.get(key);
-        if (services != null) {
-            services.add(service);
+        PooledServices<Service> services = pool.get(key);
+        if (services != null && !services.offer(service, capacity)) {
+            throw new IllegalStateException("Queue full");
         }
     }
 
@@ -107,11 +155,10 @@ public abstract class DefaultServicePool<Key, Service> extends ServiceSupport im
 
     protected void doStop() throws Exception {
         log.debug("Stopping service pool: {}", this);
-        for (BlockingQueue<Service> entry : pool.values()) {
+        for (PooledServices<Service> entry : pool.values()) {
             Collection<Service> values = new ArrayList<Service>();
             entry.drainTo(values);
             ServiceHelper.stopServices(values);
-            entry.clear();
         }
         pool.clear();
     }
@@ -16,7 +16,10 @@
  */
 package org.apache.camel.impl;
 
+import java.util.Collections;
 import java.util.Map;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
 
 import org.apache.camel.AsyncCallback;
 import org.apache.camel.AsyncProcessor;
@@ -45,16 +48,27 @@ import org.slf4j.LoggerFactory;
 
 /**
  * Cache containing created {@link Producer}.
+ * <p/>
+ * Looking up cached and pooled producers is lock-free, so many threads can send concurrently (for example
+ * when using recipient list, routing slip or toD). Only creating a new producer is guarded by a lock,
+ * which is striped by the endpoint uri, to ensure only one singleton producer is created per endpoint.
  *
  * @version 
  */
 public class ProducerCache extends ServiceSupport {
     private static final Logger LOG = LoggerFactory.getLogger(ProducerCache.class);
+    private static final int CREATE_LOCKS = 16;
 
     private final CamelContext camelContext;
     private final ServicePool<Endpoint, Producer> pool;
     private final Map<String, Producer> producers;
     private final Object source;
+    private final Object[] createLocks = new Object[CREATE_LOCKS];
+    private final AtomicLong poolHits = new AtomicLong();
+    private final AtomicLong poolMisses = new AtomicLong();
+    private final AtomicLong acquireCount = new AtomicLong();
+    private final AtomicLong acquireTotalTime = new AtomicLong();
+    private final AtomicLong acquireMaxTime = new AtomicLong();
 
     private EndpointUtilizationStatistics statistics;
     private boolean eventNotifierEnabled = true;
@@ -77,7 +91,15 @@ public class ProducerCache extends ServiceSupport {
         this.source = source;
         this.camelContext = camelContext;
         this.pool = producerServicePool;
-        this.producers = cache;
+        // the cache is read without locking so it must be thread-safe
+        if (cache instanceof LRUCache || cache instanceof ConcurrentMap) {
+            this.producers = cache;
+        } else {
+            this.producers = Collections.synchronizedMap(cache);
+        }
+        for (int i = 0; i < CREATE_LOCKS; i++) {
+            createLocks[i] = new Object();
+        }
         if (producers instanceof LRUCache) {
             maxCacheSize = ((LRUCache) producers).getMaxCacheSize();
         }
@@ -417,33 +439,14 @@ public class ProducerCache extends ServiceSupport {
         });
     }
 
-    protected synchronized Producer doGetProducer(Endpoint endpoint, boolean pooled) {
+    protected Producer doGetProducer(Endpoint endpoint, boolean pooled) {
         String key = endpoint.getEndpointUri();
         Producer answer = producers.get(key);
-        if (pooled && answer == null) {
-            // try acquire from connection pool
-            answer = pool.acquire(endpoint);
-        }
-
         if (answer == null) {
-            // create a new producer
-            try {
-                answer = endpoint.createProducer();
-                // add as service which will also start the service
-                // (false => we and handling the lifecycle of the producer in this cache)
-                getCamelContext().addService(answer, false);
-            } catch (Exception e) {
-                throw new FailedToCreateProducerException(endpoint, e);
-            }
-
-            // add producer to cache or pool if applicable
-            if (pooled && answer instanceof ServicePoolAware) {
-                LOG.debug("Adding to producer service pool with key: {} for producer: {}", endpoint, answer);
-                answer = pool.addAndAcquire(endpoint, answer);
-            } else if (answer.isSingleton()) {
-                LOG.debug("Adding to producer cache with key: {} for producer: {}", endpoint, answer);
-                producers.put(key, answer);
-            }
+            // only time the slow path, so a cache hit does not update any shared counters
+            long start = System.nanoTime();
+            answer = doAcquireProducer(endpoint, key, pooled);
+            recordAcquireTime(System.nanoTime() - start);
         }
 
         if (answer != null) {
@@ -456,6 +459,63 @@ public class ProducerCache extends ServiceSupport {
         return answer;
     }
 
+    private Producer doAcquireProducer(Endpoint endpoint, String key, boolean pooled) {
+        Producer answer = null;
+        if (pooled) {
+            // try acquire from connection pool
+            answer = pool.acquire(endpoint);
+            if (answer != null) {
+                poolHits.incrementAndGet();
+            } else {
+                poolMisses.incrementAndGet();
+            }
+        }
+
+        if (answer == null) {
+            // only one thread should create a singleton producer for the same endpoint
+            synchronized (createLocks[(key.hashCode() & 0x7fffffff) % CREATE_LOCKS]) {
+                // another thread may have created the producer while we waited for the lock
+                answer = producers.get(key);
+                if (answer == null) {
+                    answer = doCreateProducer(endpoint, key, pooled);
+                }
+            }
+        }
+        return answer;
+    }
+
+    private Producer doCreateProducer(Endpoint endpoint, String key, boolean pooled) {
+        Producer answer;
+        // create a new producer
+        try {
+            answer = endpoint.createProducer();
+            // add as service which will also start the service
+            // (false => we and handling the lifecycle of the producer in this cache)
+            getCamelContext().addService(answer, false);
+        } catch (Exception e) {
+            throw new FailedToCreateProducerException(endpoint, e);
+        }
+
+        // add producer to cache or pool if applicable
+        if (pooled && answer instanceof ServicePoolAware) {
+            LOG.debug("Adding to producer service pool with key: {} for producer: {}", endpoint, answer);
+            answer = pool.addAndAcquire(endpoint, answer);
+        } else if (answer.isSingleton()) {
+            LOG.debug("Adding to producer cache with key: {} for producer: {}", endpoint, answer);
+            producers.put(key, answer);
+        }
+        return answer;
+    }
+
+    private void recordAcquireTime(long time) {
+        acquireCount.incrementAndGet();
+        acquireTotalTime.addAndGet(time);
+        long max = acquireMaxTime.get();
+        while (time > max && !acquireMaxTime.compareAndSet(max, time)) {
+            max = acquireMaxTime.get();
+        }
+    }
+
     protected void doStart() throws Exception {
         if (extendedStatistics) {
             int max = maxCacheSize == 0 ? CamelContextHelper.getMaximumCachePoolSize(camelContext) : maxCacheSize;
@@ -560,6 +620,44 @@ public class ProducerCache extends ServiceSupport {
         return evicted;
     }
 
+    /**
+     * Gets the number of times a pooled producer was acquired from the producer service pool
+     *
+     * @return the pool hits
+     */
+    public long getPoolHits() {
+        return poolHits.get();
+    }
+
+    /**
+     * Gets the number of times the producer service pool had no free producer (the pool was exhausted),
+     * which means a new producer had to be created
+     *
+     * @return the pool misses
+     */
+    public long getPoolMisses() {
+        return poolMisses.get();
+    }
+
+    /**
+     * Gets the mean time in nanos to acquire a producer which was not cached (either from the pool or by creating a new producer)
+     *
+     * @return the mean time in nanos
+     */
+    public long getMeanAcquireTime() {
+        long count = acquireCount.get();
+        return count > 0 ? acquireTotalTime.get() / count : 0;
+    }
+
+    /**
+     * Gets the max time in nanos to acquire a producer which was not cached (either from the pool or by creating a new producer)
+     *
+     * @return the max time in nanos
+     */
+    public long getMaxAcquireTime() {
+        return acquireMaxTime.get();
+    }
+
     /**
      * Resets the cache statistics
      */
@@ -571,12 +669,17 @@ public class ProducerCache extends ServiceSupport {
         if (statistics != null) {
             statistics.clear();
         }
+        poolHits.set(0);
+        poolMisses.set(0);
+        acquireCount.set(0);
+        acquireTotalTime.set(0);
+        acquireMaxTime.set(0);
     }
 
     /**
      * Purges this cache
      */
-    public synchronized void purge() {
+    public void purge() {
         producers.clear();
         pool.purge();
         if (statistics != null) {
@@ -0,0 +1,55 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.camel.impl;
+
+import org.apache.camel.CamelContext;
+import org.apache.camel.NoTypeConversionAvailableException;
+import org.apache.camel.spi.PropertyConfigurer;
+import org.apache.camel.util.ObjectHelper;
+
+/**
+ * Base class used by the generated {@link PropertyConfigurer}s.
+ *
+ * @version 
+ */
+public abstract class PropertyConfigurerSupport implements PropertyConfigurer {
+
+    /**
+     * Converts the value to the type of the option, using the type converters if the value is not already of the given type.
+     * <p/>
+     * Primitive types should be given as is (eg <tt>long.class</tt>) as there are type converters only for the primitive types.
+     *
+     * @param camelContext the camel context
+     * @param type         the type of the option
+     * @param value        the value
+     * @return the value converted to the type
+     * @throws NoTypeConversionAvailableException is thrown if the value could not be converted
+     */
+    @SuppressWarnings("unchecked")
+    public static <T> T property(CamelContext camelContext, Class<T> type, Object value) throws NoTypeConversionAvailableException {
+        if (value == null || ObjectHelper.isAssignableFrom(type, value.getClass())) {
+            return (T) value;
+        }
+        try {
+            return camelContext.getTypeConverter().mandatoryConvertTo(type, value);
+        } catch (RuntimeException e) {
+            // the type converter failed, so the setter is not called
+            throw new NoTypeConversionAvailableException(value, type, e);
+        }
+    }
+
+}
@@ -0,0 +1,92 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.camel.impl;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * {@link org.apache.camel.spi.UuidGenerator} which generates the same kind of ids as
+ * {@link ActiveMQUuidGenerator} but scales better when many threads generates ids concurrently.
+ * <p/>
+ * The sequence is split into a number of stripes, where each thread increments the counter of its
+ * own stripe, so the threads do not contend on a single counter. Each stripe counts its own share
+ * of the numbers, so the ids remain unique, but they are not in strict sequence across threads.
+ * <p/>
+ * The ids are formatted by copying the precomputed seed and the digits of the sequence number
+ * into a single char array.
+ */
+public class StripedUuidGenerator extends ActiveMQUuidGenerator {
+
+    // spread the stripes so each counter is on its own cache line
+    private static final int PADDING = 8;
+    private static final int MAX_STRIPES = 64;
+
+    private final char[] seed;
+    private final int stripes;
+    private final AtomicLongArray counters;
+
+    public StripedUuidGenerator(String prefix) {
+        super(prefix);
+        this.seed = getSeed().toCharArray();
+        this.stripes = stripes(Runtime.getRuntime().availableProcessors());
+        this.counters = new AtomicLongArray(stripes * PADDING);
+    }
+
+    public StripedUuidGenerator() {
+        super();
+        this.seed = getSeed().toCharArray();
+        this.stripes = stripes(Runtime.getRuntime().availableProcessors());
+        this.counters = new AtomicLongArray(stripes * PADDING);
+    }
+
+    @Override
+    public String generateUuid() {
+        int stripe = (int) Thread.currentThread().getId() & (stripes - 1);
+        long count = counters.getAndIncrement(stripe * PADDING);
+        // stripe n uses the numbers n+1, n+1+stripes, n+1+2*stripes etc.
+        long number = count * stripes + stripe + 1;
+
+        char[] chars = new char[seed.length + 19];
+        System.arraycopy(seed, 0, chars, 0, seed.length);
+        int length = seed.length + digits(number);
+        for (int pos = length - 1; pos >= seed.length; pos--) {
+            chars[pos] = (char) ('0' + number % 10);
+            number /= 10;
+        }
+        return new String(chars, 0, length);
+    }
+
+    private static int digits(long number) {
+        int answer = 1;
+        while (number >= 10) {
+            number /= 10;
+            answer++;
+        }
+        return answer;
+    }
+
+    /**
+     * The number of stripes to use, which is a power of two so the stripe can be selected by masking.
+     */
+    private static int stripes(int processors) {
+        int answer = 1;
+        while (answer < processors * 2 && answer < MAX_STRIPES) {
+            answer <<= 1;
+        }
+        return answer;
+    }
+}
@@ -22,6 +22,7 @@ import org.apache.camel.Predicate;
 import org.apache.camel.builder.ExpressionBuilder;
 import org.apache.camel.spi.Language;
 import org.apache.camel.util.ExpressionToPredicateAdapter;
+import org.apache.camel.util.LiteralTokenIterator;
 import org.apache.camel.util.ObjectHelper;
 
 /**
@@ -47,6 +48,7 @@ public class TokenizeLanguage implements Language, IsSingleton {
     private boolean xml;
     private boolean includeTokens;
     private int group;
+    private int parallelism;
 
     public static Expression tokenize(String token) {
         return tokenize(token, false);
@@ -104,6 +106,9 @@ public class TokenizeLanguage implements Language, IsSingleton {
         if (isXml() && (endToken != null || includeTokens)) {
             throw new IllegalArgumentException("Cannot have both xml and pair tokenizer enabled.");
         }
+        if (parallelism > 0 && (isXml() || endToken != null || regex)) {
+            throw new IllegalArgumentException("Cannot have parallel tokenizer enabled with xml, pair or regex tokenizer.");
+        }
 
         Expression answer = null;
         if (isXml()) {
@@ -117,6 +122,11 @@ public class TokenizeLanguage implements Language, IsSingleton {
             Expression exp = headerName == null ? ExpressionBuilder.bodyExpression() : ExpressionBuilder.headerExpression(headerName);
             if (regex) {
                 answer = ExpressionBuilder.regexTokenizeExpression(exp, token);
+            } else if (parallelism > 0) {
+                answer = ExpressionBuilder.tokenizeInParallelExpression(exp, token, parallelism);
+            } else if (group > 0 && LiteralTokenIterator.isLiteral(token)) {
+                // the literal tokenizer can group the tokens on its own
+                return ExpressionBuilder.tokenizeExpression(exp, token, group);
             } else {
                 answer = ExpressionBuilder.tokenizeExpression(exp, token);
             }
@@ -203,6 +213,14 @@ public class TokenizeLanguage implements Language, IsSingleton {
         this.group = group;
     }
 
+    public int getParallelism() {
+        return parallelism;
+    }
+
+    public void setParallelism(int parallelism) {
+        this.parallelism = parallelism;
+    }
+
     public boolean isSingleton() {
         return false;
     }
@@ -118,6 +118,22 @@ public class ManagedBacklogTracer implements ManagedBacklogTracerMBean {
         backlogTracer.setBodyMaxChars(bodyMaxChars);
     }
 
+    public int getTraceSampleRate() {
+        return backlogTracer.getTraceSampleRate();
+    }
+
+    public void setTraceSampleRate(int traceSampleRate) {
+        backlogTracer.setTraceSampleRate(traceSampleRate);
+    }
+
+    public long getTraceSamplePeriod() {
+        return backlogTracer.getTraceSamplePeriod();
+    }
+
+    public void setTraceSamplePeriod(long traceSamplePeriod) {
+        backlogTracer.setTraceSamplePeriod(traceSamplePeriod);
+    }
+
     public boolean isBodyIncludeStreams() {
         return backlogTracer.isBodyIncludeStreams();
     }
@@ -457,6 +457,24 @@ public class ManagedErrorHandler implements ManagedErrorHandlerMBean {
         redelivery.getRedeliveryPolicy().setAllowRedeliveryWhileStopping(allow);
     }
 
+    public Boolean getAsyncDelayedRedelivery() {
+        if (!isSupportRedelivery()) {
+            return null;
+        }
+
+        RedeliveryErrorHandler redelivery = (RedeliveryErrorHandler) errorHandler;
+        return redelivery.getRedeliveryPolicy().isAsyncDelayedRedelivery();
+    }
+
+    public void setAsyncDelayedRedelivery(Boolean async) {
+        if (!isSupportRedelivery()) {
+            throw new IllegalArgumentException("This error handler does not support redelivery");
+        }
+
+        RedeliveryErrorHandler redelivery = (RedeliveryErrorHandler) errorHandler;
+        redelivery.getRedeliveryPolicy().setAsyncDelayedRedelivery(async);
+    }
+
     public Integer getPendingRedeliveryCount() {
         if (!isSupportRedelivery()) {
             return null;
@@ -466,4 +484,13 @@ public class ManagedErrorHandler implements ManagedErrorHandlerMBean {
         return redelivery.getPendingRedeliveryCount();
     }
 
+    public Integer getScheduledRedeliveryCount() {
+        if (!isSupportRedelivery()) {
+            return null;
+        }
+
+        RedeliveryErrorHandler redelivery = (RedeliveryErrorHandler) errorHandler;
+        return redelivery.getScheduledRedeliveryCount();
+    }
+
 }
@@ -64,6 +64,22 @@ public class ManagedProducerCache extends ManagedService implements ManagedProdu
         return producerCache.getEvicted();
     }
 
+    public Long getPoolHits() {
+        return producerCache.getPoolHits();
+    }
+
+    public Long getPoolMisses() {
+        return producerCache.getPoolMisses();
+    }
+
+    public Long getMeanAcquireTime() {
+        return producerCache.getMeanAcquireTime();
+    }
+
+    public Long getMaxAcquireTime() {
+        return producerCache.getMaxAcquireTime();
+    }
+
     public void resetStatistics() {
         producerCache.resetCacheStatistics();
     }
@@ -467,6 +467,18 @@ public class OnExceptionDefinition extends ProcessorDefinition<OnExceptionDefini
         return this;
     }
 
+    /**
+     * Controls whether to use asynchronous delayed redelivery, which is enabled by default.
+     *
+     * @param asyncDelayedRedelivery <tt>true</tt> to schedule redeliveries, <tt>false</tt> to block the current thread while waiting
+     * @see org.apache.camel.processor.RedeliveryPolicy#setAsyncDelayedRedelivery(boolean)
+     * @return the builder
+     */
+    public OnExceptionDefinition asyncDelayedRedelivery(boolean asyncDelayedRedelivery) {
+        getOrCreateRedeliveryPolicy().asyncDelayedRedelivery(asyncDelayedRedelivery);
+        return this;
+    }
+
     /**
      * Sets the logging level to use when retries has exhausted
      *
@@ -935,7 +947,7 @@ public class OnExceptionDefinition extends ProcessorDefinition<OnExceptionDefini
         if (getRedeliveryPolicy() != null) {
             return getRedeliveryPolicy().isAsyncDelayedRedelivery(context);
         }
-        return false;
+        return true;
     }
 
     protected RedeliveryPolicyDefinition getOrCreateRedeliveryPolicy() {
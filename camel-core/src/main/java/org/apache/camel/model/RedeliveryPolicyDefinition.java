@@ -101,9 +101,7 @@ public class RedeliveryPolicyDefinition {
                 answer.setRedeliveryDelay(CamelContextHelper.parseLong(context, redeliveryDelay));
             }
             if (asyncDelayedRedelivery != null) {
-                if (CamelContextHelper.parseBoolean(context, asyncDelayedRedelivery)) {
-                    answer.asyncDelayedRedelivery();
-                }
+                answer.setAsyncDelayedRedelivery(CamelContextHelper.parseBoolean(context, asyncDelayedRedelivery));
             }
             if (retriesExhaustedLogLevel != null) {
                 answer.setRetriesExhaustedLogLevel(retriesExhaustedLogLevel);
@@ -189,6 +187,17 @@ public class RedeliveryPolicyDefinition {
         return this;
     }
 
+    /**
+     * Controls whether to use asynchronous delayed redelivery, which is enabled by default.
+     *
+     * @param asyncDelayedRedelivery <tt>true</tt> to schedule redeliveries, <tt>false</tt> to block the current thread while waiting
+     * @return the builder
+     */
+    public RedeliveryPolicyDefinition asyncDelayedRedelivery(boolean asyncDelayedRedelivery) {
+        setAsyncDelayedRedelivery(Boolean.toString(asyncDelayedRedelivery));
+        return this;
+    }
+
     /**
      * Controls whether to allow redelivery while stopping/shutting down a route that uses error handling.
      *
@@ -614,7 +623,7 @@ public class RedeliveryPolicyDefinition {
 
     public boolean isAsyncDelayedRedelivery(CamelContext context) {
         if (getAsyncDelayedRedelivery() == null) {
-            return false;
+            return true;
         }
 
         try {
@@ -16,6 +16,7 @@
  */
 package org.apache.camel.model;
 
+import java.io.File;
 import java.util.ArrayList;
 import java.util.List;
 import javax.xml.bind.annotation.XmlAccessType;
@@ -26,6 +27,7 @@ import javax.xml.bind.annotation.XmlElements;
 import javax.xml.bind.annotation.XmlRootElement;
 import javax.xml.bind.annotation.XmlTransient;
 
+import org.apache.camel.Exchange;
 import org.apache.camel.Expression;
 import org.apache.camel.Processor;
 import org.apache.camel.model.config.BatchResequencerConfig;
@@ -36,6 +38,9 @@ import org.apache.camel.processor.CamelInternalProcessor;
 import org.apache.camel.processor.Resequencer;
 import org.apache.camel.processor.StreamResequencer;
 import org.apache.camel.processor.resequencer.ExpressionResultComparator;
+import org.apache.camel.processor.resequencer.ResequencerEngine;
+import org.apache.camel.processor.resequencer.RingBufferResequencerEngine;
+import org.apache.camel.processor.resequencer.SequenceNumberComparator;
 import org.apache.camel.spi.Metadata;
 import org.apache.camel.spi.RouteContext;
 import org.apache.camel.util.CamelContextHelper;
@@ -165,6 +170,18 @@ public class ResequenceDefinition extends ProcessorDefinition<ResequenceDefiniti
         return this;
     }
 
+    /**
+     * Sets the stream resequencer to use a sliding window (ring buffer) indexed by the sequence number
+     * @return the builder
+     */
+    public ResequenceDefinition ringBuffer() {
+        if (streamConfig == null) {
+            throw new IllegalStateException("ringBuffer() only supported for stream resequencer");
+        }
+        streamConfig.setRingBuffer(true);
+        return this;
+    }
+
     /**
      * Sets the in batch size for number of exchanges received
      * @param batchSize  the batch size
@@ -182,6 +199,41 @@ public class ResequenceDefinition extends ProcessorDefinition<ResequenceDefiniti
         return this;
     }
 
+    /**
+     * Sets the number of exchanges to keep in memory before the batch is spooled to disk.
+     * The message bodies must be serializable, and headers and properties which are not serializable are dropped.
+     * @param spoolThreshold  the number of exchanges
+     * @return the builder
+     */
+    public ResequenceDefinition spoolThreshold(int spoolThreshold) {
+        if (streamConfig != null) {
+            throw new IllegalStateException("spoolThreshold() only supported for batch resequencer");
+        }
+        // initialize batch mode as its default mode
+        if (batchConfig == null) {
+            batch();
+        }
+        batchConfig.setSpoolThreshold(spoolThreshold);
+        return this;
+    }
+
+    /**
+     * Sets the directory to use for the spool files when the batch is spooled to disk
+     * @param spoolDirectory  the directory
+     * @return the builder
+     */
+    public ResequenceDefinition spoolDirectory(String spoolDirectory) {
+        if (streamConfig != null) {
+            throw new IllegalStateException("spoolDirectory() only supported for batch resequencer");
+        }
+        // initialize batch mode as its default mode
+        if (batchConfig == null) {
+            batch();
+        }
+        batchConfig.setSpoolDirectory(spoolDirectory);
+        return this;
+    }
+
     /**
      * Sets the capacity for the stream resequencer
      *
@@ -365,7 +417,14 @@ public class ResequenceDefinition extends ProcessorDefinition<ResequenceDefiniti
         boolean isReverse = config.getReverse() != null && config.getReverse();
         boolean isAllowDuplicates = config.getAllowDuplicates() != null && config.getAllowDuplicates();
 
-        Resequencer resequencer = new Resequencer(routeContext.getCamelContext(), internal, expression, isAllowDuplicates, isReverse);
+        Resequencer resequencer;
+        if (config.getSpoolThreshold() != null && config.getSpoolThreshold() > 0) {
+            File spoolDirectory = config.getSpoolDirectory() != null ? new File(config.getSpoolDirectory()) : null;
+            resequencer = new Resequencer(routeContext.getCamelContext(), internal, expression, isAllowDuplicates, isReverse,
+                    spoolDirectory, config.getSpoolThreshold());
+        } else {
+            resequencer = new Resequencer(routeContext.getCamelContext(), internal, expression, isAllowDuplicates, isReverse);
+        }
         resequencer.setBatchSize(config.getBatchSize());
         resequencer.setBatchTimeout(config.getBatchTimeout());
         resequencer.setReverse(isReverse);
@@ -403,7 +462,19 @@ public class ResequenceDefinition extends ProcessorDefinition<ResequenceDefiniti
         }
         comparator.setExpression(expression);
 
-        StreamResequencer resequencer = new StreamResequencer(routeContext.getCamelContext(), internal, comparator, expression);
+        StreamResequencer resequencer;
+        if (config.getRingBuffer() != null && config.getRingBuffer()) {
+            if (!(comparator instanceof SequenceNumberComparator)) {
+                throw new IllegalArgumentException("The comparator must be a " + SequenceNumberComparator.class.getName()
+                        + " when using ring buffer, was: " + comparator);
+            }
+            @SuppressWarnings("unchecked")
+            SequenceNumberComparator<Exchange> numbers = (SequenceNumberComparator<Exchange>) comparator;
+            ResequencerEngine<Exchange> engine = new RingBufferResequencerEngine<Exchange>(numbers, config.getCapacity());
+            resequencer = new StreamResequencer(routeContext.getCamelContext(), internal, engine, expression);
+        } else {
+            resequencer = new StreamResequencer(routeContext.getCamelContext(), internal, comparator, expression);
+        }
         resequencer.setTimeout(config.getTimeout());
         resequencer.setCapacity(config.getCapacity());
         resequencer.setRejectOld(config.getRejectOld());
@@ -72,6 +72,8 @@ public class RouteDefinition extends ProcessorDefinition<RouteDefinition> {
     private String streamCache;
     private String trace;
     private String messageHistory;
+    private String messageHistorySampleRate;
+    private String messageHistorySamplePeriod;
     private String handleFault;
     private String delayer;
     private String autoStartup;
@@ -426,6 +428,30 @@ public class RouteDefinition extends ProcessorDefinition<RouteDefinition> {
         return this;
     }
 
+    /**
+     * Enable message history for this route, but only record the history for a sample of the messages.
+     *
+     * @param sampleRate  to record message history for 1 in every n messages
+     * @return the builder
+     */
+    public RouteDefinition messageHistory(int sampleRate) {
+        setMessageHistory("true");
+        setMessageHistorySampleRate("" + sampleRate);
+        return this;
+    }
+
+    /**
+     * Enable message history for this route, but only record the history for at most one message per period.
+     *
+     * @param samplePeriod  the period in millis, eg <tt>1000</tt> to record message history for at most one message per second
+     * @return the builder
+     */
+    public RouteDefinition messageHistorySamplePeriod(long samplePeriod) {
+        setMessageHistory("true");
+        setMessageHistorySamplePeriod("" + samplePeriod);
+        return this;
+    }
+
     /**
      * Disable message history for this route.
      *
@@ -689,6 +715,36 @@ public class RouteDefinition extends ProcessorDefinition<RouteDefinition> {
         this.messageHistory = messageHistory;
     }
 
+    /**
+     * To only record message history for 1 in every n messages, decided once per message when it is received by the route.
+     */
+    public String getMessageHistorySampleRate() {
+        return messageHistorySampleRate;
+    }
+
+    /**
+     * To only record message history for 1 in every n messages, decided once per message when it is received by the route.
+     */
+    @XmlAttribute
+    public void setMessageHistorySampleRate(String messageHistorySampleRate) {
+        this.messageHistorySampleRate = messageHistorySampleRate;
+    }
+
+    /**
+     * To only record message history for at most one message per period (in millis), decided once per message when it is received by the route.
+     */
+    public String getMessageHistorySamplePeriod() {
+        return messageHistorySamplePeriod;
+    }
+
+    /**
+     * To only record message history for at most one message per period (in millis), decided once per message when it is received by the route.
+     */
+    @XmlAttribute
+    public void setMessageHistorySamplePeriod(String messageHistorySamplePeriod) {
+        this.messageHistorySamplePeriod = messageHistorySamplePeriod;
+    }
+
     /**
      * Whether handle fault is enabled on this route.
      */
@@ -919,6 +975,20 @@ public class RouteDefinition extends ProcessorDefinition<RouteDefinition> {
                 }
             }
         }
+        if (messageHistorySampleRate != null) {
+            Integer sampleRate = CamelContextHelper.parseInteger(camelContext, getMessageHistorySampleRate());
+            if (sampleRate != null) {
+                routeContext.setMessageHistorySampleRate(sampleRate);
+                log.debug("Message history sample rate is 1 in {} on route: {}", sampleRate, getId());
+            }
+        }
+        if (messageHistorySamplePeriod != null) {
+            Long samplePeriod = CamelContextHelper.parseLong(camelContext, getMessageHistorySamplePeriod());
+            if (samplePeriod != null) {
+                routeContext.setMessageHistorySamplePeriod(samplePeriod);
+                log.debug("Message history sample period is {} millis on route: {}", samplePeriod, getId());
+            }
+        }
 
         // configure stream caching
         if (streamCache != null) {
@@ -40,6 +40,10 @@ public class BatchResequencerConfig extends ResequencerConfig {
     private Boolean reverse;
     @XmlAttribute
     private Boolean ignoreInvalidExchanges;
+    @XmlAttribute
+    private Integer spoolThreshold;
+    @XmlAttribute
+    private String spoolDirectory;
 
     /**
      * Creates a new {@link BatchResequencerConfig} instance using default
@@ -127,4 +131,29 @@ public class BatchResequencerConfig extends ResequencerConfig {
     public void setIgnoreInvalidExchanges(Boolean ignoreInvalidExchanges) {
         this.ignoreInvalidExchanges = ignoreInvalidExchanges;
     }
+
+    public Integer getSpoolThreshold() {
+        return spoolThreshold;
+    }
+
+    /**
+     * Number of exchanges to keep in memory, before the batch is spooled to disk and sorted using an external merge sort.
+     * This allows to resequence large batches with bounded memory, but requires the message bodies to be serializable,
+     * and exchanges with a message body which is not serializable are failed. Headers and properties which are not
+     * serializable are dropped from the spooled exchanges. By default the batch is kept in memory.
+     */
+    public void setSpoolThreshold(Integer spoolThreshold) {
+        this.spoolThreshold = spoolThreshold;
+    }
+
+    public String getSpoolDirectory() {
+        return spoolDirectory;
+    }
+
+    /**
+     * Directory to use for the spool files, by default the temporary directory is used.
+     */
+    public void setSpoolDirectory(String spoolDirectory) {
+        this.spoolDirectory = spoolDirectory;
+    }
 }
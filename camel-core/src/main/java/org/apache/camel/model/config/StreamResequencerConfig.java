@@ -45,6 +45,8 @@ public class StreamResequencerConfig extends ResequencerConfig {
     private String comparatorRef;
     @XmlAttribute
     private Boolean rejectOld;
+    @XmlAttribute
+    private Boolean ringBuffer;
 
     /**
      * Creates a new {@link StreamResequencerConfig} instance using default
@@ -192,4 +194,16 @@ public class StreamResequencerConfig extends ResequencerConfig {
         return rejectOld;
     }
 
+    /**
+     * Whether to resequence using a sliding window (ring buffer) of the size of the capacity, indexed by the sequence number.
+     * This scales better with many messages, but requires a comparator which provides the sequence numbers.
+     */
+    public void setRingBuffer(Boolean ringBuffer) {
+        this.ringBuffer = ringBuffer;
+    }
+
+    public Boolean getRingBuffer() {
+        return ringBuffer;
+    }
+
 }
@@ -53,6 +53,8 @@ public class TokenizerExpression extends ExpressionDefinition {
     private Boolean includeTokens;
     @XmlAttribute
     private Integer group;
+    @XmlAttribute
+    private Integer parallelism;
 
     public TokenizerExpression() {
     }
@@ -155,6 +157,18 @@ public class TokenizerExpression extends ExpressionDefinition {
         this.group = group;
     }
 
+    public Integer getParallelism() {
+        return parallelism;
+    }
+
+    /**
+     * To tokenize file based messages in parallel chunks, using the given number of threads.
+     * The token must be a literal token, and the tokens are returned in the same order as in the file.
+     */
+    public void setParallelism(Integer parallelism) {
+        this.parallelism = parallelism;
+    }
+
     @Override
     public Expression createExpression(CamelContext camelContext) {
         // special for new line tokens, if defined from XML then its 2 characters, so we replace that back to a single char
@@ -182,6 +196,12 @@ public class TokenizerExpression extends ExpressionDefinition {
             }
             language.setGroup(group);
         }
+        if (parallelism != null) {
+            if (parallelism <= 0) {
+                throw new IllegalArgumentException("Parallelism must be a positive number, was: " + parallelism);
+            }
+            language.setParallelism(parallelism);
+        }
         return language.createExpression();
     }
 
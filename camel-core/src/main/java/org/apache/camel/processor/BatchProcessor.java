@@ -253,6 +253,15 @@ public class BatchProcessor extends ServiceSupport implements AsyncProcessor, Na
         return collection.size() > 0 && collection.size() >= outBatchSize;
     }
 
+    /**
+     * A strategy method to decide if the received exchanges should be moved to the collection while the batch is
+     * not yet completed, instead of keeping them in the in queue until then. This is only used when there is
+     * no completion predicate.
+     */
+    protected boolean isDrainEagerly() {
+        return false;
+    }
+
     /**
      * Strategy Method to process an exchange in the batch. This method allows derived classes to perform
      * custom processing before or after an individual exchange is processed
@@ -336,6 +345,7 @@ public class BatchProcessor extends ServiceSupport implements AsyncProcessor, Na
         private Queue<Exchange> queue;
         private Lock queueLock = new ReentrantLock();
         private boolean exchangeEnqueued;
+        private int drainedEagerly;
         private final Queue<String> completionPredicateMatched = new ConcurrentLinkedQueue<String>();
         private Condition exchangeEnqueuedCondition = queueLock.newCondition();
 
@@ -389,16 +399,23 @@ public class BatchProcessor extends ServiceSupport implements AsyncProcessor, Na
                             } else {
                                 LOG.trace("Collecting exchanges to be aggregated triggered by batch timeout");
                             }
-                            drainQueueTo(collection, batchSize, id);
+                            drainQueueTo(collection, batchSize - drainedEagerly, id);
+                            drainedEagerly = 0;
                         } else {
                             exchangeEnqueued = false;
                             boolean drained = false;
-                            while (isInBatchCompleted(queue.size())) {
+                            while (isInBatchCompleted(queue.size() + drainedEagerly)) {
                                 drained = true;
-                                drainQueueTo(collection, batchSize, id);
+                                drainQueueTo(collection, batchSize - drainedEagerly, id);
+                                drainedEagerly = 0;
                             }
                             if (drained) {
                                 LOG.trace("Collecting exchanges to be aggregated triggered by new exchanges received");
+                            } else if (completionPredicate == null && isDrainEagerly()) {
+                                // the batch is not completed, but move the exchanges to the collection already
+                                drainedEagerly += queue.size();
+                                drainQueueTo(collection, queue.size(), null);
+                                continue;
                             }
 
                             if (!isOutBatchCompleted()) {
@@ -20,6 +20,7 @@ import java.util.ArrayList;
 import java.util.Date;
 import java.util.List;
 import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicLong;
 
 import org.apache.camel.AsyncCallback;
 import org.apache.camel.CamelContext;
@@ -69,6 +70,12 @@ import org.slf4j.LoggerFactory;
  * This reduces number of stack frames needed during routing, and reduce the number of lines in stacktraces, as well
  * makes debugging the routing engine easier for end users.
  * <p/>
+ * The advices are kept in a fixed array which is built when the advices are added during route building, so routing
+ * an {@link Exchange} does not need to use iterators. If there are no advices then the exchange is routed straight to
+ * the processor, and the states of the advices are only kept if an advice returned a state from its before callback.
+ * Exchanges which are routed synchronously (such as transacted) execute the after advices in the current thread, and
+ * therefore do not need an internal callback to execute the advices when done.
+ * <p/>
  * <b>Debugging tips:</b> Camel end users whom want to debug their Camel applications with the Camel source code, then make sure to
  * read the source code of this class about the debugging tips, which you can find in the
  * {@link #process(org.apache.camel.Exchange, org.apache.camel.AsyncCallback)} method.
@@ -76,7 +83,9 @@ import org.slf4j.LoggerFactory;
 public class CamelInternalProcessor extends DelegateAsyncProcessor {
 
     private static final Logger LOG = LoggerFactory.getLogger(CamelInternalProcessor.class);
+    private static final CamelInternalProcessorAdvice[] NO_ADVICES = new CamelInternalProcessorAdvice[0];
     private final List<CamelInternalProcessorAdvice> advices = new ArrayList<CamelInternalProcessorAdvice>();
+    private volatile CamelInternalProcessorAdvice[] chain = NO_ADVICES;
 
     public CamelInternalProcessor() {
     }
@@ -92,6 +101,8 @@ public class CamelInternalProcessor extends DelegateAsyncProcessor {
      */
     public void addAdvice(CamelInternalProcessorAdvice advice) {
         advices.add(advice);
+        // rebuild the chain which is used during routing
+        chain = advices.toArray(new CamelInternalProcessorAdvice[advices.size()]);
     }
 
     /**
@@ -132,21 +143,27 @@ public class CamelInternalProcessor extends DelegateAsyncProcessor {
             return true;
         }
 
-        final List<Object> states = new ArrayList<Object>(advices.size());
-        for (CamelInternalProcessorAdvice task : advices) {
-            try {
-                Object state = task.before(exchange);
-                states.add(state);
-            } catch (Throwable e) {
-                exchange.setException(e);
-                callback.done(true);
-                return true;
+        final CamelInternalProcessorAdvice[] tasks = chain;
+        // the states are only needed if any of the advices returns a state
+        Object[] states = null;
+        if (tasks.length > 0) {
+            for (int i = 0; i < tasks.length; i++) {
+                try {
+                    Object state = tasks[i].before(exchange);
+                    if (state != null) {
+                        if (states == null) {
+                            states = new Object[tasks.length];
+                        }
+                        states[i] = state;
+                    }
+                } catch (Throwable e) {
+                    exchange.setException(e);
+                    callback.done(true);
+                    return true;
+                }
             }
         }
 
-        // create internal callback which will execute the advices in reverse order when done
-        callback = new InternalCallback(states, exchange, callback);
-
         // UNIT_OF_WORK_PROCESS_SYNC is @deprecated and we should remove it from Camel 3.0
         Object synchronous = exchange.removeProperty(Exchange.UNIT_OF_WORK_PROCESS_SYNC);
         if (exchange.isTransacted() || synchronous != null) {
@@ -169,9 +186,18 @@ public class CamelInternalProcessor extends DelegateAsyncProcessor {
             // ----------------------------------------------------------
             // CAMEL END USER - DEBUG ME HERE +++ END +++
             // ----------------------------------------------------------
+            // execute the advices in reverse order in the current thread, so no internal callback is needed
+            if (tasks.length > 0) {
+                doAfter(tasks, states, exchange);
+            }
             callback.done(true);
             return true;
         } else {
+            if (tasks.length > 0) {
+                // create internal callback which will execute the advices in reverse order when done
+                callback = new InternalCallback(tasks, states, exchange, callback);
+            }
+
             final UnitOfWork uow = exchange.getUnitOfWork();
 
             // allow unit of work to wrap callback in case it need to do some special work
@@ -210,16 +236,35 @@ public class CamelInternalProcessor extends DelegateAsyncProcessor {
         return processor != null ? processor.toString() : super.toString();
     }
 
+    /**
+     * Executes the after advices in reverse order.
+     */
+    @SuppressWarnings("unchecked")
+    private static void doAfter(CamelInternalProcessorAdvice[] tasks, Object[] states, Exchange exchange) {
+        for (int i = tasks.length - 1; i >= 0; i--) {
+            CamelInternalProcessorAdvice task = tasks[i];
+            Object state = states != null ? states[i] : null;
+            try {
+                task.after(exchange, state);
+            } catch (Exception e) {
+                exchange.setException(e);
+                // allow all advices to complete even if there was an exception
+            }
+        }
+    }
+
     /**
      * Internal callback that executes the after advices.
      */
     private final class InternalCallback implements AsyncCallback {
 
-        private final List<Object> states;
+        private final CamelInternalProcessorAdvice[] tasks;
+        private final Object[] states;
         private final Exchange exchange;
         private final AsyncCallback callback;
 
-        private InternalCallback(List<Object> states, Exchange exchange, AsyncCallback callback) {
+        private InternalCallback(CamelInternalProcessorAdvice[] tasks, Object[] states, Exchange exchange, AsyncCallback callback) {
+            this.tasks = tasks;
             this.states = states;
             this.exchange = exchange;
             this.callback = callback;
@@ -227,21 +272,12 @@ public class CamelInternalProcessor extends DelegateAsyncProcessor {
 
         @Override
         public void done(boolean doneSync) {
-            // NOTE: if you are debugging Camel routes, then all the code in the for loop below is internal only
+            // NOTE: if you are debugging Camel routes, then the after advices below are internal only
             // so you can step straight to the finally block and invoke the callback
 
             // we should call after in reverse order
             try {
-                for (int i = advices.size() - 1; i >= 0; i--) {
-                    CamelInternalProcessorAdvice task = advices.get(i);
-                    Object state = states.get(i);
-                    try {
-                        task.after(exchange, state);
-                    } catch (Exception e) {
-                        exchange.setException(e);
-                        // allow all advices to complete even if there was an exception
-                    }
-                }
+                doAfter(tasks, states, exchange);
             } finally {
                 // ----------------------------------------------------------
                 // CAMEL END USER - DEBUG ME HERE +++ START +++
@@ -722,6 +758,11 @@ public class CamelInternalProcessor extends DelegateAsyncProcessor {
         public MessageHistory before(Exchange exchange) throws Exception {
             List<MessageHistory> list = exchange.getProperty(Exchange.MESSAGE_HISTORY, List.class);
             if (list == null) {
+                Boolean sampled = exchange.getProperty(Exchange.MESSAGE_HISTORY_SAMPLED, Boolean.class);
+                if (sampled != null && !sampled) {
+                    // the exchange was not sampled so do not record message history
+                    return null;
+                }
                 list = new ArrayList<MessageHistory>();
                 exchange.setProperty(Exchange.MESSAGE_HISTORY, list);
             }
@@ -738,6 +779,70 @@ public class CamelInternalProcessor extends DelegateAsyncProcessor {
         }
     }
 
+    /**
+     * Advice to only record message history for a sample of the exchanges.
+     * <p/>
+     * The exchanges can be sampled by a rate (1 in every n exchanges) and/or by a period (at most 1 exchange per period).
+     * The decision is taken once per exchange, when the exchange is routed by the consumer of the route. If the exchange
+     * already has been routed by another route then the decision from that route is kept.
+     */
+    public static class MessageHistorySamplingAdvice implements CamelInternalProcessorAdvice {
+
+        private final int sampleRate;
+        private final long samplePeriod;
+        private final AtomicLong counter = new AtomicLong();
+        private final AtomicLong lastSampled = new AtomicLong();
+
+        public MessageHistorySamplingAdvice(int sampleRate) {
+            this(sampleRate, 0);
+        }
+
+        public MessageHistorySamplingAdvice(int sampleRate, long samplePeriod) {
+            this.sampleRate = sampleRate;
+            this.samplePeriod = samplePeriod;
+        }
+
+        public int getSampleRate() {
+            return sampleRate;
+        }
+
+        public long getSamplePeriod() {
+            return samplePeriod;
+        }
+
+        @Override
+        public Object before(Exchange exchange) throws Exception {
+            if (exchange.getProperty(Exchange.MESSAGE_HISTORY) == null && exchange.getProperty(Exchange.MESSAGE_HISTORY_SAMPLED) == null) {
+                if (isSampled()) {
+                    exchange.setProperty(Exchange.MESSAGE_HISTORY_SAMPLED, Boolean.TRUE);
+                    exchange.setProperty(Exchange.MESSAGE_HISTORY, new ArrayList<MessageHistory>());
+                } else {
+                    exchange.setProperty(Exchange.MESSAGE_HISTORY_SAMPLED, Boolean.FALSE);
+                }
+            }
+            return null;
+        }
+
+        private boolean isSampled() {
+            // sample the first and then every n'th exchange
+            if (sampleRate > 1 && counter.getAndIncrement() % sampleRate != 0) {
+                return false;
+            }
+            if (samplePeriod > 0) {
+                // only sample at most one exchange per period
+                long now = System.currentTimeMillis();
+                long last = lastSampled.get();
+                return (last == 0 || now - last >= samplePeriod) && lastSampled.compareAndSet(last, now);
+            }
+            return true;
+        }
+
+        @Override
+        public void after(Exchange exchange, Object data) throws Exception {
+            // noop
+        }
+    }
+
     /**
      * Advice for {@link org.apache.camel.spi.StreamCachingStrategy}
      */
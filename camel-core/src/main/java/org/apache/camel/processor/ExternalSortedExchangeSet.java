@@ -0,0 +1,394 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.camel.processor;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.Serializable;
+import java.util.AbstractSet;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.PriorityQueue;
+import java.util.TreeSet;
+
+import org.apache.camel.CamelContext;
+import org.apache.camel.Endpoint;
+import org.apache.camel.Exchange;
+import org.apache.camel.ExchangePattern;
+import org.apache.camel.RuntimeCamelException;
+import org.apache.camel.RuntimeExchangeException;
+import org.apache.camel.WrappedFile;
+import org.apache.camel.impl.DefaultExchange;
+import org.apache.camel.impl.DefaultExchangeHolder;
+import org.apache.camel.util.CamelObjectInputStream;
+import org.apache.camel.util.FileUtil;
+import org.apache.camel.util.IOHelper;
+import org.apache.camel.util.ObjectHelper;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * A sorted {@link java.util.Set} of {@link Exchange}s which spools the exchanges to disk
+ * when there are too many to keep in memory, using an external merge sort.
+ * <p/>
+ * The exchanges are kept sorted in memory until the spool threshold is reached, then they are
+ * written as a sorted run to a file in the spool directory. Iterating the set merges the runs
+ * (which are read sequentially) and the exchanges in memory, so only one exchange per run is kept
+ * in memory at the same time. Duplicates (which the comparator regards as equal) are removed
+ * when merging, keeping the exchange which was added first.
+ * <p/>
+ * The spooled exchanges are marshalled using {@link DefaultExchangeHolder} together with the exchange pattern,
+ * the from endpoint and the from route id. The message bodies must be serializable, and exchanges with a body which
+ * is not are rejected when added. Headers and properties which are not serializable are not kept.
+ * The size of the set includes duplicates which have been spooled until they are removed by iterating the set.
+ * <p/>
+ * The spool files are deleted when all the exchanges have been iterated and removed, or when
+ * the set is cleared. Removing exchanges using the iterator is only supported when all the exchanges
+ * are removed in the order of the iteration, as done by the {@link BatchProcessor}.
+ */
+public class ExternalSortedExchangeSet extends AbstractSet<Exchange> {
+
+    private static final Logger LOG = LoggerFactory.getLogger(ExternalSortedExchangeSet.class);
+
+    private final CamelContext camelContext;
+    private final Comparator<? super Exchange> comparator;
+    private final File spoolDirectory;
+    private final int spoolThreshold;
+    private final TreeSet<Exchange> memory;
+    private final List<File> runs = new ArrayList<File>();
+    // the runs being read, which must be closed before the spool files can be deleted
+    private final List<DataInputStream> readers = new ArrayList<DataInputStream>();
+    private int nextSpool;
+    private int size;
+
+    /**
+     * Creates the set.
+     *
+     * @param camelContext   the camel context
+     * @param comparator     the comparator to sort the exchanges
+     * @param spoolDirectory directory for the spool files, or <tt>null</tt> to use the temporary directory
+     * @param spoolThreshold number of exchanges to keep in memory before spooling them to disk
+     */
+    public ExternalSortedExchangeSet(CamelContext camelContext, Comparator<? super Exchange> comparator, File spoolDirectory, int spoolThreshold) {
+        ObjectHelper.notNull(camelContext, "camelContext");
+        ObjectHelper.notNull(comparator, "comparator");
+        if (spoolThreshold <= 0) {
+            throw new IllegalArgumentException("SpoolThreshold must be a positive number, was: " + spoolThreshold);
+        }
+        this.camelContext = camelContext;
+        this.comparator = comparator;
+        this.spoolDirectory = spoolDirectory;
+        this.spoolThreshold = spoolThreshold;
+        this.memory = new TreeSet<Exchange>(comparator);
+        this.nextSpool = spoolThreshold;
+    }
+
+    public int getSpoolThreshold() {
+        return spoolThreshold;
+    }
+
+    /**
+     * Number of runs currently spooled to disk
+     */
+    public int getSpooledRuns() {
+        return runs.size();
+    }
+
+    /**
+     * Checks whether the message body of the exchange can be spooled to disk.
+     *
+     * @param exchange the exchange
+     * @throws RuntimeExchangeException if the message body is not serializable
+     */
+    public void checkSpoolable(Exchange exchange) {
+        checkSerializableBody(exchange, exchange.getIn().getBody());
+        if (exchange.hasOut()) {
+            checkSerializableBody(exchange, exchange.getOut().getBody());
+        }
+    }
+
+    private void checkSerializableBody(Exchange exchange, Object body) {
+        if (body == null) {
+            return;
+        }
+        if (body instanceof WrappedFile || body instanceof File
+                || camelContext.getTypeConverter().convertTo(Serializable.class, exchange, body) == null) {
+            throw new RuntimeExchangeException("Message body of type " + body.getClass().getCanonicalName()
+                    + " is not serializable, which is required to spool the exchange to disk", exchange);
+        }
+    }
+
+    @Override
+    public boolean add(Exchange exchange) {
+        checkSpoolable(exchange);
+        if (!memory.add(exchange)) {
+            return false;
+        }
+        size++;
+        if (memory.size() >= nextSpool) {
+            spool();
+        }
+        return true;
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    @Override
+    public void clear() {
+        memory.clear();
+        for (DataInputStream reader : readers) {
+            IOHelper.close(reader);
+        }
+        readers.clear();
+        for (File run : runs) {
+            FileUtil.deleteFile(run);
+        }
+        runs.clear();
+        size = 0;
+        nextSpool = spoolThreshold;
+    }
+
+    @Override
+    public Iterator<Exchange> iterator() {
+        if (runs.isEmpty()) {
+            return new MemoryIterator();
+        }
+        try {
+            return new MergeIterator();
+        } catch (IOException e) {
+            throw new RuntimeCamelException("Error reading spooled exchanges", e);
+        }
+    }
+
+    /**
+     * Writes the exchanges in memory as a sorted run to a new spool file.
+     */
+    private void spool() {
+        File file = null;
+        DataOutputStream out = null;
+        try {
+            file = FileUtil.createTempFile("resequencer", ".run", spoolDirectory);
+            out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(file), IOHelper.DEFAULT_BUFFER_SIZE));
+            ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+            for (Exchange exchange : memory) {
+                bytes.reset();
+                ObjectOutputStream oos = new ObjectOutputStream(bytes);
+                oos.writeObject(DefaultExchangeHolder.marshal(exchange));
+                // the holder does not keep where the exchange comes from
+                oos.writeObject(exchange.getPattern());
+                oos.writeObject(exchange.getFromEndpoint() != null ? exchange.getFromEndpoint().getEndpointUri() : null);
+                oos.writeObject(exchange.getFromRouteId());
+                oos.close();
+                out.writeInt(bytes.size());
+                bytes.writeTo(out);
+            }
+            out.close();
+            out = null;
+        } catch (Exception e) {
+            IOHelper.close(out);
+            FileUtil.deleteFile(file);
+            // keep the exchanges in memory and try again later
+            nextSpool = memory.size() + spoolThreshold;
+            LOG.warn("Cannot spool " + memory.size() + " exchanges to disk, keeping them in memory. This exception is ignored.", e);
+            return;
+        }
+
+        LOG.debug("Spooled {} exchanges to file: {}", memory.size(), file);
+        runs.add(file);
+        memory.clear();
+        nextSpool = spoolThreshold;
+    }
+
+    private DataInputStream openRun(File file) throws IOException {
+        DataInputStream reader = new DataInputStream(new BufferedInputStream(new FileInputStream(file), IOHelper.DEFAULT_BUFFER_SIZE));
+        readers.add(reader);
+        return reader;
+    }
+
+    private void closeRun(DataInputStream reader) {
+        IOHelper.close(reader);
+        readers.remove(reader);
+    }
+
+    /**
+     * Iterates the exchanges when nothing has been spooled.
+     */
+    private final class MemoryIterator implements Iterator<Exchange> {
+        private final Iterator<Exchange> delegate = memory.iterator();
+
+        public boolean hasNext() {
+            return delegate.hasNext();
+        }
+
+        public Exchange next() {
+            return delegate.next();
+        }
+
+        public void remove() {
+            delegate.remove();
+            size--;
+        }
+    }
+
+    /**
+     * The head of a sorted run, which is either a spool file or the exchanges in memory.
+     */
+    private final class Cursor {
+        private final int order;
+        private final DataInputStream reader;
+        private final Iterator<Exchange> iterator;
+        private long remaining;
+        private Exchange head;
+
+        private Cursor(int order, File run) throws IOException {
+            this.order = order;
+            this.reader = openRun(run);
+            this.iterator = null;
+            this.remaining = run.length();
+        }
+
+        private Cursor(int order, Iterator<Exchange> iterator) {
+            this.order = order;
+            this.reader = null;
+            this.iterator = iterator;
+        }
+
+        private boolean advance() throws IOException {
+            if (iterator != null) {
+                head = iterator.hasNext() ? iterator.next() : null;
+            } else if (remaining > 0) {
+                byte[] data = new byte[reader.readInt()];
+                reader.readFully(data);
+                remaining -= 4 + data.length;
+                head = readExchange(data);
+            } else {
+                head = null;
+                // the run has been read so it can be deleted
+                closeRun(reader);
+            }
+            return head != null;
+        }
+
+        private Exchange readExchange(byte[] data) throws IOException {
+            ObjectInputStream ois = new CamelObjectInputStream(new ByteArrayInputStream(data), camelContext);
+            try {
+                DefaultExchangeHolder holder = (DefaultExchangeHolder) ois.readObject();
+                ExchangePattern pattern = (ExchangePattern) ois.readObject();
+                String fromEndpointUri = (String) ois.readObject();
+                String fromRouteId = (String) ois.readObject();
+
+                Endpoint fromEndpoint = fromEndpointUri != null ? camelContext.hasEndpoint(fromEndpointUri) : null;
+                Exchange exchange = fromEndpoint != null ? new DefaultExchange(fromEndpoint, pattern) : new DefaultExchange(camelContext, pattern);
+                exchange.setFromRouteId(fromRouteId);
+                DefaultExchangeHolder.unmarshal(exchange, holder);
+                return exchange;
+            } catch (ClassNotFoundException e) {
+                throw new IOException("Cannot read spooled exchange", e);
+            } finally {
+                IOHelper.close(ois);
+            }
+        }
+    }
+
+    /**
+     * Merges the spooled runs and the exchanges in memory.
+     */
+    private final class MergeIterator implements Iterator<Exchange> {
+        private final PriorityQueue<Cursor> heads;
+        private int returned;
+        private int removed;
+
+        private MergeIterator() throws IOException {
+            heads = new PriorityQueue<Cursor>(runs.size() + 1, new Comparator<Cursor>() {
+                public int compare(Cursor o1, Cursor o2) {
+                    int answer = comparator.compare(o1.head, o2.head);
+                    // the run which was added first comes first
+                    return answer != 0 ? answer : o1.order - o2.order;
+                }
+            });
+            for (int i = 0; i < runs.size(); i++) {
+                Cursor cursor = new Cursor(i, runs.get(i));
+                if (cursor.advance()) {
+                    heads.add(cursor);
+                }
+            }
+            Cursor cursor = new Cursor(runs.size(), new ArrayList<Exchange>(memory).iterator());
+            if (cursor.advance()) {
+                heads.add(cursor);
+            }
+        }
+
+        public boolean hasNext() {
+            return !heads.isEmpty();
+        }
+
+        public Exchange next() {
+            Cursor cursor = heads.poll();
+            if (cursor == null) {
+                throw new NoSuchElementException();
+            }
+            Exchange answer = cursor.head;
+            try {
+                advance(cursor);
+                // skip duplicates from the other runs
+                while (!heads.isEmpty() && comparator.compare(answer, heads.peek().head) == 0) {
+                    Cursor duplicate = heads.poll();
+                    LOG.trace("Skipping duplicate exchange: {}", duplicate.head);
+                    advance(duplicate);
+                }
+            } catch (IOException e) {
+                throw new RuntimeCamelException("Error reading spooled exchanges", e);
+            }
+            returned++;
+            return answer;
+        }
+
+        private void advance(Cursor cursor) throws IOException {
+            if (cursor.advance()) {
+                heads.add(cursor);
+            }
+        }
+
+        public void remove() {
+            if (removed == returned) {
+                throw new IllegalStateException();
+            }
+            removed++;
+            size--;
+            if (heads.isEmpty() && removed == returned) {
+                // all the exchanges has been taken so delete the spool files
+                clear();
+            }
+        }
+    }
+}
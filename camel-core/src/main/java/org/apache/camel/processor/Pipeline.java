@@ -16,6 +16,7 @@
  */
 package org.apache.camel.processor;
 
+import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Iterator;
 import java.util.List;
@@ -44,10 +45,20 @@ import static org.apache.camel.processor.PipelineHelper.continueProcessing;
 public class Pipeline extends MulticastProcessor implements AsyncProcessor, Traceable, IdAware {
     private static final Logger LOG = LoggerFactory.getLogger(Pipeline.class);
 
+    private final AsyncProcessor[] asyncProcessors;
+    // the steps to iterate when a subclass overrides the deprecated continueRouting(Iterator, Exchange) method
+    private final List<Processor> legacyProcessors;
     private String id;
 
     public Pipeline(CamelContext camelContext, Collection<Processor> processors) {
         super(camelContext, processors);
+        // convert the steps once, so we do not have to iterate and convert during routing
+        this.asyncProcessors = new AsyncProcessor[processors.size()];
+        int i = 0;
+        for (Processor processor : processors) {
+            asyncProcessors[i++] = AsyncProcessorConverterHelper.convert(processor);
+        }
+        this.legacyProcessors = overridesLegacyContinueRouting(getClass()) ? new ArrayList<Processor>(processors) : null;
     }
 
     public static Processor newInstance(CamelContext camelContext, List<Processor> processors) {
@@ -64,92 +75,93 @@ public class Pipeline extends MulticastProcessor implements AsyncProcessor, Trac
     }
 
     public boolean process(Exchange exchange, AsyncCallback callback) {
-        Iterator<Processor> processors = getProcessors().iterator();
-        Exchange nextExchange = exchange;
-        boolean first = true;
-
-        while (continueRouting(processors, nextExchange)) {
-            if (first) {
-                first = false;
-            } else {
-                // prepare for next run
-                nextExchange = createNextExchange(nextExchange);
-            }
-
-            // get the next processor
-            Processor processor = processors.next();
-
-            AsyncProcessor async = AsyncProcessorConverterHelper.convert(processor);
-            boolean sync = process(exchange, nextExchange, callback, processors, async);
-
-            // continue as long its being processed synchronously
-            if (!sync) {
-                LOG.trace("Processing exchangeId: {} is continued being processed asynchronously", exchange.getExchangeId());
-                // the remainder of the pipeline will be completed async
-                // so we break out now, then the callback will be invoked which then continue routing from where we left here
-                return false;
-            }
-
-            LOG.trace("Processing exchangeId: {} is continued being processed synchronously", exchange.getExchangeId());
-
-            // check for error if so we should break out
-            if (!continueProcessing(nextExchange, "so breaking out of pipeline", LOG)) {
-                break;
-            }
+        PipelineTask task = new PipelineTask(exchange, callback);
+        if (!task.route()) {
+            // the remainder of the pipeline will be completed async
+            // so we break out now, then the callback will be invoked which then continue routing from where we left here
+            return false;
         }
 
         // logging nextExchange as it contains the exchange that might have altered the payload and since
         // we are logging the completion if will be confusing if we log the original instead
         // we could also consider logging the original and the nextExchange then we have *before* and *after* snapshots
-        LOG.trace("Processing complete for exchangeId: {} >>> {}", exchange.getExchangeId(), nextExchange);
+        LOG.trace("Processing complete for exchangeId: {} >>> {}", exchange.getExchangeId(), task.current);
 
         // copy results back to the original exchange
-        ExchangeHelper.copyResults(exchange, nextExchange);
+        ExchangeHelper.copyResults(exchange, task.current);
 
         callback.done(true);
         return true;
     }
 
-    private boolean process(final Exchange original, final Exchange exchange, final AsyncCallback callback,
-                            final Iterator<Processor> processors, final AsyncProcessor asyncProcessor) {
-        // this does the actual processing so log at trace level
-        LOG.trace("Processing exchangeId: {} >>> {}", exchange.getExchangeId(), exchange);
-
-        // implement asynchronous routing logic in callback so we can have the callback being
-        // triggered and then continue routing where we left
-        //boolean sync = AsyncProcessorHelper.process(asyncProcessor, exchange,
-        boolean sync = asyncProcessor.process(exchange, new AsyncCallback() {
-            public void done(boolean doneSync) {
-                // we only have to handle async completion of the pipeline
-                if (doneSync) {
-                    return;
+    /**
+     * Routes an exchange through the steps of the pipeline.
+     * <p/>
+     * The task is also the callback for each step, so only a single callback is created per exchange,
+     * which continues routing from where we left when a step is completed asynchronously.
+     */
+    private final class PipelineTask implements AsyncCallback {
+
+        private final Exchange original;
+        private final AsyncCallback callback;
+        private Exchange current;
+        private int index;
+
+        private PipelineTask(Exchange original, AsyncCallback callback) {
+            this.original = original;
+            this.callback = callback;
+            this.current = original;
+        }
+
+        /**
+         * Routes the exchange through the remainder steps.
+         *
+         * @return <tt>true</tt> if completed synchronously, <tt>false</tt> if continued being processed asynchronously
+         */
+        private boolean route() {
+            while (continueRouting(index, current)) {
+                if (index > 0) {
+                    // prepare for next run
+                    current = createNextExchange(current);
                 }
 
-                // continue processing the pipeline asynchronously
-                Exchange nextExchange = exchange;
-                while (continueRouting(processors, nextExchange)) {
-                    AsyncProcessor processor = AsyncProcessorConverterHelper.convert(processors.next());
-
-                    // check for error if so we should break out
-                    if (!continueProcessing(nextExchange, "so breaking out of pipeline", LOG)) {
-                        break;
-                    }
-
-                    nextExchange = createNextExchange(nextExchange);
-                    doneSync = process(original, nextExchange, callback, processors, processor);
-                    if (!doneSync) {
-                        LOG.trace("Processing exchangeId: {} is continued being processed asynchronously", exchange.getExchangeId());
-                        return;
-                    }
+                // get the next processor
+                AsyncProcessor processor = asyncProcessors[index++];
+
+                // this does the actual processing so log at trace level
+                LOG.trace("Processing exchangeId: {} >>> {}", current.getExchangeId(), current);
+
+                // continue as long its being processed synchronously
+                if (!processor.process(current, this)) {
+                    LOG.trace("Processing exchangeId: {} is continued being processed asynchronously", original.getExchangeId());
+                    return false;
+                }
+
+                LOG.trace("Processing exchangeId: {} is continued being processed synchronously", original.getExchangeId());
+
+                // check for error if so we should break out
+                if (!continueProcessing(current, "so breaking out of pipeline", LOG)) {
+                    break;
                 }
+            }
+            return true;
+        }
+
+        public void done(boolean doneSync) {
+            // we only have to handle async completion of the pipeline
+            if (doneSync) {
+                return;
+            }
 
-                ExchangeHelper.copyResults(original, nextExchange);
-                LOG.trace("Processing complete for exchangeId: {} >>> {}", original.getExchangeId(), original);
-                callback.done(false);
+            // continue processing the pipeline asynchronously
+            if (continueRouting(index, current) && continueProcessing(current, "so breaking out of pipeline", LOG) && !route()) {
+                return;
             }
-        });
 
-        return sync;
+            ExchangeHelper.copyResults(original, current);
+            LOG.trace("Processing complete for exchangeId: {} >>> {}", original.getExchangeId(), original);
+            callback.done(false);
+        }
     }
 
     /**
@@ -164,7 +176,46 @@ public class Pipeline extends MulticastProcessor implements AsyncProcessor, Trac
         return PipelineHelper.createNextExchange(previousExchange);
     }
 
+    /**
+     * Strategy method to determine if we should continue routing.
+     *
+     * @param index    the index of the next step
+     * @param exchange the exchange
+     * @return <tt>true</tt> to continue routing with the next step
+     */
+    protected boolean continueRouting(int index, Exchange exchange) {
+        if (legacyProcessors != null) {
+            // a subclass overrides the deprecated method, so let it decide
+            return continueRouting(legacyProcessors.listIterator(index), exchange);
+        }
+        return doContinueRouting(index < asyncProcessors.length, exchange);
+    }
+
+    /**
+     * Strategy method to determine if we should continue routing.
+     * <p/>
+     * This method is only invoked if a subclass overrides it, where the iterator is positioned at the next step.
+     *
+     * @deprecated the pipeline routes the steps by index, use {@link #continueRouting(int, org.apache.camel.Exchange)}
+     */
+    @Deprecated
     protected boolean continueRouting(Iterator<Processor> it, Exchange exchange) {
+        return doContinueRouting(it.hasNext(), exchange);
+    }
+
+    private static boolean overridesLegacyContinueRouting(Class<?> type) {
+        for (Class<?> current = type; current != Pipeline.class; current = current.getSuperclass()) {
+            try {
+                current.getDeclaredMethod("continueRouting", Iterator.class, Exchange.class);
+                return true;
+            } catch (NoSuchMethodException e) {
+                // not overridden by this class
+            }
+        }
+        return false;
+    }
+
+    private boolean doContinueRouting(boolean hasNext, Exchange exchange) {
         boolean answer = true;
 
         Object stop = exchange.getProperty(Exchange.ROUTE_STOP);
@@ -176,7 +227,7 @@ public class Pipeline extends MulticastProcessor implements AsyncProcessor, Trac
             }
         } else {
             // continue if there are more processors to route
-            answer = it.hasNext();
+            answer = hasNext;
         }
 
         LOG.trace("ExchangeId: {} should continue routing: {}", exchange.getExchangeId(), answer);
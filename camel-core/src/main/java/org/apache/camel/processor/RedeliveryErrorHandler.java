@@ -21,8 +21,8 @@ import java.util.List;
 import java.util.concurrent.Callable;
 import java.util.concurrent.RejectedExecutionException;
 import java.util.concurrent.ScheduledExecutorService;
-import java.util.concurrent.ThreadPoolExecutor;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.atomic.AtomicInteger;
 
 import org.apache.camel.AsyncCallback;
@@ -62,6 +62,7 @@ import org.apache.camel.util.URISupport;
 public abstract class RedeliveryErrorHandler extends ErrorHandlerSupport implements AsyncProcessor, ShutdownPrepared, Navigate<Processor> {
 
     protected final AtomicInteger redeliverySleepCounter = new AtomicInteger();
+    protected final AtomicInteger redeliveryTaskCounter = new AtomicInteger();
     protected ScheduledExecutorService executorService;
     protected final CamelContext camelContext;
     protected final Processor deadLetter;
@@ -124,6 +125,8 @@ public abstract class RedeliveryErrorHandler extends ErrorHandlerSupport impleme
         private final Exchange exchange;
         private final AsyncCallback callback;
         private final RedeliveryData data;
+        // whether the task has either been counted as scheduled or has started to run
+        private final AtomicBoolean counted = new AtomicBoolean();
 
         public AsyncRedeliveryTask(Exchange exchange, AsyncCallback callback, RedeliveryData data) {
             this.exchange = exchange;
@@ -131,7 +134,25 @@ public abstract class RedeliveryErrorHandler extends ErrorHandlerSupport impleme
             this.data = data;
         }
 
+        /**
+         * Schedules the task to run after the given delay, and counts the task as scheduled
+         * when it has been handed off to the executor service
+         */
+        void schedule(ScheduledExecutorService executorService, long delay) {
+            executorService.schedule(this, delay, TimeUnit.MILLISECONDS);
+            redeliveryTaskCounter.incrementAndGet();
+            if (!counted.compareAndSet(false, true)) {
+                // the task has already run
+                redeliveryTaskCounter.decrementAndGet();
+            }
+        }
+
         public Boolean call() throws Exception {
+            if (!counted.compareAndSet(false, true)) {
+                // the exchange is no longer waiting for its redelivery
+                redeliveryTaskCounter.decrementAndGet();
+            }
+
             // prepare for redelivery
             prepareExchangeForRedelivery(exchange, data);
 
@@ -422,7 +443,13 @@ public abstract class RedeliveryErrorHandler extends ErrorHandlerSupport impleme
                         if (log.isTraceEnabled()) {
                             log.trace("Scheduling redelivery task to run in {} millis for exchangeId: {}", data.redeliveryDelay, exchange.getExchangeId());
                         }
-                        executorService.schedule(task, data.redeliveryDelay, TimeUnit.MILLISECONDS);
+                        try {
+                            task.schedule(executorService, data.redeliveryDelay);
+                        } catch (RejectedExecutionException e) {
+                            // the redelivery could not be scheduled
+                            exchange.setException(e);
+                            callback.done(false);
+                        }
 
                         return false;
                     } else {
@@ -545,9 +572,12 @@ public abstract class RedeliveryErrorHandler extends ErrorHandlerSupport impleme
             handleException(exchange, data, isDeadLetterChannel());
         }
 
-        // compute if we are exhausted or not
+        // compute if we are exhausted, and whether redelivery is allowed
         boolean exhausted = isExhausted(exchange, data);
-        if (exhausted) {
+        boolean redeliverAllowed = isRedeliveryAllowed(data);
+
+        // if we are exhausted or redelivery is not allowed, then deliver to failure processor (eg such as DLC)
+        if (!redeliverAllowed || exhausted) {
             Processor target = null;
             boolean deliver = true;
 
@@ -593,10 +623,22 @@ public abstract class RedeliveryErrorHandler extends ErrorHandlerSupport impleme
                 if (log.isTraceEnabled()) {
                     log.trace("Scheduling redelivery task to run in {} millis for exchangeId: {}", data.redeliveryDelay, exchange.getExchangeId());
                 }
-                executorService.schedule(task, data.redeliveryDelay, TimeUnit.MILLISECONDS);
+                try {
+                    task.schedule(executorService, data.redeliveryDelay);
+                } catch (RejectedExecutionException e) {
+                    // the redelivery could not be scheduled
+                    exchange.setException(e);
+                    callback.done(data.sync);
+                }
             } else {
-                // execute the task immediately
-                executorService.submit(task);
+                // execute the task immediately, which is not counted as scheduled
+                task.counted.set(true);
+                try {
+                    executorService.submit(task);
+                } catch (RejectedExecutionException e) {
+                    exchange.setException(e);
+                    callback.done(data.sync);
+                }
             }
         }
     }
@@ -1320,15 +1362,20 @@ public abstract class RedeliveryErrorHandler extends ErrorHandlerSupport impleme
     }
 
     /**
-     * Gets the number of exchanges that are pending for redelivery
+     * Gets the number of exchanges that are pending for redelivery, which is the sum of the exchanges
+     * sleeping (synchronous delayed redelivery) and the exchanges scheduled for redelivery
+     * (asynchronous delayed redelivery) by this error handler.
      */
     public int getPendingRedeliveryCount() {
-        int answer = redeliverySleepCounter.get();
-        if (executorService != null && executorService instanceof ThreadPoolExecutor) {
-            answer += ((ThreadPoolExecutor) executorService).getQueue().size();
-        }
+        return redeliverySleepCounter.get() + redeliveryTaskCounter.get();
+    }
 
-        return answer;
+    /**
+     * Gets the number of exchanges that are scheduled for redelivery (asynchronous delayed redelivery)
+     * by this error handler, which does not block any thread while waiting.
+     */
+    public int getScheduledRedeliveryCount() {
+        return redeliveryTaskCounter.get();
     }
 
     @Override
@@ -1355,6 +1402,7 @@ public abstract class RedeliveryErrorHandler extends ErrorHandlerSupport impleme
         // reset flag when starting
         preparingShutdown = false;
         redeliverySleepCounter.set(0);
+        redeliveryTaskCounter.set(0);
     }
 
     @Override
@@ -37,7 +37,7 @@ import org.slf4j.LoggerFactory;
  *   <li>maximumRedeliveries = 0</li>
  *   <li>redeliveryDelay = 1000L (the initial delay)</li>
  *   <li>maximumRedeliveryDelay = 60 * 1000L</li>
- *   <li>asyncDelayedRedelivery = false</li>
+ *   <li>asyncDelayedRedelivery = true</li>
  *   <li>backOffMultiplier = 2</li>
  *   <li>useExponentialBackOff = false</li>
  *   <li>collisionAvoidanceFactor = 0.15d</li>
@@ -100,7 +100,7 @@ public class RedeliveryPolicy implements Cloneable, Serializable {
     protected Boolean logExhaustedMessageHistory;
     protected boolean logRetryAttempted = true;
     protected String delayPattern;
-    protected boolean asyncDelayedRedelivery;
+    protected boolean asyncDelayedRedelivery = true;
     protected boolean allowRedeliveryWhileStopping = true;
     protected String exchangeFormatterRef;
 
@@ -430,6 +430,17 @@ public class RedeliveryPolicy implements Cloneable, Serializable {
         return this;
     }
 
+    /**
+     * Controls whether to use asynchronous delayed redelivery.
+     *
+     * @param asyncDelayedRedelivery <tt>true</tt> to schedule redeliveries, <tt>false</tt> to block the current thread while waiting
+     * @see #setAsyncDelayedRedelivery(boolean)
+     */
+    public RedeliveryPolicy asyncDelayedRedelivery(boolean asyncDelayedRedelivery) {
+        setAsyncDelayedRedelivery(asyncDelayedRedelivery);
+        return this;
+    }
+
     /**
      * Controls whether to allow redelivery while stopping/shutting down a route that uses error handling.
      *
@@ -715,10 +726,17 @@ public class RedeliveryPolicy implements Cloneable, Serializable {
     /**
      * Sets whether asynchronous delayed redelivery is allowed.
      * <p/>
-     * This is disabled by default.
+     * This is enabled by default.
      * <p/>
      * When enabled it allows Camel to schedule a future task for delayed
      * redelivery which prevents current thread from blocking while waiting.
+     * The exchange is suspended on the shared error handler scheduler and
+     * continued using the asynchronous routing engine, also if the exchange
+     * was routed synchronously so far.
+     * <p/>
+     * When disabled the current thread sleeps while waiting, which means
+     * a consumer will not pick up other messages meanwhile, which preserves
+     * the ordering of the messages.
      * <p/>
      * Exchange which is transacted will however always use synchronous delayed redelivery
      * because the transaction must execute in the same thread context.
@@ -16,10 +16,12 @@
  */
 package org.apache.camel.processor;
 
+import java.io.File;
 import java.util.Comparator;
 import java.util.Set;
 import java.util.TreeSet;
 
+import org.apache.camel.AsyncCallback;
 import org.apache.camel.CamelContext;
 import org.apache.camel.Exchange;
 import org.apache.camel.Expression;
@@ -38,6 +40,8 @@ public class Resequencer extends BatchProcessor implements Traceable {
 
     // TODO: Rework to avoid using BatchProcessor
 
+    private final ExternalSortedExchangeSet spooled;
+
     public Resequencer(CamelContext camelContext, Processor processor, Expression expression) {
         this(camelContext, processor, createSet(expression, false, false), expression);
     }
@@ -47,8 +51,34 @@ public class Resequencer extends BatchProcessor implements Traceable {
         this(camelContext, processor, createSet(expression, allowDuplicates, reverse), expression);
     }
 
+    /**
+     * Creates a resequencer which spools the exchanges to disk when there are more than
+     * <tt>spoolThreshold</tt> exchanges in the batch, using a {@link ExternalSortedExchangeSet}.
+     */
+    public Resequencer(CamelContext camelContext, Processor processor, Expression expression,
+                       boolean allowDuplicates, boolean reverse, File spoolDirectory, int spoolThreshold) {
+        this(camelContext, processor, new ExternalSortedExchangeSet(camelContext,
+                createComparator(new ExpressionComparator(expression), allowDuplicates, reverse), spoolDirectory, spoolThreshold), expression);
+    }
+
     public Resequencer(CamelContext camelContext, Processor processor, Set<Exchange> collection, Expression expression) {
         super(camelContext, processor, collection, expression);
+        this.spooled = collection instanceof ExternalSortedExchangeSet ? (ExternalSortedExchangeSet) collection : null;
+    }
+
+    @Override
+    public boolean process(Exchange exchange, AsyncCallback callback) {
+        if (spooled != null) {
+            // fail fast as the exchange is added to the spooled set later by the batch sender
+            try {
+                spooled.checkSpoolable(exchange);
+            } catch (Throwable e) {
+                exchange.setException(e);
+                callback.done(true);
+                return true;
+            }
+        }
+        return super.process(exchange, callback);
     }
 
     @Override
@@ -60,6 +90,12 @@ public class Resequencer extends BatchProcessor implements Traceable {
         return "resequencer";
     }
 
+    @Override
+    protected boolean isDrainEagerly() {
+        // move the exchanges to the spooled set as they arrive so they are not all kept in memory
+        return spooled != null;
+    }
+
     // Implementation methods
     //-------------------------------------------------------------------------
 
@@ -68,6 +104,10 @@ public class Resequencer extends BatchProcessor implements Traceable {
     }
 
     protected static Set<Exchange> createSet(final Comparator<? super Exchange> comparator, boolean allowDuplicates, boolean reverse) {
+        return new TreeSet<Exchange>(createComparator(comparator, allowDuplicates, reverse));
+    }
+
+    protected static Comparator<? super Exchange> createComparator(final Comparator<? super Exchange> comparator, boolean allowDuplicates, boolean reverse) {
         Comparator<? super Exchange> answer = comparator;
 
         if (reverse) {
@@ -96,7 +136,7 @@ public class Resequencer extends BatchProcessor implements Traceable {
             };
         }
 
-        return new TreeSet<Exchange>(answer);
+        return answer;
     }
 
 }
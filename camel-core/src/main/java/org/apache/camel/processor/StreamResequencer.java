@@ -33,6 +33,7 @@ import org.apache.camel.Navigate;
 import org.apache.camel.Processor;
 import org.apache.camel.Traceable;
 import org.apache.camel.processor.resequencer.ResequencerEngine;
+import org.apache.camel.processor.resequencer.RingBufferResequencerEngine;
 import org.apache.camel.processor.resequencer.SequenceElementComparator;
 import org.apache.camel.processor.resequencer.SequenceSender;
 import org.apache.camel.spi.ExceptionHandler;
@@ -89,15 +90,34 @@ public class StreamResequencer extends ServiceSupport implements SequenceSender<
      * @param comparator a sequence element comparator for exchanges.
      */
     public StreamResequencer(CamelContext camelContext, Processor processor, SequenceElementComparator<Exchange> comparator, Expression expression) {
+        this(camelContext, processor, new ResequencerEngine<Exchange>(comparator), expression);
+    }
+
+    /**
+     * Creates a new {@link StreamResequencer} instance using the given engine,
+     * such as a {@link RingBufferResequencerEngine}.
+     *
+     * @param processor next processor that processes re-ordered exchanges.
+     * @param engine the resequencer engine.
+     */
+    public StreamResequencer(CamelContext camelContext, Processor processor, ResequencerEngine<Exchange> engine, Expression expression) {
         ObjectHelper.notNull(camelContext, "CamelContext");
+        ObjectHelper.notNull(engine, "ResequencerEngine");
         this.camelContext = camelContext;
-        this.engine = new ResequencerEngine<Exchange>(comparator);
+        this.engine = engine;
         this.engine.setSequenceSender(this);
         this.processor = processor;
         this.expression = expression;
         this.exceptionHandler = new LoggingExceptionHandler(camelContext, getClass());
     }
 
+    /**
+     * Returns the resequencer engine.
+     */
+    public ResequencerEngine<Exchange> getEngine() {
+        return engine;
+    }
+
     public Expression getExpression() {
         return expression;
     }
@@ -272,7 +292,7 @@ public class StreamResequencer extends ServiceSupport implements SequenceSender<
                 try {
                     deliveryRequestLock.lock();
                     try {
-                        deliveryRequestCondition.await(DELIVERY_ATTEMPT_INTERVAL, TimeUnit.MILLISECONDS);
+                        deliveryRequestCondition.await(deliveryInterval(), TimeUnit.MILLISECONDS);
                     } finally {
                         deliveryRequestLock.unlock();
                     }
@@ -288,6 +308,14 @@ public class StreamResequencer extends ServiceSupport implements SequenceSender<
             }
         }
 
+        private long deliveryInterval() {
+            // the ring buffer engine has no timer, so check for timed out gaps at least as often as the timeout
+            if (engine instanceof RingBufferResequencerEngine && getTimeout() > 0) {
+                return Math.min(DELIVERY_ATTEMPT_INTERVAL, getTimeout());
+            }
+            return DELIVERY_ATTEMPT_INTERVAL;
+        }
+
         public void cancel() {
             interrupt();
         }
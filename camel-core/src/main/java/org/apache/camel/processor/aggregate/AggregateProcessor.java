@@ -44,9 +44,11 @@ import org.apache.camel.NoSuchEndpointException;
 import org.apache.camel.Predicate;
 import org.apache.camel.Processor;
 import org.apache.camel.ProducerTemplate;
+import org.apache.camel.RuntimeCamelException;
 import org.apache.camel.TimeoutMap;
 import org.apache.camel.Traceable;
 import org.apache.camel.spi.AggregationRepository;
+import org.apache.camel.spi.DeltaAggregationRepository;
 import org.apache.camel.spi.ExceptionHandler;
 import org.apache.camel.spi.IdAware;
 import org.apache.camel.spi.OptimisticLockingAggregationRepository;
@@ -93,6 +95,9 @@ public class AggregateProcessor extends ServiceSupport implements AsyncProcessor
     private String id;
     private AggregationStrategy aggregationStrategy;
     private boolean preCompletion;
+    private DeltaAggregationRepository deltaAggregationRepository;
+    // the aggregated exchanges of the groups when using deltas, which are only rebuilt from the deltas after a restart
+    private final Map<String, Exchange> deltaAggregates = new ConcurrentHashMap<String, Exchange>();
     private Expression correlationExpression;
     private AggregateController aggregateController;
     private final ExecutorService executorService;
@@ -374,6 +379,10 @@ public class AggregateProcessor extends ServiceSupport implements AsyncProcessor
      * @throws org.apache.camel.CamelExchangeException is thrown if error aggregating
      */
     private List<Exchange> doAggregation(String key, Exchange newExchange) throws CamelExchangeException {
+        if (deltaAggregationRepository != null) {
+            return doDeltaAggregation(key, newExchange);
+        }
+
         LOG.trace("onAggregation +++ start +++ with correlation key: {}", key);
 
         List<Exchange> list = new ArrayList<Exchange>();
@@ -472,6 +481,105 @@ public class AggregateProcessor extends ServiceSupport implements AsyncProcessor
         return list;
     }
 
+    /**
+     * Appends the exchange as a delta to the group with the given correlation key, and aggregates it with
+     * the aggregated exchange of the group which is kept in memory, so only the delta is stored.
+     * <p/>
+     * This method <b>must</b> be run synchronized as we cannot aggregate the same correlation key
+     * in parallel.
+     *
+     * @param key         the correlation key
+     * @param newExchange the exchange
+     * @return the aggregated exchange(s) which is complete, or an empty list if not yet complete
+     * @throws org.apache.camel.CamelExchangeException is thrown if error aggregating
+     */
+    private List<Exchange> doDeltaAggregation(String key, Exchange newExchange) throws CamelExchangeException {
+        LOG.trace("onDeltaAggregation +++ start +++ with correlation key: {}", key);
+
+        List<Exchange> list = new ArrayList<Exchange>();
+
+        Exchange oldExchange = getAggregatedExchange(key);
+        ExchangeHelper.prepareAggregation(oldExchange, newExchange);
+        // track the timeout before copying so the timeout is stored with the delta, and can be restored on startup
+        // (the timeout is removed again if the group is complete)
+        trackTimeout(key, newExchange);
+        // the aggregation strategy may change the exchange, so the delta is a copy of the incoming exchange
+        Exchange delta = ExchangeHelper.createCopy(newExchange, true);
+
+        Exchange answer;
+        try {
+            answer = onAggregation(oldExchange, newExchange);
+        } catch (Throwable e) {
+            // the strategy may have changed the aggregated exchange, so it is aggregated again from the deltas
+            deltaAggregates.remove(key);
+            // must catch any exception from aggregation
+            throw new CamelExchangeException("Error occurred during aggregation", newExchange, e);
+        }
+        if (answer == null) {
+            deltaAggregates.remove(key);
+            throw new CamelExchangeException("AggregationStrategy " + aggregationStrategy + " returned null which is not allowed", newExchange);
+        }
+        // only append once aggregated, so a failed exchange is not aggregated again when the group is rebuilt
+        int size = deltaAggregationRepository.append(newExchange.getContext(), key, delta);
+        answer.setProperty(Exchange.AGGREGATED_SIZE, size);
+
+        String complete = isCompleted(key, answer);
+        if (complete == null) {
+            deltaAggregates.put(key, answer);
+        } else {
+            doAggregationComplete(complete, list, key, null, answer);
+        }
+
+        LOG.trace("onDeltaAggregation +++  end  +++ with correlation key: {}", key);
+        return list;
+    }
+
+    /**
+     * Gets the aggregated exchange for the given correlation key from the aggregation repository.
+     * <p/>
+     * When using a {@link DeltaAggregationRepository} the aggregated exchange is kept in memory, and is only
+     * aggregated from the deltas using the {@link AggregationStrategy} if not in memory, such as after a restart.
+     *
+     * @param key the correlation key
+     * @return the aggregated exchange, or <tt>null</tt> if no exchanges exists for the correlation key
+     */
+    protected Exchange getAggregatedExchange(String key) {
+        if (deltaAggregationRepository == null) {
+            return aggregationRepository.get(camelContext, key);
+        }
+
+        Exchange aggregated = deltaAggregates.get(key);
+        if (aggregated != null) {
+            return aggregated;
+        }
+
+        List<Exchange> deltas = deltaAggregationRepository.getDeltas(camelContext, key);
+        Exchange answer = null;
+        for (Exchange delta : deltas) {
+            ExchangeHelper.prepareAggregation(answer, delta);
+            answer = onAggregation(answer, delta);
+            if (answer == null) {
+                throw new RuntimeCamelException(new CamelExchangeException("AggregationStrategy " + aggregationStrategy
+                        + " returned null which is not allowed", delta));
+            }
+        }
+        if (answer != null) {
+            answer.setProperty(Exchange.AGGREGATED_SIZE, deltas.size());
+            deltaAggregates.put(key, answer);
+        }
+        return answer;
+    }
+
+    /**
+     * Gets the correlation keys of the groups in the aggregation repository.
+     */
+    protected Set<String> getAggregationKeys() {
+        if (deltaAggregationRepository != null) {
+            return deltaAggregationRepository.getDeltaKeys();
+        }
+        return aggregationRepository.getKeys();
+    }
+
     protected void doAggregationComplete(String complete, List<Exchange> list, String key, Exchange originalExchange, Exchange answer) {
         if ("consumer".equals(complete)) {
             for (String batchKey : batchConsumerCorrelationKeys) {
@@ -480,7 +588,7 @@ public class AggregateProcessor extends ServiceSupport implements AsyncProcessor
                     // skip the current aggregated key as we have already aggregated it and have the answer
                     batchAnswer = answer;
                 } else {
-                    batchAnswer = aggregationRepository.get(camelContext, batchKey);
+                    batchAnswer = getAggregatedExchange(batchKey);
                 }
 
                 if (batchAnswer != null) {
@@ -638,9 +746,13 @@ public class AggregateProcessor extends ServiceSupport implements AsyncProcessor
         }
         aggregated.setProperty(Exchange.AGGREGATED_CORRELATION_KEY, key);
 
-        // only remove if we have previous added (as we could potentially complete with only 1 exchange)
-        // (if we have previous added then we have that as the original exchange)
-        if (original != null) {
+        if (deltaAggregationRepository != null) {
+            // the deltas is always appended so remove them
+            deltaAggregates.remove(key);
+            deltaAggregationRepository.removeDeltas(aggregated.getContext(), key, aggregated);
+        } else if (original != null) {
+            // only remove if we have previous added (as we could potentially complete with only 1 exchange)
+            // (if we have previous added then we have that as the original exchange)
             // remove from repository as its completed, we do this first as to trigger any OptimisticLockingException's
             aggregationRepository.remove(aggregated.getContext(), key, original);
         }
@@ -747,7 +859,7 @@ public class AggregateProcessor extends ServiceSupport implements AsyncProcessor
      */
     protected void restoreTimeoutMapFromAggregationRepository() throws Exception {
         // grab the timeout value for each partly aggregated exchange
-        Set<String> keys = aggregationRepository.getKeys();
+        Set<String> keys = getAggregationKeys();
         if (keys == null || keys.isEmpty()) {
             return;
         }
@@ -756,7 +868,17 @@ public class AggregateProcessor extends ServiceSupport implements AsyncProcessor
         LOG.trace("Starting restoring CompletionTimeout for {} existing exchanges from the aggregation repository...", keys.size());
 
         for (String key : keys) {
-            Exchange exchange = aggregationRepository.get(camelContext, key);
+            Exchange exchange;
+            if (deltaAggregationRepository != null) {
+                // the timeout is stored with the latest delta
+                List<Exchange> deltas = deltaAggregationRepository.getDeltas(camelContext, key);
+                exchange = deltas.isEmpty() ? null : deltas.get(deltas.size() - 1);
+            } else {
+                exchange = aggregationRepository.get(camelContext, key);
+            }
+            if (exchange == null) {
+                continue;
+            }
             // grab the timeout value
             long timeout = exchange.hasProperties() ? exchange.getProperty(Exchange.AGGREGATED_TIMEOUT, 0, long.class) : 0;
             if (timeout > 0) {
@@ -1039,7 +1161,7 @@ public class AggregateProcessor extends ServiceSupport implements AsyncProcessor
 
             // get the aggregated exchange
             boolean evictionStolen = false;
-            Exchange answer = aggregationRepository.get(camelContext, key);
+            Exchange answer = getAggregatedExchange(key);
             if (answer == null) {
                 evictionStolen = true;
             } else {
@@ -1078,7 +1200,7 @@ public class AggregateProcessor extends ServiceSupport implements AsyncProcessor
             LOG.trace("Starting completion interval task");
 
             // trigger completion for all in the repository
-            Set<String> keys = aggregationRepository.getKeys();
+            Set<String> keys = getAggregationKeys();
 
             if (keys != null && !keys.isEmpty()) {
                 // must acquire the shared aggregation lock to be able to trigger interval completion
@@ -1088,7 +1210,7 @@ public class AggregateProcessor extends ServiceSupport implements AsyncProcessor
                 try {
                     for (String key : keys) {
                         boolean stolenInterval = false;
-                        Exchange exchange = aggregationRepository.get(camelContext, key);
+                        Exchange exchange = getAggregatedExchange(key);
                         if (exchange == null) {
                             stolenInterval = true;
                         } else {
@@ -1256,6 +1378,18 @@ public class AggregateProcessor extends ServiceSupport implements AsyncProcessor
             LOG.info("Optimistic locking is enabled");
         }
 
+        deltaAggregationRepository = null;
+        if (aggregationRepository instanceof DeltaAggregationRepository) {
+            // the aggregated exchanges are kept in memory, which cannot be shared or checked before aggregating
+            if (optimisticLocking || preCompletion) {
+                LOG.info("DeltaAggregationRepository cannot be used with optimistic locking or pre-completion."
+                        + " Aggregator {} stores the aggregated exchange on each aggregation.", getId());
+            } else {
+                deltaAggregationRepository = (DeltaAggregationRepository) aggregationRepository;
+                LOG.info("DeltaAggregationRepository detected. Aggregator {} stores the incoming exchanges as deltas.", getId());
+            }
+        }
+
         ServiceHelper.startServices(aggregationStrategy, processor, aggregationRepository);
 
         // should we use recover checker
@@ -1347,6 +1481,8 @@ public class AggregateProcessor extends ServiceSupport implements AsyncProcessor
         }
         batchConsumerCorrelationKeys.clear();
         redeliveryState.clear();
+        // the deltas are aggregated again when started
+        deltaAggregates.clear();
     }
 
     @Override
@@ -1407,7 +1543,7 @@ public class AggregateProcessor extends ServiceSupport implements AsyncProcessor
             lock.lock();
         }
         try {
-            Exchange exchange = aggregationRepository.get(camelContext, key);
+            Exchange exchange = getAggregatedExchange(key);
             if (exchange != null) {
                 total = 1;
                 LOG.trace("Force completion triggered for correlation key: {}", key);
@@ -1443,7 +1579,7 @@ public class AggregateProcessor extends ServiceSupport implements AsyncProcessor
         LOG.trace("Starting force completion of all groups task");
 
         // trigger completion for all in the repository
-        Set<String> keys = aggregationRepository.getKeys();
+        Set<String> keys = getAggregationKeys();
 
         int total = 0;
         if (keys != null && !keys.isEmpty()) {
@@ -1454,7 +1590,7 @@ public class AggregateProcessor extends ServiceSupport implements AsyncProcessor
             total = keys.size();
             try {
                 for (String key : keys) {
-                    Exchange exchange = aggregationRepository.get(camelContext, key);
+                    Exchange exchange = getAggregatedExchange(key);
                     if (exchange != null) {
                         LOG.trace("Force completion triggered for correlation key: {}", key);
                         // indicate it was completed by a force completion request
@@ -0,0 +1,84 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.camel.processor.aggregate;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import org.apache.camel.CamelContext;
+import org.apache.camel.Exchange;
+import org.apache.camel.spi.DeltaAggregationRepository;
+import org.apache.camel.util.ExchangeHelper;
+
+/**
+ * A memory based {@link org.apache.camel.spi.DeltaAggregationRepository} which stores the deltas in memory only.
+ *
+ * @version 
+ */
+public class MemoryDeltaAggregationRepository extends MemoryAggregationRepository implements DeltaAggregationRepository {
+    private final ConcurrentMap<String, List<Exchange>> deltas = new ConcurrentHashMap<String, List<Exchange>>();
+
+    public int append(CamelContext camelContext, String key, Exchange exchange) {
+        List<Exchange> group = deltas.get(key);
+        if (group == null) {
+            group = new ArrayList<Exchange>();
+            List<Exchange> existing = deltas.putIfAbsent(key, group);
+            if (existing != null) {
+                group = existing;
+            }
+        }
+        synchronized (group) {
+            group.add(exchange);
+            return group.size();
+        }
+    }
+
+    public List<Exchange> getDeltas(CamelContext camelContext, String key) {
+        List<Exchange> group = deltas.get(key);
+        if (group == null) {
+            return Collections.emptyList();
+        }
+        List<Exchange> answer = new ArrayList<Exchange>();
+        synchronized (group) {
+            // the deltas is aggregated again, which may change them
+            for (Exchange delta : group) {
+                answer.add(ExchangeHelper.createCopy(delta, true));
+            }
+        }
+        return answer;
+    }
+
+    public void removeDeltas(CamelContext camelContext, String key, Exchange aggregated) {
+        deltas.remove(key);
+    }
+
+    public Set<String> getDeltaKeys() {
+        // do not allow edits to the set
+        return Collections.unmodifiableSet(deltas.keySet());
+    }
+
+    @Override
+    protected void doStop() throws Exception {
+        super.doStop();
+        deltas.clear();
+    }
+
+}
@@ -42,6 +42,11 @@ import org.slf4j.LoggerFactory;
  * <p/>
  * This tracer allows to store message tracers per node in the Camel routes. The tracers
  * is stored in a backlog queue (FIFO based) which allows to pull the traced messages on demand.
+ * The backlog is bounded, and when its full the oldest traced messages are discarded.
+ * <p/>
+ * To keep the tracer enabled in production with a bounded overhead, then a sample rate can be configured
+ * to only trace 1 in every n messages, and/or a sample period to only trace at most 1 message per period.
+ * The decision is taken once per message at the first node being traced.
  */
 public final class BacklogTracer extends ServiceSupport implements InterceptStrategy {
 
@@ -59,6 +64,10 @@ public final class BacklogTracer extends ServiceSupport implements InterceptStra
     private int bodyMaxChars = 128 * 1024;
     private boolean bodyIncludeStreams;
     private boolean bodyIncludeFiles = true;
+    private volatile int traceSampleRate = 1;
+    private volatile long traceSamplePeriod;
+    private final AtomicLong sampleCounter = new AtomicLong();
+    private final AtomicLong lastSampled = new AtomicLong();
     // a pattern to filter tracing nodes
     private String tracePattern;
     private String[] patterns;
@@ -125,7 +134,36 @@ public final class BacklogTracer extends ServiceSupport implements InterceptStra
         if (LOG.isTraceEnabled()) {
             LOG.trace("Should trace evaluated {} -> pattern: {}, filter: {}", new Object[]{definition.getId(), pattern, filter});
         }
-        return pattern && filter;
+        return pattern && filter && shouldTraceSample(exchange);
+    }
+
+    private boolean shouldTraceSample(Exchange exchange) {
+        int rate = traceSampleRate;
+        long period = traceSamplePeriod;
+        if (rate <= 1 && period <= 0) {
+            return true;
+        }
+        // only decide once per exchange so all the nodes of a sampled exchange is traced
+        Boolean sampled = exchange.getProperty(Exchange.BACKLOG_TRACER_SAMPLED, Boolean.class);
+        if (sampled == null) {
+            sampled = isSampled(rate, period);
+            exchange.setProperty(Exchange.BACKLOG_TRACER_SAMPLED, sampled);
+        }
+        return sampled;
+    }
+
+    private boolean isSampled(int rate, long period) {
+        // sample the first and then every n'th exchange
+        if (rate > 1 && sampleCounter.getAndIncrement() % rate != 0) {
+            return false;
+        }
+        if (period > 0) {
+            // only sample at most one exchange per period
+            long now = System.currentTimeMillis();
+            long last = lastSampled.get();
+            return (last == 0 || now - last >= period) && lastSampled.compareAndSet(last, now);
+        }
+        return true;
     }
 
     private boolean shouldTracePattern(ProcessorDefinition<?> definition) {
@@ -161,7 +199,10 @@ public final class BacklogTracer extends ServiceSupport implements InterceptStra
             }
         }
 
-        queue.add(event);
+        // discard the oldest if another thread filled up the queue in the mean time
+        while (!queue.offer(event)) {
+            queue.poll();
+        }
     }
 
     private boolean shouldTraceFilter(Exchange exchange) {
@@ -190,6 +231,25 @@ public final class BacklogTracer extends ServiceSupport implements InterceptStra
         this.backlogSize = backlogSize;
     }
 
+    public int getTraceSampleRate() {
+        return traceSampleRate;
+    }
+
+    public void setTraceSampleRate(int traceSampleRate) {
+        if (traceSampleRate <= 0) {
+            throw new IllegalArgumentException("The trace sample rate must be a positive number, was: " + traceSampleRate);
+        }
+        this.traceSampleRate = traceSampleRate;
+    }
+
+    public long getTraceSamplePeriod() {
+        return traceSamplePeriod;
+    }
+
+    public void setTraceSamplePeriod(long traceSamplePeriod) {
+        this.traceSamplePeriod = traceSamplePeriod;
+    }
+
     public boolean isRemoveOnDump() {
         return removeOnDump;
     }
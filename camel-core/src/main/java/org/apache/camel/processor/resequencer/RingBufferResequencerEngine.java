@@ -0,0 +1,299 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.camel.processor.resequencer;
+
+import java.util.LinkedList;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Resequences elements identified by a <code>long</code> sequence number using a
+ * sliding window of a fixed capacity. This engine is an alternative to
+ * {@link ResequencerEngine} for streams with a high throughput.
+ * <p>
+ * The elements are kept in an array indexed by sequence number modulo the
+ * capacity, so inserting an element and finding the next element to deliver
+ * does not require sorting, and no objects are created per element. The window
+ * starts at the sequence number following the last delivered element. An
+ * element which does not fit into the window waits until the window has moved
+ * forward, which gives back-pressure to the producers when the window is full.
+ * If the window is empty, then there is nothing to wait for, and such an element
+ * is held (sorted) until the window has moved far enough for the element to fit,
+ * or the element has waited for <code>timeout</code> milliseconds, where the
+ * window is moved forward to the held element.
+ * <p>
+ * There is no timer task per element. Instead the arrival time of each element
+ * is recorded, and when {@link #deliver()} is called the gap in front of the
+ * first waiting element is skipped when this element has waited for
+ * <code>timeout</code> milliseconds. Elements with a sequence number before
+ * the window (which are older than the last delivered element) are delivered
+ * on the next delivery, unless <code>rejectOld</code> is enabled.
+ *
+ * @version 
+ */
+public class RingBufferResequencerEngine<E> extends ResequencerEngine<E> {
+
+    private final SequenceNumberComparator<E> comparator;
+    private final int capacity;
+    private final Object[] elements;
+    private final long[] arrivals;
+    private final LinkedList<E> late = new LinkedList<E>();
+    // elements beyond the window which arrived when the window was empty
+    private final TreeMap<Long, Held<E>> held = new TreeMap<Long, Held<E>>();
+    private int count;
+    private boolean started;
+    private boolean stopped;
+    private long head;
+    private long highest;
+    private E lastDelivered;
+
+    /**
+     * Creates a new resequencer instance.
+     *
+     * @param comparator a sequence number comparator.
+     * @param capacity   the size of the window.
+     */
+    public RingBufferResequencerEngine(SequenceNumberComparator<E> comparator, int capacity) {
+        super(comparator);
+        if (capacity <= 0) {
+            throw new IllegalArgumentException("Capacity must be a positive number, was: " + capacity);
+        }
+        this.comparator = comparator;
+        this.capacity = capacity;
+        this.elements = new Object[capacity];
+        this.arrivals = new long[capacity];
+    }
+
+    @Override
+    public synchronized void start() {
+        // there is no timer to start
+        stopped = false;
+    }
+
+    @Override
+    public synchronized void stop() {
+        stopped = true;
+        // wakeup any producers waiting for the window to move
+        notifyAll();
+    }
+
+    /**
+     * Returns the size of the window.
+     */
+    public int getCapacity() {
+        return capacity;
+    }
+
+    @Override
+    public synchronized int size() {
+        return count + late.size() + held.size();
+    }
+
+    @Override
+    synchronized E getLastDelivered() {
+        return lastDelivered;
+    }
+
+    @Override
+    synchronized void setLastDelivered(E o) {
+        lastDelivered = o;
+        head = comparator.getSequenceNumber(o) + 1;
+        highest = head - 1;
+        started = true;
+    }
+
+    /**
+     * Inserts the given element into this resequencer. If the element is beyond
+     * the window then this method waits until the window has moved far enough
+     * for the element to fit.
+     *
+     * @param o an element.
+     * @throws IllegalArgumentException if the element cannot be used with this resequencer engine
+     * @throws IllegalStateException if stopped or interrupted while waiting for room in the window
+     */
+    @Override
+    public synchronized void insert(E o) {
+        // validate the exchange has no problem
+        if (!comparator.isValid(o)) {
+            throw new IllegalArgumentException("Element cannot be used in comparator: " + comparator);
+        }
+        long number = comparator.getSequenceNumber(o);
+
+        if (!started && count == 0) {
+            head = number;
+            highest = number;
+        }
+
+        while (number - head >= capacity) {
+            if (count == 0) {
+                // the window is empty so there is nothing to wait for, instead hold the element until
+                // the window has moved or the element has waited for the timeout
+                if (!held.containsKey(number)) {
+                    held.put(number, new Held<E>(o, System.currentTimeMillis()));
+                }
+                return;
+            }
+            if (stopped) {
+                throw new IllegalStateException("Resequencer is stopped");
+            }
+            // wait for the window to move forward (back-pressure)
+            try {
+                wait(getTimeout() > 0 ? getTimeout() : 1000L);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IllegalStateException("Interrupted while waiting for resequencer window to move", e);
+            }
+            if (!started && count == 0) {
+                head = number;
+                highest = number;
+            }
+        }
+
+        if (number < head) {
+            if (started) {
+                // validate the exchange shouldn't be 'rejected' (if applicable)
+                if (getRejectOld() != null && getRejectOld()) {
+                    throw new MessageRejectedException("rejecting message [" + o
+                            + "], it should have been sent before the last delivered message [" + lastDelivered + "]");
+                }
+                late.add(o);
+                return;
+            } else if (highest - number < capacity) {
+                // nothing delivered yet so the window can start earlier
+                head = number;
+            } else {
+                late.add(o);
+                return;
+            }
+        }
+
+        int index = index(number);
+        if (elements[index] != null) {
+            // duplicate sequence number
+            return;
+        }
+        elements[index] = o;
+        arrivals[index] = System.currentTimeMillis();
+        count++;
+        if (number > highest) {
+            highest = number;
+        }
+    }
+
+    @Override
+    public synchronized void deliver() throws Exception {
+        while (deliverNext()) {
+            // do nothing here
+        }
+    }
+
+    /**
+     * Attempts to deliver the element at the start of the window. If there is
+     * a gap at the start of the window, then the gap is skipped when the first
+     * element after the gap has waited for the timeout.
+     *
+     * @return <code>true</code> if an element has been delivered
+     *         <code>false</code> otherwise.
+     *
+     * @throws Exception thrown by {@link SequenceSender#sendElement(Object)}.
+     */
+    @Override
+    public synchronized boolean deliverNext() throws Exception {
+        if (!late.isEmpty()) {
+            getSequenceSender().sendElement(late.removeFirst());
+            return true;
+        }
+        if (count == 0) {
+            if (held.isEmpty()) {
+                return false;
+            }
+            // the window is empty so move it forward to the first held element when it has waited for the timeout
+            Map.Entry<Long, Held<E>> first = held.firstEntry();
+            if (System.currentTimeMillis() - first.getValue().arrival < getTimeout()) {
+                return false;
+            }
+            head = first.getKey();
+            highest = head - 1;
+            moveHeld();
+        }
+
+        long number = head;
+        int index = index(number);
+        if (elements[index] == null) {
+            // find the first element after the gap
+            while (elements[index] == null && number < highest) {
+                number++;
+                index = index(number);
+            }
+            if (elements[index] == null) {
+                return false;
+            }
+        }
+
+        boolean ready = started && number == head;
+        if (!ready && System.currentTimeMillis() - arrivals[index] < getTimeout()) {
+            return false;
+        }
+
+        @SuppressWarnings("unchecked")
+        E element = (E) elements[index];
+        elements[index] = null;
+        count--;
+        head = number + 1;
+        started = true;
+        lastDelivered = element;
+        moveHeld();
+        // wakeup any producers waiting for the window to move
+        notifyAll();
+
+        getSequenceSender().sendElement(element);
+        return true;
+    }
+
+    /**
+     * Moves the held elements which fits into the window.
+     */
+    private void moveHeld() {
+        while (!held.isEmpty() && held.firstKey() - head < capacity) {
+            Map.Entry<Long, Held<E>> entry = held.pollFirstEntry();
+            long number = entry.getKey();
+            int index = index(number);
+            elements[index] = entry.getValue().element;
+            arrivals[index] = entry.getValue().arrival;
+            count++;
+            if (number > highest) {
+                highest = number;
+            }
+        }
+    }
+
+    private int index(long number) {
+        int index = (int) (number % capacity);
+        return index < 0 ? index + capacity : index;
+    }
+
+    private static final class Held<E> {
+        private final E element;
+        private final long arrival;
+
+        private Held(E element, long arrival) {
+            this.element = element;
+            this.arrival = arrival;
+        }
+    }
+
+}
@@ -0,0 +1,80 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.camel.spi;
+
+import java.util.List;
+import java.util.Set;
+
+import org.apache.camel.CamelContext;
+import org.apache.camel.Exchange;
+
+/**
+ * A specialized {@link org.apache.camel.spi.AggregationRepository} which stores each incoming {@link Exchange}
+ * as a delta per correlation key, instead of storing the aggregated exchange on each aggregation.
+ * <p/>
+ * The {@link org.apache.camel.processor.aggregate.AggregateProcessor} will append the incoming exchanges, and
+ * keep the aggregated exchanges in memory, so the completion is decided on the aggregated exchange as usual.
+ * The deltas are only aggregated using the {@link org.apache.camel.processor.aggregate.AggregationStrategy}
+ * if the aggregated exchange is not in memory, such as after a restart. This avoids storing the aggregated
+ * exchange over and over again, which can be expensive for large groups when the repository is persistent.
+ * <p/>
+ * The aggregator does not use the deltas with optimistic locking or a
+ * {@link org.apache.camel.processor.aggregate.PreCompletionAwareAggregationStrategy}. Otherwise the
+ * repository is used as a regular {@link org.apache.camel.spi.AggregationRepository}.
+ *
+ * @version
+ */
+public interface DeltaAggregationRepository extends AggregationRepository {
+
+    /**
+     * Appends the given {@link Exchange} as a delta to the group of the correlation key.
+     *
+     * @param camelContext the current CamelContext
+     * @param key          the correlation key
+     * @param exchange     the incoming exchange
+     * @return the number of deltas in the group, including the appended exchange
+     */
+    int append(CamelContext camelContext, String key, Exchange exchange);
+
+    /**
+     * Gets the deltas of the group of the correlation key.
+     *
+     * @param camelContext the current CamelContext
+     * @param key          the correlation key
+     * @return the deltas in the order they were appended, or an empty list if the group has no deltas
+     */
+    List<Exchange> getDeltas(CamelContext camelContext, String key);
+
+    /**
+     * Removes the deltas of the completed group of the correlation key.
+     * <p/>
+     * Will be invoked with the exchange aggregated from the deltas, which recoverable repositories should
+     * keep until it has been confirmed, as with {@link #remove(org.apache.camel.CamelContext, String, org.apache.camel.Exchange)}.
+     *
+     * @param camelContext the current CamelContext
+     * @param key          the correlation key
+     * @param aggregated   the exchange aggregated from the deltas
+     */
+    void removeDeltas(CamelContext camelContext, String key, Exchange aggregated);
+
+    /**
+     * Gets the correlation keys of the groups which has deltas.
+     *
+     * @return the keys
+     */
+    Set<String> getDeltaKeys();
+}
@@ -0,0 +1,50 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.camel.spi;
+
+import org.apache.camel.CamelContext;
+
+/**
+ * A configurer which sets the URI options on a given bean (typically an {@link org.apache.camel.Endpoint}
+ * or its configuration object) by calling the setters directly, instead of looking them up using reflection.
+ * <p/>
+ * The <tt>camel-apt</tt> annotation processor generates a configurer for classes annotated with
+ * {@link UriEndpoint} or {@link UriParams}, named as the class with a <tt>Configurer</tt> suffix, which
+ * {@link org.apache.camel.impl.DefaultComponent} uses when present.
+ *
+ * @version 
+ */
+public interface PropertyConfigurer {
+
+    /**
+     * Configures the option on the target bean.
+     * <p/>
+     * If the value cannot be converted to the type of the option then
+     * {@link org.apache.camel.NoTypeConversionAvailableException} is thrown, and the setter is not called.
+     * Any exception thrown by the setter is thrown as is.
+     *
+     * @param camelContext the camel context
+     * @param target       the target bean
+     * @param name         the name of the option
+     * @param value        the value of the option
+     * @return <tt>true</tt> if the option was configured, <tt>false</tt> if the option is unknown
+     *         by this configurer
+     * @throws Exception is thrown if error configuring the option
+     */
+    boolean configure(CamelContext camelContext, Object target, String name, Object value) throws Exception;
+
+}
@@ -0,0 +1,354 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.camel.support;
+
+import java.io.Closeable;
+import java.io.EOFException;
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+
+import org.apache.camel.CamelContext;
+import org.apache.camel.Exchange;
+import org.apache.camel.Expression;
+import org.apache.camel.RuntimeCamelException;
+import org.apache.camel.WrappedFile;
+import org.apache.camel.util.IOHelper;
+import org.apache.camel.util.LiteralTokenIterator;
+import org.apache.camel.util.ObjectHelper;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * {@link org.apache.camel.Expression} to walk a {@link java.io.File} based value
+ * using an {@link Iterator}, which splits the content by the given literal token,
+ * where the file is read and tokenized in parallel chunks.
+ * <p/>
+ * The file is partitioned into chunks which ends at a token boundary, and the chunks are read
+ * using positional reads (so the file is not memory mapped, and can be moved or deleted as soon as the iterator
+ * is closed) and tokenized concurrently using a thread pool, keeping at most the given parallelism
+ * chunks in flight. The thread pool is shared by all the exchanges evaluated by this expression, and is
+ * created once using the {@link org.apache.camel.spi.ExecutorServiceManager} (unless a custom thread pool is configured). The iterator returns the tokens in the same order as they are in the file,
+ * so the {@link Exchange#SPLIT_INDEX} is as if the file was tokenized by a single thread.
+ * <p/>
+ * The partitioning requires the token to be found by its bytes, and therefore the file is only tokenized
+ * in parallel when using an UTF-8 or single byte charset. For any other charset, or if the value is not file based,
+ * then the value is tokenized by a single thread using a {@link LiteralTokenIterator}.
+ */
+public class ParallelTokenizeExpressionIterator extends ExpressionAdapter {
+
+    public static final int DEFAULT_CHUNK_SIZE = 4 * 1024 * 1024;
+
+    // the size of the windows read when searching for the token which ends a chunk
+    private static final int BOUNDARY_WINDOW_SIZE = 2 * IOHelper.DEFAULT_BUFFER_SIZE;
+
+    private static final Logger LOG = LoggerFactory.getLogger(ParallelTokenizeExpressionIterator.class);
+
+    private final Expression expression;
+    private final String token;
+    private final int parallelism;
+    private final int chunkSize;
+    private volatile ExecutorService executorService;
+    private volatile boolean createdExecutorService;
+
+    public ParallelTokenizeExpressionIterator(Expression expression, String token, int parallelism) {
+        this(expression, token, parallelism, DEFAULT_CHUNK_SIZE);
+    }
+
+    public ParallelTokenizeExpressionIterator(Expression expression, String token, int parallelism, int chunkSize) {
+        ObjectHelper.notNull(expression, "expression");
+        ObjectHelper.notNull(token, "token");
+        if (token.isEmpty()) {
+            throw new IllegalArgumentException("Token must not be empty");
+        }
+        if (parallelism <= 0) {
+            throw new IllegalArgumentException("Parallelism must be a positive value, was " + parallelism);
+        }
+        if (chunkSize <= 0) {
+            throw new IllegalArgumentException("ChunkSize must be a positive value, was " + chunkSize);
+        }
+        this.expression = expression;
+        this.token = token;
+        this.parallelism = parallelism;
+        this.chunkSize = chunkSize;
+    }
+
+    @Override
+    public Object evaluate(Exchange exchange) {
+        Object value = expression.evaluate(exchange, Object.class);
+        if (value instanceof WrappedFile) {
+            value = ((WrappedFile<?>) value).getFile();
+        }
+
+        String name = exchange.getProperty(Exchange.CHARSET_NAME, String.class);
+        Charset charset = name != null ? Charset.forName(name) : Charset.defaultCharset();
+
+        if (value instanceof File && LiteralTokenIterator.isByteSearchable(charset)) {
+            File file = (File) value;
+            try {
+                ChunkIterator iterator = new ChunkIterator(exchange, file, charset);
+                LOG.trace("Tokenizing file: {} in parallel chunks of {} bytes", file, chunkSize);
+                return iterator;
+            } catch (IOException e) {
+                throw new RuntimeCamelException("Cannot tokenize file: " + file, e);
+            }
+        }
+
+        // fallback and tokenize using a single thread
+        return LiteralTokenIterator.createIterator(exchange, value, token, 1);
+    }
+
+    public ExecutorService getExecutorService() {
+        return executorService;
+    }
+
+    /**
+     * To use a custom thread pool for tokenizing the chunks, instead of a thread pool created
+     * on first use with the parallelism as its size.
+     */
+    public void setExecutorService(ExecutorService executorService) {
+        this.executorService = executorService;
+        this.createdExecutorService = false;
+    }
+
+    private ExecutorService getOrCreateExecutorService(CamelContext camelContext) {
+        ExecutorService answer = executorService;
+        if (answer == null || (createdExecutorService && answer.isShutdown())) {
+            synchronized (this) {
+                answer = executorService;
+                // the thread pool we created is shutdown by the executor service manager when camel context is stopped,
+                // so create a new thread pool if camel context has been restarted
+                if (answer == null || (createdExecutorService && answer.isShutdown())) {
+                    answer = camelContext.getExecutorServiceManager().newFixedThreadPool(this, "ParallelTokenize", parallelism);
+                    executorService = answer;
+                    createdExecutorService = true;
+                }
+            }
+        }
+        return answer;
+    }
+
+    @Override
+    public String toString() {
+        return "tokenizeInParallel(" + expression + ", " + token + ", " + parallelism + ")";
+    }
+
+    /**
+     * Iterator which partitions the file into chunks and returns the tokens of the chunks in order.
+     */
+    private final class ChunkIterator implements Iterator<String>, Closeable {
+
+        private final File file;
+        private final Charset charset;
+        private final byte[] tokenBytes;
+        private final RandomAccessFile raf;
+        private final FileChannel channel;
+        private final long size;
+        private final ExecutorService executor;
+        private final ByteBuffer window;
+        private final LinkedList<Future<List<String>>> chunks = new LinkedList<Future<List<String>>>();
+        private long position;
+        private Iterator<String> current;
+        private boolean closed;
+
+        private ChunkIterator(Exchange exchange, File file, Charset charset) throws IOException {
+            this.file = file;
+            this.charset = charset;
+            this.tokenBytes = token.getBytes(charset);
+            this.raf = new RandomAccessFile(file, "r");
+            this.channel = raf.getChannel();
+            this.size = channel.size();
+            this.executor = getOrCreateExecutorService(exchange.getContext());
+            // the boundaries are searched by the iterating thread, so the window can be reused
+            this.window = ByteBuffer.allocate(Math.max(BOUNDARY_WINDOW_SIZE, tokenBytes.length * 2));
+        }
+
+        @Override
+        public boolean hasNext() {
+            while (current == null || !current.hasNext()) {
+                if (closed) {
+                    return false;
+                }
+                submitChunks();
+                Future<List<String>> chunk = chunks.poll();
+                if (chunk == null) {
+                    close();
+                    return false;
+                }
+                try {
+                    current = chunk.get().iterator();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    close();
+                    throw new RuntimeCamelException(e);
+                } catch (ExecutionException e) {
+                    close();
+                    throw new RuntimeCamelException("Cannot tokenize file: " + file, e.getCause());
+                }
+            }
+            return true;
+        }
+
+        @Override
+        public String next() {
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+            return current.next();
+        }
+
+        @Override
+        public void remove() {
+            throw new UnsupportedOperationException("Remove is not supported");
+        }
+
+        private void submitChunks() {
+            while (chunks.size() < parallelism && position < size) {
+                final long start = position;
+                final long end;
+                try {
+                    end = findChunkEnd(start);
+                } catch (IOException e) {
+                    close();
+                    throw new RuntimeCamelException("Cannot tokenize file: " + file, e);
+                }
+                position = end;
+                chunks.add(executor.submit(new Callable<List<String>>() {
+                    public List<String> call() throws Exception {
+                        return tokenizeChunk(start, end);
+                    }
+                }));
+            }
+        }
+
+        /**
+         * Finds the end of the chunk starting at the given position, which is just after the first token
+         * at or after the chunk size, or the end of the file.
+         */
+        private long findChunkEnd(long start) throws IOException {
+            long from = start + chunkSize - tokenBytes.length + 1;
+            if (from <= start) {
+                from = start;
+            }
+            while (from < size) {
+                int length = (int) Math.min(window.capacity(), size - from);
+                window.clear();
+                window.limit(length);
+                read(window, from);
+                int found = indexOf(window.array(), length);
+                if (found != -1) {
+                    return from + found + tokenBytes.length;
+                }
+                if (from + length >= size) {
+                    break;
+                }
+                // overlap so we find tokens across the windows
+                from += length - tokenBytes.length + 1;
+            }
+            return size;
+        }
+
+        private int indexOf(byte[] bytes, int length) {
+            byte first = tokenBytes[0];
+            int max = length - tokenBytes.length;
+            for (int i = 0; i <= max; i++) {
+                if (bytes[i] != first) {
+                    continue;
+                }
+                int j = 1;
+                while (j < tokenBytes.length && bytes[i + j] == tokenBytes[j]) {
+                    j++;
+                }
+                if (j == tokenBytes.length) {
+                    return i;
+                }
+            }
+            return -1;
+        }
+
+        /**
+         * Reads the remaining bytes of the buffer from the given position of the file, without changing the
+         * position of the channel, so the chunks can be read concurrently.
+         */
+        private void read(ByteBuffer buffer, long position) throws IOException {
+            long pos = position;
+            while (buffer.hasRemaining()) {
+                int read = channel.read(buffer, pos);
+                if (read == -1) {
+                    throw new EOFException("Cannot tokenize file: " + file + " as it was truncated while being tokenized");
+                }
+                pos += read;
+            }
+            buffer.flip();
+        }
+
+        private List<String> tokenizeChunk(long start, long end) throws IOException {
+            long length = end - start;
+            if (length > Integer.MAX_VALUE) {
+                throw new IOException("Cannot tokenize file: " + file + " as there is no token within "
+                        + Integer.MAX_VALUE + " bytes from position: " + start);
+            }
+            ByteBuffer buffer = ByteBuffer.allocate((int) length);
+            read(buffer, start);
+            String text = charset.decode(buffer).toString();
+
+            // the chunk ends with a token (unless its the end of the file) so there is no empty token to add at the end
+            List<String> answer = new ArrayList<String>();
+            int pos = 0;
+            if (start == 0 && text.startsWith(token)) {
+                // skip leading token the same way as the scanner does
+                pos = token.length();
+            }
+            int index;
+            while ((index = text.indexOf(token, pos)) != -1) {
+                answer.add(text.substring(pos, index));
+                pos = index + token.length();
+            }
+            if (pos < text.length()) {
+                answer.add(text.substring(pos));
+            }
+            return answer;
+        }
+
+        @Override
+        public void close() {
+            if (closed) {
+                return;
+            }
+            closed = true;
+            for (Future<List<String>> chunk : chunks) {
+                chunk.cancel(true);
+            }
+            chunks.clear();
+            current = null;
+            IOHelper.close(channel, file.getName(), LOG);
+            IOHelper.close(raf, file.getName(), LOG);
+        }
+    }
+}
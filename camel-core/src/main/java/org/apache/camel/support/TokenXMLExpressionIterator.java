@@ -19,19 +19,18 @@ package org.apache.camel.support;
 import java.io.Closeable;
 import java.io.IOException;
 import java.io.InputStream;
-import java.text.MessageFormat;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.nio.charset.Charset;
 import java.util.ArrayList;
 import java.util.Iterator;
 import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
-import java.util.Scanner;
-import java.util.regex.MatchResult;
-import java.util.regex.Matcher;
-import java.util.regex.Pattern;
 
 import org.apache.camel.Exchange;
 import org.apache.camel.InvalidPayloadException;
+import org.apache.camel.RuntimeCamelException;
 import org.apache.camel.util.IOHelper;
 import org.apache.camel.util.ObjectHelper;
 
@@ -48,10 +47,6 @@ import org.apache.camel.util.ObjectHelper;
  * This implementation supports inheriting namespaces from a parent/root tag.
  */
 public class TokenXMLExpressionIterator extends ExpressionAdapter {
-    private static final Pattern NAMESPACE_PATTERN = Pattern.compile("xmlns(:\\w+|)\\s*=\\s*('[^']+'|\"[^\"]+\")");
-    private static final String SCAN_TOKEN_NS_PREFIX_REGEX = "([^:<>]{1,15}?:|)";
-    private static final String SCAN_BLOCK_TOKEN_REGEX_TEMPLATE = "<{0}(\\s+[^>]*)?/>|<{0}(\\s+[^>]*)?>(?:(?!(</{0}\\s*>)).)*</{0}\\s*>";
-    private static final String SCAN_PARENT_TOKEN_REGEX_TEMPLATE = "<{0}(\\s+[^>]*\\s*)?>";
     private static final String OPTION_WRAP_TOKEN = "<*>";
 
     protected final String tagToken;
@@ -119,19 +114,36 @@ public class TokenXMLExpressionIterator extends ExpressionAdapter {
     }
     
     /**
-     * Iterator to walk the input stream
+     * Iterator to walk the input stream.
+     * <p/>
+     * The input is read using a hand written state machine which keeps track of tags, comments,
+     * CDATA sections, processing instructions and quoted attribute values, so only the current
+     * token is kept in memory.
      */
     static class XMLTokenIterator implements Iterator<Object>, Closeable {
+        private static final int EOF = -1;
+        private static final int START_TAG = 0;
+        private static final int END_TAG = 1;
+        private static final int EMPTY_TAG = 2;
+        private static final int OTHER = 3;
+
         final String tagToken;
         final InputStream in;
         final String charset;
-        Scanner scanner;
         Object image;
 
-        private final Pattern tagTokenPattern;
+        private final String tagName;
         private final String inheritNamespaceToken;
+        private final String inheritNamespaceName;
         private final boolean wrapToken;
-        private Pattern inheritNamespaceTokenPattern;
+        private final Reader reader;
+        private final char[] buffer = new char[8192];
+        private final StringBuilder name = new StringBuilder();
+        private final StringBuilder tag = new StringBuilder();
+        private int pos;
+        private int limit;
+        private StringBuilder recorded;
+        private boolean rootTokenFound;
         private String rootTokenNamespaces;
         private String wrapHead;
         private String wrapTail;
@@ -139,95 +151,311 @@ public class TokenXMLExpressionIterator extends ExpressionAdapter {
         XMLTokenIterator(String tagToken, String inheritNamespaceToken, InputStream in, String charset) {
             this.tagToken = tagToken;
             this.charset = charset;
-          
-            // remove any beginning < and ending > as we need to support ns prefixes and attributes, so we use a reg exp patterns
-            this.tagTokenPattern = 
-                Pattern.compile(MessageFormat.format(SCAN_BLOCK_TOKEN_REGEX_TEMPLATE, 
-                                                     SCAN_TOKEN_NS_PREFIX_REGEX + tagToken.substring(1, tagToken.length() - 1)), 
-                                                     Pattern.MULTILINE | Pattern.DOTALL);
-            
+            this.in = in;
+            this.reader = new InputStreamReader(in, charset != null ? Charset.forName(charset) : Charset.defaultCharset());
+
+            // remove any beginning < and ending > as we need to support ns prefixes and attributes
+            this.tagName = tagToken.substring(1, tagToken.length() - 1);
+
             this.inheritNamespaceToken = inheritNamespaceToken;
             if (inheritNamespaceToken != null && OPTION_WRAP_TOKEN.equals(inheritNamespaceToken)) {
                 this.wrapToken = true;
-                this.in = new RecordableInputStream(in, charset);
+                this.inheritNamespaceName = null;
+                // record the text before the first token, which is used to wrap the tokens
+                this.recorded = new StringBuilder();
             } else {
                 this.wrapToken = false;
-                this.in = in;
-                if (inheritNamespaceToken != null) {
-                    // the inherit namespace token may itself have a namespace prefix
-                    // the namespaces on the parent tag can be in multi line, so we need to instruct the dot to support multilines
-                    this.inheritNamespaceTokenPattern = 
-                        Pattern.compile(MessageFormat.format(SCAN_PARENT_TOKEN_REGEX_TEMPLATE,
-                                                             SCAN_TOKEN_NS_PREFIX_REGEX + inheritNamespaceToken.substring(1, inheritNamespaceToken.length() - 1)), 
-                                                             Pattern.MULTILINE | Pattern.DOTALL);
-                }
+                this.inheritNamespaceName = inheritNamespaceToken != null
+                        ? inheritNamespaceToken.substring(1, inheritNamespaceToken.length() - 1) : null;
             }
         }
 
         void init() {
-            // use a scanner with the default delimiter
-            this.scanner = new Scanner(in, charset);
-            this.image = scanner.hasNext() ? (String) next(true) : null;
+            this.image = next(true);
         }
 
         String getNext(boolean first) {
-            // initialize inherited namespaces on first
-            if (first && inheritNamespaceToken != null && !wrapToken) {
-                rootTokenNamespaces =  getNamespacesFromNamespaceToken(scanner.findWithinHorizon(inheritNamespaceTokenPattern, 0));
+            try {
+                return readToken();
+            } catch (IOException e) {
+                throw new RuntimeCamelException("Error reading XML tokens", e);
             }
+        }
 
-            String next = scanner.findWithinHorizon(tagTokenPattern, 0);
-            if (next == null) {
-                return null;
+        private String readToken() throws IOException {
+            int c;
+            while ((c = read(null)) != EOF) {
+                if (c != '<') {
+                    continue;
+                }
+                int recordedStart = recorded != null ? recorded.length() - 1 : 0;
+                tag.setLength(0);
+                tag.append('<');
+                int type = readMarkup(tag, false);
+                if (type == EOF) {
+                    return null;
+                }
+                if (type != START_TAG && type != EMPTY_TAG) {
+                    continue;
+                }
+
+                // find the namespaces on the parent tag before looking for tokens
+                if (inheritNamespaceName != null && !rootTokenFound) {
+                    if (isName(name, inheritNamespaceName)) {
+                        rootTokenFound = true;
+                        rootTokenNamespaces = getNamespacesFromNamespaceToken(tag);
+                        continue;
+                    }
+                    if (!isName(name, tagName)) {
+                        continue;
+                    }
+                    // the token comes before any parent tag, so there are no namespaces to inherit
+                    rootTokenFound = true;
+                }
+
+                if (isName(name, tagName)) {
+                    if (recorded != null) {
+                        wrapHead = recorded.substring(0, recordedStart);
+                        wrapTail = buildXMLTail(wrapHead);
+                        recorded = null;
+                    }
+                    return buildToken(type == EMPTY_TAG);
+                }
+            }
+            return null;
+        }
+
+        private String buildToken(boolean empty) throws IOException {
+            StringBuilder sb = new StringBuilder();
+            if (wrapToken) {
+                sb.append(wrapHead);
             }
-            if (first && wrapToken) {
-                MatchResult mres = scanner.match();
-                wrapHead = ((RecordableInputStream)in).getText(mres.start());
-                wrapTail = buildXMLTail(wrapHead);
+            if (rootTokenNamespaces != null) {
+                // append root namespaces to local start token
+                int end = tag.length() - (empty ? 2 : 1);
+                sb.append(tag, 0, end).append(rootTokenNamespaces).append(tag, end, tag.length());
+            } else {
+                sb.append(tag);
             }
 
-            // build answer accordingly to whether namespaces should be inherited or not
-            if (inheritNamespaceToken != null && rootTokenNamespaces != null) {
-                // REVISIT should skip the prefixes that are declared within the child itself.
-                String head = ObjectHelper.before(next, ">");
-                boolean empty = false;
-                if (head.endsWith("/")) {
-                    head = head.substring(0, head.length() - 1);
-                    empty = true;
+            if (!empty) {
+                // grab the content until the matching end tag, taking nested tags with the same name into account
+                String qname = name.toString();
+                int depth = 0;
+                int c;
+                while ((c = read(sb)) != EOF) {
+                    if (c != '<') {
+                        continue;
+                    }
+                    int type = readMarkup(sb, true);
+                    if (type == EOF) {
+                        break;
+                    } else if (type == START_TAG && isQName(name, qname)) {
+                        depth++;
+                    } else if (type == END_TAG && isQName(name, qname)) {
+                        if (depth == 0) {
+                            break;
+                        }
+                        depth--;
+                    }
                 }
-                StringBuilder sb = new StringBuilder();
-                // append root namespaces to local start token
-                // grab the text
-                String tail = ObjectHelper.after(next, ">");
-                // build result with inherited namespaces
-                next = sb.append(head).append(rootTokenNamespaces).append(empty ? "/>" : ">").append(tail).toString();
-            } else if (wrapToken) {
-                // wrap the token
-                StringBuilder sb = new StringBuilder();
-                next = sb.append(wrapHead).append(next).append(wrapTail).toString();
             }
-            
-            return next;
+
+            if (wrapToken) {
+                sb.append(wrapTail);
+            }
+            return sb.toString();
         }
 
-        private String getNamespacesFromNamespaceToken(String text) {
-            if (text == null) {
-                return null;
+        /**
+         * Reads the markup after the &lt; char, and keeps the name of the tag in {@link #name}.
+         *
+         * @param sb        to append the markup to
+         * @param keepOther whether to append comments, CDATA sections, processing instructions and declarations
+         * @return the type of markup
+         */
+        private int readMarkup(StringBuilder sb, boolean keepOther) throws IOException {
+            name.setLength(0);
+            int c = read(sb);
+            if (c == '?') {
+                return skipUntil(keepOther ? sb : null, "?>");
+            } else if (c == '!') {
+                c = read(sb);
+                if (c == '-') {
+                    return skipUntil(keepOther ? sb : null, "-->");
+                } else if (c == '[') {
+                    return skipUntil(keepOther ? sb : null, "]]>");
+                }
+                // a declaration such as DOCTYPE which may have an internal subset
+                int brackets = 0;
+                while (c != EOF) {
+                    if (c == '[') {
+                        brackets++;
+                    } else if (c == ']') {
+                        brackets--;
+                    } else if (c == '>' && brackets <= 0) {
+                        return OTHER;
+                    }
+                    c = read(keepOther ? sb : null);
+                }
+                return EOF;
             }
 
+            boolean end = c == '/';
+            if (end) {
+                c = read(sb);
+            }
+            while (c != EOF && c != '>' && c != '/' && !Character.isWhitespace(c)) {
+                name.append((char) c);
+                c = read(sb);
+            }
+
+            // skip attributes until the end of the tag
+            char quote = 0;
+            int prev = 0;
+            while (true) {
+                if (c == EOF) {
+                    return EOF;
+                }
+                if (quote != 0) {
+                    if (c == quote) {
+                        quote = 0;
+                    }
+                } else if (c == '"' || c == '\'') {
+                    quote = (char) c;
+                } else if (c == '>') {
+                    break;
+                }
+                prev = c;
+                c = read(sb);
+            }
+
+            if (end) {
+                return END_TAG;
+            }
+            return prev == '/' ? EMPTY_TAG : START_TAG;
+        }
+
+        private int skipUntil(StringBuilder sb, String terminator) throws IOException {
+            // the terminators we use ends with a char which is not used elsewhere in the terminator
+            int last = terminator.length() - 1;
+            char end = terminator.charAt(last);
+            int matched = 0;
+            int c;
+            while ((c = read(sb)) != EOF) {
+                if (c == end && matched == last) {
+                    return OTHER;
+                }
+                if (matched < last && c == terminator.charAt(matched)) {
+                    matched++;
+                } else if (c != terminator.charAt(last - 1) || matched == 0) {
+                    // keep the matched chars if the char is repeated such as in ---> or ]]]>
+                    matched = c == terminator.charAt(0) ? 1 : 0;
+                }
+            }
+            return EOF;
+        }
+
+        private int read(StringBuilder sb) throws IOException {
+            if (pos == limit) {
+                limit = reader.read(buffer);
+                pos = 0;
+                if (limit <= 0) {
+                    limit = 0;
+                    return EOF;
+                }
+            }
+            char c = buffer[pos++];
+            if (sb != null) {
+                sb.append(c);
+            }
+            if (recorded != null) {
+                recorded.append(c);
+            }
+            return c;
+        }
+
+        /**
+         * Whether the tag name matches the token name, where the tag name may have a namespace prefix,
+         * unless the token name itself has a prefix.
+         */
+        private static boolean isName(StringBuilder tagName, String tokenName) {
+            int offset = tagName.length() - tokenName.length();
+            if (offset < 0) {
+                return false;
+            }
+            if (offset > 0 && (tokenName.indexOf(':') != -1 || tagName.charAt(offset - 1) != ':' || tagName.indexOf(":") != offset - 1)) {
+                return false;
+            }
+            for (int i = 0; i < tokenName.length(); i++) {
+                if (tagName.charAt(offset + i) != tokenName.charAt(i)) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        private static boolean isQName(StringBuilder tagName, String qname) {
+            if (tagName.length() != qname.length()) {
+                return false;
+            }
+            for (int i = 0; i < qname.length(); i++) {
+                if (tagName.charAt(i) != qname.charAt(i)) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        private static String getNamespacesFromNamespaceToken(CharSequence text) {
             // find namespaces (there can be attributes mixed, so we should only grab the namespaces)
             Map<String, String> namespaces = new LinkedHashMap<String, String>();
-            Matcher matcher = NAMESPACE_PATTERN.matcher(text);
-            while (matcher.find()) {
-                String prefix = matcher.group(1);
-                String url = matcher.group(2);
-                if (ObjectHelper.isEmpty(prefix)) {
-                    prefix = "_DEFAULT_";
-                } else {
-                    // skip leading :
-                    prefix = prefix.substring(1);
+            int len = text.length();
+            int i = 1;
+            // skip tag name
+            while (i < len && !Character.isWhitespace(text.charAt(i)) && text.charAt(i) != '>' && text.charAt(i) != '/') {
+                i++;
+            }
+            while (i < len) {
+                // attribute name
+                while (i < len && (Character.isWhitespace(text.charAt(i)) || text.charAt(i) == '/')) {
+                    i++;
+                }
+                int nameStart = i;
+                while (i < len && text.charAt(i) != '=' && text.charAt(i) != '>' && !Character.isWhitespace(text.charAt(i))) {
+                    i++;
+                }
+                String attribute = text.subSequence(nameStart, i).toString();
+                while (i < len && Character.isWhitespace(text.charAt(i))) {
+                    i++;
+                }
+                if (i >= len || text.charAt(i) != '=') {
+                    break;
+                }
+                i++;
+                while (i < len && Character.isWhitespace(text.charAt(i))) {
+                    i++;
+                }
+                if (i >= len) {
+                    break;
+                }
+                char quote = text.charAt(i);
+                if (quote != '"' && quote != '\'') {
+                    break;
+                }
+                int valueEnd = i + 1;
+                while (valueEnd < len && text.charAt(valueEnd) != quote) {
+                    valueEnd++;
+                }
+                // note the value is kept quoted
+                String value = text.subSequence(i, Math.min(valueEnd + 1, len)).toString();
+                i = valueEnd + 1;
+
+                if ("xmlns".equals(attribute)) {
+                    namespaces.put("_DEFAULT_", value);
+                } else if (attribute.startsWith("xmlns:")) {
+                    namespaces.put(attribute.substring(6), value);
                 }
-                namespaces.put(prefix, url);
             }
 
             // did we find any namespaces
@@ -239,7 +467,6 @@ public class TokenXMLExpressionIterator extends ExpressionAdapter {
             StringBuilder sb = new StringBuilder();
             for (Map.Entry<String, String> entry : namespaces.entrySet()) {
                 String key = entry.getKey();
-                // note the value is already quoted
                 String value = entry.getValue();
                 if ("_DEFAULT_".equals(key)) {
                     sb.append(" xmlns=").append(value);
@@ -250,7 +477,7 @@ public class TokenXMLExpressionIterator extends ExpressionAdapter {
 
             return sb.toString();
         }
-        
+
         @Override
         public boolean hasNext() {
             return image != null;
@@ -264,11 +491,7 @@ public class TokenXMLExpressionIterator extends ExpressionAdapter {
         Object next(boolean first) {
             Object answer = image;
             // calculate next
-            if (scanner.hasNext()) {
-                image = getNext(first);
-            } else {
-                image = null;
-            }
+            image = getNext(first);
 
             if (answer == null) {
                 // first time the image may be null
@@ -284,7 +507,7 @@ public class TokenXMLExpressionIterator extends ExpressionAdapter {
 
         @Override
         public void close() throws IOException {
-            scanner.close();
+            reader.close();
         }
 
     }
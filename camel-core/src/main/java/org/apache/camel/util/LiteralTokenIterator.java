@@ -0,0 +1,488 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.camel.util;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.charset.Charset;
+import java.nio.charset.CharsetDecoder;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+import org.apache.camel.Exchange;
+import org.apache.camel.RuntimeCamelException;
+import org.apache.camel.WrappedFile;
+
+/**
+ * An {@link Iterator} which splits a value by a literal token (not a regular expression), without the overhead
+ * of a {@link java.util.Scanner}.
+ * <p/>
+ * String values are split using {@link String#indexOf(String, int)}, and streams are scanned using a buffer,
+ * where streams using an UTF-8 or single byte charset are scanned as bytes, and only the tokens are decoded.
+ * <p/>
+ * The tokens are the same as returned by a {@link java.util.Scanner} using the token as delimiter,
+ * which means a leading token at the start of the value is skipped, and an empty token after the last token is not included.
+ * <p/>
+ * The iterator can group a number of tokens together, which returns the part of the value spanning the tokens (including
+ * the tokens in between), the same as the {@link GroupIterator} would return when grouping the tokens using the token.
+ */
+public abstract class LiteralTokenIterator implements Iterator<String>, Closeable {
+
+    private static final String REGEX_CHARS = "\\^$.|?*+()[]{}";
+    private static final int BUFFER_SIZE = 8192;
+
+    protected final int group;
+    private String next;
+    private boolean first = true;
+    private boolean done;
+
+    protected LiteralTokenIterator(int group) {
+        if (group <= 0) {
+            throw new IllegalArgumentException("Group must be a positive number, was: " + group);
+        }
+        this.group = group;
+    }
+
+    /**
+     * Whether the token has no special regular expression characters, and thus is the same as a literal token.
+     */
+    public static boolean isLiteral(String token) {
+        if (token == null || token.isEmpty()) {
+            return false;
+        }
+        for (int i = 0; i < token.length(); i++) {
+            if (REGEX_CHARS.indexOf(token.charAt(i)) != -1) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Whether text using the given charset can be searched for tokens by their bytes without decoding,
+     * which is the case for UTF-8 and single byte charsets.
+     */
+    public static boolean isByteSearchable(Charset charset) {
+        if ("UTF-8".equals(charset.name())) {
+            return true;
+        }
+        return charset.canEncode() && charset.newEncoder().maxBytesPerChar() == 1.0f;
+    }
+
+    /**
+     * Creates an iterator to split the value by the literal token.
+     *
+     * @param exchange the current exchange
+     * @param value    the value, typically the message IN body
+     * @param token    the literal token
+     * @param group    number of tokens to group together, use 1 to not group
+     * @return the iterator
+     */
+    public static LiteralTokenIterator createIterator(Exchange exchange, Object value, String token, int group) {
+        if (value instanceof WrappedFile) {
+            // generic file is just a wrapper for the real file
+            value = ((WrappedFile<?>) value).getFile();
+        }
+
+        String name = exchange.getProperty(Exchange.CHARSET_NAME, String.class);
+        Charset charset = name != null ? Charset.forName(name) : Charset.defaultCharset();
+
+        if (value instanceof String) {
+            return new StringTokenIterator((String) value, token, group);
+        } else if (value instanceof Reader) {
+            return new ReaderTokenIterator((Reader) value, token, group);
+        } else if (value instanceof File) {
+            try {
+                value = new FileInputStream((File) value);
+            } catch (FileNotFoundException e) {
+                throw new RuntimeCamelException(e);
+            }
+        } else if (value instanceof ReadableByteChannel) {
+            value = Channels.newInputStream((ReadableByteChannel) value);
+        }
+
+        if (value instanceof InputStream) {
+            InputStream is = (InputStream) value;
+            if (isByteSearchable(charset)) {
+                return new StreamTokenIterator(is, charset, token, group);
+            }
+            // report malformed input instead of replacing it, the same as the scanner does
+            return new ReaderTokenIterator(new InputStreamReader(is, charset.newDecoder()), token, group);
+        }
+
+        // value is not a suitable type, try to convert value to a string
+        String text = value != null ? exchange.getContext().getTypeConverter().convertTo(String.class, exchange, value) : null;
+        return new StringTokenIterator(text != null ? text : "", token, group);
+    }
+
+    @Override
+    public boolean hasNext() {
+        if (next == null && !done) {
+            try {
+                next = computeNext();
+            } catch (IOException e) {
+                throw ObjectHelper.wrapRuntimeCamelException(e);
+            }
+            if (next == null) {
+                done = true;
+                // auto close when there is no more tokens
+                IOHelper.close(this);
+            }
+        }
+        return next != null;
+    }
+
+    @Override
+    public String next() {
+        if (!hasNext()) {
+            throw new NoSuchElementException();
+        }
+        String answer = next;
+        next = null;
+        return answer;
+    }
+
+    @Override
+    public void remove() {
+        throw new UnsupportedOperationException("Remove is not supported");
+    }
+
+    @Override
+    public void close() throws IOException {
+        done = true;
+    }
+
+    private String computeNext() throws IOException {
+        int count = 0;
+        while (true) {
+            int start = length();
+            boolean token = readPart();
+            boolean empty = length() == start;
+            if (!token) {
+                // end of the value
+                if (!empty) {
+                    count++;
+                } else if (count > 0) {
+                    // an empty token at the end is not included, so remove the token we kept before it
+                    removeToken();
+                }
+                return count > 0 ? take() : null;
+            }
+            if (first) {
+                first = false;
+                if (empty) {
+                    // skip a leading token
+                    take();
+                    continue;
+                }
+            }
+            if (++count == group) {
+                return take();
+            }
+            // keep the token in between the grouped tokens
+            keepToken();
+        }
+    }
+
+    /**
+     * Reads the next part of the value until the next token, which is kept (without the token).
+     *
+     * @return <tt>true</tt> if a token was found, <tt>false</tt> if the end of the value was reached
+     */
+    protected abstract boolean readPart() throws IOException;
+
+    /**
+     * The length of what has been kept
+     */
+    protected abstract int length();
+
+    /**
+     * Keeps the token after what has been kept
+     */
+    protected abstract void keepToken();
+
+    /**
+     * Removes the token which was kept last
+     */
+    protected abstract void removeToken();
+
+    /**
+     * Takes what has been kept as the answer, and starts over
+     */
+    protected abstract String take() throws IOException;
+
+    /**
+     * Splits a String using {@link String#indexOf(String, int)}
+     */
+    private static final class StringTokenIterator extends LiteralTokenIterator {
+        private final String text;
+        private final String token;
+        // the part of the text which has been kept
+        private int start;
+        private int end;
+        // where to continue looking for the next token
+        private int scan;
+        private boolean eof;
+
+        private StringTokenIterator(String text, String token, int group) {
+            super(group);
+            this.text = text;
+            this.token = token;
+        }
+
+        @Override
+        protected boolean readPart() {
+            if (eof) {
+                return false;
+            }
+            int index = text.indexOf(token, scan);
+            if (index == -1) {
+                end = text.length();
+                scan = end;
+                eof = true;
+                return false;
+            }
+            end = index;
+            scan = index + token.length();
+            return true;
+        }
+
+        @Override
+        protected int length() {
+            return end - start;
+        }
+
+        @Override
+        protected void keepToken() {
+            end += token.length();
+        }
+
+        @Override
+        protected void removeToken() {
+            end -= token.length();
+        }
+
+        @Override
+        protected String take() {
+            String answer = text.substring(start, end);
+            start = scan;
+            end = scan;
+            return answer;
+        }
+    }
+
+    /**
+     * Splits a character stream
+     */
+    private static final class ReaderTokenIterator extends LiteralTokenIterator {
+        private final Reader reader;
+        private final String token;
+        private final char last;
+        private final char[] buffer = new char[BUFFER_SIZE];
+        private final StringBuilder kept = new StringBuilder();
+        private int pos;
+        private int limit;
+
+        private ReaderTokenIterator(Reader reader, String token, int group) {
+            super(group);
+            this.reader = reader;
+            this.token = token;
+            this.last = token.charAt(token.length() - 1);
+        }
+
+        @Override
+        protected boolean readPart() throws IOException {
+            int partStart = kept.length();
+            while (true) {
+                if (pos == limit) {
+                    limit = reader.read(buffer);
+                    pos = 0;
+                    if (limit <= 0) {
+                        limit = 0;
+                        return false;
+                    }
+                }
+                // find the last char of the token, and then check if the token was found
+                int i = pos;
+                while (i < limit && buffer[i] != last) {
+                    i++;
+                }
+                if (i == limit) {
+                    kept.append(buffer, pos, limit - pos);
+                    pos = limit;
+                    continue;
+                }
+                kept.append(buffer, pos, i + 1 - pos);
+                pos = i + 1;
+                int tokenStart = kept.length() - token.length();
+                if (tokenStart >= partStart && endsWithToken(tokenStart)) {
+                    kept.setLength(tokenStart);
+                    return true;
+                }
+            }
+        }
+
+        private boolean endsWithToken(int tokenStart) {
+            for (int i = 0; i < token.length() - 1; i++) {
+                if (kept.charAt(tokenStart + i) != token.charAt(i)) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        @Override
+        protected int length() {
+            return kept.length();
+        }
+
+        @Override
+        protected void keepToken() {
+            kept.append(token);
+        }
+
+        @Override
+        protected void removeToken() {
+            kept.setLength(kept.length() - token.length());
+        }
+
+        @Override
+        protected String take() {
+            String answer = kept.toString();
+            kept.setLength(0);
+            return answer;
+        }
+
+        @Override
+        public void close() throws IOException {
+            super.close();
+            reader.close();
+        }
+    }
+
+    /**
+     * Splits a byte stream where the token can be found by its bytes, so only the tokens are decoded
+     */
+    private static final class StreamTokenIterator extends LiteralTokenIterator {
+        private final InputStream in;
+        private final CharsetDecoder decoder;
+        private final byte[] token;
+        private final byte last;
+        private final byte[] buffer = new byte[BUFFER_SIZE];
+        private byte[] kept = new byte[256];
+        private int length;
+        private int pos;
+        private int limit;
+
+        private StreamTokenIterator(InputStream in, Charset charset, String token, int group) {
+            super(group);
+            this.in = in;
+            this.decoder = charset.newDecoder();
+            this.token = token.getBytes(charset);
+            this.last = this.token[this.token.length - 1];
+        }
+
+        @Override
+        protected boolean readPart() throws IOException {
+            int partStart = length;
+            while (true) {
+                if (pos == limit) {
+                    limit = in.read(buffer);
+                    pos = 0;
+                    if (limit <= 0) {
+                        limit = 0;
+                        return false;
+                    }
+                }
+                // find the last byte of the token, and then check if the token was found
+                int i = pos;
+                while (i < limit && buffer[i] != last) {
+                    i++;
+                }
+                if (i == limit) {
+                    append(buffer, pos, limit - pos);
+                    pos = limit;
+                    continue;
+                }
+                append(buffer, pos, i + 1 - pos);
+                pos = i + 1;
+                int tokenStart = length - token.length;
+                if (tokenStart >= partStart && endsWithToken(tokenStart)) {
+                    length = tokenStart;
+                    return true;
+                }
+            }
+        }
+
+        private boolean endsWithToken(int tokenStart) {
+            for (int i = 0; i < token.length - 1; i++) {
+                if (kept[tokenStart + i] != token[i]) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        private void append(byte[] data, int offset, int len) {
+            if (length + len > kept.length) {
+                byte[] grown = new byte[Math.max(kept.length * 2, length + len)];
+                System.arraycopy(kept, 0, grown, 0, length);
+                kept = grown;
+            }
+            System.arraycopy(data, offset, kept, length, len);
+            length += len;
+        }
+
+        @Override
+        protected int length() {
+            return length;
+        }
+
+        @Override
+        protected void keepToken() {
+            append(token, 0, token.length);
+        }
+
+        @Override
+        protected void removeToken() {
+            length -= token.length;
+        }
+
+        @Override
+        protected String take() throws IOException {
+            // the decoder reports malformed input the same way as when using a reader
+            String answer = decoder.decode(ByteBuffer.wrap(kept, 0, length)).toString();
+            length = 0;
+            return answer;
+        }
+
+        @Override
+        public void close() throws IOException {
+            super.close();
+            in.close();
+        }
+    }
+}
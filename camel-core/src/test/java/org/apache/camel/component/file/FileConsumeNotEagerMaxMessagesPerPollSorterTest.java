@@ -0,0 +1,80 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.camel.component.file;
+
+import java.util.Comparator;
+
+import org.apache.camel.ContextTestSupport;
+import org.apache.camel.Exchange;
+import org.apache.camel.builder.RouteBuilder;
+import org.apache.camel.component.mock.MockEndpoint;
+import org.apache.camel.impl.JndiRegistry;
+
+/**
+ * Unit test for max messages per poll using a sorter, where only the first files according to the sorter is kept
+ */
+public class FileConsumeNotEagerMaxMessagesPerPollSorterTest extends ContextTestSupport {
+
+    // sort by name in reverse order and not eager, then we should pickup the files in order
+    private String fileUrl = "file://target/poll/?initialDelay=2000&delay=3000&"
+            + "maxMessagesPerPoll=3&eagerMaxMessagesPerPoll=false&boundedSortedPoll=true&sorter=#mySorter";
+
+    @Override
+    protected void setUp() throws Exception {
+        deleteDirectory("target/poll");
+        super.setUp();
+        for (int i = 0; i < 8; i++) {
+            template.sendBodyAndHeader("file://target/poll", "Message " + i, Exchange.FILE_NAME, "file" + i + ".txt");
+        }
+    }
+
+    @Override
+    protected JndiRegistry createRegistry() throws Exception {
+        JndiRegistry jndi = super.createRegistry();
+        jndi.bind("mySorter", new Comparator<GenericFile<?>>() {
+            public int compare(GenericFile<?> o1, GenericFile<?> o2) {
+                return o2.getFileNameOnly().compareTo(o1.getFileNameOnly());
+            }
+        });
+        return jndi;
+    }
+
+    public void testMaxMessagesPerPoll() throws Exception {
+        MockEndpoint mock = getMockEndpoint("mock:result");
+        mock.expectedBodiesReceived("Message 7", "Message 6", "Message 5");
+        mock.setResultWaitTime(4000);
+        mock.expectedPropertyReceived(Exchange.BATCH_SIZE, 3);
+
+        assertMockEndpointsSatisfied();
+
+        // the files not picked in the first poll should be picked in the next polls
+        mock.reset();
+        mock.expectedBodiesReceived("Message 4", "Message 3", "Message 2", "Message 1", "Message 0");
+        mock.setResultWaitTime(8000);
+
+        assertMockEndpointsSatisfied();
+    }
+
+    protected RouteBuilder createRouteBuilder() throws Exception {
+        return new RouteBuilder() {
+            public void configure() throws Exception {
+                from(fileUrl).convertBodyTo(String.class).to("mock:result");
+            }
+        };
+    }
+
+}
@@ -0,0 +1,120 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.camel.component.file;
+
+import java.io.File;
+import java.io.FileOutputStream;
+
+import org.apache.camel.ContextTestSupport;
+import org.apache.camel.Exchange;
+import org.apache.camel.builder.NotifyBuilder;
+import org.apache.camel.builder.RouteBuilder;
+import org.apache.camel.component.mock.MockEndpoint;
+
+/**
+ * Unit test for the file consumer using the watch service
+ */
+public class FileConsumerWatchServiceTest extends ContextTestSupport {
+
+    @Override
+    protected void setUp() throws Exception {
+        deleteDirectory("target/watch");
+        createDirectory("target/watch/recursive");
+        // a file which exists before the consumer is started
+        FileOutputStream fos = new FileOutputStream("target/watch/recursive/existing.txt");
+        fos.write("Hello Existing".getBytes());
+        fos.close();
+        super.setUp();
+    }
+
+    public void testWatchService() throws Exception {
+        NotifyBuilder notify = new NotifyBuilder(context).from("file:target/watch/recursive*").whenDone(3).create();
+
+        MockEndpoint mock = getMockEndpoint("mock:result");
+        mock.expectedBodiesReceivedInAnyOrder("Hello Existing", "Hello World", "Bye World");
+
+        context.startRoute("recursive");
+
+        template.sendBodyAndHeader("file:target/watch/recursive", "Hello World", Exchange.FILE_NAME, "hello.txt");
+        // a file in a new sub directory
+        template.sendBodyAndHeader("file:target/watch/recursive", "Bye World", Exchange.FILE_NAME, "sub/bye.txt");
+
+        assertMockEndpointsSatisfied();
+        assertTrue(notify.matchesMockWaitTime());
+
+        // the files should be moved to backup
+        assertTrue(new File("target/watch/recursive/.camel/hello.txt").exists());
+        assertTrue(new File("target/watch/recursive/sub/.camel/bye.txt").exists());
+    }
+
+    public void testWatchServiceDoneFile() throws Exception {
+        MockEndpoint mock = getMockEndpoint("mock:done");
+        mock.expectedMessageCount(0);
+
+        template.sendBodyAndHeader("file:target/watch/done", "Hello World", Exchange.FILE_NAME, "hello.txt");
+
+        // wait a bit and it should not pickup the written file as there are no done file
+        Thread.sleep(250);
+
+        assertMockEndpointsSatisfied();
+        resetMocks();
+
+        mock.expectedBodiesReceived("Hello World");
+
+        // write the done file
+        template.sendBodyAndHeader("file:target/watch/done", "", Exchange.FILE_NAME, "done");
+
+        assertMockEndpointsSatisfied();
+    }
+
+    public void testWatchServiceMaxMessagesPerPoll() throws Exception {
+        for (int i = 0; i < 10; i++) {
+            template.sendBodyAndHeader("file:target/watch/limit", "Message " + i, Exchange.FILE_NAME, "file" + i + ".txt");
+        }
+
+        // the files discarded due max messages per poll should be polled by the next polls, and not wait for the next full scan
+        MockEndpoint mock = getMockEndpoint("mock:limit");
+        mock.expectedBodiesReceived("Message 0", "Message 1", "Message 2", "Message 3", "Message 4",
+                "Message 5", "Message 6", "Message 7", "Message 8", "Message 9");
+
+        context.startRoute("limit");
+
+        assertMockEndpointsSatisfied();
+    }
+
+    @Override
+    protected RouteBuilder createRouteBuilder() throws Exception {
+        return new RouteBuilder() {
+            @Override
+            public void configure() throws Exception {
+                // use a long reconcile interval, so new files are picked up using the watch service
+                from("file:target/watch/recursive?recursive=true&useWatchService=true&watchReconcileInterval=3600000&initialDelay=0&delay=10")
+                    .routeId("recursive").noAutoStartup()
+                    .convertBodyTo(String.class).to("mock:result");
+
+                from("file:target/watch/done?doneFileName=done&useWatchService=true&watchReconcileInterval=3600000&initialDelay=0&delay=10")
+                    .convertBodyTo(String.class).to("mock:done");
+
+                from("file:target/watch/limit?useWatchService=true&watchReconcileInterval=3600000&initialDelay=0&delay=10"
+                        + "&maxMessagesPerPoll=3&eagerMaxMessagesPerPoll=false&boundedSortedPoll=true&sortBy=file:name")
+                    .routeId("limit").noAutoStartup()
+                    .convertBodyTo(String.class).to("mock:limit");
+            }
+        };
+    }
+
+}
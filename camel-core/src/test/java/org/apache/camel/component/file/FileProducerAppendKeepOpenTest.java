@@ -0,0 +1,197 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.camel.component.file;
+
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.StringReader;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.apache.camel.ContextTestSupport;
+import org.apache.camel.Exchange;
+import org.apache.camel.builder.RouteBuilder;
+
+/**
+ * Unit test for appending to files which are kept open
+ *
+ * @version 
+ */
+public class FileProducerAppendKeepOpenTest extends ContextTestSupport {
+
+    private final int size = 200;
+
+    @Override
+    protected void setUp() throws Exception {
+        deleteDirectory("target/append-keep-open");
+        super.setUp();
+    }
+
+    public void testConcurrentAppend() throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(10);
+        try {
+            List<Future<Object>> futures = new ArrayList<Future<Object>>();
+            for (int i = 0; i < size; i++) {
+                final String line = "Line " + i + LS;
+                futures.add(executor.submit(new Callable<Object>() {
+                    public Object call() throws Exception {
+                        return template.requestBody("direct:start", line);
+                    }
+                }));
+            }
+            // each message is completed when its written so the file must have the line
+            for (Future<Object> future : futures) {
+                future.get();
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+
+        String txt = context.getTypeConverter().convertTo(String.class, new File("target/append-keep-open/result.txt"));
+        assertNotNull(txt);
+
+        String[] lines = txt.split(LS);
+        assertEquals("Should be " + size + " lines", size, lines.length);
+
+        Set<String> rows = new LinkedHashSet<String>(Arrays.asList(lines));
+        assertEquals("Should be " + size + " unique lines", size, rows.size());
+
+        FileEndpoint endpoint = context.getEndpoint("file:target/append-keep-open?fileExist=Append&appendKeepOpen=true", FileEndpoint.class);
+        assertEquals(1, endpoint.getAppender().getOpenFiles());
+    }
+
+    public void testAppendToExistingFile() throws Exception {
+        template.sendBodyAndHeader("file:target/append-keep-open", "Hello", Exchange.FILE_NAME, "result.txt");
+
+        template.sendBody("direct:start", " World");
+        template.sendBody("direct:start", " and Camel");
+
+        assertFileExists("target/append-keep-open/result.txt");
+        String txt = context.getTypeConverter().convertTo(String.class, new File("target/append-keep-open/result.txt"));
+        assertEquals("Hello World and Camel", txt);
+    }
+
+    public void testRollBySize() throws Exception {
+        for (int i = 0; i < 10; i++) {
+            template.sendBodyAndHeader("direct:roll", "0123456789", Exchange.FILE_NAME, "roll.txt");
+        }
+
+        File dir = new File("target/append-keep-open/roll");
+        String[] names = dir.list();
+        assertNotNull(names);
+        assertEquals("Should roll every 3rd write: " + Arrays.asList(names), 4, names.length);
+
+        long total = 0;
+        for (String name : names) {
+            assertTrue("Unexpected file: " + name, name.startsWith("roll.txt"));
+            long length = new File(dir, name).length();
+            assertTrue("File is too large: " + name, length <= 30);
+            total += length;
+        }
+        assertEquals(100, total);
+        assertEquals(10, new File(dir, "roll.txt").length());
+    }
+
+    public void testAppendStream() throws Exception {
+        template.sendBody("direct:start", new ByteArrayInputStream("Hello".getBytes()));
+        template.sendBody("direct:start", " World");
+        template.sendBody("direct:start", new ByteArrayInputStream(" and Camel".getBytes()));
+
+        String txt = context.getTypeConverter().convertTo(String.class, new File("target/append-keep-open/result.txt"));
+        assertEquals("Hello World and Camel", txt);
+    }
+
+    public void testAppendReaderWithCharset() throws Exception {
+        template.sendBodyAndHeader("direct:charset", new StringReader("Hell\u00F8"), Exchange.FILE_NAME, "charset.txt");
+        template.sendBodyAndHeader("direct:charset", " W\u00F8rld", Exchange.FILE_NAME, "charset.txt");
+
+        byte[] data = context.getTypeConverter().convertTo(byte[].class, new File("target/append-keep-open/charset.txt"));
+        assertEquals("Hell\u00F8 W\u00F8rld", new String(data, "UTF-16LE"));
+    }
+
+    public void testConcurrentAppendWithEviction() throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(10);
+        try {
+            List<Future<Object>> futures = new ArrayList<Future<Object>>();
+            for (int i = 0; i < size; i++) {
+                final String name = "file" + (i % 5) + ".txt";
+                final String line = "Line " + i + LS;
+                futures.add(executor.submit(new Callable<Object>() {
+                    public Object call() throws Exception {
+                        template.sendBodyAndHeader("direct:evict", line, Exchange.FILE_NAME, name);
+                        return null;
+                    }
+                }));
+            }
+            for (Future<Object> future : futures) {
+                future.get();
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+
+        // the files was closed and opened again when evicted, but all the lines must have been written
+        Set<String> rows = new LinkedHashSet<String>();
+        for (int i = 0; i < 5; i++) {
+            String txt = context.getTypeConverter().convertTo(String.class, new File("target/append-keep-open/evict/file" + i + ".txt"));
+            assertNotNull(txt);
+            rows.addAll(Arrays.asList(txt.split(LS)));
+        }
+        assertEquals("Should be " + size + " unique lines", size, rows.size());
+
+        FileEndpoint endpoint = context.getEndpoint("file:target/append-keep-open/evict?fileExist=Append&appendKeepOpen=true&appendMaxOpenFiles=2",
+                FileEndpoint.class);
+        assertTrue("Should keep at most 2 files open", endpoint.getAppender().getOpenFiles() <= 2);
+    }
+
+    public void testAppendKeepOpenRequiresAppend() throws Exception {
+        try {
+            context.getEndpoint("file:target/append-keep-open?appendKeepOpen=true").createProducer();
+            fail("Should have thrown an exception");
+        } catch (IllegalArgumentException e) {
+            assertEquals("You must configure fileExist=Append when appendKeepOpen has been set", e.getMessage());
+        }
+    }
+
+    @Override
+    protected RouteBuilder createRouteBuilder() throws Exception {
+        return new RouteBuilder() {
+            @Override
+            public void configure() throws Exception {
+                from("direct:start")
+                    .setHeader(Exchange.FILE_NAME, constant("result.txt"))
+                    .to("file:target/append-keep-open?fileExist=Append&appendKeepOpen=true");
+
+                from("direct:roll")
+                    .to("file:target/append-keep-open/roll?fileExist=Append&appendKeepOpen=true&appendRollSize=30");
+
+                from("direct:charset")
+                    .to("file:target/append-keep-open?fileExist=Append&appendKeepOpen=true&charset=UTF-16LE");
+
+                from("direct:evict")
+                    .to("file:target/append-keep-open/evict?fileExist=Append&appendKeepOpen=true&appendMaxOpenFiles=2");
+            }
+        };
+    }
+}
@@ -0,0 +1,107 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.camel.impl;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+
+import org.apache.camel.ContextTestSupport;
+import org.apache.camel.Exchange;
+import org.apache.camel.util.StopWatch;
+
+/**
+ * Compares the size and speed of {@link BinaryExchangeCodec} with Java serialization of the {@link DefaultExchangeHolder}.
+ *
+ * @version 
+ */
+public class BinaryExchangeCodecPerformanceTest extends ContextTestSupport {
+
+    private static final int ROUNDS = 200000;
+
+    public void testDummy() throws Exception {
+        // noop
+    }
+
+    // Enable me for manual unit testing
+    public void xxxtestPerformance() throws Exception {
+        BinaryExchangeCodec codec = new BinaryExchangeCodec();
+        DefaultExchangeHolder holder = DefaultExchangeHolder.marshal(createExchange(), false);
+        DefaultExchangeHolder.addProperty(holder, Exchange.AGGREGATED_SIZE, 5);
+        DefaultExchangeHolder.addProperty(holder, Exchange.AGGREGATED_CORRELATION_KEY, "order-123");
+
+        byte[] serialized = serialize(holder);
+        byte[] binary = codec.marshal(holder);
+        log.info("Size using Java serialization: {} bytes, using binary codec: {} bytes", serialized.length, binary.length);
+
+        for (int run = 0; run < 3; run++) {
+            StopWatch watch = new StopWatch();
+            for (int i = 0; i < ROUNDS; i++) {
+                serialize(holder);
+            }
+            long javaEncode = watch.taken();
+            watch.restart();
+            for (int i = 0; i < ROUNDS; i++) {
+                deserialize(serialized);
+            }
+            long javaDecode = watch.taken();
+            watch.restart();
+            for (int i = 0; i < ROUNDS; i++) {
+                codec.marshal(holder);
+            }
+            long binaryEncode = watch.taken();
+            watch.restart();
+            for (int i = 0; i < ROUNDS; i++) {
+                codec.unmarshal(context, binary);
+            }
+            long binaryDecode = watch.stop();
+
+            log.info("Java serialization encode: {} ms, decode: {} ms for {} exchanges", new Object[]{javaEncode, javaDecode, ROUNDS});
+            log.info("Binary codec encode: {} ms, decode: {} ms for {} exchanges", new Object[]{binaryEncode, binaryDecode, ROUNDS});
+        }
+    }
+
+    private Exchange createExchange() {
+        Exchange exchange = new DefaultExchange(context);
+        exchange.getIn().setBody("<order><id>123</id><amount>100</amount><customer>Camel Rider</customer></order>");
+        exchange.getIn().setHeader("orderId", 123);
+        exchange.getIn().setHeader("customer", "Camel Rider");
+        exchange.getIn().setHeader("priority", true);
+        exchange.getIn().setHeader("timestamp", System.currentTimeMillis());
+        exchange.getIn().setHeader(Exchange.FILE_NAME, "order-123.xml");
+        return exchange;
+    }
+
+    private static byte[] serialize(Object object) throws Exception {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        ObjectOutputStream out = new ObjectOutputStream(bytes);
+        out.writeObject(object);
+        out.close();
+        return bytes.toByteArray();
+    }
+
+    private static Object deserialize(byte[] data) throws Exception {
+        ObjectInputStream in = new ObjectInputStream(new ByteArrayInputStream(data));
+        try {
+            return in.readObject();
+        } finally {
+            in.close();
+        }
+    }
+
+}
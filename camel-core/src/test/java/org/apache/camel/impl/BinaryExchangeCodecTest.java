@@ -0,0 +1,173 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.camel.impl;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.io.ObjectOutputStream;
+import java.io.Serializable;
+import java.math.BigDecimal;
+import java.util.Date;
+
+import org.apache.camel.ContextTestSupport;
+import org.apache.camel.Exchange;
+
+/**
+ * @version 
+ */
+public class BinaryExchangeCodecTest extends ContextTestSupport {
+
+    private BinaryExchangeCodec codec = new BinaryExchangeCodec();
+
+    public void testRoundTrip() throws Exception {
+        Exchange exchange = createExchange();
+        byte[] data = codec.marshal(DefaultExchangeHolder.marshal(exchange));
+        assertTrue(BinaryExchangeCodec.isBinary(data));
+
+        Exchange answer = unmarshal(data);
+        assertEquals(exchange.getExchangeId(), answer.getExchangeId());
+        assertEquals("Hello World", answer.getIn().getBody());
+        assertEquals("Bye World", answer.getOut().getBody());
+        assertEquals(123, answer.getIn().getHeader("int"));
+        assertEquals(456L, answer.getIn().getHeader("long"));
+        assertEquals(Boolean.TRUE, answer.getIn().getHeader("boolean"));
+        assertEquals(1.5d, answer.getIn().getHeader("double"));
+        assertEquals(new Date(1000), answer.getIn().getHeader("date"));
+        assertEquals(new BigDecimal("12.34"), answer.getIn().getHeader("decimal"));
+        assertEquals(new MyValue("Tiger"), answer.getIn().getHeader("custom"));
+        assertNull(answer.getIn().getHeader("null"));
+        assertEquals("out", answer.getOut().getHeader("out"));
+        assertEquals(444, answer.getProperty("bar"));
+        assertIsInstanceOf(IllegalArgumentException.class, answer.getException());
+        assertEquals("Damn", answer.getException().getMessage());
+    }
+
+    public void testBytesBody() throws Exception {
+        Exchange exchange = new DefaultExchange(context);
+        exchange.getIn().setBody(new byte[]{1, 2, 3});
+
+        Exchange answer = unmarshal(codec.marshal(DefaultExchangeHolder.marshal(exchange)));
+        byte[] body = answer.getIn().getBody(byte[].class);
+        assertEquals(3, body.length);
+        assertEquals(3, body[2]);
+    }
+
+    public void testCustomSerializer() throws Exception {
+        codec.addSerializer(new MyValueSerializer());
+
+        Exchange exchange = createExchange();
+        byte[] data = codec.marshal(DefaultExchangeHolder.marshal(exchange));
+
+        Exchange answer = unmarshal(data);
+        assertEquals(new MyValue("Tiger"), answer.getIn().getHeader("custom"));
+
+        // another codec without the serializer cannot read the data
+        try {
+            new BinaryExchangeCodec().unmarshal(context, data);
+            fail("Should have thrown exception");
+        } catch (IOException e) {
+            assertEquals("No serializer added for type: " + MyValue.class.getName(), e.getMessage());
+        }
+    }
+
+    public void testReadJavaSerialized() throws Exception {
+        Exchange exchange = createExchange();
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        ObjectOutputStream out = new ObjectOutputStream(bytes);
+        out.writeObject(DefaultExchangeHolder.marshal(exchange));
+        out.close();
+        byte[] data = bytes.toByteArray();
+        assertFalse(BinaryExchangeCodec.isBinary(data));
+
+        Exchange answer = unmarshal(data);
+        assertEquals("Hello World", answer.getIn().getBody());
+        assertEquals(123, answer.getIn().getHeader("int"));
+        assertEquals(444, answer.getProperty("bar"));
+    }
+
+    public void testUnsupportedVersion() throws Exception {
+        byte[] data = codec.marshal(DefaultExchangeHolder.marshal(createExchange()));
+        data[2] = 99;
+        try {
+            codec.unmarshal(context, data);
+            fail("Should have thrown exception");
+        } catch (IOException e) {
+            assertTrue(e.getMessage().startsWith("Unsupported version: 99"));
+        }
+    }
+
+    private Exchange unmarshal(byte[] data) throws IOException {
+        Exchange answer = new DefaultExchange(context);
+        DefaultExchangeHolder.unmarshal(answer, codec.unmarshal(context, data));
+        return answer;
+    }
+
+    private Exchange createExchange() {
+        Exchange exchange = new DefaultExchange(context);
+        exchange.getIn().setBody("Hello World");
+        exchange.getIn().setHeader("int", 123);
+        exchange.getIn().setHeader("long", 456L);
+        exchange.getIn().setHeader("boolean", true);
+        exchange.getIn().setHeader("double", 1.5d);
+        exchange.getIn().setHeader("date", new Date(1000));
+        exchange.getIn().setHeader("decimal", new BigDecimal("12.34"));
+        exchange.getIn().setHeader("custom", new MyValue("Tiger"));
+        exchange.getIn().setHeader("null", null);
+        exchange.getOut().setBody("Bye World");
+        exchange.getOut().setHeader("out", "out");
+        exchange.setProperty("bar", 444);
+        exchange.setException(new IllegalArgumentException("Damn"));
+        return exchange;
+    }
+
+    private static final class MyValue implements Serializable {
+        private static final long serialVersionUID = 1L;
+        private final String name;
+
+        private MyValue(String name) {
+            this.name = name;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            return o instanceof MyValue && name.equals(((MyValue) o).name);
+        }
+
+        @Override
+        public int hashCode() {
+            return name.hashCode();
+        }
+    }
+
+    private static final class MyValueSerializer implements BinaryExchangeCodec.Serializer<MyValue> {
+
+        public Class<MyValue> getType() {
+            return MyValue.class;
+        }
+
+        public void write(MyValue value, DataOutput out) throws IOException {
+            out.writeUTF(value.name);
+        }
+
+        public MyValue read(DataInput in) throws IOException {
+            return new MyValue(in.readUTF());
+        }
+    }
+
+}
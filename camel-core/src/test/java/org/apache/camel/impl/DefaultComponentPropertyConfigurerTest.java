@@ -0,0 +1,202 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.camel.impl;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.apache.camel.CamelContext;
+import org.apache.camel.Consumer;
+import org.apache.camel.ContextTestSupport;
+import org.apache.camel.Endpoint;
+import org.apache.camel.Processor;
+import org.apache.camel.Producer;
+import org.apache.camel.ResolveEndpointFailedException;
+import org.apache.camel.TypeConversionException;
+import org.apache.camel.component.timer.TimerEndpoint;
+
+/**
+ * Unit test for DefaultComponent using the generated configurers to set the endpoint options.
+ */
+public class DefaultComponentPropertyConfigurerTest extends ContextTestSupport {
+
+    private static final List<String> CONFIGURED = new ArrayList<String>();
+    private static final AtomicInteger LEVEL_CALLS = new AtomicInteger();
+
+    public static class MyEndpoint extends DefaultEndpoint {
+        private String name;
+        private int size;
+        private MyEndpoint other;
+        private int level;
+
+        public MyEndpoint(String uri, Component component) {
+            super(uri, component);
+        }
+
+        public Producer createProducer() throws Exception {
+            return null;
+        }
+
+        public Consumer createConsumer(Processor processor) throws Exception {
+            return null;
+        }
+
+        public boolean isSingleton() {
+            return true;
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        public void setName(String name) {
+            this.name = name;
+        }
+
+        public int getSize() {
+            return size;
+        }
+
+        public void setSize(int size) {
+            this.size = size;
+        }
+
+        public MyEndpoint getOther() {
+            return other;
+        }
+
+        public void setOther(MyEndpoint other) {
+            this.other = other;
+        }
+
+        public int getLevel() {
+            return level;
+        }
+
+        public void setLevel(int level) {
+            LEVEL_CALLS.incrementAndGet();
+            if (level < 0) {
+                throw new IllegalArgumentException("Level must not be negative");
+            }
+            this.level = level;
+        }
+    }
+
+    public static class MyEndpointConfigurer extends PropertyConfigurerSupport {
+
+        @Override
+        public boolean configure(CamelContext camelContext, Object target, String name, Object value) throws Exception {
+            MyEndpoint bean = (MyEndpoint) target;
+            switch (name) {
+            case "name": bean.setName(property(camelContext, String.class, value)); break;
+            case "size": bean.setSize(property(camelContext, int.class, value)); break;
+            case "other": bean.setOther(property(camelContext, MyEndpoint.class, value)); break;
+            case "level": bean.setLevel(property(camelContext, int.class, value)); break;
+            default: return false;
+            }
+            CONFIGURED.add(name);
+            return true;
+        }
+    }
+
+    public static class Component extends DefaultComponent {
+
+        @Override
+        protected Endpoint createEndpoint(String uri, String remaining, Map<String, Object> parameters) throws Exception {
+            return new MyEndpoint(uri, this);
+        }
+    }
+
+    @Override
+    protected void setUp() throws Exception {
+        CONFIGURED.clear();
+        LEVEL_CALLS.set(0);
+        super.setUp();
+        context.addComponent("my", new Component());
+    }
+
+    @Override
+    protected JndiRegistry createRegistry() throws Exception {
+        JndiRegistry registry = super.createRegistry();
+        registry.bind("myOther", new MyEndpoint("my:other", null));
+        return registry;
+    }
+
+    public void testConfigurer() throws Exception {
+        MyEndpoint endpoint = context.getEndpoint("my:foo?name=beer&size=3&synchronous=true", MyEndpoint.class);
+        assertEquals("beer", endpoint.getName());
+        assertEquals(3, endpoint.getSize());
+        // options not known by the configurer is set using reflection
+        assertTrue(endpoint.isSynchronous());
+        assertEquals(2, CONFIGURED.size());
+        assertTrue(CONFIGURED.contains("name"));
+        assertTrue(CONFIGURED.contains("size"));
+    }
+
+    public void testConfigurerReference() throws Exception {
+        MyEndpoint endpoint = context.getEndpoint("my:foo?other=#myOther", MyEndpoint.class);
+        assertEquals("my:other", endpoint.getOther().getEndpointUri());
+        // reference options are set using reflection
+        assertEquals(0, CONFIGURED.size());
+    }
+
+    public void testConfigurerInvalidValue() throws Exception {
+        try {
+            context.getEndpoint("my:foo?other=bar");
+            fail("Should have thrown exception");
+        } catch (ResolveEndpointFailedException e) {
+            IllegalArgumentException cause = assertIsInstanceOf(IllegalArgumentException.class, e.getCause());
+            assertTrue(cause.getMessage().startsWith("Could not find a suitable setter for property: other"));
+        }
+    }
+
+    public void testConfigurerInvalidNumber() throws Exception {
+        try {
+            context.getEndpoint("my:foo?level=abc");
+            fail("Should have thrown exception");
+        } catch (ResolveEndpointFailedException e) {
+            // the value cannot be converted so the introspection reports the failure
+            assertIsInstanceOf(TypeConversionException.class, e.getCause());
+        }
+        assertEquals(0, LEVEL_CALLS.get());
+    }
+
+    public void testConfigurerSetterThrowsException() throws Exception {
+        try {
+            context.getEndpoint("my:foo?level=-1");
+            fail("Should have thrown exception");
+        } catch (ResolveEndpointFailedException e) {
+            IllegalArgumentException cause = assertIsInstanceOf(IllegalArgumentException.class, e.getCause());
+            assertEquals("Level must not be negative", cause.getMessage());
+        }
+        // the setter should only be called once
+        assertEquals(1, LEVEL_CALLS.get());
+    }
+
+    public void testGeneratedConfigurer() throws Exception {
+        assertNotNull(context.getClassResolver().resolveClass(TimerEndpoint.class.getName() + "Configurer"));
+
+        TimerEndpoint endpoint = context.getEndpoint("timer:foo?period=250&delay=10&fixedRate=true&repeatCount=5", TimerEndpoint.class);
+        assertEquals(250, endpoint.getPeriod());
+        assertEquals(10, endpoint.getDelay());
+        assertTrue(endpoint.isFixedRate());
+        assertEquals(5, endpoint.getRepeatCount());
+    }
+
+}
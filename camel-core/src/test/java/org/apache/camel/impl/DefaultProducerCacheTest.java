@@ -104,6 +104,36 @@ public class DefaultProducerCacheTest extends ContextTestSupport {
         assertEquals(3, shutdownCounter.get());
     }
 
+    public void testAcquireStatistics() throws Exception {
+        ProducerCache cache = new ProducerCache(this, context, 5);
+        cache.start();
+
+        Endpoint e = new MyEndpoint(true, 1);
+        for (int i = 0; i < 3; i++) {
+            Producer p = cache.acquireProducer(e);
+            cache.releaseProducer(e, p);
+        }
+
+        // the same singleton producer is cached and reused
+        assertEquals("Size should be 1", 1, cache.size());
+        assertEquals(2, cache.getHits());
+        assertTrue(cache.getMaxAcquireTime() > 0);
+        assertTrue(cache.getMeanAcquireTime() <= cache.getMaxAcquireTime());
+
+        cache.resetCacheStatistics();
+        assertEquals(0, cache.getMaxAcquireTime());
+        assertEquals(0, cache.getMeanAcquireTime());
+        assertEquals(0, cache.getPoolHits());
+        assertEquals(0, cache.getPoolMisses());
+
+        // acquiring the cached producer is not timed
+        Producer p = cache.acquireProducer(e);
+        cache.releaseProducer(e, p);
+        assertEquals(0, cache.getMaxAcquireTime());
+
+        cache.stop();
+    }
+
     public void testExtendedStatistics() throws Exception {
         ProducerCache cache = new ProducerCache(this, context, 5);
         cache.setExtendedStatistics(true);
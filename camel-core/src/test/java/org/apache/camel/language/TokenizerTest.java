@@ -178,6 +178,32 @@ public class TokenizerTest extends ExchangeTestSupport {
         assertEquals("<person>Hadrian</person>", names.get(3));
     }
 
+    public void testTokenizeXMLPairWithMarkupInContent() throws Exception {
+        Expression exp = TokenizeLanguage.tokenizeXML("<person>", null);
+
+        exchange.getIn().setBody("<persons><!-- <person>Comment</person> --><person name='a>b'>James<![CDATA[</person>]]></person>"
+                + "<person><person>Nested</person></person><?pi </person>?><person>Claus<!-- </person> --></person></persons>");
+
+        List<?> names = exp.evaluate(exchange, List.class);
+        assertEquals(3, names.size());
+
+        assertEquals("<person name='a>b'>James<![CDATA[</person>]]></person>", names.get(0));
+        assertEquals("<person><person>Nested</person></person>", names.get(1));
+        assertEquals("<person>Claus<!-- </person> --></person>", names.get(2));
+    }
+
+    public void testTokenizeXMLPairInheritNamespaceWithAttributes() throws Exception {
+        Expression exp = TokenizeLanguage.tokenizeXML("<person>", "<persons>");
+
+        exchange.getIn().setBody("<?xml version=\"1.0\"?><persons id = '>1' xmlns = \"urn:p\"\n xmlns:x='urn:x'><person/><person>Claus</person></persons>");
+
+        List<?> names = exp.evaluate(exchange, List.class);
+        assertEquals(2, names.size());
+
+        assertEquals("<person xmlns=\"urn:p\" xmlns:x='urn:x'/>", names.get(0));
+        assertEquals("<person xmlns=\"urn:p\" xmlns:x='urn:x'>Claus</person>", names.get(1));
+    }
+
     public void testTokenizeXMLPairEmpty() throws Exception {
         Expression exp = TokenizeLanguage.tokenizeXML("<person>", null);
 
@@ -228,6 +254,18 @@ public class TokenizerTest extends ExchangeTestSupport {
         assertEquals("<person xmlns=\"http:acme.com/persons\">Hadrian</person>", names.get(3));
     }
 
+    public void testTokenizeXMLPairWithMissingInheritNamespaceTag() throws Exception {
+        Expression exp = TokenizeLanguage.tokenizeXML("<order>", "<orders>");
+
+        exchange.getIn().setBody("<root><order id='1'>A</order><order id='2'>B</order></root>");
+
+        List<?> names = exp.evaluate(exchange, List.class);
+        assertEquals(2, names.size());
+
+        assertEquals("<order id='1'>A</order>", names.get(0));
+        assertEquals("<order id='2'>B</order>", names.get(1));
+    }
+
     public void testTokenizeXMLPairWithDefaultNamespaceNotInherit() throws Exception {
         Expression exp = TokenizeLanguage.tokenizeXML("<person>", null);
 
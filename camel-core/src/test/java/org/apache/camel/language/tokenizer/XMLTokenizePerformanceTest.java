@@ -0,0 +1,115 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.camel.language.tokenizer;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.util.Collections;
+import java.util.Iterator;
+
+import org.apache.camel.ContextTestSupport;
+import org.apache.camel.Exchange;
+import org.apache.camel.Expression;
+import org.apache.camel.builder.ExpressionBuilder;
+import org.apache.camel.impl.DefaultExchange;
+import org.apache.camel.spi.NamespaceAware;
+import org.apache.camel.util.StopWatch;
+import org.apache.camel.util.TimeUtils;
+
+/**
+ * Measures the throughput of tokenizeXML and xtokenize on a big XML file.
+ *
+ * @version 
+ */
+public class XMLTokenizePerformanceTest extends ContextTestSupport {
+
+    private static final int SIZE = 200 * 1000;
+    private static final File FILE = new File("target/xmltokenize/orders.xml");
+
+    public void testDummy() {
+        // this is a manual test
+    }
+
+    public void xxxtestTokenizeXMLPerformance() throws Exception {
+        createDataFile();
+        Expression exp = ExpressionBuilder.tokenizeXMLExpression("order", null);
+        for (int i = 0; i < 3; i++) {
+            tokenize("tokenizeXML", exp);
+        }
+    }
+
+    public void xxxtestTokenizeXMLInheritNamespacePerformance() throws Exception {
+        createDataFile();
+        Expression exp = ExpressionBuilder.tokenizeXMLExpression("order", "orders");
+        for (int i = 0; i < 3; i++) {
+            tokenize("tokenizeXML with inherit namespace", exp);
+        }
+    }
+
+    public void xxxtestXTokenizePerformance() throws Exception {
+        createDataFile();
+        Expression exp = ExpressionBuilder.tokenizeXMLAwareExpression("//o:order", 'i');
+        ((NamespaceAware) exp).setNamespaces(Collections.singletonMap("o", "urn:orders"));
+        for (int i = 0; i < 3; i++) {
+            tokenize("xtokenize", exp);
+        }
+    }
+
+    private void tokenize(String name, Expression exp) throws Exception {
+        Exchange exchange = new DefaultExchange(context);
+        exchange.getIn().setBody(FILE);
+
+        StopWatch watch = new StopWatch();
+        Iterator<?> it = exp.evaluate(exchange, Iterator.class);
+        int count = 0;
+        while (it.hasNext()) {
+            it.next();
+            count++;
+        }
+        if (it instanceof Closeable) {
+            ((Closeable) it).close();
+        }
+        long taken = watch.stop();
+
+        assertEquals(SIZE, count);
+        log.info(name + " tokenized " + count + " elements from " + FILE.length() / 1024 + " kb in: " + TimeUtils.printDuration(taken));
+    }
+
+    private static void createDataFile() throws Exception {
+        if (FILE.exists()) {
+            return;
+        }
+        FILE.getParentFile().mkdirs();
+        Writer writer = new OutputStreamWriter(new FileOutputStream(FILE), "UTF-8");
+        try {
+            writer.write("<?xml version=\"1.0\" encoding=\"UTF-8\"?>\n<orders xmlns=\"urn:orders\" xmlns:x=\"urn:x\">\n");
+            for (int i = 0; i < SIZE; i++) {
+                writer.write("  <order id=\"" + i + "\" x:type=\"standard\">\n");
+                writer.write("    <customer>Customer " + i + "</customer>\n");
+                writer.write("    <amount>" + (i % 1000) + "</amount>\n");
+                writer.write("    <comment><![CDATA[Some <b>comment</b> for order " + i + "]]></comment>\n");
+                writer.write("  </order>\n");
+            }
+            writer.write("</orders>\n");
+        } finally {
+            writer.close();
+        }
+    }
+}
@@ -0,0 +1,86 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.camel.management;
+
+import java.util.Set;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+import org.apache.camel.CamelExecutionException;
+import org.apache.camel.builder.RouteBuilder;
+import org.apache.camel.impl.JndiRegistry;
+
+/**
+ * Tests that a delayed redelivery which cannot be scheduled fails the exchange,
+ * and is not counted as scheduled.
+ *
+ * @version 
+ */
+public class ManagedErrorHandlerRejectedRedeliveryTest extends ManagementTestSupport {
+
+    private ScheduledExecutorService scheduler;
+
+    @Override
+    protected JndiRegistry createRegistry() throws Exception {
+        JndiRegistry jndi = super.createRegistry();
+        // a scheduler which rejects all tasks
+        scheduler = Executors.newSingleThreadScheduledExecutor();
+        scheduler.shutdown();
+        jndi.bind("myScheduler", scheduler);
+        return jndi;
+    }
+
+    public void testManagedErrorHandlerRejectedRedelivery() throws Exception {
+        // JMX tests dont work well on AIX CI servers (hangs them)
+        if (isPlatform("aix")) {
+            return;
+        }
+
+        try {
+            template.sendBody("direct:start", "Hello World");
+            fail("Should have thrown an exception");
+        } catch (CamelExecutionException e) {
+            assertIsInstanceOf(RejectedExecutionException.class, e.getCause());
+        }
+
+        MBeanServer mbeanServer = getMBeanServer();
+        Set<ObjectName> set = mbeanServer.queryNames(new ObjectName("*:type=errorhandlers,*"), null);
+        assertEquals(1, set.size());
+        ObjectName on = set.iterator().next();
+
+        Integer scheduled = (Integer) mbeanServer.getAttribute(on, "ScheduledRedeliveryCount");
+        assertEquals(0, scheduled.intValue());
+        Integer pending = (Integer) mbeanServer.getAttribute(on, "PendingRedeliveryCount");
+        assertEquals(0, pending.intValue());
+    }
+
+    @Override
+    protected RouteBuilder createRouteBuilder() throws Exception {
+        return new RouteBuilder() {
+            @Override
+            public void configure() throws Exception {
+                errorHandler(defaultErrorHandler().maximumRedeliveries(2).redeliveryDelay(100).executorServiceRef("myScheduler"));
+
+                from("direct:start")
+                    .throwException(new IllegalArgumentException("Damn"));
+            }
+        };
+    }
+}
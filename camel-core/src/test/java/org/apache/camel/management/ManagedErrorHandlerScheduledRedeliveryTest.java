@@ -0,0 +1,98 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.camel.management;
+
+import java.util.Set;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+import org.apache.camel.Exchange;
+import org.apache.camel.Processor;
+import org.apache.camel.builder.RouteBuilder;
+import org.apache.camel.component.mock.MockEndpoint;
+
+/**
+ * Tests that delayed redelivery is scheduled by default, so the consumer can continue with other messages
+ * while the exchange is waiting to be redelivered.
+ *
+ * @version 
+ */
+public class ManagedErrorHandlerScheduledRedeliveryTest extends ManagementTestSupport {
+
+    private static volatile int attempt;
+
+    public void testManagedErrorHandlerScheduledRedelivery() throws Exception {
+        // JMX tests dont work well on AIX CI servers (hangs them)
+        if (isPlatform("aix")) {
+            return;
+        }
+
+        attempt = 0;
+
+        MBeanServer mbeanServer = getMBeanServer();
+
+        Set<ObjectName> set = mbeanServer.queryNames(new ObjectName("*:type=errorhandlers,*"), null);
+        assertEquals(1, set.size());
+        ObjectName on = set.iterator().next();
+
+        Boolean async = (Boolean) mbeanServer.getAttribute(on, "AsyncDelayedRedelivery");
+        assertEquals(Boolean.TRUE, async);
+
+        // the consumer is not blocked by the redelivery so the 2nd message is done first
+        MockEndpoint result = getMockEndpoint("mock:result");
+        result.expectedBodiesReceived("Hello Camel");
+
+        template.sendBody("seda:start", "World");
+        template.sendBody("seda:start", "Camel");
+
+        assertMockEndpointsSatisfied();
+
+        Integer pending = (Integer) mbeanServer.getAttribute(on, "PendingRedeliveryCount");
+        assertEquals(1, pending.intValue());
+        Integer scheduled = (Integer) mbeanServer.getAttribute(on, "ScheduledRedeliveryCount");
+        assertEquals(1, scheduled.intValue());
+
+        result.reset();
+        result.expectedBodiesReceived("Hello World");
+        assertMockEndpointsSatisfied();
+
+        scheduled = (Integer) mbeanServer.getAttribute(on, "ScheduledRedeliveryCount");
+        assertEquals(0, scheduled.intValue());
+    }
+
+    @Override
+    protected RouteBuilder createRouteBuilder() throws Exception {
+        return new RouteBuilder() {
+            @Override
+            public void configure() throws Exception {
+                errorHandler(defaultErrorHandler().maximumRedeliveries(5).redeliveryDelay(2000));
+
+                from("seda:start")
+                    .process(new Processor() {
+                        public void process(Exchange exchange) throws Exception {
+                            String body = exchange.getIn().getBody(String.class);
+                            if (body.contains("World") && ++attempt <= 1) {
+                                throw new IllegalArgumentException("Damn");
+                            }
+                            exchange.getIn().setBody("Hello " + body);
+                        }
+                    })
+                    .to("mock:result");
+            }
+        };
+    }
+}
@@ -0,0 +1,147 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.camel.processor;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.lang.reflect.Method;
+
+import org.apache.camel.AsyncCallback;
+import org.apache.camel.ContextTestSupport;
+import org.apache.camel.Exchange;
+import org.apache.camel.Processor;
+import org.apache.camel.impl.DefaultExchange;
+
+/**
+ * A simple performance test that measures the time and the allocated bytes per step when routing
+ * through the {@link CamelInternalProcessor}, which can be used when we suspect something is wrong.
+ */
+public class CamelInternalProcessorPerformanceTest extends ContextTestSupport {
+
+    private static final int WARMUP = 20000;
+    private static final int SIZE = 200000;
+
+    public void testDummy() throws Exception {
+        // noop
+    }
+
+    // Enable me for manual unit testing
+    public void xxxtestNoAdvices() throws Exception {
+        CamelInternalProcessor internal = new CamelInternalProcessor(new MyProcessor());
+        measure("no advices", internal, false);
+    }
+
+    // Enable me for manual unit testing
+    public void xxxtestAdvicesWithoutState() throws Exception {
+        CamelInternalProcessor internal = new CamelInternalProcessor(new MyProcessor());
+        internal.addAdvice(new MyAdvice(null));
+        internal.addAdvice(new MyAdvice(null));
+        internal.addAdvice(new MyAdvice(null));
+        measure("advices without state", internal, false);
+        measure("advices without state (synchronous)", internal, true);
+    }
+
+    // Enable me for manual unit testing
+    public void xxxtestAdvicesWithState() throws Exception {
+        CamelInternalProcessor internal = new CamelInternalProcessor(new MyProcessor());
+        internal.addAdvice(new MyAdvice(null));
+        internal.addAdvice(new MyAdvice("state"));
+        internal.addAdvice(new MyAdvice(null));
+        measure("advices with state", internal, false);
+        measure("advices with state (synchronous)", internal, true);
+    }
+
+    private void measure(String name, CamelInternalProcessor internal, boolean synchronous) throws Exception {
+        Exchange exchange = new DefaultExchange(context);
+        AsyncCallback callback = new MyCallback();
+
+        for (int i = 0; i < WARMUP; i++) {
+            route(internal, exchange, callback, synchronous);
+        }
+
+        long bytes = allocatedBytes();
+        long start = System.nanoTime();
+        for (int i = 0; i < SIZE; i++) {
+            route(internal, exchange, callback, synchronous);
+        }
+        long nanos = System.nanoTime() - start;
+        bytes = allocatedBytes() - bytes;
+
+        // the allocated bytes is only available on JVMs which supports measuring it
+        log.info("CamelInternalProcessorPerformanceTest: " + name + ": " + (nanos / SIZE) + " ns/step"
+                + (bytes >= 0 ? ", " + (bytes / SIZE) + " bytes/step" : ""));
+        assertNull(exchange.getException());
+    }
+
+    private static void route(CamelInternalProcessor internal, Exchange exchange, AsyncCallback callback, boolean synchronous) {
+        if (synchronous) {
+            exchange.setProperty(Exchange.UNIT_OF_WORK_PROCESS_SYNC, true);
+        }
+        internal.process(exchange, callback);
+    }
+
+    /**
+     * Gets the bytes allocated by the current thread, or <tt>-1</tt> if not supported by the JVM.
+     */
+    static long allocatedBytes() {
+        ThreadMXBean bean = ManagementFactory.getThreadMXBean();
+        try {
+            Class<?> type = Class.forName("com.sun.management.ThreadMXBean");
+            if (type.isInstance(bean)) {
+                Method method = type.getMethod("getThreadAllocatedBytes", long.class);
+                Long answer = (Long) method.invoke(bean, Thread.currentThread().getId());
+                return answer != null ? answer : -1;
+            }
+        } catch (Exception e) {
+            // ignore as not supported on this JVM
+        }
+        return -1;
+    }
+
+    private static final class MyProcessor implements Processor {
+        @Override
+        public void process(Exchange exchange) throws Exception {
+            // noop
+        }
+    }
+
+    private static final class MyCallback implements AsyncCallback {
+        @Override
+        public void done(boolean doneSync) {
+            // noop
+        }
+    }
+
+    private static final class MyAdvice implements CamelInternalProcessorAdvice<String> {
+
+        private final String state;
+
+        private MyAdvice(String state) {
+            this.state = state;
+        }
+
+        @Override
+        public String before(Exchange exchange) throws Exception {
+            return state;
+        }
+
+        @Override
+        public void after(Exchange exchange, String data) throws Exception {
+            // noop
+        }
+    }
+}
@@ -0,0 +1,125 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.camel.processor;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.apache.camel.AsyncCallback;
+import org.apache.camel.ContextTestSupport;
+import org.apache.camel.Exchange;
+import org.apache.camel.Processor;
+import org.apache.camel.impl.DefaultExchange;
+
+/**
+ * @version 
+ */
+public class CamelInternalProcessorTest extends ContextTestSupport {
+
+    private final List<String> events = new ArrayList<String>();
+
+    public void testNoAdvices() throws Exception {
+        CamelInternalProcessor internal = new CamelInternalProcessor(new MyProcessor());
+
+        Exchange exchange = new DefaultExchange(context);
+        assertTrue(internal.process(exchange, new MyCallback()));
+
+        assertEquals("[process, done]", events.toString());
+    }
+
+    public void testAdvicesInOrder() throws Exception {
+        CamelInternalProcessor internal = new CamelInternalProcessor(new MyProcessor());
+        internal.addAdvice(new MyAdvice("a", null));
+        internal.addAdvice(new MyAdvice("b", "state-b"));
+        internal.addAdvice(new MyAdvice("c", null));
+
+        Exchange exchange = new DefaultExchange(context);
+        assertTrue(internal.process(exchange, new MyCallback()));
+
+        assertEquals("[before-a, before-b, before-c, process, after-c:null, after-b:state-b, after-a:null, done]", events.toString());
+        assertNotNull(internal.getAdvice(MyAdvice.class));
+    }
+
+    public void testAdvicesSynchronous() throws Exception {
+        CamelInternalProcessor internal = new CamelInternalProcessor(new MyProcessor());
+        internal.addAdvice(new MyAdvice("a", "state-a"));
+        internal.addAdvice(new MyAdvice("b", null));
+
+        Exchange exchange = new DefaultExchange(context);
+        exchange.setProperty(Exchange.UNIT_OF_WORK_PROCESS_SYNC, true);
+        assertTrue(internal.process(exchange, new MyCallback()));
+
+        assertEquals("[before-a, before-b, process, after-b:null, after-a:state-a, done]", events.toString());
+    }
+
+    public void testAdviceBeforeFailed() throws Exception {
+        CamelInternalProcessor internal = new CamelInternalProcessor(new MyProcessor());
+        internal.addAdvice(new CamelInternalProcessorAdvice<Object>() {
+            @Override
+            public Object before(Exchange exchange) throws Exception {
+                throw new IllegalArgumentException("Forced");
+            }
+
+            @Override
+            public void after(Exchange exchange, Object data) throws Exception {
+                events.add("after");
+            }
+        });
+
+        Exchange exchange = new DefaultExchange(context);
+        assertTrue(internal.process(exchange, new MyCallback()));
+
+        assertEquals("[done]", events.toString());
+        assertIsInstanceOf(IllegalArgumentException.class, exchange.getException());
+    }
+
+    private final class MyProcessor implements Processor {
+        @Override
+        public void process(Exchange exchange) throws Exception {
+            events.add("process");
+        }
+    }
+
+    private final class MyCallback implements AsyncCallback {
+        @Override
+        public void done(boolean doneSync) {
+            events.add("done");
+        }
+    }
+
+    private final class MyAdvice implements CamelInternalProcessorAdvice<String> {
+
+        private final String name;
+        private final String state;
+
+        private MyAdvice(String name, String state) {
+            this.name = name;
+            this.state = state;
+        }
+
+        @Override
+        public String before(Exchange exchange) throws Exception {
+            events.add("before-" + name);
+            return state;
+        }
+
+        @Override
+        public void after(Exchange exchange, String data) throws Exception {
+            events.add("after-" + name + ":" + data);
+        }
+    }
+}
@@ -0,0 +1,182 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.camel.processor;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Random;
+
+import org.apache.camel.ContextTestSupport;
+import org.apache.camel.Endpoint;
+import org.apache.camel.Exchange;
+import org.apache.camel.ExchangePattern;
+import org.apache.camel.RuntimeExchangeException;
+import org.apache.camel.impl.DefaultExchange;
+import org.apache.camel.util.ExpressionComparator;
+
+/**
+ * @version 
+ */
+public class ExternalSortedExchangeSetTest extends ContextTestSupport {
+
+    private File spoolDirectory = new File("target/resequencer-spool");
+
+    @Override
+    protected void setUp() throws Exception {
+        deleteDirectory(spoolDirectory);
+        super.setUp();
+    }
+
+    public void testSortedInMemory() throws Exception {
+        ExternalSortedExchangeSet set = createSet(false, 100);
+        addAll(set, 5, 3, 1, 4, 2);
+
+        assertEquals(0, set.getSpooledRuns());
+        assertEquals(5, set.size());
+        assertBodies(set, 1, 2, 3, 4, 5);
+        assertEquals(0, set.size());
+    }
+
+    public void testSortedSpooled() throws Exception {
+        ExternalSortedExchangeSet set = createSet(false, 10);
+        List<Integer> numbers = new ArrayList<Integer>();
+        for (int i = 0; i < 95; i++) {
+            numbers.add(i);
+        }
+        Collections.shuffle(numbers, new Random());
+        addAll(set, numbers.toArray(new Integer[numbers.size()]));
+
+        assertEquals(9, set.getSpooledRuns());
+        assertEquals(9, spoolDirectory.list().length);
+        assertEquals(95, set.size());
+
+        Iterator<Exchange> it = set.iterator();
+        for (int i = 0; i < 95; i++) {
+            assertTrue(it.hasNext());
+            Exchange exchange = it.next();
+            assertEquals(i, exchange.getIn().getBody(Integer.class).intValue());
+            assertEquals("header" + i, exchange.getIn().getHeader("foo"));
+            it.remove();
+        }
+        assertFalse(it.hasNext());
+
+        // the spool files should be deleted
+        assertEquals(0, set.size());
+        assertEquals(0, set.getSpooledRuns());
+        assertEquals(0, spoolDirectory.list().length);
+    }
+
+    public void testDuplicatesSpooled() throws Exception {
+        ExternalSortedExchangeSet set = createSet(false, 3);
+        addAll(set, 3, 1, 2, 2, 5, 1, 4, 3);
+
+        assertBodies(set, 1, 2, 3, 4, 5);
+    }
+
+    public void testAllowDuplicatesSpooled() throws Exception {
+        ExternalSortedExchangeSet set = createSet(true, 3);
+        addAll(set, 3, 1, 2, 2, 5, 1, 4, 3);
+
+        assertBodies(set, 1, 1, 2, 2, 3, 3, 4, 5);
+    }
+
+    public void testClear() throws Exception {
+        ExternalSortedExchangeSet set = createSet(false, 2);
+        addAll(set, 3, 1, 2, 5, 4);
+        assertEquals(2, spoolDirectory.list().length);
+
+        set.clear();
+        assertEquals(0, set.size());
+        assertEquals(0, spoolDirectory.list().length);
+        assertFalse(set.iterator().hasNext());
+    }
+
+    public void testClearWhileIterating() throws Exception {
+        ExternalSortedExchangeSet set = createSet(false, 2);
+        addAll(set, 3, 1, 2, 5, 4);
+
+        Iterator<Exchange> it = set.iterator();
+        assertEquals(1, it.next().getIn().getBody());
+
+        // the runs being read are closed so the spool files can be deleted
+        set.clear();
+        assertEquals(0, spoolDirectory.list().length);
+    }
+
+    public void testSpooledExchangeKeepsPatternAndFrom() throws Exception {
+        ExternalSortedExchangeSet set = createSet(false, 1);
+        Endpoint endpoint = context.getEndpoint("direct:foo");
+        Exchange exchange = new DefaultExchange(endpoint, ExchangePattern.InOut);
+        exchange.setFromRouteId("myRoute");
+        exchange.getIn().setBody(1);
+        set.add(exchange);
+        assertEquals(1, set.getSpooledRuns());
+
+        Iterator<Exchange> it = set.iterator();
+        Exchange spooled = it.next();
+        assertNotSame(exchange, spooled);
+        assertEquals(exchange.getExchangeId(), spooled.getExchangeId());
+        assertEquals(ExchangePattern.InOut, spooled.getPattern());
+        assertSame(endpoint, spooled.getFromEndpoint());
+        assertEquals("myRoute", spooled.getFromRouteId());
+        assertEquals(1, spooled.getIn().getBody());
+        it.remove();
+    }
+
+    public void testNotSerializableBodyRejected() throws Exception {
+        ExternalSortedExchangeSet set = createSet(false, 1);
+        Exchange exchange = new DefaultExchange(context);
+        exchange.getIn().setBody(new Object());
+        try {
+            set.add(exchange);
+            fail("Should have thrown an exception");
+        } catch (RuntimeExchangeException e) {
+            // expected
+        }
+        assertEquals(0, set.size());
+        assertEquals(0, set.getSpooledRuns());
+    }
+
+    private ExternalSortedExchangeSet createSet(boolean allowDuplicates, int spoolThreshold) {
+        return new ExternalSortedExchangeSet(context,
+                Resequencer.createComparator(new ExpressionComparator(body()), allowDuplicates, false), spoolDirectory, spoolThreshold);
+    }
+
+    private void addAll(ExternalSortedExchangeSet set, Integer... bodies) {
+        for (Integer body : bodies) {
+            Exchange exchange = new DefaultExchange(context);
+            exchange.getIn().setBody(body);
+            exchange.getIn().setHeader("foo", "header" + body);
+            set.add(exchange);
+        }
+    }
+
+    private void assertBodies(ExternalSortedExchangeSet set, Integer... expected) {
+        List<Integer> bodies = new ArrayList<Integer>();
+        Iterator<Exchange> it = set.iterator();
+        while (it.hasNext()) {
+            bodies.add(it.next().getIn().getBody(Integer.class));
+            it.remove();
+        }
+        assertEquals(Arrays.asList(expected), bodies);
+    }
+
+}
@@ -0,0 +1,70 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.camel.processor;
+
+import java.util.List;
+
+import org.apache.camel.ContextTestSupport;
+import org.apache.camel.Exchange;
+import org.apache.camel.MessageHistory;
+import org.apache.camel.builder.RouteBuilder;
+import org.apache.camel.component.mock.MockEndpoint;
+
+/**
+ * @version 
+ */
+public class MessageHistorySamplePeriodTest extends ContextTestSupport {
+
+    @SuppressWarnings("unchecked")
+    public void testSamplePeriod() throws Exception {
+        MockEndpoint mock = getMockEndpoint("mock:result");
+        mock.expectedMessageCount(3);
+
+        for (int i = 0; i < 3; i++) {
+            template.sendBody("direct:start", "Hello " + i);
+        }
+
+        assertMockEndpointsSatisfied();
+
+        // only the first should have message history as the period is long
+        Exchange first = mock.getReceivedExchanges().get(0);
+        List<MessageHistory> list = first.getProperty(Exchange.MESSAGE_HISTORY, List.class);
+        assertNotNull("Exchange 0 should have message history", list);
+        assertEquals(2, list.size());
+        assertEquals(Boolean.TRUE, first.getProperty(Exchange.MESSAGE_HISTORY_SAMPLED));
+
+        for (int i = 1; i < 3; i++) {
+            Exchange exchange = mock.getReceivedExchanges().get(i);
+            assertNull("Exchange " + i + " should not have message history", exchange.getProperty(Exchange.MESSAGE_HISTORY));
+            assertEquals(Boolean.FALSE, exchange.getProperty(Exchange.MESSAGE_HISTORY_SAMPLED));
+        }
+    }
+
+    @Override
+    protected RouteBuilder createRouteBuilder() throws Exception {
+        return new RouteBuilder() {
+            @Override
+            public void configure() throws Exception {
+                context.setMessageHistory(false);
+
+                from("direct:start").messageHistorySamplePeriod(60000)
+                    .to("log:foo").id("foo")
+                    .to("mock:result").id("result");
+            }
+        };
+    }
+}
@@ -0,0 +1,75 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.camel.processor;
+
+import java.util.List;
+
+import org.apache.camel.ContextTestSupport;
+import org.apache.camel.Exchange;
+import org.apache.camel.MessageHistory;
+import org.apache.camel.builder.RouteBuilder;
+import org.apache.camel.component.mock.MockEndpoint;
+
+/**
+ * @version 
+ */
+public class MessageHistorySampleRateTest extends ContextTestSupport {
+
+    @SuppressWarnings("unchecked")
+    public void testSampleRate() throws Exception {
+        MockEndpoint mock = getMockEndpoint("mock:result");
+        mock.expectedMessageCount(4);
+
+        for (int i = 0; i < 4; i++) {
+            template.sendBody("direct:start", "Hello " + i);
+        }
+
+        assertMockEndpointsSatisfied();
+
+        // only 1 in 2 should have message history, which is kept across the routes
+        for (int i = 0; i < 4; i++) {
+            Exchange exchange = mock.getReceivedExchanges().get(i);
+            List<MessageHistory> list = exchange.getProperty(Exchange.MESSAGE_HISTORY, List.class);
+            if (i % 2 == 0) {
+                assertNotNull("Exchange " + i + " should have message history", list);
+                assertEquals(3, list.size());
+                assertEquals("foo", list.get(0).getNode().getId());
+                assertEquals("bar", list.get(1).getNode().getId());
+                assertEquals("result", list.get(2).getNode().getId());
+            } else {
+                assertNull("Exchange " + i + " should not have message history", list);
+            }
+        }
+    }
+
+    @Override
+    protected RouteBuilder createRouteBuilder() throws Exception {
+        return new RouteBuilder() {
+            @Override
+            public void configure() throws Exception {
+                context.setMessageHistory(false);
+
+                from("direct:start").messageHistory(2)
+                    .to("log:foo").id("foo")
+                    .to("direct:bar").id("bar");
+
+                from("direct:bar").messageHistory(3)
+                    .to("mock:result").id("result");
+            }
+        };
+    }
+}
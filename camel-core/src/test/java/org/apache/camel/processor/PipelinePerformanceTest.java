@@ -0,0 +1,80 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.camel.processor;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.apache.camel.AsyncCallback;
+import org.apache.camel.ContextTestSupport;
+import org.apache.camel.Exchange;
+import org.apache.camel.Processor;
+import org.apache.camel.impl.DefaultExchange;
+
+/**
+ * A simple performance test that measures the time and the allocated bytes per message when routing
+ * through a {@link Pipeline} with many steps, which can be used when we suspect something is wrong.
+ */
+public class PipelinePerformanceTest extends ContextTestSupport {
+
+    private static final int STEPS = 15;
+    private static final int WARMUP = 20000;
+    private static final int SIZE = 100000;
+
+    public void testDummy() throws Exception {
+        // noop
+    }
+
+    // Enable me for manual unit testing
+    public void xxxtestPerformance() throws Exception {
+        List<Processor> processors = new ArrayList<Processor>();
+        for (int i = 0; i < STEPS; i++) {
+            processors.add(new MyProcessor());
+        }
+        Pipeline pipeline = new Pipeline(context, processors);
+        AsyncCallback callback = new MyCallback();
+
+        for (int i = 0; i < WARMUP; i++) {
+            pipeline.process(new DefaultExchange(context), callback);
+        }
+
+        // the allocations include creating the exchange to route
+        long bytes = CamelInternalProcessorPerformanceTest.allocatedBytes();
+        long start = System.nanoTime();
+        for (int i = 0; i < SIZE; i++) {
+            pipeline.process(new DefaultExchange(context), callback);
+        }
+        long nanos = System.nanoTime() - start;
+        bytes = CamelInternalProcessorPerformanceTest.allocatedBytes() - bytes;
+
+        // the allocated bytes is only available on JVMs which supports measuring it
+        log.info("PipelinePerformanceTest: " + STEPS + " steps: " + (nanos / SIZE) + " ns/message"
+                + (bytes >= 0 ? ", " + (bytes / SIZE) + " bytes/message" : ""));
+    }
+
+    private static final class MyProcessor implements Processor {
+        public void process(Exchange exchange) throws Exception {
+            // noop
+        }
+    }
+
+    private static final class MyCallback implements AsyncCallback {
+        public void done(boolean doneSync) {
+            // noop
+        }
+    }
+}
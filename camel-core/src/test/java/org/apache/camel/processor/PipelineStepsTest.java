@@ -0,0 +1,173 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.camel.processor;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.camel.AsyncCallback;
+import org.apache.camel.AsyncProcessor;
+import org.apache.camel.ContextTestSupport;
+import org.apache.camel.Exchange;
+import org.apache.camel.Processor;
+import org.apache.camel.impl.DefaultExchange;
+
+/**
+ * @version 
+ */
+public class PipelineStepsTest extends ContextTestSupport {
+
+    private final List<Exchange> exchanges = new ArrayList<Exchange>();
+
+    public void testSynchronousSteps() throws Exception {
+        Pipeline pipeline = new Pipeline(context, Arrays.<Processor>asList(new Append("a"), new Append("b"), new Append("c")));
+
+        Exchange exchange = new DefaultExchange(context);
+        exchange.getIn().setBody("");
+        MyCallback callback = new MyCallback();
+        assertTrue(pipeline.process(exchange, callback));
+
+        assertTrue(callback.doneSync);
+        assertEquals("abc", exchange.getOut().getBody());
+        // the same exchange is used for all the steps
+        assertEquals(3, exchanges.size());
+        for (Exchange step : exchanges) {
+            assertSame(exchange, step);
+        }
+    }
+
+    public void testAsynchronousStep() throws Exception {
+        Pipeline pipeline = new Pipeline(context, Arrays.<Processor>asList(new Append("a"), new AsyncAppend("b"), new Append("c")));
+
+        Exchange exchange = new DefaultExchange(context);
+        exchange.getIn().setBody("");
+        MyCallback callback = new MyCallback();
+        assertFalse(pipeline.process(exchange, callback));
+
+        assertTrue(callback.latch.await(10, TimeUnit.SECONDS));
+        assertFalse(callback.doneSync);
+        assertEquals("abc", exchange.getOut().getBody());
+        assertEquals(3, exchanges.size());
+    }
+
+    public void testStopRouting() throws Exception {
+        Processor stop = new Processor() {
+            public void process(Exchange exchange) throws Exception {
+                exchange.setProperty(Exchange.ROUTE_STOP, Boolean.TRUE);
+            }
+        };
+        Pipeline pipeline = new Pipeline(context, Arrays.<Processor>asList(new Append("a"), stop, new Append("c")));
+
+        Exchange exchange = new DefaultExchange(context);
+        exchange.getIn().setBody("");
+        assertTrue(pipeline.process(exchange, new MyCallback()));
+
+        assertEquals("a", exchange.getIn().getBody());
+        assertEquals(1, exchanges.size());
+    }
+
+    public void testExceptionBreaksOut() throws Exception {
+        Processor fail = new Processor() {
+            public void process(Exchange exchange) throws Exception {
+                throw new IllegalArgumentException("Forced");
+            }
+        };
+        Pipeline pipeline = new Pipeline(context, Arrays.<Processor>asList(new Append("a"), new AsyncAppend("b"), fail, new Append("d")));
+
+        Exchange exchange = new DefaultExchange(context);
+        exchange.getIn().setBody("");
+        MyCallback callback = new MyCallback();
+        pipeline.process(exchange, callback);
+
+        assertTrue(callback.latch.await(10, TimeUnit.SECONDS));
+        assertEquals("ab", exchange.getIn().getBody());
+        assertIsInstanceOf(IllegalArgumentException.class, exchange.getException());
+        assertEquals(2, exchanges.size());
+    }
+
+    @SuppressWarnings("deprecation")
+    public void testOverriddenDeprecatedContinueRouting() throws Exception {
+        final Processor last = new Append("c");
+        Pipeline pipeline = new Pipeline(context, Arrays.<Processor>asList(new Append("a"), new Append("b"), last)) {
+            @Override
+            protected boolean continueRouting(Iterator<Processor> it, Exchange exchange) {
+                // do not route to the last step
+                return super.continueRouting(it, exchange) && it.next() != last;
+            }
+        };
+
+        Exchange exchange = new DefaultExchange(context);
+        exchange.getIn().setBody("");
+        assertTrue(pipeline.process(exchange, new MyCallback()));
+
+        assertEquals("ab", exchange.getOut().getBody());
+        assertEquals(2, exchanges.size());
+    }
+
+    private final class Append implements Processor {
+
+        private final String text;
+
+        private Append(String text) {
+            this.text = text;
+        }
+
+        public void process(Exchange exchange) throws Exception {
+            exchanges.add(exchange);
+            exchange.getOut().setBody(exchange.getIn().getBody(String.class) + text);
+        }
+    }
+
+    private final class AsyncAppend implements AsyncProcessor {
+
+        private final String text;
+
+        private AsyncAppend(String text) {
+            this.text = text;
+        }
+
+        public void process(Exchange exchange) throws Exception {
+            throw new IllegalStateException("Should not be called");
+        }
+
+        public boolean process(final Exchange exchange, final AsyncCallback callback) {
+            exchanges.add(exchange);
+            new Thread(new Runnable() {
+                public void run() {
+                    exchange.getOut().setBody(exchange.getIn().getBody(String.class) + text);
+                    callback.done(false);
+                }
+            }).start();
+            return false;
+        }
+    }
+
+    private static final class MyCallback implements AsyncCallback {
+
+        private final CountDownLatch latch = new CountDownLatch(1);
+        private volatile boolean doneSync;
+
+        public void done(boolean doneSync) {
+            this.doneSync = doneSync;
+            latch.countDown();
+        }
+    }
+}
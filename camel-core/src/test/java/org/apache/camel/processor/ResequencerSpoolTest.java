@@ -0,0 +1,82 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.camel.processor;
+
+import java.io.File;
+
+import org.apache.camel.ContextTestSupport;
+import org.apache.camel.Exchange;
+import org.apache.camel.Processor;
+import org.apache.camel.RuntimeExchangeException;
+import org.apache.camel.builder.RouteBuilder;
+import org.apache.camel.component.mock.MockEndpoint;
+
+/**
+ * @version 
+ */
+public class ResequencerSpoolTest extends ContextTestSupport {
+
+    @Override
+    protected void setUp() throws Exception {
+        deleteDirectory("target/resequencer-spool");
+        super.setUp();
+    }
+
+    public void testSpoolBatch() throws Exception {
+        MockEndpoint mock = getMockEndpoint("mock:result");
+        Object[] expected = new Object[100];
+        for (int i = 0; i < 100; i++) {
+            expected[i] = i;
+        }
+        mock.expectedBodiesReceived(expected);
+
+        for (int i = 99; i >= 0; i--) {
+            template.sendBodyAndHeader("direct:start", i, "seqno", i);
+        }
+
+        assertMockEndpointsSatisfied();
+        assertEquals(0, new File("target/resequencer-spool").list().length);
+    }
+
+    public void testNotSerializableBody() throws Exception {
+        getMockEndpoint("mock:result").expectedMessageCount(0);
+
+        Exchange out = template.send("direct:start", new Processor() {
+            public void process(Exchange exchange) throws Exception {
+                exchange.getIn().setBody(new Object());
+                exchange.getIn().setHeader("seqno", 1);
+            }
+        });
+
+        // the exchange is failed at once instead of being kept in memory
+        assertIsInstanceOf(RuntimeExchangeException.class, out.getException());
+        assertMockEndpointsSatisfied();
+    }
+
+    @Override
+    protected RouteBuilder createRouteBuilder() throws Exception {
+        return new RouteBuilder() {
+            @Override
+            public void configure() throws Exception {
+                from("direct:start")
+                    .resequence(header("seqno")).batch().size(100).timeout(5000).spoolThreshold(10).spoolDirectory("target/resequencer-spool")
+                    .to("mock:result");
+            }
+        };
+    }
+
+}
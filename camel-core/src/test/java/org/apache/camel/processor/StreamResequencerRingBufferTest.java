@@ -0,0 +1,79 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.camel.processor;
+
+import org.apache.camel.ContextTestSupport;
+import org.apache.camel.builder.RouteBuilder;
+
+/**
+ * @version 
+ */
+public class StreamResequencerRingBufferTest extends ContextTestSupport {
+
+    public void testSendMessagesInWrongOrderButReceiveThemInCorrectOrder() throws Exception {
+        getMockEndpoint("mock:result").expectedBodiesReceived("msg1", "msg2", "msg3", "msg4");
+
+        template.sendBodyAndHeader("direct:start", "msg4", "seqnum", 4L);
+        template.sendBodyAndHeader("direct:start", "msg1", "seqnum", 1L);
+        template.sendBodyAndHeader("direct:start", "msg3", "seqnum", 3L);
+        template.sendBodyAndHeader("direct:start", "msg2", "seqnum", 2L);
+
+        assertMockEndpointsSatisfied();
+    }
+
+    public void testGapTimeout() throws Exception {
+        getMockEndpoint("mock:result").expectedBodiesReceived("msg1", "msg2", "msg4", "msg5");
+
+        template.sendBodyAndHeader("direct:start", "msg2", "seqnum", 2L);
+        template.sendBodyAndHeader("direct:start", "msg1", "seqnum", 1L);
+        template.sendBodyAndHeader("direct:start", "msg5", "seqnum", 5L);
+        template.sendBodyAndHeader("direct:start", "msg4", "seqnum", 4L);
+
+        assertMockEndpointsSatisfied();
+    }
+
+    public void testManyMessages() throws Exception {
+        int numMessages = 200;
+
+        Object[] bodies = new Object[numMessages];
+        for (int i = 0; i < numMessages; i++) {
+            bodies[i] = "msg" + i;
+        }
+        getMockEndpoint("mock:result").expectedBodiesReceived(bodies);
+
+        // send the messages with every pair swapped
+        for (int i = 0; i < numMessages; i += 2) {
+            template.sendBodyAndHeader("direct:start", "msg" + (i + 1), "seqnum", (long) (i + 1));
+            template.sendBodyAndHeader("direct:start", "msg" + i, "seqnum", (long) i);
+        }
+
+        assertMockEndpointsSatisfied();
+    }
+
+    @Override
+    protected RouteBuilder createRouteBuilder() {
+        return new RouteBuilder() {
+            @Override
+            public void configure() throws Exception {
+                from("direct:start")
+                    .resequence(header("seqnum")).stream().ringBuffer().capacity(50).timeout(100)
+                    .to("mock:result");
+            }
+        };
+    }
+
+}
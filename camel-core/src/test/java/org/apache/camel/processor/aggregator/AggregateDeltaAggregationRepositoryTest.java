@@ -0,0 +1,192 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.camel.processor.aggregator;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.apache.camel.CamelContext;
+import org.apache.camel.CamelExecutionException;
+import org.apache.camel.ContextTestSupport;
+import org.apache.camel.Exchange;
+import org.apache.camel.builder.RouteBuilder;
+import org.apache.camel.processor.aggregate.AggregationStrategy;
+import org.apache.camel.processor.aggregate.MemoryDeltaAggregationRepository;
+
+/**
+ * @version 
+ */
+public class AggregateDeltaAggregationRepositoryTest extends ContextTestSupport {
+
+    private final MyCountingStrategy strategy = new MyCountingStrategy();
+    private final MyDeltaAggregationRepository repository = new MyDeltaAggregationRepository();
+
+    public void testAggregateDeltasOnCompletion() throws Exception {
+        getMockEndpoint("mock:aggregated").expectedBodiesReceivedInAnyOrder("A1A2A3", "B1B2");
+
+        template.sendBodyAndHeader("direct:start", "A1", "id", "A");
+        template.sendBodyAndHeader("direct:start", "B1", "id", "B");
+        template.sendBodyAndHeader("direct:start", "A2", "id", "A");
+        template.sendBodyAndHeader("direct:start", "B2", "id", "B");
+
+        // each exchange is aggregated once with the aggregated exchange in memory
+        assertEquals(4, strategy.getInvocations());
+        assertEquals(2, repository.getDeltas(context, "A").size());
+
+        template.sendBodyAndHeader("direct:start", "A3", "id", "A");
+
+        assertMockEndpointsSatisfied();
+
+        // B is completed by the timeout
+        assertEquals(5, strategy.getInvocations());
+        assertEquals(0, repository.getDeltaKeys().size());
+        // the deltas are only read when a group is started, and by this test
+        assertEquals(3, repository.getDeltasInvocations());
+    }
+
+    public void testCompletionSizeExpressionOnAggregated() throws Exception {
+        getMockEndpoint("mock:aggregated").expectedBodiesReceived("A1A2");
+        getMockEndpoint("mock:aggregated").expectedPropertyReceived(Exchange.AGGREGATED_COMPLETED_BY, "size");
+
+        // the size header is only on the first exchange which is kept by the aggregation strategy
+        template.sendBodyAndHeaders("direct:size", "A1", createHeaders("A", 2));
+        template.sendBodyAndHeader("direct:size", "A2", "id", "A");
+
+        assertMockEndpointsSatisfied();
+    }
+
+    public void testCompletionPredicate() throws Exception {
+        getMockEndpoint("mock:aggregated").expectedBodiesReceived("A1A2A3A4");
+        getMockEndpoint("mock:aggregated").expectedPropertyReceived(Exchange.AGGREGATED_COMPLETED_BY, "predicate");
+
+        template.sendBodyAndHeader("direct:predicate", "A1", "id", "A");
+        template.sendBodyAndHeader("direct:predicate", "A2", "id", "A");
+        template.sendBodyAndHeader("direct:predicate", "A3", "id", "A");
+        template.sendBodyAndHeader("direct:predicate", "A4", "id", "A");
+
+        assertMockEndpointsSatisfied();
+        // the deltas are used with a completion predicate
+        assertEquals(0, repository.getKeys().size());
+        assertEquals(0, repository.getDeltaKeys().size());
+    }
+
+    public void testFailedAggregationIsNotAppended() throws Exception {
+        getMockEndpoint("mock:aggregated").expectedBodiesReceived("A1A2A3");
+
+        template.sendBodyAndHeader("direct:start", "A1", "id", "A");
+        template.sendBodyAndHeader("direct:start", "A2", "id", "A");
+        try {
+            template.sendBodyAndHeader("direct:start", "Kaboom", "id", "A");
+            fail("Should have thrown an exception");
+        } catch (CamelExecutionException e) {
+            assertIsInstanceOf(IllegalArgumentException.class, e.getCause().getCause());
+        }
+        // the failed exchange is not stored as a delta
+        assertEquals(2, repository.getDeltas(context, "A").size());
+
+        // the aggregated exchange changed by the failed aggregation is aggregated again from the deltas
+        template.sendBodyAndHeader("direct:start", "A3", "id", "A");
+
+        assertMockEndpointsSatisfied();
+    }
+
+    private static Map<String, Object> createHeaders(String id, int size) {
+        Map<String, Object> headers = new HashMap<String, Object>();
+        headers.put("id", id);
+        headers.put("size", size);
+        return headers;
+    }
+
+    public void testForceCompletion() throws Exception {
+        getMockEndpoint("mock:aggregated").expectedBodiesReceived("A1A2");
+        getMockEndpoint("mock:aggregated").expectedPropertyReceived(Exchange.AGGREGATED_COMPLETED_BY, "force");
+
+        template.sendBodyAndHeader("direct:start", "A1", "id", "A");
+        template.sendBodyAndHeader("direct:start", "A2", "id", "A");
+        template.sendBodyAndHeader("direct:start", "Bye", Exchange.AGGREGATION_COMPLETE_ALL_GROUPS, true);
+
+        assertMockEndpointsSatisfied();
+        assertEquals(2, strategy.getInvocations());
+        // the deltas are only read when the group is started
+        assertEquals(1, repository.getDeltasInvocations());
+    }
+
+    @Override
+    protected RouteBuilder createRouteBuilder() throws Exception {
+        return new RouteBuilder() {
+            @Override
+            public void configure() throws Exception {
+                from("direct:start")
+                    .aggregate(header("id"), strategy)
+                        .aggregationRepository(repository)
+                        .completionSize(3).completionTimeout(1000)
+                        .to("mock:aggregated");
+
+                from("direct:size")
+                    .aggregate(header("id"), strategy)
+                        .aggregationRepository(new MemoryDeltaAggregationRepository())
+                        .completionSize(header("size"))
+                        .to("mock:aggregated");
+
+                from("direct:predicate")
+                    .aggregate(header("id"), strategy)
+                        .aggregationRepository(new MemoryDeltaAggregationRepository())
+                        .completionPredicate(body().contains("A4"))
+                        .to("mock:aggregated");
+            }
+        };
+    }
+
+    private static final class MyDeltaAggregationRepository extends MemoryDeltaAggregationRepository {
+
+        private final AtomicInteger getDeltasInvocations = new AtomicInteger();
+
+        @Override
+        public List<Exchange> getDeltas(CamelContext camelContext, String key) {
+            getDeltasInvocations.incrementAndGet();
+            return super.getDeltas(camelContext, key);
+        }
+
+        public int getDeltasInvocations() {
+            return getDeltasInvocations.get();
+        }
+    }
+
+    private static final class MyCountingStrategy implements AggregationStrategy {
+
+        private final AtomicInteger invocations = new AtomicInteger();
+
+        public Exchange aggregate(Exchange oldExchange, Exchange newExchange) {
+            invocations.incrementAndGet();
+            if (oldExchange == null) {
+                return newExchange;
+            }
+            String body = oldExchange.getIn().getBody(String.class) + newExchange.getIn().getBody(String.class);
+            oldExchange.getIn().setBody(body);
+            if ("Kaboom".equals(newExchange.getIn().getBody(String.class))) {
+                throw new IllegalArgumentException("Forced");
+            }
+            return oldExchange;
+        }
+
+        public int getInvocations() {
+            return invocations.get();
+        }
+    }
+}
@@ -16,7 +16,7 @@
  */
 package org.apache.camel.processor.resequencer;
 
-public class IntegerComparator implements SequenceElementComparator<Integer> {
+public class IntegerComparator implements SequenceNumberComparator<Integer> {
 
     @Override
     public boolean predecessor(Integer o1, Integer o2) {
@@ -38,4 +38,9 @@ public class IntegerComparator implements SequenceElementComparator<Integer> {
         return o1 != null;
     }
 
+    @Override
+    public long getSequenceNumber(Integer o1) {
+        return o1.longValue();
+    }
+
 }
@@ -0,0 +1,215 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.camel.processor.resequencer;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.camel.TestSupport;
+
+/**
+ * @version 
+ */
+public class RingBufferResequencerEngineTest extends TestSupport {
+
+    private RingBufferResequencerEngine<Integer> engine;
+    private SequenceBuffer<Integer> buffer;
+
+    public void tearDown() throws Exception {
+        if (engine != null) {
+            engine.stop();
+        }
+    }
+
+    public void testInSequence() throws Exception {
+        initEngine(500, 10);
+        engine.setLastDelivered(2);
+        engine.insert(3);
+        engine.insert(4);
+        engine.deliver();
+        assertEquals((Integer) 3, buffer.poll(0));
+        assertEquals((Integer) 4, buffer.poll(0));
+        assertEquals((Integer) 4, engine.getLastDelivered());
+        assertEquals(0, engine.size());
+    }
+
+    public void testOutOfSequence() throws Exception {
+        initEngine(500, 10);
+        engine.setLastDelivered(2);
+        engine.insert(5);
+        engine.insert(4);
+        engine.deliver();
+        assertNull(buffer.poll(0));
+
+        engine.insert(3);
+        engine.deliver();
+        assertEquals((Integer) 3, buffer.poll(0));
+        assertEquals((Integer) 4, buffer.poll(0));
+        assertEquals((Integer) 5, buffer.poll(0));
+    }
+
+    public void testFirstElementWaitsForTimeout() throws Exception {
+        initEngine(200, 10);
+        engine.insert(4);
+        engine.insert(3);
+        engine.deliver();
+        assertNull(buffer.poll(0));
+
+        Thread.sleep(300);
+        engine.deliver();
+        assertEquals((Integer) 3, buffer.poll(0));
+        assertEquals((Integer) 4, buffer.poll(0));
+    }
+
+    public void testGapTimeout() throws Exception {
+        initEngine(200, 10);
+        engine.setLastDelivered(2);
+        engine.insert(5);
+        engine.deliver();
+        assertNull(buffer.poll(0));
+
+        Thread.sleep(300);
+        engine.deliver();
+        assertEquals((Integer) 5, buffer.poll(0));
+        assertEquals((Integer) 5, engine.getLastDelivered());
+    }
+
+    public void testOldElement() throws Exception {
+        initEngine(500, 10);
+        engine.setLastDelivered(5);
+        engine.insert(3);
+        engine.deliver();
+        assertEquals((Integer) 3, buffer.poll(0));
+        assertEquals((Integer) 5, engine.getLastDelivered());
+
+        engine.setRejectOld(true);
+        try {
+            engine.insert(2);
+            fail("Should have thrown exception");
+        } catch (MessageRejectedException e) {
+            // expected
+        }
+    }
+
+    public void testWindowFull() throws Exception {
+        initEngine(500, 4);
+        engine.setLastDelivered(0);
+        engine.insert(2);
+
+        final CountDownLatch inserted = new CountDownLatch(1);
+        Thread producer = new Thread() {
+            public void run() {
+                // does not fit into the window until 1 and 2 have been delivered
+                engine.insert(6);
+                inserted.countDown();
+            }
+        };
+        producer.start();
+        Thread.sleep(100);
+        assertEquals(1, inserted.getCount());
+
+        engine.insert(1);
+        engine.deliver();
+        assertTrue(inserted.await(5, TimeUnit.SECONDS));
+        assertEquals((Integer) 1, buffer.poll(0));
+        assertEquals((Integer) 2, buffer.poll(0));
+        assertEquals(1, engine.size());
+    }
+
+    public void testBeyondWindowWhenEmpty() throws Exception {
+        initEngine(200, 4);
+        engine.setLastDelivered(0);
+        // does not fit into the window, and the window is empty
+        engine.insert(10);
+        engine.insert(3);
+        engine.insert(1);
+        engine.insert(2);
+        engine.deliver();
+        assertEquals((Integer) 1, buffer.poll(0));
+        assertEquals((Integer) 2, buffer.poll(0));
+        assertEquals((Integer) 3, buffer.poll(0));
+        assertNull(buffer.poll(0));
+
+        engine.insert(5);
+        engine.insert(4);
+        engine.insert(6);
+        engine.deliver();
+        assertEquals((Integer) 4, buffer.poll(0));
+        assertEquals((Integer) 5, buffer.poll(0));
+        assertEquals((Integer) 6, buffer.poll(0));
+        assertNull(buffer.poll(0));
+        assertEquals(1, engine.size());
+
+        // the gap before 10 is skipped when it has waited for the timeout
+        Thread.sleep(300);
+        engine.deliver();
+        assertEquals((Integer) 10, buffer.poll(0));
+        assertEquals(0, engine.size());
+    }
+
+    public void testBeyondWindowWhenEmptyTimeout() throws Exception {
+        initEngine(200, 4);
+        engine.setLastDelivered(0);
+        engine.insert(20);
+        engine.insert(10);
+        engine.deliver();
+        assertNull(buffer.poll(0));
+        assertEquals(2, engine.size());
+
+        // the window is moved to the first held element when it has waited for the timeout
+        Thread.sleep(300);
+        engine.deliver();
+        assertEquals((Integer) 10, buffer.poll(0));
+        assertEquals((Integer) 20, buffer.poll(0));
+        assertEquals(0, engine.size());
+    }
+
+    public void testRandom() throws Exception {
+        initEngine(1000, 100);
+        engine.setLastDelivered(0);
+        List<Integer> list = new ArrayList<Integer>();
+        for (int i = 1; i <= 1000; i++) {
+            list.add(i);
+        }
+        // shuffle within blocks which fits into the window
+        Random random = new Random();
+        for (int i = 0; i < list.size(); i += 50) {
+            Collections.shuffle(list.subList(i, i + 50), random);
+        }
+        for (Integer i : list) {
+            engine.insert(i);
+            engine.deliver();
+        }
+        for (int i = 1; i <= 1000; i++) {
+            assertEquals((Integer) i, buffer.poll(0));
+        }
+        assertEquals(0, engine.size());
+    }
+
+    private void initEngine(long timeout, int capacity) {
+        buffer = new SequenceBuffer<Integer>();
+        engine = new RingBufferResequencerEngine<Integer>(new IntegerComparator(), capacity);
+        engine.setSequenceSender(buffer);
+        engine.setTimeout(timeout);
+        engine.start();
+    }
+
+}
@@ -0,0 +1,197 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.camel.support;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Scanner;
+import java.util.concurrent.ExecutorService;
+
+import org.apache.camel.ContextTestSupport;
+import org.apache.camel.Exchange;
+import org.apache.camel.Expression;
+import org.apache.camel.builder.ExpressionBuilder;
+import org.apache.camel.builder.RouteBuilder;
+import org.apache.camel.component.mock.MockEndpoint;
+import org.apache.camel.impl.DefaultExchange;
+import org.apache.camel.model.language.TokenizerExpression;
+import org.apache.camel.util.LiteralTokenIterator;
+
+/**
+ * @version 
+ */
+public class ParallelTokenizeExpressionIteratorTest extends ContextTestSupport {
+
+    @Override
+    protected void setUp() throws Exception {
+        deleteDirectory("target/tokenize-parallel");
+        super.setUp();
+    }
+
+    public void testSameTokensAsScanner() throws Exception {
+        StringBuilder sb = new StringBuilder();
+        for (int i = 0; i < 500; i++) {
+            // include some empty and some long lines
+            if (i % 50 == 0) {
+                sb.append("\n");
+            }
+            sb.append("Line ").append(i).append(" héllo");
+            for (int j = 0; j < i % 7; j++) {
+                sb.append(" padding to make the line longer than the chunk size");
+            }
+            sb.append("\n");
+        }
+        sb.append("no new line at the end");
+
+        assertSameTokensAsScanner(sb.toString(), "\n");
+        assertSameTokensAsScanner("\n\nfirst\n\nsecond\n\n", "\n");
+        assertSameTokensAsScanner("a;;b;;;;c;;", ";;");
+        assertSameTokensAsScanner("", "\n");
+
+        // tokens which are further away than the windows read when searching for the end of a chunk
+        StringBuilder longLines = new StringBuilder();
+        for (int length : new int[]{8191, 8192, 8193, 20000, 3}) {
+            for (int i = 0; i < length; i++) {
+                longLines.append((char) ('a' + i % 26));
+            }
+            longLines.append(";;");
+        }
+        assertSameTokensAsScanner(longLines.toString(), ";;");
+    }
+
+    public void testSplitInParallel() throws Exception {
+        StringBuilder sb = new StringBuilder();
+        for (int i = 0; i < 1000; i++) {
+            sb.append("Line ").append(i).append("\n");
+        }
+        template.sendBodyAndHeader("file:target/tokenize-parallel", sb.toString(), Exchange.FILE_NAME, "lines.txt");
+
+        MockEndpoint mock = getMockEndpoint("mock:line");
+        mock.expectedMessageCount(1000);
+
+        context.startRoute("split");
+
+        assertMockEndpointsSatisfied();
+
+        // the tokens must be in order with the correct split index
+        for (int i = 0; i < 1000; i++) {
+            Exchange exchange = mock.getReceivedExchanges().get(i);
+            assertEquals("Line " + i, exchange.getIn().getBody(String.class));
+            assertEquals(i, exchange.getProperty(Exchange.SPLIT_INDEX, Integer.class).intValue());
+        }
+    }
+
+    public void testFallbackToSingleThread() throws Exception {
+        Exchange exchange = new DefaultExchange(context);
+        exchange.getIn().setBody("A\nB\nC");
+
+        Object value = ExpressionBuilder.tokenizeInParallelExpression(ExpressionBuilder.bodyExpression(), "\n", 2).evaluate(exchange, Object.class);
+        assertIsInstanceOf(LiteralTokenIterator.class, value);
+    }
+
+    public void testThreadPoolReused() throws Exception {
+        File file = new File("target/tokenize-parallel/data.txt");
+        file.getParentFile().mkdirs();
+        FileOutputStream fos = new FileOutputStream(file);
+        fos.write("A\nB\nC".getBytes());
+        fos.close();
+
+        ParallelTokenizeExpressionIterator exp = new ParallelTokenizeExpressionIterator(ExpressionBuilder.bodyExpression(), "\n", 2);
+        for (int i = 0; i < 3; i++) {
+            Exchange exchange = new DefaultExchange(context);
+            exchange.getIn().setBody(file);
+            Iterator<?> it = exp.evaluate(exchange, Iterator.class);
+            while (it.hasNext()) {
+                it.next();
+            }
+            ((Closeable) it).close();
+        }
+
+        // the same thread pool is used for all the exchanges, and is not shutdown when an iterator is closed
+        ExecutorService executor = exp.getExecutorService();
+        assertNotNull(executor);
+        assertFalse(executor.isShutdown());
+
+        Exchange exchange = new DefaultExchange(context);
+        exchange.getIn().setBody(file);
+        ((Closeable) exp.evaluate(exchange, Iterator.class)).close();
+        assertSame(executor, exp.getExecutorService());
+    }
+
+    public void testTokenizerExpressionParallelism() throws Exception {
+        TokenizerExpression tokenize = new TokenizerExpression();
+        tokenize.setToken("\\n");
+        tokenize.setParallelism(4);
+
+        Expression exp = tokenize.createExpression(context);
+        assertIsInstanceOf(ParallelTokenizeExpressionIterator.class, exp);
+
+        tokenize.setRegex(true);
+        try {
+            tokenize.createExpression(context);
+            fail("Should have thrown an exception");
+        } catch (IllegalArgumentException e) {
+            // expected
+        }
+    }
+
+    private void assertSameTokensAsScanner(String text, String token) throws Exception {
+        File file = new File("target/tokenize-parallel/data.txt");
+        file.getParentFile().mkdirs();
+        FileOutputStream fos = new FileOutputStream(file);
+        fos.write(text.getBytes("UTF-8"));
+        fos.close();
+
+        Exchange exchange = new DefaultExchange(context);
+        exchange.setProperty(Exchange.CHARSET_NAME, "UTF-8");
+        exchange.getIn().setBody(file);
+
+        List<String> expected = new ArrayList<String>();
+        Scanner scanner = new Scanner(text).useDelimiter(token);
+        while (scanner.hasNext()) {
+            expected.add(scanner.next());
+        }
+
+        // use a small chunk size to have many chunks, and a chunk size smaller than the lines
+        for (int chunkSize : new int[]{1, 16, 100, 1024}) {
+            ParallelTokenizeExpressionIterator exp = new ParallelTokenizeExpressionIterator(ExpressionBuilder.bodyExpression(), token, 4, chunkSize);
+            Iterator<?> it = exp.evaluate(exchange, Iterator.class);
+            List<String> actual = new ArrayList<String>();
+            while (it.hasNext()) {
+                actual.add((String) it.next());
+            }
+            ((Closeable) it).close();
+            assertEquals("Chunk size " + chunkSize, expected, actual);
+        }
+    }
+
+    @Override
+    protected RouteBuilder createRouteBuilder() throws Exception {
+        return new RouteBuilder() {
+            @Override
+            public void configure() throws Exception {
+                from("file:target/tokenize-parallel?initialDelay=0&delay=10").routeId("split").noAutoStartup()
+                    .split(body().tokenizeInParallel("\n", 4)).streaming()
+                        .to("mock:line");
+            }
+        };
+    }
+}
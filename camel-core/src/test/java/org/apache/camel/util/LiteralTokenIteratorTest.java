@@ -0,0 +1,129 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.camel.util;
+
+import java.io.ByteArrayInputStream;
+import java.io.StringReader;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Scanner;
+
+import org.apache.camel.CamelContext;
+import org.apache.camel.Exchange;
+import org.apache.camel.TestSupport;
+import org.apache.camel.impl.DefaultCamelContext;
+import org.apache.camel.impl.DefaultExchange;
+
+/**
+ * @version 
+ */
+public class LiteralTokenIteratorTest extends TestSupport {
+
+    private static final String[] VALUES = {"", "\n", "\n\n", "\n\n\n", "A", "A\n", "\n\nA", "A\nB\nC", "A\n\n\nB\n\n",
+        "ABC\nDEF\nGHI\nJKL\nMNO\nPQR\nSTU\nVW", "x\r\ny\r\n\r\n", "héllo\nwørld\n€\n", "aaa\naa\na"};
+
+    private CamelContext context;
+    private Exchange exchange;
+
+    @Override
+    public void setUp() throws Exception {
+        super.setUp();
+        context = new DefaultCamelContext();
+        context.start();
+        exchange = new DefaultExchange(context);
+    }
+
+    @Override
+    public void tearDown() throws Exception {
+        context.stop();
+        super.tearDown();
+    }
+
+    public void testIsLiteral() {
+        assertTrue(LiteralTokenIterator.isLiteral(","));
+        assertTrue(LiteralTokenIterator.isLiteral("\n"));
+        assertTrue(LiteralTokenIterator.isLiteral("\r\n"));
+        assertTrue(LiteralTokenIterator.isLiteral("##"));
+        assertFalse(LiteralTokenIterator.isLiteral(""));
+        assertFalse(LiteralTokenIterator.isLiteral("."));
+        assertFalse(LiteralTokenIterator.isLiteral("\\n"));
+        assertFalse(LiteralTokenIterator.isLiteral("a|b"));
+    }
+
+    public void testSameAsScanner() throws Exception {
+        for (String token : new String[]{"\n", "\r\n", "aa", "##"}) {
+            for (String value : VALUES) {
+                for (int group = 1; group <= 3; group++) {
+                    exchange.setProperty(Exchange.CHARSET_NAME, "UTF-8");
+                    List<String> expected = scan(value, token, group);
+
+                    assertEquals(describe(value, token, group), expected, tokenize(value, token, group));
+                    assertEquals(describe(value, token, group), expected, tokenize(new StringReader(value), token, group));
+                    assertEquals(describe(value, token, group), expected, tokenize(new ByteArrayInputStream(value.getBytes("UTF-8")), token, group));
+
+                    // a charset which cannot be searched by bytes
+                    exchange.setProperty(Exchange.CHARSET_NAME, "UTF-16");
+                    assertEquals(describe(value, token, group), expected, tokenize(new ByteArrayInputStream(value.getBytes("UTF-16")), token, group));
+                }
+            }
+        }
+    }
+
+    public void testLongTokens() throws Exception {
+        // tokens which spans the internal buffers
+        StringBuilder sb = new StringBuilder();
+        for (int i = 0; i < 100; i++) {
+            for (int j = 0; j < i * 100; j++) {
+                sb.append((char) ('a' + j % 26));
+            }
+            sb.append(",");
+        }
+        String value = sb.toString();
+
+        exchange.setProperty(Exchange.CHARSET_NAME, "UTF-8");
+        for (int group = 1; group <= 3; group++) {
+            List<String> expected = scan(value, ",", group);
+            assertEquals(expected, tokenize(new StringReader(value), ",", group));
+            assertEquals(expected, tokenize(new ByteArrayInputStream(value.getBytes("UTF-8")), ",", group));
+        }
+    }
+
+    private List<String> tokenize(Object value, String token, int group) {
+        List<String> answer = new ArrayList<String>();
+        Iterator<String> it = LiteralTokenIterator.createIterator(exchange, value, token, group);
+        while (it.hasNext()) {
+            answer.add(it.next());
+        }
+        return answer;
+    }
+
+    private List<String> scan(String value, String token, int group) {
+        Scanner scanner = new Scanner(value);
+        scanner.useDelimiter(token);
+        Iterator<?> it = group > 1 ? new GroupIterator(exchange, scanner, token, group) : scanner;
+        List<String> answer = new ArrayList<String>();
+        while (it.hasNext()) {
+            answer.add(it.next().toString());
+        }
+        return answer;
+    }
+
+    private static String describe(String value, String token, int group) {
+        return "Tokenizing [" + value + "] by [" + token + "] in groups of " + group;
+    }
+}
@@ -33,6 +33,7 @@ import com.datastax.driver.core.querybuilder.Insert;
 import com.datastax.driver.core.querybuilder.Select;
 import org.apache.camel.CamelContext;
 import org.apache.camel.Exchange;
+import org.apache.camel.impl.BinaryExchangeCodec;
 import org.apache.camel.spi.AggregationRepository;
 import org.apache.camel.spi.RecoverableAggregationRepository;
 import org.apache.camel.support.ServiceSupport;
@@ -418,6 +419,22 @@ public class CassandraAggregationRepository extends ServiceSupport implements Re
         this.ttl = ttl;
     }
 
+    CassandraCamelCodec getExchangeCodec() {
+        return exchangeCodec;
+    }
+
+    public BinaryExchangeCodec getBinaryCodec() {
+        return exchangeCodec.getBinaryCodec();
+    }
+
+    /**
+     * To store the exchanges using the compact binary format of the given codec instead of Java serialization.
+     * Exchanges already stored using Java serialization can still be read.
+     */
+    public void setBinaryCodec(BinaryExchangeCodec binaryCodec) {
+        exchangeCodec.setBinaryCodec(binaryCodec);
+    }
+
     @Override
     public long getRecoveryIntervalInMillis() {
         return recoveryIntervalInMillis;
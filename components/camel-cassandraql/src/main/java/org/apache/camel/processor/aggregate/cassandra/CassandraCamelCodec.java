@@ -26,6 +26,7 @@ import java.nio.ByteBuffer;
 import org.apache.camel.CamelContext;
 import org.apache.camel.Endpoint;
 import org.apache.camel.Exchange;
+import org.apache.camel.impl.BinaryExchangeCodec;
 import org.apache.camel.impl.DefaultExchange;
 import org.apache.camel.impl.DefaultExchangeHolder;
 
@@ -35,6 +36,8 @@ import org.apache.camel.impl.DefaultExchangeHolder;
  */
 public class CassandraCamelCodec {
 
+    private BinaryExchangeCodec binaryCodec;
+
     public ByteBuffer marshallExchange(CamelContext camelContext, Exchange exchange) throws IOException {
         // use DefaultExchangeHolder to marshal to a serialized object
         DefaultExchangeHolder pe = DefaultExchangeHolder.marshal(exchange, false);
@@ -51,11 +54,22 @@ public class CassandraCamelCodec {
         if (exchange.getFromEndpoint() != null) {
             DefaultExchangeHolder.addProperty(pe, "CamelAggregatedFromEndpoint", exchange.getFromEndpoint().getEndpointUri());
         }
+        if (binaryCodec != null) {
+            return ByteBuffer.wrap(binaryCodec.marshal(pe));
+        }
         return ByteBuffer.wrap(serialize(pe));
     }
 
     public Exchange unmarshallExchange(CamelContext camelContext, ByteBuffer buffer) throws IOException, ClassNotFoundException {
-        DefaultExchangeHolder pe = (DefaultExchangeHolder) deserialize(new ByteBufferInputStream(buffer));
+        DefaultExchangeHolder pe;
+        byte[] data = new byte[buffer.remaining()];
+        buffer.duplicate().get(data);
+        if (BinaryExchangeCodec.isBinary(data)) {
+            BinaryExchangeCodec codec = binaryCodec != null ? binaryCodec : new BinaryExchangeCodec();
+            pe = codec.unmarshal(camelContext, data);
+        } else {
+            pe = (DefaultExchangeHolder) deserialize(new ByteBufferInputStream(buffer));
+        }
         Exchange answer = new DefaultExchange(camelContext);
         DefaultExchangeHolder.unmarshal(answer, pe);
         // restore the from endpoint
@@ -69,6 +83,18 @@ public class CassandraCamelCodec {
         return answer;
     }
 
+    public BinaryExchangeCodec getBinaryCodec() {
+        return binaryCodec;
+    }
+
+    /**
+     * To write the exchanges using the compact binary format of the given codec instead of Java serialization.
+     * Exchanges written in either format can be read.
+     */
+    public void setBinaryCodec(BinaryExchangeCodec binaryCodec) {
+        this.binaryCodec = binaryCodec;
+    }
+
     private byte[] serialize(Object object) throws IOException {
         ByteArrayOutputStream bytesOut = new ByteArrayOutputStream();
         ObjectOutputStream objectOut = new ObjectOutputStream(bytesOut);
@@ -0,0 +1,262 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.camel.processor.aggregate.cassandra;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import com.datastax.driver.core.BatchStatement;
+import com.datastax.driver.core.Cluster;
+import com.datastax.driver.core.PreparedStatement;
+import com.datastax.driver.core.Row;
+import com.datastax.driver.core.Session;
+import com.datastax.driver.core.querybuilder.Delete;
+import com.datastax.driver.core.querybuilder.Insert;
+import com.datastax.driver.core.querybuilder.Select;
+import org.apache.camel.CamelContext;
+import org.apache.camel.Exchange;
+import org.apache.camel.spi.DeltaAggregationRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import static org.apache.camel.utils.cassandra.CassandraUtils.append;
+import static org.apache.camel.utils.cassandra.CassandraUtils.applyConsistencyLevel;
+import static org.apache.camel.utils.cassandra.CassandraUtils.concat;
+import static org.apache.camel.utils.cassandra.CassandraUtils.generateDelete;
+import static org.apache.camel.utils.cassandra.CassandraUtils.generateInsert;
+import static org.apache.camel.utils.cassandra.CassandraUtils.generateSelect;
+
+/**
+ * A {@link CassandraAggregationRepository} which also supports {@link DeltaAggregationRepository}, where each
+ * incoming exchange is stored as a delta, so the aggregated exchange is not stored on each aggregation.
+ * <p/>
+ * The deltas are stored in a separate table, which has the primary key columns of the aggregation table
+ * followed by the sequence number of the delta as clustering column:
+ * <pre>
+ * CREATE TABLE CAMEL_AGGREGATION_DELTA (
+ *   KEY varchar,
+ *   SEQ int,
+ *   EXCHANGE blob,
+ *   PRIMARY KEY (KEY, SEQ)
+ * );
+ * </pre>
+ * When a group is completed its deltas are removed, as the aggregated exchange is removed by
+ * {@link #remove(org.apache.camel.CamelContext, String, org.apache.camel.Exchange)}.
+ */
+public class CassandraDeltaAggregationRepository extends CassandraAggregationRepository implements DeltaAggregationRepository {
+    /**
+     * Logger
+     */
+    private static final Logger LOGGER = LoggerFactory.getLogger(CassandraDeltaAggregationRepository.class);
+    /**
+     * Delta table name
+     */
+    private String deltaTable = "CAMEL_AGGREGATION_DELTA";
+    /**
+     * Sequence number column name
+     */
+    private String sequenceColumn = "SEQ";
+    /**
+     * The number of deltas per aggregation key, which is used as sequence number for the next delta
+     */
+    private final ConcurrentMap<String, Integer> sizes = new ConcurrentHashMap<String, Integer>();
+
+    private PreparedStatement deltaInsertStatement;
+    private PreparedStatement deltaSelectStatement;
+    private PreparedStatement deltaSelectSequenceStatement;
+    private PreparedStatement deltaDeleteStatement;
+    private PreparedStatement deltaSelectKeyStatement;
+
+    public CassandraDeltaAggregationRepository() {
+    }
+
+    public CassandraDeltaAggregationRepository(Session session) {
+        super(session);
+    }
+
+    public CassandraDeltaAggregationRepository(Cluster cluster, String keyspace) {
+        super(cluster, keyspace);
+    }
+
+    private String getKeyColumn() {
+        return getPKColumns()[getPKColumns().length - 1];
+    }
+
+    //--------------------------------------------------------------------------
+    // Service support
+
+    @Override
+    protected void doStart() throws Exception {
+        super.doStart();
+        String[] deltaPKColumns = append(getPKColumns(), sequenceColumn);
+
+        Insert insert = generateInsert(deltaTable, append(deltaPKColumns, getExchangeColumn()), false, getTtl());
+        insert = applyConsistencyLevel(insert, getWriteConsistencyLevel());
+        LOGGER.debug("Generated Insert delta {}", insert);
+        deltaInsertStatement = getSession().prepare(insert);
+
+        Select select = generateSelect(deltaTable, new String[]{sequenceColumn, getExchangeColumn()}, getPKColumns());
+        select = applyConsistencyLevel(select, getReadConsistencyLevel());
+        LOGGER.debug("Generated Select deltas {}", select);
+        deltaSelectStatement = getSession().prepare(select);
+
+        select = generateSelect(deltaTable, new String[]{sequenceColumn}, getPKColumns());
+        select = applyConsistencyLevel(select, getReadConsistencyLevel());
+        LOGGER.debug("Generated Select delta sequences {}", select);
+        deltaSelectSequenceStatement = getSession().prepare(select);
+
+        Delete delete = generateDelete(deltaTable, deltaPKColumns, false);
+        delete = applyConsistencyLevel(delete, getWriteConsistencyLevel());
+        LOGGER.debug("Generated Delete delta {}", delete);
+        deltaDeleteStatement = getSession().prepare(delete);
+
+        select = generateSelect(deltaTable, new String[]{getKeyColumn()}, getPKColumns(), getPKColumns().length - 1);
+        select = applyConsistencyLevel(select, getReadConsistencyLevel());
+        LOGGER.debug("Generated Select delta keys {}", select);
+        deltaSelectKeyStatement = getSession().prepare(select);
+    }
+
+    @Override
+    protected void doStop() throws Exception {
+        sizes.clear();
+        super.doStop();
+    }
+
+    // -------------------------------------------------------------------------
+    // Delta aggregation
+
+    /**
+     * Insert the exchange as the next delta of the aggregation key in the delta table.
+     */
+    @Override
+    public int append(CamelContext camelContext, String key, Exchange exchange) {
+        Object[] pkValues = getPKValues(key);
+        Integer size = sizes.get(key);
+        if (size == null) {
+            // we may have been restarted so count the existing deltas
+            size = selectSequences(pkValues).size();
+        }
+        LOGGER.debug("Inserting delta {} of key {} exchange {}", new Object[]{size, pkValues, exchange});
+        try {
+            ByteBuffer marshalledExchange = getExchangeCodec().marshallExchange(camelContext, exchange);
+            Object[] cqlParams = concat(pkValues, new Object[]{size, marshalledExchange});
+            getSession().execute(deltaInsertStatement.bind(cqlParams));
+        } catch (IOException iOException) {
+            throw new CassandraAggregationException("Failed to write exchange", exchange, iOException);
+        }
+        sizes.put(key, size + 1);
+        return size + 1;
+    }
+
+    /**
+     * Get the deltas of the aggregation key from the delta table, in the order of their sequence number.
+     */
+    @Override
+    public List<Exchange> getDeltas(CamelContext camelContext, String key) {
+        Object[] pkValues = getPKValues(key);
+        LOGGER.debug("Selecting deltas of key {}", (Object) pkValues);
+        Map<Integer, ByteBuffer> deltas = new TreeMap<Integer, ByteBuffer>();
+        for (Row row : getSession().execute(deltaSelectStatement.bind(pkValues)).all()) {
+            deltas.put(row.getInt(sequenceColumn), row.getBytes(getExchangeColumn()));
+        }
+        List<Exchange> answer = new ArrayList<Exchange>(deltas.size());
+        for (ByteBuffer delta : deltas.values()) {
+            try {
+                answer.add(getExchangeCodec().unmarshallExchange(camelContext, delta));
+            } catch (IOException iOException) {
+                throw new CassandraAggregationException("Failed to read exchange", null, iOException);
+            } catch (ClassNotFoundException classNotFoundException) {
+                throw new CassandraAggregationException("Failed to read exchange", null, classNotFoundException);
+            }
+        }
+        return answer;
+    }
+
+    /**
+     * Remove the deltas of the aggregation key from the delta table.
+     */
+    @Override
+    public void removeDeltas(CamelContext camelContext, String key, Exchange aggregated) {
+        Object[] pkValues = getPKValues(key);
+        LOGGER.debug("Deleting deltas of key {}", (Object) pkValues);
+        List<Integer> sequences = selectSequences(pkValues);
+        if (!sequences.isEmpty()) {
+            // the deltas are deleted one by one, as a range of clustering columns cannot be deleted
+            BatchStatement batch = new BatchStatement();
+            for (Integer sequence : sequences) {
+                batch.add(deltaDeleteStatement.bind(append(pkValues, sequence)));
+            }
+            if (getWriteConsistencyLevel() != null) {
+                batch.setConsistencyLevel(getWriteConsistencyLevel());
+            }
+            getSession().execute(batch);
+        }
+        sizes.remove(key);
+    }
+
+    /**
+     * Get the aggregation keys which have deltas from the delta table.
+     */
+    @Override
+    public Set<String> getDeltaKeys() {
+        LOGGER.debug("Selecting delta keys {}", (Object) getPrefixPKValues());
+        List<Row> rows = getSession().execute(deltaSelectKeyStatement.bind(getPrefixPKValues())).all();
+        // a key is returned once per delta
+        Set<String> keys = new LinkedHashSet<String>();
+        String keyColumnName = getKeyColumn();
+        for (Row row : rows) {
+            keys.add(row.getString(keyColumnName));
+        }
+        return Collections.unmodifiableSet(keys);
+    }
+
+    private List<Integer> selectSequences(Object[] pkValues) {
+        List<Integer> sequences = new ArrayList<Integer>();
+        for (Row row : getSession().execute(deltaSelectSequenceStatement.bind(pkValues)).all()) {
+            sequences.add(row.getInt(sequenceColumn));
+        }
+        return sequences;
+    }
+
+    // -------------------------------------------------------------------------
+    // Getters and Setters
+
+    public String getDeltaTable() {
+        return deltaTable;
+    }
+
+    public void setDeltaTable(String deltaTable) {
+        this.deltaTable = deltaTable;
+    }
+
+    public String getSequenceColumn() {
+        return sequenceColumn;
+    }
+
+    public void setSequenceColumn(String sequenceColumn) {
+        this.sequenceColumn = sequenceColumn;
+    }
+}
@@ -0,0 +1,134 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.camel.processor.aggregate.cassandra;
+
+import java.util.List;
+
+import com.datastax.driver.core.Cluster;
+import com.datastax.driver.core.Session;
+import org.apache.camel.CamelContext;
+import org.apache.camel.Exchange;
+import org.apache.camel.component.cassandra.CassandraUnitUtils;
+import org.apache.camel.impl.DefaultCamelContext;
+import org.apache.camel.impl.DefaultExchange;
+import org.cassandraunit.CassandraCQLUnit;
+import org.junit.After;
+import org.junit.AfterClass;
+import org.junit.Before;
+import org.junit.BeforeClass;
+import org.junit.Rule;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Unite test for {@link CassandraDeltaAggregationRepository}
+ */
+public class CassandraDeltaAggregationRepositoryTest {
+    @Rule
+    public CassandraCQLUnit cassandraRule = CassandraUnitUtils.cassandraCQLUnit("AggregationDataSet.cql");
+
+    private Cluster cluster;
+    private Session session;
+    private CassandraDeltaAggregationRepository aggregationRepository;
+    private CamelContext camelContext;
+
+    @BeforeClass
+    public static void setUpClass() throws Exception {
+        CassandraUnitUtils.startEmbeddedCassandra();
+    }
+
+    @Before
+    public void setUp() throws Exception {
+        camelContext = new DefaultCamelContext();
+        cluster = CassandraUnitUtils.cassandraCluster();
+        session = cluster.connect(CassandraUnitUtils.KEYSPACE);
+        aggregationRepository = new CassandraDeltaAggregationRepository(session);
+        aggregationRepository.start();
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        aggregationRepository.stop();
+        session.close();
+        cluster.close();
+    }
+
+    @AfterClass
+    public static void tearDownClass() throws Exception {
+        CassandraUnitUtils.cleanEmbeddedCassandra();
+    }
+
+    private int countDeltas(String key) {
+        return session.execute(
+                "select SEQ from CAMEL_AGGREGATION_DELTA where KEY=?", key)
+                .all().size();
+    }
+
+    @Test
+    public void testAppendAndGetDeltas() {
+        // Given
+        String key = "Append";
+        // When
+        for (int i = 0; i < 12; i++) {
+            Exchange exchange = new DefaultExchange(camelContext);
+            exchange.getIn().setBody("Hello " + i);
+            assertEquals(i + 1, aggregationRepository.append(camelContext, key, exchange));
+        }
+        // Then
+        assertEquals(12, countDeltas(key));
+        List<Exchange> deltas = aggregationRepository.getDeltas(camelContext, key);
+        assertEquals(12, deltas.size());
+        for (int i = 0; i < 12; i++) {
+            assertEquals("Hello " + i, deltas.get(i).getIn().getBody());
+        }
+        assertTrue(aggregationRepository.getDeltaKeys().contains(key));
+    }
+
+    @Test
+    public void testAppendAfterRestart() throws Exception {
+        // Given
+        String key = "Append_Restart";
+        aggregationRepository.append(camelContext, key, new DefaultExchange(camelContext));
+        aggregationRepository.append(camelContext, key, new DefaultExchange(camelContext));
+        // When
+        aggregationRepository.stop();
+        aggregationRepository.start();
+        // Then the existing deltas are counted
+        assertEquals(3, aggregationRepository.append(camelContext, key, new DefaultExchange(camelContext)));
+        assertEquals(3, countDeltas(key));
+    }
+
+    @Test
+    public void testRemoveDeltas() {
+        // Given
+        String key = "Remove_Deltas";
+        for (int i = 0; i < 3; i++) {
+            aggregationRepository.append(camelContext, key, new DefaultExchange(camelContext));
+        }
+        // When
+        aggregationRepository.removeDeltas(camelContext, key, new DefaultExchange(camelContext));
+        // Then
+        assertEquals(0, countDeltas(key));
+        assertEquals(0, aggregationRepository.getDeltas(camelContext, key).size());
+        assertFalse(aggregationRepository.getDeltaKeys().contains(key));
+        // and a new group starts from the first sequence number
+        assertEquals(1, aggregationRepository.append(camelContext, key, new DefaultExchange(camelContext)));
+    }
+}
@@ -27,6 +27,7 @@ import java.util.concurrent.TimeUnit;
 
 import org.apache.camel.CamelContext;
 import org.apache.camel.Exchange;
+import org.apache.camel.impl.BinaryExchangeCodec;
 import org.apache.camel.spi.OptimisticLockingAggregationRepository;
 import org.apache.camel.spi.RecoverableAggregationRepository;
 import org.apache.camel.support.ServiceSupport;
@@ -390,10 +391,14 @@ public class HawtDBAggregationRepository extends ServiceSupport implements Recov
         return repositoryName;
     }
 
-    private String getRepositoryNameCompleted() {
+    String getRepositoryNameCompleted() {
         return repositoryName + "-completed";
     }
 
+    HawtDBCamelCodec getCodec() {
+        return codec;
+    }
+
     public void setRepositoryName(String repositoryName) {
         this.repositoryName = repositoryName;
     }
@@ -414,6 +419,18 @@ public class HawtDBAggregationRepository extends ServiceSupport implements Recov
         this.sync = sync;
     }
 
+    public BinaryExchangeCodec getBinaryCodec() {
+        return codec.getBinaryCodec();
+    }
+
+    /**
+     * To store the exchanges using the compact binary format of the given codec instead of Java serialization.
+     * Exchanges already stored using Java serialization can still be read.
+     */
+    public void setBinaryCodec(BinaryExchangeCodec binaryCodec) {
+        codec.setBinaryCodec(binaryCodec);
+    }
+
     public Integer getBufferSize() {
         return bufferSize;
     }
@@ -0,0 +1,226 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.camel.component.hawtdb;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.apache.camel.CamelContext;
+import org.apache.camel.Exchange;
+import org.apache.camel.spi.DeltaAggregationRepository;
+import org.fusesource.hawtbuf.Buffer;
+import org.fusesource.hawtdb.api.SortedIndex;
+import org.fusesource.hawtdb.api.Transaction;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * A {@link HawtDBAggregationRepository} which also supports {@link DeltaAggregationRepository}, where each
+ * incoming exchange is stored as a delta, so the aggregated exchange is not stored on each aggregation.
+ * <p/>
+ * The deltas are stored in the index with the name of this repository with the <tt>-deltas</tt> suffix,
+ * keyed by the correlation key and the sequence number of the delta, and the number of deltas of each
+ * group is stored in the index with the <tt>-deltas-size</tt> suffix. When a group is completed its deltas
+ * are removed, and the aggregated exchange is added to the completed index in the same transaction, so
+ * recovery works as with {@link HawtDBAggregationRepository}.
+ */
+public class HawtDBDeltaAggregationRepository extends HawtDBAggregationRepository implements DeltaAggregationRepository {
+
+    private static final Logger LOG = LoggerFactory.getLogger(HawtDBDeltaAggregationRepository.class);
+
+    public HawtDBDeltaAggregationRepository() {
+    }
+
+    public HawtDBDeltaAggregationRepository(String repositoryName) {
+        super(repositoryName);
+    }
+
+    public HawtDBDeltaAggregationRepository(String repositoryName, String persistentFileName) {
+        super(repositoryName, persistentFileName);
+    }
+
+    public HawtDBDeltaAggregationRepository(String repositoryName, HawtDBFile hawtDBFile) {
+        super(repositoryName, hawtDBFile);
+    }
+
+    public int append(final CamelContext camelContext, final String key, final Exchange exchange) {
+        LOG.debug("Appending key [{}] -> {}", key, exchange);
+        try {
+            final Buffer keyBuffer = getCodec().marshallKey(key);
+            final Buffer exchangeBuffer = getCodec().marshallExchange(camelContext, exchange);
+            return getHawtDBFile().execute(new Work<Integer>() {
+                public Integer execute(Transaction tx) {
+                    SortedIndex<Buffer, Buffer> sizes = getHawtDBFile().getRepositoryIndex(tx, getRepositoryNameDeltasSize(), true);
+                    SortedIndex<Buffer, Buffer> deltas = getHawtDBFile().getRepositoryIndex(tx, getRepositoryNameDeltas(), true);
+                    try {
+                        int size = getSize(sizes, keyBuffer);
+                        deltas.put(deltaKey(key, size), exchangeBuffer);
+                        sizes.put(keyBuffer, getCodec().marshallKey(Integer.toString(size + 1)));
+                        LOG.trace("Appended delta {} for key {}", size, key);
+                        return size + 1;
+                    } catch (IOException e) {
+                        throw new RuntimeException("Error appending to repository " + getRepositoryNameDeltas() + " with key " + key, e);
+                    }
+                }
+
+                @Override
+                public String toString() {
+                    return "Appending key [" + key + "]";
+                }
+            });
+        } catch (IOException e) {
+            throw new RuntimeException("Error appending to repository " + getRepositoryNameDeltas() + " with key " + key, e);
+        }
+    }
+
+    public List<Exchange> getDeltas(final CamelContext camelContext, final String key) {
+        final List<Buffer> buffers = new ArrayList<Buffer>();
+        try {
+            final Buffer keyBuffer = getCodec().marshallKey(key);
+            getHawtDBFile().execute(new Work<Buffer>() {
+                public Buffer execute(Transaction tx) {
+                    SortedIndex<Buffer, Buffer> sizes = getHawtDBFile().getRepositoryIndex(tx, getRepositoryNameDeltasSize(), false);
+                    SortedIndex<Buffer, Buffer> deltas = getHawtDBFile().getRepositoryIndex(tx, getRepositoryNameDeltas(), false);
+                    if (sizes == null || deltas == null) {
+                        return null;
+                    }
+                    try {
+                        int size = getSize(sizes, keyBuffer);
+                        for (int i = 0; i < size; i++) {
+                            buffers.add(deltas.get(deltaKey(key, i)));
+                        }
+                    } catch (IOException e) {
+                        throw new RuntimeException("Error getting deltas for key " + key + " from repository " + getRepositoryNameDeltas(), e);
+                    }
+                    return null;
+                }
+
+                @Override
+                public String toString() {
+                    return "Getting deltas for key [" + key + "]";
+                }
+            });
+
+            List<Exchange> answer = new ArrayList<Exchange>(buffers.size());
+            for (Buffer buffer : buffers) {
+                answer.add(getCodec().unmarshallExchange(camelContext, buffer));
+            }
+            LOG.debug("Getting deltas for key [{}] -> {} deltas", key, answer.size());
+            return answer;
+        } catch (IOException e) {
+            throw new RuntimeException("Error getting deltas for key " + key + " from repository " + getRepositoryNameDeltas(), e);
+        }
+    }
+
+    public void removeDeltas(final CamelContext camelContext, final String key, final Exchange aggregated) {
+        LOG.debug("Removing deltas for key [{}]", key);
+        try {
+            final Buffer keyBuffer = getCodec().marshallKey(key);
+            final Buffer confirmKeyBuffer = getCodec().marshallKey(aggregated.getExchangeId());
+            final Buffer exchangeBuffer = getCodec().marshallExchange(camelContext, aggregated);
+            getHawtDBFile().execute(new Work<Buffer>() {
+                public Buffer execute(Transaction tx) {
+                    SortedIndex<Buffer, Buffer> sizes = getHawtDBFile().getRepositoryIndex(tx, getRepositoryNameDeltasSize(), true);
+                    SortedIndex<Buffer, Buffer> deltas = getHawtDBFile().getRepositoryIndex(tx, getRepositoryNameDeltas(), true);
+                    try {
+                        // remove the deltas and add the aggregated exchange to the confirmed index in the same transaction
+                        int size = getSize(sizes, keyBuffer);
+                        for (int i = 0; i < size; i++) {
+                            deltas.remove(deltaKey(key, i));
+                        }
+                        sizes.remove(keyBuffer);
+                    } catch (IOException e) {
+                        throw new RuntimeException("Error removing deltas for key " + key + " from repository " + getRepositoryNameDeltas(), e);
+                    }
+
+                    SortedIndex<Buffer, Buffer> indexCompleted = getHawtDBFile().getRepositoryIndex(tx, getRepositoryNameCompleted(), true);
+                    indexCompleted.put(confirmKeyBuffer, exchangeBuffer);
+                    LOG.trace("Removed deltas for key {} and added confirm index {}", key, confirmKeyBuffer);
+                    return null;
+                }
+
+                @Override
+                public String toString() {
+                    return "Removing deltas for key [" + key + "]";
+                }
+            });
+        } catch (IOException e) {
+            throw new RuntimeException("Error removing deltas for key " + key + " from repository " + getRepositoryNameDeltas(), e);
+        }
+    }
+
+    public Set<String> getDeltaKeys() {
+        final Set<String> keys = new LinkedHashSet<String>();
+
+        getHawtDBFile().execute(new Work<Buffer>() {
+            public Buffer execute(Transaction tx) {
+                // interval task could potentially be running while we are shutting down so check for that
+                if (!isRunAllowed()) {
+                    return null;
+                }
+
+                SortedIndex<Buffer, Buffer> sizes = getHawtDBFile().getRepositoryIndex(tx, getRepositoryNameDeltasSize(), false);
+                if (sizes == null) {
+                    return null;
+                }
+
+                Iterator<Map.Entry<Buffer, Buffer>> it = sizes.iterator();
+                while (it.hasNext() && isRunAllowed()) {
+                    Buffer keyBuffer = it.next().getKey();
+                    try {
+                        String key = getCodec().unmarshallKey(keyBuffer);
+                        LOG.trace("getDeltaKey [{}]", key);
+                        keys.add(key);
+                    } catch (IOException e) {
+                        throw new RuntimeException("Error unmarshalling key: " + keyBuffer, e);
+                    }
+                }
+                return null;
+            }
+
+            @Override
+            public String toString() {
+                return "getDeltaKeys";
+            }
+        });
+
+        return Collections.unmodifiableSet(keys);
+    }
+
+    private int getSize(SortedIndex<Buffer, Buffer> sizes, Buffer keyBuffer) throws IOException {
+        Buffer size = sizes.get(keyBuffer);
+        return size != null ? Integer.parseInt(getCodec().unmarshallKey(size)) : 0;
+    }
+
+    private Buffer deltaKey(String key, int sequence) throws IOException {
+        return getCodec().marshallKey(key + '\0' + sequence);
+    }
+
+    private String getRepositoryNameDeltas() {
+        return getRepositoryName() + "-deltas";
+    }
+
+    private String getRepositoryNameDeltasSize() {
+        return getRepositoryName() + "-deltas-size";
+    }
+}
@@ -368,6 +368,13 @@ public class HazelcastAggregationRepository extends ServiceSupport
         return Collections.unmodifiableSet(cache.keySet());
     }
 
+    /**
+     * @return Repository {@link IMap} name;
+     */
+    public String getRepositoryName() {
+        return mapName;
+    }
+
     /**
      * @return Persistent repository {@link IMap} name;
      */
@@ -375,6 +382,10 @@ public class HazelcastAggregationRepository extends ServiceSupport
         return persistenceMapName;
     }
 
+    protected HazelcastInstance getHazelcastInstance() {
+        return hzInstance;
+    }
+
     @Override
     protected void doStart() throws Exception {
         if (maximumRedeliveries < 0) {
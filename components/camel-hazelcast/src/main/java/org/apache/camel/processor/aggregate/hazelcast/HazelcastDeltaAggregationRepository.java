@@ -0,0 +1,193 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.camel.processor.aggregate.hazelcast;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.locks.Lock;
+
+import com.hazelcast.core.HazelcastInstance;
+import com.hazelcast.core.IMap;
+import com.hazelcast.core.TransactionalMap;
+import com.hazelcast.transaction.TransactionContext;
+import com.hazelcast.transaction.TransactionOptions;
+
+import org.apache.camel.CamelContext;
+import org.apache.camel.Exchange;
+import org.apache.camel.impl.DefaultExchangeHolder;
+import org.apache.camel.spi.DeltaAggregationRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * A {@link HazelcastAggregationRepository} which also implements {@link DeltaAggregationRepository}, where each
+ * incoming exchange is stored as a delta, so the aggregated exchange is not stored on each aggregation.
+ * The deltas are stored in the {@link IMap} named {@code repositoryName} + "-deltas" keyed by the correlation key
+ * and the sequence number of the delta, and the number of deltas of each group is stored in the {@link IMap}
+ * named {@code repositoryName} + "-deltas-size". When a group is completed its deltas are removed, and the
+ * aggregated exchange is put into the recoverable storage in the same transaction.
+ * The deltas are only used with the thread-safe (non-optimistic) locking.
+ */
+public class HazelcastDeltaAggregationRepository extends HazelcastAggregationRepository implements DeltaAggregationRepository {
+    private static final Logger LOG = LoggerFactory.getLogger(HazelcastDeltaAggregationRepository.class.getName());
+    private static final String DELTAS_SUFFIX = "-deltas";
+    private static final String DELTAS_SIZE_SUFFIX = "-deltas-size";
+
+    private IMap<String, DefaultExchangeHolder> deltas;
+    private IMap<String, Integer> sizes;
+
+    /**
+     * Creates new {@link HazelcastDeltaAggregationRepository} with recoverable behavior and a local Hazelcast instance.
+     * @param repositoryName {@link IMap} repository name;
+     */
+    public HazelcastDeltaAggregationRepository(final String repositoryName) {
+        super(repositoryName);
+    }
+
+    /**
+     * Creates new {@link HazelcastDeltaAggregationRepository} with recoverable behavior and a local Hazelcast instance.
+     * @param repositoryName {@link IMap} repository name;
+     * @param  persistentRepositoryName {@link IMap} recoverable repository name;
+     */
+    public HazelcastDeltaAggregationRepository(final String repositoryName, final String persistentRepositoryName) {
+        super(repositoryName, persistentRepositoryName);
+    }
+
+    /**
+     * Creates new {@link HazelcastDeltaAggregationRepository} with recoverable behavior.
+     * @param repositoryName {@link IMap} repository name;
+     * @param hzInstance externally configured {@link HazelcastInstance}.
+     */
+    public HazelcastDeltaAggregationRepository(final String repositoryName, HazelcastInstance hzInstance) {
+        super(repositoryName, hzInstance);
+    }
+
+    /**
+     * Creates new {@link HazelcastDeltaAggregationRepository} with recoverable behavior.
+     * @param repositoryName {@link IMap} repository name;
+     * @param  persistentRepositoryName {@link IMap} recoverable repository name;
+     * @param hzInstance externally configured {@link HazelcastInstance}.
+     */
+    public HazelcastDeltaAggregationRepository(final String repositoryName, final String persistentRepositoryName, HazelcastInstance hzInstance) {
+        super(repositoryName, persistentRepositoryName, hzInstance);
+    }
+
+    @Override
+    public int append(CamelContext camelContext, String key, Exchange exchange) {
+        LOG.trace("Appending an Exchange with ID {} for key {} as a delta.", exchange.getExchangeId(), key);
+        Lock l = getHazelcastInstance().getLock(getRepositoryName());
+        l.lock();
+        try {
+            Integer size = sizes.get(key);
+            int sequence = size != null ? size : 0;
+            deltas.set(deltaKey(key, sequence), DefaultExchangeHolder.marshal(exchange));
+            sizes.set(key, sequence + 1);
+            LOG.trace("Appended an Exchange with ID {} for key {} as delta {}.", new Object[]{exchange.getExchangeId(), key, sequence});
+            return sequence + 1;
+        } finally {
+            l.unlock();
+        }
+    }
+
+    @Override
+    public List<Exchange> getDeltas(CamelContext camelContext, String key) {
+        Integer size = sizes.get(key);
+        if (size == null) {
+            return Collections.emptyList();
+        }
+        Set<String> deltaKeys = new LinkedHashSet<String>();
+        for (int i = 0; i < size; i++) {
+            deltaKeys.add(deltaKey(key, i));
+        }
+        Map<String, DefaultExchangeHolder> holders = deltas.getAll(deltaKeys);
+        List<Exchange> answer = new ArrayList<Exchange>(size);
+        for (String deltaKey : deltaKeys) {
+            answer.add(unmarshallExchange(camelContext, holders.get(deltaKey)));
+        }
+        LOG.trace("Got {} deltas for key {}.", answer.size(), key);
+        return answer;
+    }
+
+    /**
+     * This method performs transactional operation on removing the deltas of the group from the operational
+     * storage and putting the {@code aggregated} exchange into the persistent one if the repository runs in
+     * recoverable mode.
+     */
+    @Override
+    public void removeDeltas(CamelContext camelContext, String key, Exchange aggregated) {
+        LOG.trace("Removing the deltas for key {} in a thread-safe manner.", key);
+        TransactionOptions tOpts = new TransactionOptions();
+
+        tOpts.setTransactionType(TransactionOptions.TransactionType.LOCAL);
+        TransactionContext tCtx = getHazelcastInstance().newTransactionContext(tOpts);
+
+        try {
+            tCtx.beginTransaction();
+
+            TransactionalMap<String, Integer> tSizes = tCtx.getMap(sizes.getName());
+            TransactionalMap<String, DefaultExchangeHolder> tDeltas = tCtx.getMap(deltas.getName());
+
+            Integer size = tSizes.remove(key);
+            for (int i = 0; size != null && i < size; i++) {
+                tDeltas.remove(deltaKey(key, i));
+            }
+            if (isUseRecovery()) {
+                LOG.trace("Putting an exchange with ID {} for key {} into a recoverable storage in a thread-safe manner.",
+                        aggregated.getExchangeId(), key);
+                TransactionalMap<String, DefaultExchangeHolder> tPersistentCache = tCtx.getMap(getPersistentRepositoryName());
+                tPersistentCache.put(aggregated.getExchangeId(), DefaultExchangeHolder.marshal(aggregated));
+            }
+
+            tCtx.commitTransaction();
+            LOG.trace("Removed the deltas for key {} in a thread-safe manner.", key);
+        } catch (Throwable throwable) {
+            tCtx.rollbackTransaction();
+
+            final String msg = String.format("Transaction with ID %s was rolled back for remove deltas operation with a key %s and an Exchange ID %s.",
+                    tCtx.getTxnId(), key, aggregated.getExchangeId());
+            LOG.warn(msg, throwable);
+            throw new RuntimeException(msg, throwable);
+        }
+    }
+
+    @Override
+    public Set<String> getDeltaKeys() {
+        return Collections.unmodifiableSet(sizes.keySet());
+    }
+
+    private static String deltaKey(String key, int sequence) {
+        return key + '\0' + sequence;
+    }
+
+    @Override
+    protected void doStart() throws Exception {
+        super.doStart();
+        deltas = getHazelcastInstance().getMap(getRepositoryName() + DELTAS_SUFFIX);
+        sizes = getHazelcastInstance().getMap(getRepositoryName() + DELTAS_SIZE_SUFFIX);
+    }
+
+    @Override
+    protected void doStop() throws Exception {
+        deltas.clear();
+        sizes.clear();
+        super.doStop();
+    }
+}
@@ -0,0 +1,86 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.camel.processor.aggregate.hazelcast;
+
+import java.util.List;
+
+import org.apache.camel.Exchange;
+import org.junit.Test;
+
+public class HazelcastDeltaAggregationRepositoryTest extends HazelcastAggregationRepositoryCamelTestSupport {
+
+    private static final String DELTA_REPO = "deltaRepo";
+
+    @Test
+    public void checkAppendAndGetDeltasAcrossInstances() throws Exception {
+        HazelcastDeltaAggregationRepository repoOne = new HazelcastDeltaAggregationRepository(DELTA_REPO, getFirstInstance());
+        HazelcastDeltaAggregationRepository repoTwo = new HazelcastDeltaAggregationRepository(DELTA_REPO, getSecondInstance());
+
+        try {
+            repoOne.doStart();
+            repoTwo.doStart();
+
+            final String key = "deltaKey";
+            assertEquals(1, repoOne.append(context(), key, createExchangeWithBody("A")));
+            assertEquals(2, repoTwo.append(context(), key, createExchangeWithBody("B")));
+            assertEquals(3, repoOne.append(context(), key, createExchangeWithBody("C")));
+
+            List<Exchange> deltas = repoTwo.getDeltas(context(), key);
+            assertEquals(3, deltas.size());
+            assertEquals("A", deltas.get(0).getIn().getBody());
+            assertEquals("B", deltas.get(1).getIn().getBody());
+            assertEquals("C", deltas.get(2).getIn().getBody());
+
+            assertTrue(repoOne.getDeltaKeys().contains(key));
+            assertTrue(repoOne.getDeltas(context(), "unknownKey").isEmpty());
+        } finally {
+            repoOne.stop();
+            repoTwo.stop();
+        }
+    }
+
+    @Test
+    public void checkRemoveDeltasKeepsAggregatedForRecovery() throws Exception {
+        HazelcastDeltaAggregationRepository repoOne = new HazelcastDeltaAggregationRepository(DELTA_REPO, getFirstInstance());
+        HazelcastDeltaAggregationRepository repoTwo = new HazelcastDeltaAggregationRepository(DELTA_REPO, getSecondInstance());
+
+        try {
+            repoOne.doStart();
+            repoTwo.doStart();
+
+            final String key = "removeKey";
+            repoOne.append(context(), key, createExchangeWithBody("A"));
+            repoOne.append(context(), key, createExchangeWithBody("B"));
+
+            Exchange aggregated = createExchangeWithBody("AB");
+            repoTwo.removeDeltas(context(), key, aggregated);
+
+            assertTrue(repoOne.getDeltas(context(), key).isEmpty());
+            assertFalse(repoOne.getDeltaKeys().contains(key));
+
+            assertTrue(repoOne.scan(context()).contains(aggregated.getExchangeId()));
+            Exchange recovered = repoTwo.recover(context(), aggregated.getExchangeId());
+            assertEquals("AB", recovered.getIn().getBody());
+
+            // a new group starts from the first delta again
+            assertEquals(1, repoOne.append(context(), key, createExchangeWithBody("C")));
+        } finally {
+            repoOne.stop();
+            repoTwo.stop();
+        }
+    }
+}
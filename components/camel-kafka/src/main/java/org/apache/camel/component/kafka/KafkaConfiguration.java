@@ -17,6 +17,7 @@
 package org.apache.camel.component.kafka;
 
 import java.util.Properties;
+import java.util.concurrent.ExecutorService;
 
 import kafka.producer.DefaultPartitioner;
 import org.apache.camel.spi.Metadata;
@@ -47,6 +48,10 @@ public class KafkaConfiguration {
     private int batchSize = 100;
     @UriParam(label = "consumer", defaultValue = "10000")
     private int barrierAwaitTimeoutMs = 10000;
+    @UriParam(label = "consumer")
+    private int orderedLanes;
+    @UriParam(label = "consumer", defaultValue = "false")
+    private boolean orderedLanesByKey;
 
     //Common configuration properties
     @UriParam
@@ -127,29 +132,35 @@ public class KafkaConfiguration {
     private String serializerClass;
     @UriParam(label = "producer")
     private String keySerializerClass;
+    @UriParam(label = "producer")
+    private ExecutorService workerPool;
+    @UriParam(label = "producer", defaultValue = "10")
+    private Integer workerPoolCoreSize = 10;
+    @UriParam(label = "producer", defaultValue = "20")
+    private Integer workerPoolMaxSize = 20;
 
     public KafkaConfiguration() {
     }
 
+    /**
+     * Creates the properties for the Java producer client.
+     * <p/>
+     * The partitioner and serializers are created by the {@link KafkaProducer}.
+     */
     public Properties createProducerProperties() {
         Properties props = new Properties();
-        addPropertyIfNotNull(props, "request.required.acks", getRequestRequiredAcks());
-        addPropertyIfNotNull(props, "partitioner.class", getPartitioner());
-        addPropertyIfNotNull(props, "serializer.class", getSerializerClass());
-        addPropertyIfNotNull(props, "key.serializer.class", getKeySerializerClass());
-        addPropertyIfNotNull(props, "request.timeout.ms", getRequestTimeoutMs());
-        addPropertyIfNotNull(props, "producer.type", getProducerType());
-        addPropertyIfNotNull(props, "compression.codec", getCompressionCodec());
-        addPropertyIfNotNull(props, "compressed.topics", getCompressedTopics());
-        addPropertyIfNotNull(props, "message.send.max.retries", getMessageSendMaxRetries());
+        addPropertyIfNotNull(props, "acks", getRequestRequiredAcks());
+        addPropertyIfNotNull(props, "timeout.ms", getRequestTimeoutMs());
+        addPropertyIfNotNull(props, "compression.type", getCompressionCodec());
+        addPropertyIfNotNull(props, "retries", getMessageSendMaxRetries());
         addPropertyIfNotNull(props, "retry.backoff.ms", getRetryBackoffMs());
-        addPropertyIfNotNull(props, "topic.metadata.refresh.interval.ms", getTopicMetadataRefreshIntervalMs());
-        addPropertyIfNotNull(props, "queue.buffering.max.ms", getQueueBufferingMaxMs());
-        addPropertyIfNotNull(props, "queue.buffering.max.messages", getQueueBufferingMaxMessages());
-        addPropertyIfNotNull(props, "queue.enqueue.timeout.ms", getQueueEnqueueTimeoutMs());
-        addPropertyIfNotNull(props, "batch.num.messages", getBatchNumMessages());
+        addPropertyIfNotNull(props, "metadata.max.age.ms", getTopicMetadataRefreshIntervalMs());
         addPropertyIfNotNull(props, "send.buffer.bytes", getSendBufferBytes());
         addPropertyIfNotNull(props, "client.id", getClientId());
+        if ("async".equals(getProducerType())) {
+            // buffer the messages to send them in larger batches
+            addPropertyIfNotNull(props, "linger.ms", getQueueBufferingMaxMs());
+        }
         return props;
     }
 
@@ -293,7 +304,8 @@ public class KafkaConfiguration {
     }
 
     /**
-     * The batchSize that the BatchingConsumerTask processes once.
+     * The number of processed messages after which the offsets are committed, when auto commit is disabled.
+     * The offsets are also committed when the consumer times out waiting for messages.
      */
     public void setBatchSize(int batchSize) {
         this.batchSize = batchSize;
@@ -304,7 +316,8 @@ public class KafkaConfiguration {
     }
 
     /**
-     * If the BatchingConsumerTask processes exchange exceed the batchSize, it will wait for barrierAwaitTimeoutMs.
+     * The maximum time to wait for the messages in progress to be processed before committing the offsets,
+     * when auto commit is disabled. If the time is exceeded the offsets are committed later.
      */
     public void setBarrierAwaitTimeoutMs(int barrierAwaitTimeoutMs) {
         this.barrierAwaitTimeoutMs = barrierAwaitTimeoutMs;
@@ -321,6 +334,34 @@ public class KafkaConfiguration {
         this.consumersCount = consumersCount;
     }
 
+    public int getOrderedLanes() {
+        return orderedLanes;
+    }
+
+    /**
+     * The number of ordered lanes the consumed messages are dispatched to, which are processed concurrently
+     * by a shared pool of worker threads. The messages of each partition (or key) are processed in order,
+     * so many partitions can be processed concurrently regardless of the number of consumer streams.
+     * The offsets are committed to zookeeper up to the highest contiguous processed offset of each partition,
+     * after batchSize processed messages, and auto commit is disabled. Is disabled by default.
+     */
+    public void setOrderedLanes(int orderedLanes) {
+        this.orderedLanes = orderedLanes;
+    }
+
+    public boolean isOrderedLanesByKey() {
+        return orderedLanesByKey;
+    }
+
+    /**
+     * Whether to dispatch the messages to the ordered lanes by their key instead of their partition,
+     * which allows the messages of a partition to be processed concurrently, while preserving the order
+     * of the messages with the same key. Messages without a key is dispatched by their partition.
+     */
+    public void setOrderedLanesByKey(boolean orderedLanesByKey) {
+        this.orderedLanesByKey = orderedLanesByKey;
+    }
+
     public String getClientId() {
         return clientId;
     }
@@ -550,10 +591,12 @@ public class KafkaConfiguration {
     }
 
     /**
-     * This parameter specifies whether the messages are sent asynchronously in a background thread.
-     * Valid values are (1) async for asynchronous send and (2) sync for synchronous send.
-     * By setting the producer to async we allow batching together of requests (which is great for throughput)
-     * but open the possibility of a failure of the client machine dropping unsent data.
+     * The messages are always sent asynchronously by the Java producer client, and the exchange is completed
+     * when the message has been acknowledged according to requestRequiredAcks.
+     * Valid values are (1) async to buffer the messages for up to queueBufferingMaxMs before sending them
+     * and (2) sync to send the messages as soon as possible.
+     * By setting the producer to async we allow batching together of larger requests (which is great for throughput)
+     * at the cost of added latency.
      */
     public void setProducerType(String producerType) {
         this.producerType = producerType;
@@ -579,6 +622,8 @@ public class KafkaConfiguration {
      * If the compression codec is anything other than NoCompressionCodec, enable compression only for specified topics if any.
      * If the list of compressed topics is empty, then enable the specified compression codec for all topics.
      * If the compression codec is NoCompressionCodec, compression is disabled for all topics
+     * <p/>
+     * Is not used by the Java producer client.
      */
     public void setCompressedTopics(String compressedTopics) {
         this.compressedTopics = compressedTopics;
@@ -676,7 +721,7 @@ public class KafkaConfiguration {
     }
 
     /**
-     * Maximum time to buffer data when using async mode.
+     * Maximum time to buffer data when using async mode (linger.ms of the Java producer client).
      * For example a setting of 100 will try to batch together 100ms of messages to send at once.
      * This will improve throughput but adds message delivery latency due to the buffering.
      */
@@ -691,6 +736,8 @@ public class KafkaConfiguration {
     /**
      * The maximum number of unsent messages that can be queued up the producer when using async
      * mode before either the producer must be blocked or data must be dropped.
+     * <p/>
+     * Is not used by the Java producer client.
      */
     public void setQueueBufferingMaxMessages(Integer queueBufferingMaxMessages) {
         this.queueBufferingMaxMessages = queueBufferingMaxMessages;
@@ -704,6 +751,8 @@ public class KafkaConfiguration {
      * The amount of time to block before dropping messages when running in async mode and the buffer has reached
      * queue.buffering.max.messages. If set to 0 events will be enqueued immediately or dropped if the queue is full
      * (the producer send call will never block). If set to -1 the producer will block indefinitely and never willingly drop a send.
+     * <p/>
+     * Is not used by the Java producer client.
      */
     public void setQueueEnqueueTimeoutMs(Integer queueEnqueueTimeoutMs) {
         this.queueEnqueueTimeoutMs = queueEnqueueTimeoutMs;
@@ -716,6 +765,8 @@ public class KafkaConfiguration {
     /**
      * The number of messages to send in one batch when using async mode.
      * The producer will wait until either this number of messages are ready to send or queue.buffer.max.ms is reached.
+     * <p/>
+     * Is not used by the Java producer client.
      */
     public void setBatchNumMessages(Integer batchNumMessages) {
         this.batchNumMessages = batchNumMessages;
@@ -743,4 +794,38 @@ public class KafkaConfiguration {
     public void setKeySerializerClass(String keySerializerClass) {
         this.keySerializerClass = keySerializerClass;
     }
+
+    public ExecutorService getWorkerPool() {
+        return workerPool;
+    }
+
+    /**
+     * To use a custom worker pool to continue routing the exchange after Kafka has acknowledged the message,
+     * instead of routing on the I/O thread of the Kafka client.
+     */
+    public void setWorkerPool(ExecutorService workerPool) {
+        this.workerPool = workerPool;
+    }
+
+    public Integer getWorkerPoolCoreSize() {
+        return workerPoolCoreSize;
+    }
+
+    /**
+     * Number of core threads for the worker pool which continues routing the exchange after Kafka has acknowledged the message.
+     */
+    public void setWorkerPoolCoreSize(Integer workerPoolCoreSize) {
+        this.workerPoolCoreSize = workerPoolCoreSize;
+    }
+
+    public Integer getWorkerPoolMaxSize() {
+        return workerPoolMaxSize;
+    }
+
+    /**
+     * Maximum number of threads for the worker pool which continues routing the exchange after Kafka has acknowledged the message.
+     */
+    public void setWorkerPoolMaxSize(Integer workerPoolMaxSize) {
+        this.workerPoolMaxSize = workerPoolMaxSize;
+    }
 }
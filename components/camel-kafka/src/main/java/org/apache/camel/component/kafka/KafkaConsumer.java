@@ -16,22 +16,38 @@
  */
 package org.apache.camel.component.kafka;
 
+import java.util.Arrays;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Properties;
-import java.util.concurrent.BrokenBarrierException;
-import java.util.concurrent.CyclicBarrier;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.CopyOnWriteArraySet;
 import java.util.concurrent.ExecutorService;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
 import java.util.concurrent.TimeUnit;
-import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
 
+import kafka.common.TopicAndPartition;
 import kafka.consumer.ConsumerConfig;
 import kafka.consumer.ConsumerIterator;
 import kafka.consumer.ConsumerTimeoutException;
 import kafka.consumer.KafkaStream;
 import kafka.javaapi.consumer.ConsumerConnector;
 import kafka.message.MessageAndMetadata;
+import kafka.utils.ZKGroupTopicDirs;
+import kafka.utils.ZKStringSerializer$;
+import kafka.utils.ZkUtils;
+import org.I0Itec.zkclient.IZkDataListener;
+import org.I0Itec.zkclient.ZkClient;
 import org.apache.camel.Exchange;
 import org.apache.camel.Processor;
 import org.apache.camel.impl.DefaultConsumer;
@@ -46,15 +62,18 @@ public class KafkaConsumer extends DefaultConsumer {
     private static final Logger LOG = LoggerFactory.getLogger(KafkaConsumer.class);
 
     protected ExecutorService executor;
+    protected ExecutorService commitExecutor;
+    protected ExecutorService laneExecutor;
     private final KafkaEndpoint endpoint;
     private final Processor processor;
-    private Map<ConsumerConnector, CyclicBarrier> consumerBarriers;
+    private Map<ConsumerConnector, OffsetCommitter> consumerCommitters;
+    private LaneDispatcher laneDispatcher;
 
     public KafkaConsumer(KafkaEndpoint endpoint, Processor processor) {
         super(endpoint, processor);
         this.endpoint = endpoint;
         this.processor = processor;
-        this.consumerBarriers = new HashMap<ConsumerConnector, CyclicBarrier>();
+        this.consumerCommitters = new HashMap<ConsumerConnector, OffsetCommitter>();
         if (endpoint.getZookeeperConnect() == null) {
             throw new IllegalArgumentException("zookeeper host or zookeeper connect must be specified");
         }
@@ -67,6 +86,10 @@ public class KafkaConsumer extends DefaultConsumer {
         Properties props = endpoint.getConfiguration().createConsumerProperties();
         props.put("zookeeper.connect", endpoint.getZookeeperConnect());
         props.put("group.id", endpoint.getGroupId());
+        if (endpoint.getOrderedLanes() > 0) {
+            // the processed offsets is committed by the lane dispatcher
+            props.put("auto.commit.enable", "false");
+        }
         return props;
     }
 
@@ -75,27 +98,49 @@ public class KafkaConsumer extends DefaultConsumer {
         super.doStart();
         log.info("Starting Kafka consumer");
         executor = endpoint.createExecutor();
+        if (endpoint.getOrderedLanes() > 0) {
+            laneExecutor = endpoint.getCamelContext().getExecutorServiceManager()
+                    .newFixedThreadPool(this, "KafkaLane[" + endpoint.getTopic() + "]", endpoint.getOrderedLanes());
+            commitExecutor = endpoint.getCamelContext().getExecutorServiceManager()
+                    .newSingleThreadExecutor(this, "KafkaCommit[" + endpoint.getTopic() + "]");
+            laneDispatcher = new LaneDispatcher(endpoint.getOrderedLanes(), laneExecutor);
+        }
         for (int i = 0; i < endpoint.getConsumersCount(); i++) {
-            ConsumerConnector consumer = kafka.consumer.Consumer.createJavaConsumerConnector(new ConsumerConfig(getProps()));
+            Properties props = getProps();
+            if (laneDispatcher != null) {
+                // the lane dispatcher must know the consumer id to tell which partitions the connector owns
+                String consumerId = endpoint.getConsumerId();
+                if (consumerId == null) {
+                    consumerId = endpoint.getCamelContext().getUuidGenerator().generateUuid();
+                    props.put("consumer.id", consumerId);
+                }
+                laneDispatcher.addConsumerId(consumerId);
+            }
+            ConsumerConnector consumer = kafka.consumer.Consumer.createJavaConsumerConnector(new ConsumerConfig(props));
             Map<String, Integer> topicCountMap = new HashMap<String, Integer>();
             topicCountMap.put(endpoint.getTopic(), endpoint.getConsumerStreams());
             Map<String, List<KafkaStream<byte[], byte[]>>> consumerMap = consumer.createMessageStreams(topicCountMap);
             List<KafkaStream<byte[], byte[]>> streams = consumerMap.get(endpoint.getTopic());
-            if (endpoint.isAutoCommitEnable() != null && !endpoint.isAutoCommitEnable()) {
-                if ((endpoint.getConsumerTimeoutMs() == null || endpoint.getConsumerTimeoutMs().intValue() < 0)
-                        && endpoint.getConsumerStreams() > 1) {
-                    LOG.warn("consumerTimeoutMs is set to -1 (infinite) while requested multiple consumer streams.");
+            if (laneDispatcher != null) {
+                for (final KafkaStream<byte[], byte[]> stream : streams) {
+                    executor.submit(new LaneDispatchingConsumerTask(stream, laneDispatcher));
                 }
-                CyclicBarrier barrier = new CyclicBarrier(endpoint.getConsumerStreams(), new CommitOffsetTask(consumer));
+                consumerCommitters.put(consumer, null);
+            } else if (endpoint.isAutoCommitEnable() != null && !endpoint.isAutoCommitEnable()) {
+                if (commitExecutor == null) {
+                    commitExecutor = endpoint.getCamelContext().getExecutorServiceManager()
+                            .newSingleThreadExecutor(this, "KafkaCommit[" + endpoint.getTopic() + "]");
+                }
+                OffsetCommitter committer = new OffsetCommitter(consumer);
                 for (final KafkaStream<byte[], byte[]> stream : streams) {
-                    executor.submit(new BatchingConsumerTask(stream, barrier));
+                    executor.submit(new BatchingConsumerTask(stream, committer));
                 }
-                consumerBarriers.put(consumer, barrier);
+                consumerCommitters.put(consumer, committer);
             } else {
                 for (final KafkaStream<byte[], byte[]> stream : streams) {
                     executor.submit(new AutoCommitConsumerTask(stream));
                 }
-                consumerBarriers.put(consumer, null);
+                consumerCommitters.put(consumer, null);
             }
         }
 
@@ -105,11 +150,35 @@ public class KafkaConsumer extends DefaultConsumer {
     protected void doStop() throws Exception {
         super.doStop();
         log.info("Stopping Kafka consumer");
-        for (ConsumerConnector consumer : consumerBarriers.keySet()) {
-            if (consumer != null) {
-                consumer.shutdown();
+        if (laneDispatcher != null) {
+            // shutting down a connector releases its partitions, so the processed offsets must be committed
+            // before, which is once the dispatching has stopped and the lanes has processed their messages
+            laneDispatcher.stop();
+            shutdownExecutor();
+            getEndpoint().getCamelContext().getExecutorServiceManager().shutdownGraceful(laneExecutor);
+            laneDispatcher.commit();
+            laneDispatcher.close();
+        }
+        laneDispatcher = null;
+        laneExecutor = null;
+        for (Map.Entry<ConsumerConnector, OffsetCommitter> entry : consumerCommitters.entrySet()) {
+            if (entry.getValue() != null) {
+                // commit the offsets of the processed messages before shutting down
+                entry.getValue().commit();
+            }
+            if (entry.getKey() != null) {
+                entry.getKey().shutdown();
             }
         }
+        consumerCommitters.clear();
+        shutdownExecutor();
+        if (commitExecutor != null) {
+            getEndpoint().getCamelContext().getExecutorServiceManager().shutdownNow(commitExecutor);
+        }
+        commitExecutor = null;
+    }
+
+    private void shutdownExecutor() {
         if (executor != null) {
             if (getEndpoint() != null && getEndpoint().getCamelContext() != null) {
                 getEndpoint().getCamelContext().getExecutorServiceManager().shutdownNow(executor);
@@ -120,77 +189,410 @@ public class KafkaConsumer extends DefaultConsumer {
         executor = null;
     }
 
+    LaneDispatcher getLaneDispatcher() {
+        return laneDispatcher;
+    }
+
+    /**
+     * Commits the offsets of a {@link ConsumerConnector} asynchronously, without the streams having to wait
+     * for each other.
+     * <p/>
+     * The connector commits the offsets of all its streams, so the streams hold the read lock while
+     * processing a message, and the commit is done holding the write lock, which ensures only the offsets
+     * of processed messages are committed.
+     */
+    class OffsetCommitter implements Runnable {
+
+        private final ConsumerConnector consumer;
+        private final ReadWriteLock lock = new ReentrantReadWriteLock();
+        private final AtomicInteger uncommitted = new AtomicInteger();
+        private final AtomicBoolean scheduled = new AtomicBoolean();
+
+        OffsetCommitter(ConsumerConnector consumer) {
+            this.consumer = consumer;
+        }
+
+        void beforeProcess() {
+            lock.readLock().lock();
+        }
+
+        void afterProcess() {
+            int count = uncommitted.incrementAndGet();
+            lock.readLock().unlock();
+            if (count >= endpoint.getBatchSize()) {
+                scheduleCommit();
+            }
+        }
+
+        void scheduleCommit() {
+            ExecutorService service = commitExecutor;
+            if (service != null && uncommitted.get() > 0 && scheduled.compareAndSet(false, true)) {
+                try {
+                    service.submit(this);
+                } catch (RejectedExecutionException e) {
+                    // we are stopping, and the offsets is committed on stop
+                    scheduled.set(false);
+                }
+            }
+        }
+
+        @Override
+        public void run() {
+            scheduled.set(false);
+            commit();
+        }
+
+        void commit() {
+            try {
+                // wait for the messages in progress to be processed
+                if (lock.writeLock().tryLock(endpoint.getBarrierAwaitTimeoutMs(), TimeUnit.MILLISECONDS)) {
+                    try {
+                        int count = uncommitted.getAndSet(0);
+                        if (count > 0) {
+                            LOG.trace("Committing offsets of {} processed messages", count);
+                            consumer.commitOffsets();
+                        }
+                    } finally {
+                        lock.writeLock().unlock();
+                    }
+                } else {
+                    LOG.debug("Timeout waiting for messages in progress to be processed, will commit offsets later");
+                }
+            } catch (InterruptedException e) {
+                LOG.debug("Interrupted while waiting to commit offsets");
+            } catch (Exception e) {
+                LOG.warn("Error committing offsets. This exception will be ignored.", e);
+            }
+        }
+    }
+
     class BatchingConsumerTask implements Runnable {
 
         private KafkaStream<byte[], byte[]> stream;
-        private CyclicBarrier berrier;
+        private OffsetCommitter committer;
 
-        public BatchingConsumerTask(KafkaStream<byte[], byte[]> stream, CyclicBarrier berrier) {
+        public BatchingConsumerTask(KafkaStream<byte[], byte[]> stream, OffsetCommitter committer) {
             this.stream = stream;
-            this.berrier = berrier;
+            this.committer = committer;
         }
 
         public void run() {
-
-            int processed = 0;
-            boolean consumerTimeout;
-            MessageAndMetadata<byte[], byte[]> mm = null;
             ConsumerIterator<byte[], byte[]> it = stream.iterator();
-            boolean hasNext = true;
-            while (hasNext) {
-
+            while (true) {
                 try {
-                    consumerTimeout = false;
-                    if (it.hasNext()) {
-                        mm = it.next();
-                        Exchange exchange = endpoint.createKafkaExchange(mm);
-                        try {
-                            processor.process(exchange);
-                        } catch (Exception e) {
-                            LOG.error(e.getMessage(), e);
-                        }
-                        processed++;
-                    } else {
-                        // we don't need to process the message
-                        hasNext = false;
+                    // wait for the next message without holding the lock, so offsets can be committed meanwhile
+                    if (!it.hasNext()) {
+                        break;
                     }
                 } catch (ConsumerTimeoutException e) {
                     LOG.debug(e.getMessage(), e);
-                    consumerTimeout = true;
+                    // commit the processed messages when idle
+                    committer.scheduleCommit();
+                    continue;
                 }
 
-                if (processed >= endpoint.getBatchSize() || consumerTimeout 
-                    || (processed > 0 && !hasNext)) { // Need to commit the offset for the last round
+                committer.beforeProcess();
+                try {
+                    MessageAndMetadata<byte[], byte[]> mm = it.next();
+                    Exchange exchange = endpoint.createKafkaExchange(mm);
                     try {
-                        berrier.await(endpoint.getBarrierAwaitTimeoutMs(), TimeUnit.MILLISECONDS);
-                        if (!consumerTimeout) {
-                            processed = 0;
-                        }
-                    } catch (InterruptedException e) {
-                        LOG.error(e.getMessage(), e);
-                        break;
-                    } catch (BrokenBarrierException e) {
-                        LOG.error(e.getMessage(), e);
-                        break;
-                    } catch (TimeoutException e) {
+                        processor.process(exchange);
+                    } catch (Exception e) {
                         LOG.error(e.getMessage(), e);
                     }
+                } finally {
+                    committer.afterProcess();
                 }
             }
+            // need to commit the offset for the last round
+            committer.scheduleCommit();
         }
     }
 
-    class CommitOffsetTask implements Runnable {
+    /**
+     * Dispatches the consumed messages to a fixed number of ordered lanes, which are processed concurrently
+     * by the shared pool of lane threads.
+     * <p/>
+     * The messages of a lane are processed one at a time in the order they was dispatched, and the lane is
+     * chosen by the partition (or key) of the message, so the messages of a partition (or key) is processed
+     * in order. The high-level consumer can only commit the consumed offsets of all its partitions, so the
+     * processed offsets is tracked per partition, and committed to zookeeper up to the highest contiguous
+     * processed offset of each partition.
+     * <p/>
+     * The high-level consumer of Kafka 0.8.2 has no rebalance listener, so the dispatcher watches the owner
+     * of each tracked partition in zookeeper instead. When the owner is released by a rebalance, or the
+     * partition is owned by another consumer, the tracker of the partition is dropped and its offsets is no
+     * longer committed. The messages already dispatched is still processed, as the consumer fetches the
+     * partition again from its committed offset if it is assigned the partition again.
+     */
+    class LaneDispatcher implements Runnable {
 
-        private ConsumerConnector consumer;
+        private final Lane[] lanes;
+        private final ExecutorService workers;
+        // limits the number of messages waiting in the lanes
+        private final Semaphore capacity;
+        private final ConcurrentMap<TopicAndPartition, PartitionOffsetTracker> trackers = new ConcurrentHashMap<TopicAndPartition, PartitionOffsetTracker>();
+        private final AtomicInteger uncommitted = new AtomicInteger();
+        private final AtomicBoolean scheduled = new AtomicBoolean();
+        private final ZkClient zkClient;
+        // the consumer thread ids of the connectors start with these prefixes
+        private final Set<String> ownerPrefixes = new CopyOnWriteArraySet<String>();
+        private volatile boolean stopped;
 
-        public CommitOffsetTask(ConsumerConnector consumer) {
-            this.consumer = consumer;
+        LaneDispatcher(int size, ExecutorService workers) {
+            this.workers = workers;
+            lanes = new Lane[size];
+            for (int i = 0; i < size; i++) {
+                lanes[i] = new Lane();
+            }
+            capacity = new Semaphore(Math.max(size, size * endpoint.getBatchSize()));
+            KafkaConfiguration configuration = endpoint.getConfiguration();
+            int sessionTimeout = configuration.getZookeeperSessionTimeoutMs() != null ? configuration.getZookeeperSessionTimeoutMs() : 6000;
+            int connectionTimeout = configuration.getZookeeperConnectionTimeoutMs() != null ? configuration.getZookeeperConnectionTimeoutMs() : sessionTimeout;
+            zkClient = new ZkClient(endpoint.getZookeeperConnect(), sessionTimeout, connectionTimeout, ZKStringSerializer$.MODULE$);
+        }
+
+        PartitionOffsetTracker getTracker(TopicAndPartition partition) {
+            return trackers.get(partition);
+        }
+
+        void addConsumerId(String consumerId) {
+            // the same as the consumer thread ids of the zookeeper consumer connector
+            ownerPrefixes.add(endpoint.getGroupId() + "_" + consumerId + "-");
+        }
+
+        void dispatch(MessageAndMetadata<byte[], byte[]> mm) throws InterruptedException {
+            if (stopped) {
+                // the message is not tracked, and will be consumed again
+                return;
+            }
+            capacity.acquire();
+            TopicAndPartition partition = new TopicAndPartition(mm.topic(), mm.partition());
+            PartitionOffsetTracker tracker = trackers.get(partition);
+            if (tracker == null) {
+                tracker = new PartitionOffsetTracker();
+                PartitionOffsetTracker existing = trackers.putIfAbsent(partition, tracker);
+                if (existing != null) {
+                    tracker = existing;
+                } else {
+                    zkClient.subscribeDataChanges(ownerPath(partition), new PartitionOwnerListener(partition, tracker));
+                }
+            }
+            tracker.dispatched(mm.offset());
+            lanes[laneIndex(mm)].add(new LaneMessage(mm, tracker));
+        }
+
+        private int laneIndex(MessageAndMetadata<byte[], byte[]> mm) {
+            int hash;
+            if (endpoint.isOrderedLanesByKey() && mm.key() != null) {
+                hash = Arrays.hashCode(mm.key());
+            } else {
+                hash = 31 * mm.topic().hashCode() + mm.partition();
+            }
+            return (hash & Integer.MAX_VALUE) % lanes.length;
+        }
+
+        void processed(LaneMessage message) {
+            message.tracker.processed(message.mm.offset());
+            capacity.release();
+            if (uncommitted.incrementAndGet() >= endpoint.getBatchSize()) {
+                scheduleCommit();
+            }
+        }
+
+        void scheduleCommit() {
+            ExecutorService service = commitExecutor;
+            if (service != null && uncommitted.get() > 0 && scheduled.compareAndSet(false, true)) {
+                try {
+                    service.submit(this);
+                } catch (RejectedExecutionException e) {
+                    // we are stopping, and the offsets is committed on stop
+                    scheduled.set(false);
+                }
+            }
         }
 
         @Override
         public void run() {
-            consumer.commitOffsets();
+            scheduled.set(false);
+            commit();
+        }
+
+        synchronized void commit() {
+            uncommitted.set(0);
+            for (Map.Entry<TopicAndPartition, PartitionOffsetTracker> entry : trackers.entrySet()) {
+                long offset = entry.getValue().getOffsetToCommit();
+                if (offset < 0) {
+                    continue;
+                }
+                TopicAndPartition partition = entry.getKey();
+                try {
+                    // the owner listener may not have been notified of a rebalance yet
+                    String owner = zkClient.readData(ownerPath(partition), true);
+                    if (owner == null) {
+                        LOG.debug("Partition {} has no owner, will commit offsets later", partition);
+                        continue;
+                    } else if (!isOwner(owner)) {
+                        revoke(partition, entry.getValue());
+                        continue;
+                    }
+                    ZKGroupTopicDirs dirs = new ZKGroupTopicDirs(endpoint.getGroupId(), partition.topic());
+                    ZkUtils.updatePersistentPath(zkClient, dirs.consumerOffsetDir() + "/" + partition.partition(), Long.toString(offset));
+                    entry.getValue().committed(offset);
+                    LOG.trace("Committed offset {} of partition {}", offset, partition);
+                } catch (Exception e) {
+                    LOG.warn("Error committing offset of partition " + partition + ". This exception will be ignored.", e);
+                }
+            }
+        }
+
+        void stop() {
+            // stops dispatching, the messages already dispatched is still processed by the lanes
+            stopped = true;
+        }
+
+        void close() {
+            zkClient.unsubscribeAll();
+            zkClient.close();
+        }
+
+        private String ownerPath(TopicAndPartition partition) {
+            ZKGroupTopicDirs dirs = new ZKGroupTopicDirs(endpoint.getGroupId(), partition.topic());
+            return dirs.consumerOwnerDir() + "/" + partition.partition();
+        }
+
+        private boolean isOwner(String owner) {
+            for (String prefix : ownerPrefixes) {
+                if (owner.startsWith(prefix)) {
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        private void revoke(TopicAndPartition partition, PartitionOffsetTracker tracker) {
+            if (trackers.remove(partition, tracker)) {
+                LOG.debug("Partition {} has been revoked, its offsets is no longer committed", partition);
+                tracker.revoke();
+            }
+        }
+
+        /**
+         * Drops the tracker of a partition, when the partition is released or owned by another consumer.
+         */
+        class PartitionOwnerListener implements IZkDataListener {
+
+            private final TopicAndPartition partition;
+            private final PartitionOffsetTracker tracker;
+
+            PartitionOwnerListener(TopicAndPartition partition, PartitionOffsetTracker tracker) {
+                this.partition = partition;
+                this.tracker = tracker;
+            }
+
+            @Override
+            public void handleDataChange(String dataPath, Object data) throws Exception {
+                if (data == null || !isOwner(data.toString())) {
+                    revoked(dataPath);
+                }
+            }
+
+            @Override
+            public void handleDataDeleted(String dataPath) throws Exception {
+                revoked(dataPath);
+            }
+
+            private void revoked(String dataPath) {
+                zkClient.unsubscribeDataChanges(dataPath, this);
+                revoke(partition, tracker);
+            }
+        }
+
+        /**
+         * A lane processes its messages one at a time, using a thread from the shared pool while it has
+         * messages to process.
+         */
+        class Lane implements Runnable {
+
+            private final Queue<LaneMessage> queue = new ConcurrentLinkedQueue<LaneMessage>();
+            private final AtomicBoolean running = new AtomicBoolean();
+
+            void add(LaneMessage message) {
+                queue.add(message);
+                schedule();
+            }
+
+            private void schedule() {
+                if (!queue.isEmpty() && running.compareAndSet(false, true)) {
+                    try {
+                        workers.execute(this);
+                    } catch (RejectedExecutionException e) {
+                        // we are stopping
+                        running.set(false);
+                    }
+                }
+            }
+
+            @Override
+            public void run() {
+                try {
+                    LaneMessage message;
+                    while ((message = queue.poll()) != null) {
+                        Exchange exchange = endpoint.createKafkaExchange(message.mm);
+                        try {
+                            processor.process(exchange);
+                        } catch (Exception e) {
+                            LOG.error(e.getMessage(), e);
+                        } finally {
+                            processed(message);
+                        }
+                    }
+                } finally {
+                    running.set(false);
+                }
+                // a message may have been added after the queue was drained
+                schedule();
+            }
+        }
+    }
+
+    static final class LaneMessage {
+        private final MessageAndMetadata<byte[], byte[]> mm;
+        private final PartitionOffsetTracker tracker;
+
+        LaneMessage(MessageAndMetadata<byte[], byte[]> mm, PartitionOffsetTracker tracker) {
+            this.mm = mm;
+            this.tracker = tracker;
+        }
+    }
+
+    class LaneDispatchingConsumerTask implements Runnable {
+
+        private KafkaStream<byte[], byte[]> stream;
+        private LaneDispatcher dispatcher;
+
+        public LaneDispatchingConsumerTask(KafkaStream<byte[], byte[]> stream, LaneDispatcher dispatcher) {
+            this.stream = stream;
+            this.dispatcher = dispatcher;
+        }
+
+        public void run() {
+            ConsumerIterator<byte[], byte[]> it = stream.iterator();
+            while (true) {
+                try {
+                    if (!it.hasNext()) {
+                        break;
+                    }
+                    dispatcher.dispatch(it.next());
+                } catch (ConsumerTimeoutException e) {
+                    LOG.debug(e.getMessage(), e);
+                    // commit the processed messages when idle
+                    dispatcher.scheduleCommit();
+                } catch (InterruptedException e) {
+                    LOG.debug("Interrupted while dispatching messages");
+                    break;
+                }
+            }
         }
     }
 
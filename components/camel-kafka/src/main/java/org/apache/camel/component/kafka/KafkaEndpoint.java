@@ -217,6 +217,22 @@ public class KafkaEndpoint extends DefaultEndpoint implements MultipleConsumersS
         this.configuration.setConsumersCount(consumersCount);
     }
 
+    public int getOrderedLanes() {
+        return configuration.getOrderedLanes();
+    }
+
+    public void setOrderedLanes(int orderedLanes) {
+        configuration.setOrderedLanes(orderedLanes);
+    }
+
+    public boolean isOrderedLanesByKey() {
+        return configuration.isOrderedLanesByKey();
+    }
+
+    public void setOrderedLanesByKey(boolean orderedLanesByKey) {
+        configuration.setOrderedLanesByKey(orderedLanesByKey);
+    }
+
     public void setConsumerTimeoutMs(int consumerTimeoutMs) {
         configuration.setConsumerTimeoutMs(consumerTimeoutMs);
     }
@@ -425,6 +441,30 @@ public class KafkaEndpoint extends DefaultEndpoint implements MultipleConsumersS
         return configuration.getKeySerializerClass();
     }
 
+    public ExecutorService getWorkerPool() {
+        return configuration.getWorkerPool();
+    }
+
+    public void setWorkerPool(ExecutorService workerPool) {
+        configuration.setWorkerPool(workerPool);
+    }
+
+    public Integer getWorkerPoolCoreSize() {
+        return configuration.getWorkerPoolCoreSize();
+    }
+
+    public void setWorkerPoolCoreSize(Integer workerPoolCoreSize) {
+        configuration.setWorkerPoolCoreSize(workerPoolCoreSize);
+    }
+
+    public Integer getWorkerPoolMaxSize() {
+        return configuration.getWorkerPoolMaxSize();
+    }
+
+    public void setWorkerPoolMaxSize(Integer workerPoolMaxSize) {
+        configuration.setWorkerPoolMaxSize(workerPoolMaxSize);
+    }
+
     public void setTopicMetadataRefreshIntervalMs(int topicMetadataRefreshIntervalMs) {
         configuration.setTopicMetadataRefreshIntervalMs(topicMetadataRefreshIntervalMs);
     }
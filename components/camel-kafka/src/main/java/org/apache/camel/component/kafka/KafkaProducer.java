@@ -16,22 +16,47 @@
  */
 package org.apache.camel.component.kafka;
 
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
 import java.util.Properties;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
 
-import kafka.javaapi.producer.Producer;
-import kafka.producer.KeyedMessage;
-import kafka.producer.ProducerConfig;
-import org.apache.camel.CamelException;
+import kafka.producer.Partitioner;
+import kafka.serializer.Encoder;
+import kafka.utils.VerifiableProperties;
+import org.apache.camel.AsyncCallback;
 import org.apache.camel.CamelExchangeException;
 import org.apache.camel.Exchange;
-import org.apache.camel.impl.DefaultProducer;
+import org.apache.camel.impl.DefaultAsyncProducer;
+import org.apache.kafka.clients.producer.Callback;
+import org.apache.kafka.clients.producer.Producer;
+import org.apache.kafka.clients.producer.ProducerRecord;
+import org.apache.kafka.clients.producer.RecordMetadata;
+import org.apache.kafka.common.serialization.ByteArraySerializer;
+import org.apache.kafka.common.serialization.Serializer;
+import org.apache.kafka.common.serialization.StringSerializer;
 
 /**
- *
+ * Sends to Kafka using the Java producer client, which sends asynchronously.
+ * <p/>
+ * The exchange is completed when Kafka has acknowledged the message, so many exchanges can be in flight
+ * at the same time, and the messages are batched by the Kafka client. The routing of the exchange continues
+ * using the worker pool, so the I/O thread of the Kafka client is not blocked. If the exchange is a grouped exchange
+ * (aggregated using {@link org.apache.camel.processor.aggregate.GroupedExchangeAggregationStrategy})
+ * each of the grouped exchanges is sent as a message, and the exchange is completed when all have been
+ * acknowledged.
  */
-public class KafkaProducer<K, V> extends DefaultProducer {
+public class KafkaProducer<K, V> extends DefaultAsyncProducer {
 
     protected Producer<K, V> producer;
+    protected Partitioner partitioner;
+    protected ExecutorService workerPool;
+    private boolean shutdownWorkerPool;
     private final KafkaEndpoint endpoint;
 
     public KafkaProducer(KafkaEndpoint endpoint) {
@@ -42,28 +67,91 @@ public class KafkaProducer<K, V> extends DefaultProducer {
     @Override
     protected void doStop() throws Exception {
         if (producer != null) {
+            // sends the buffered messages before closing
             producer.close();
+            producer = null;
+        }
+        if (shutdownWorkerPool && workerPool != null) {
+            // let the exchanges acknowledged while closing continue routing
+            endpoint.getCamelContext().getExecutorServiceManager().shutdownGraceful(workerPool);
+            workerPool = null;
         }
     }
 
     Properties getProps() {
         Properties props = endpoint.getConfiguration().createProducerProperties();
         if (endpoint.getBrokers() != null) {
-            props.put("metadata.broker.list", endpoint.getBrokers());
+            props.put("bootstrap.servers", endpoint.getBrokers());
         }
         return props;
     }
 
     @Override
+    @SuppressWarnings("unchecked")
     protected void doStart() throws Exception {
         Properties props = getProps();
-        ProducerConfig config = new ProducerConfig(props);
-        producer = new Producer<K, V>(config);
+        if (workerPool == null) {
+            workerPool = endpoint.getWorkerPool();
+            if (workerPool == null) {
+                workerPool = endpoint.getCamelContext().getExecutorServiceManager().newThreadPool(this,
+                        "KafkaProducer[" + endpoint.getTopic() + "]", endpoint.getWorkerPoolCoreSize(), endpoint.getWorkerPoolMaxSize());
+                shutdownWorkerPool = true;
+            }
+        }
+        if (partitioner == null) {
+            partitioner = createInstance(endpoint.getPartitioner(), Partitioner.class, props);
+        }
+        if (producer == null) {
+            String valueEncoder = endpoint.getConfiguration().getSerializerClass();
+            if (valueEncoder == null) {
+                valueEncoder = KafkaConstants.KAFKA_DEFAULT_ENCODER;
+            }
+            String keyEncoder = endpoint.getConfiguration().getKeySerializerClass();
+            if (keyEncoder == null) {
+                keyEncoder = valueEncoder;
+            }
+            Serializer<K> keySerializer = (Serializer<K>) createSerializer(keyEncoder, props);
+            Serializer<V> valueSerializer = (Serializer<V>) createSerializer(valueEncoder, props);
+            producer = new org.apache.kafka.clients.producer.KafkaProducer<K, V>(props, keySerializer, valueSerializer);
+        }
     }
 
     @Override
+    public boolean process(Exchange exchange, AsyncCallback callback) {
+        List<Exchange> exchanges = getGroupedExchanges(exchange);
+        // create all the records before sending, so we either send all or none
+        List<ProducerRecord<K, V>> records;
+        try {
+            if (exchanges == null) {
+                records = Collections.singletonList(createRecord(exchange));
+            } else {
+                records = new ArrayList<ProducerRecord<K, V>>(exchanges.size());
+                for (Exchange grouped : exchanges) {
+                    records.add(createRecord(grouped));
+                }
+            }
+        } catch (Exception e) {
+            exchange.setException(e);
+            callback.done(true);
+            return true;
+        }
+
+        SendCallback sendCallback = new SendCallback(exchange, callback, records.size());
+        int sent = 0;
+        try {
+            for (ProducerRecord<K, V> record : records) {
+                producer.send(record, sendCallback);
+                sent++;
+            }
+        } catch (Exception e) {
+            // the records which could not be sent are never acknowledged
+            sendCallback.onFailure(e, records.size() - sent);
+        }
+        return false;
+    }
+
     @SuppressWarnings("unchecked")
-    public void process(Exchange exchange) throws CamelException {
+    protected ProducerRecord<K, V> createRecord(Exchange exchange) throws CamelExchangeException {
         String topic = endpoint.getTopic();
         if (!endpoint.isBridgeEndpoint()) {
             topic = exchange.getIn().getHeader(KafkaConstants.TOPIC, endpoint.getTopic(), String.class);
@@ -71,26 +159,154 @@ public class KafkaProducer<K, V> extends DefaultProducer {
         if (topic == null) {
             throw new CamelExchangeException("No topic key set", exchange);
         }
-        K partitionKey = (K) exchange.getIn().getHeader(KafkaConstants.PARTITION_KEY);
-        boolean hasPartitionKey = partitionKey != null;
-
+        Object partitionKey = exchange.getIn().getHeader(KafkaConstants.PARTITION_KEY);
         K messageKey = (K) exchange.getIn().getHeader(KafkaConstants.KEY);
-        boolean hasMessageKey = messageKey != null;
-
         V msg = (V) exchange.getIn().getBody();
-        KeyedMessage<K, V> data;
-
-        if (hasPartitionKey && hasMessageKey) {
-            data = new KeyedMessage<K, V>(topic, messageKey, partitionKey, msg);
-        } else if (hasPartitionKey) {
-            data = new KeyedMessage<K, V>(topic, partitionKey, msg);
-        } else if (hasMessageKey) {
-            data = new KeyedMessage<K, V>(topic, messageKey, msg);
+
+        if (partitionKey == null) {
+            // the message key is used as partition key, so the configured partitioner is used as before
+            partitionKey = messageKey;
+        } else if (messageKey == null) {
+            // the partition key is used as message key as well
+            messageKey = (K) partitionKey;
+        }
+
+        Integer partition = null;
+        if (partitionKey != null) {
+            int partitions = producer.partitionsFor(topic).size();
+            partition = partitioner.partition(partitionKey, partitions);
         } else {
             log.warn("No message key or partition key set");
-            data = new KeyedMessage<K, V>(topic, messageKey, partitionKey, msg);
         }
-        producer.send(data);
+        return new ProducerRecord<K, V>(topic, partition, messageKey, msg);
+    }
+
+    private static List<Exchange> getGroupedExchanges(Exchange exchange) {
+        Object value = exchange.getProperty(Exchange.GROUPED_EXCHANGE);
+        if (value == null) {
+            value = exchange.getIn().getBody();
+        }
+        if (!(value instanceof List) || ((List<?>) value).isEmpty()) {
+            return null;
+        }
+        List<?> list = (List<?>) value;
+        List<Exchange> answer = new ArrayList<Exchange>(list.size());
+        for (Object element : list) {
+            if (!(element instanceof Exchange)) {
+                return null;
+            }
+            answer.add((Exchange) element);
+        }
+        return answer;
+    }
+
+    private Serializer<?> createSerializer(String encoderClass, Properties props) throws Exception {
+        // use the serializers of the Kafka client for the default encoders
+        if (KafkaConstants.KAFKA_DEFAULT_ENCODER.equals(encoderClass)) {
+            return new ByteArraySerializer();
+        } else if (KafkaConstants.KAFKA_STRING_ENCODER.equals(encoderClass)) {
+            return new StringSerializer();
+        }
+        Class<?> type = endpoint.getCamelContext().getClassResolver().resolveMandatoryClass(encoderClass, getClass().getClassLoader());
+        if (Serializer.class.isAssignableFrom(type)) {
+            return (Serializer<?>) endpoint.getCamelContext().getInjector().newInstance(type);
+        }
+        return new EncoderSerializer<Object>(createInstance(encoderClass, Encoder.class, props));
     }
 
+    @SuppressWarnings("unchecked")
+    private <T> T createInstance(String className, Class<T> type, Properties props) throws Exception {
+        Class<?> clazz = endpoint.getCamelContext().getClassResolver().resolveMandatoryClass(className, getClass().getClassLoader());
+        if (!type.isAssignableFrom(clazz)) {
+            throw new IllegalArgumentException("Class " + className + " is not a " + type.getName());
+        }
+        // the kafka partitioners and encoders are created using the properties
+        try {
+            return (T) clazz.getConstructor(VerifiableProperties.class).newInstance(new VerifiableProperties(props));
+        } catch (NoSuchMethodException e) {
+            return (T) clazz.newInstance();
+        }
+    }
+
+    /**
+     * Completes the exchange once when all the messages sent for the exchange has been acknowledged, or has failed.
+     * <p/>
+     * The exchange continues routing using the worker pool, as the Kafka client invokes the callback from its I/O thread.
+     */
+    private final class SendCallback implements Callback {
+        private final Exchange exchange;
+        private final AsyncCallback callback;
+        private final AtomicInteger count;
+        private final AtomicBoolean done = new AtomicBoolean();
+
+        private SendCallback(Exchange exchange, AsyncCallback callback, int count) {
+            this.exchange = exchange;
+            this.callback = callback;
+            this.count = new AtomicInteger(count);
+        }
+
+        @Override
+        public void onCompletion(RecordMetadata metadata, Exception e) {
+            if (e != null) {
+                onFailure(e, 1);
+                return;
+            }
+            if (metadata != null) {
+                log.trace("Sent message to topic: {} partition: {} offset: {}", new Object[]{metadata.topic(), metadata.partition(), metadata.offset()});
+            }
+            onDone(1);
+        }
+
+        private void onFailure(Exception e, int messages) {
+            // keep the first failure
+            synchronized (this) {
+                if (exchange.getException() == null) {
+                    exchange.setException(e);
+                }
+            }
+            onDone(messages);
+        }
+
+        private void onDone(int messages) {
+            if (count.addAndGet(-messages) > 0 || !done.compareAndSet(false, true)) {
+                return;
+            }
+            try {
+                workerPool.submit(new Runnable() {
+                    public void run() {
+                        callback.done(false);
+                    }
+                });
+            } catch (RejectedExecutionException e) {
+                // the worker pool is shutdown so continue routing using the current thread
+                callback.done(false);
+            }
+        }
+    }
+
+    /**
+     * Adapts a Kafka {@link Encoder} to a {@link Serializer} of the Java producer client.
+     */
+    private static final class EncoderSerializer<T> implements Serializer<T> {
+        private final Encoder<T> encoder;
+
+        private EncoderSerializer(Encoder<T> encoder) {
+            this.encoder = encoder;
+        }
+
+        @Override
+        public void configure(Map<String, ?> configs, boolean isKey) {
+            // noop
+        }
+
+        @Override
+        public byte[] serialize(String topic, T data) {
+            return data != null ? encoder.toBytes(data) : null;
+        }
+
+        @Override
+        public void close() {
+            // noop
+        }
+    }
 }
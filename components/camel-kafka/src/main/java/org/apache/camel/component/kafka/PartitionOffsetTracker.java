@@ -0,0 +1,108 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.camel.component.kafka;
+
+import java.util.Iterator;
+import java.util.concurrent.ConcurrentSkipListSet;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Tracks the offsets of the messages of a partition which are being processed, when the messages may
+ * complete processing out of order.
+ * <p/>
+ * The offset to commit is the offset following the highest contiguous processed offset, which is the
+ * lowest offset still being processed, or the offset following the last dispatched offset when all
+ * the messages has been processed.
+ * <p/>
+ * When the partition is revoked from the consumer by a rebalance, the tracker is revoked and has no
+ * longer any offset to commit, as the partition is consumed from its committed offset by its new owner.
+ */
+public class PartitionOffsetTracker {
+
+    private final ConcurrentSkipListSet<Long> inProgress = new ConcurrentSkipListSet<Long>();
+    private final AtomicLong nextOffset = new AtomicLong(-1);
+    private volatile long committedOffset = -1;
+    private volatile boolean revoked;
+
+    /**
+     * The message with the given offset has been dispatched for processing
+     */
+    public void dispatched(long offset) {
+        // must be added before the next offset is updated, see getOffsetToCommit
+        inProgress.add(offset);
+        while (true) {
+            long next = nextOffset.get();
+            if (offset < next || nextOffset.compareAndSet(next, offset + 1)) {
+                break;
+            }
+        }
+    }
+
+    /**
+     * The message with the given offset has been processed
+     */
+    public void processed(long offset) {
+        inProgress.remove(offset);
+    }
+
+    /**
+     * Number of messages being processed
+     */
+    public int getInProgress() {
+        return inProgress.size();
+    }
+
+    /**
+     * Gets the offset to commit.
+     *
+     * @return the offset following the highest contiguous processed offset, or <tt>-1</tt> if there is
+     * nothing new to commit since the last commit
+     */
+    public long getOffsetToCommit() {
+        if (revoked) {
+            return -1;
+        }
+        long offset = nextOffset.get();
+        Iterator<Long> it = inProgress.iterator();
+        if (it.hasNext()) {
+            offset = it.next();
+        }
+        return offset > committedOffset ? offset : -1;
+    }
+
+    /**
+     * The given offset has been committed
+     */
+    public void committed(long offset) {
+        committedOffset = offset;
+    }
+
+    public long getCommittedOffset() {
+        return committedOffset;
+    }
+
+    /**
+     * The partition has been revoked from the consumer, so its offsets must no longer be committed
+     */
+    public void revoke() {
+        revoked = true;
+    }
+
+    public boolean isRevoked() {
+        return revoked;
+    }
+}
@@ -81,7 +81,7 @@ public class KafkaConsumerBatchSizeTest extends BaseEmbeddedKafkaTest {
 
     @Test
     public void kafkaMessagesIsConsumedByCamel() throws Exception {
-        //First 2 must not be committed since batch size is 3
+        //First 2 is not committed by the batch size of 3, but when the consumer is idle or stopped
         to.expectedBodiesReceivedInAnyOrder("m1", "m2");
         for (int k = 1; k <= 2; k++) {
             String msg = "m" + k;
@@ -95,9 +95,9 @@ public class KafkaConsumerBatchSizeTest extends BaseEmbeddedKafkaTest {
         from.getCamelContext().stop();
         from.getCamelContext().start();
         
-        to.expectedBodiesReceivedInAnyOrder("m1", "m2", "m3", "m4", "m5", "m6", "m7", "m8", "m9", "m10");
+        to.expectedBodiesReceivedInAnyOrder("m3", "m4", "m5", "m6", "m7", "m8", "m9", "m10");
 
-        //Second route must wake up and consume all from scratch and commit 9 consumed
+        //Second route must only consume the messages which was not processed before
         for (int k = 3; k <= 10; k++) {
             String msg = "m" + k;
             KeyedMessage<String, String> data = new KeyedMessage<String, String>(TOPIC, "1", msg);
@@ -111,10 +111,8 @@ public class KafkaConsumerBatchSizeTest extends BaseEmbeddedKafkaTest {
         from.getCamelContext().stop();
         from.getCamelContext().start();
 
-        
-        //Only one message should left to consume by this consumer group
-        to.expectedMessageCount(1);
+        //All the processed messages has been committed
+        to.expectedMessageCount(0);
         to.assertIsSatisfied(3000);
     }
 }
-
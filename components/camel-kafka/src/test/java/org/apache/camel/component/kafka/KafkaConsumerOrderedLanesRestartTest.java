@@ -0,0 +1,104 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.camel.component.kafka;
+
+import java.util.Properties;
+
+import kafka.javaapi.producer.Producer;
+import kafka.producer.KeyedMessage;
+import kafka.producer.ProducerConfig;
+import org.apache.camel.EndpointInject;
+import org.apache.camel.builder.RouteBuilder;
+import org.apache.camel.component.mock.MockEndpoint;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+public class KafkaConsumerOrderedLanesRestartTest extends BaseEmbeddedKafkaTest {
+
+    public static final String TOPIC = "lanesRestart";
+
+    @EndpointInject(uri = "mock:result")
+    private MockEndpoint to;
+
+    private Producer<String, String> producer;
+
+    @Before
+    public void before() {
+        Properties props = new Properties();
+        props.put("metadata.broker.list", "localhost:" + getKarfkaPort());
+        props.put("serializer.class", "kafka.serializer.StringEncoder");
+        props.put("partitioner.class", "org.apache.camel.component.kafka.SimplePartitioner");
+        props.put("request.required.acks", "1");
+
+        ProducerConfig config = new ProducerConfig(props);
+        producer = new Producer<String, String>(config);
+    }
+
+    @After
+    public void after() {
+        producer.close();
+    }
+
+    @Override
+    protected RouteBuilder createRouteBuilder() throws Exception {
+        return new RouteBuilder() {
+            @Override
+            public void configure() throws Exception {
+                // no consumer timeout and a large batch size, so the processed offsets is only committed on stop
+                from("kafka:localhost:{{karfkaPort}}?topic=" + TOPIC
+                    + "&zookeeperHost=localhost"
+                    + "&zookeeperPort={{zookeeperPort}}"
+                    + "&groupId=lanesRestartGroup"
+                    + "&autoOffsetReset=smallest"
+                    + "&orderedLanes=2"
+                    + "&batchSize=100")
+                    .to(to);
+            }
+        };
+    }
+
+    @Test
+    public void processedMessagesIsCommittedOnStop() throws Exception {
+        to.expectedBodiesReceived("m1", "m2", "m3", "m4", "m5");
+        sendMessages(1, 5);
+        to.assertIsSatisfied(3000);
+
+        to.reset();
+        context.stop();
+        context.start();
+
+        // only the messages which was not processed before is consumed
+        to.expectedBodiesReceived("m6", "m7");
+        sendMessages(6, 7);
+        to.assertIsSatisfied(3000);
+
+        to.reset();
+        context.stop();
+        context.start();
+
+        // all the processed messages has been committed
+        to.expectedMessageCount(0);
+        to.assertIsSatisfied(3000);
+    }
+
+    private void sendMessages(int from, int to) {
+        for (int k = from; k <= to; k++) {
+            producer.send(new KeyedMessage<String, String>(TOPIC, "1", "m" + k));
+        }
+    }
+}
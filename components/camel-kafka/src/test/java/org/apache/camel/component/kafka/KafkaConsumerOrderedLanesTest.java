@@ -0,0 +1,121 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.camel.component.kafka;
+
+import java.util.Properties;
+
+import kafka.common.TopicAndPartition;
+import kafka.javaapi.producer.Producer;
+import kafka.producer.KeyedMessage;
+import kafka.producer.ProducerConfig;
+import org.apache.camel.EndpointInject;
+import org.apache.camel.builder.RouteBuilder;
+import org.apache.camel.component.mock.MockEndpoint;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+public class KafkaConsumerOrderedLanesTest extends BaseEmbeddedKafkaTest {
+
+    public static final String TOPIC = "lanes";
+
+    private static final String CONSUMER = "kafka:localhost:{{karfkaPort}}?topic=" + TOPIC
+        + "&zookeeperHost=localhost"
+        + "&zookeeperPort={{zookeeperPort}}"
+        + "&groupId=lanesGroup"
+        + "&autoOffsetReset=smallest"
+        + "&consumerTimeoutMs=300";
+
+    @EndpointInject(uri = "mock:lanes")
+    private MockEndpoint lanes;
+
+    @EndpointInject(uri = "mock:other")
+    private MockEndpoint other;
+
+    private Producer<String, String> producer;
+
+    @Before
+    public void before() {
+        Properties props = new Properties();
+        props.put("metadata.broker.list", "localhost:" + getKarfkaPort());
+        props.put("serializer.class", "kafka.serializer.StringEncoder");
+        props.put("partitioner.class", "org.apache.camel.component.kafka.SimplePartitioner");
+        props.put("request.required.acks", "1");
+
+        ProducerConfig config = new ProducerConfig(props);
+        producer = new Producer<String, String>(config);
+    }
+
+    @After
+    public void after() {
+        producer.close();
+    }
+
+    @Override
+    protected RouteBuilder createRouteBuilder() throws Exception {
+        return new RouteBuilder() {
+            @Override
+            public void configure() throws Exception {
+                // the consumer thread ids of the other route sorts first, so it is assigned the partition
+                from(CONSUMER + "&orderedLanes=2&consumerId=lanesConsumer").routeId("lanes").to(lanes);
+                from(CONSUMER + "&consumerId=firstConsumer").routeId("other").autoStartup(false).to(other);
+            }
+        };
+    }
+
+    @Test
+    public void revokedPartitionIsNoLongerTracked() throws Exception {
+        lanes.expectedBodiesReceived("m1", "m2", "m3");
+        sendMessages(1, 3);
+        lanes.assertIsSatisfied(3000);
+
+        KafkaConsumer.LaneDispatcher dispatcher = ((KafkaConsumer) context.getRoute("lanes").getConsumer()).getLaneDispatcher();
+        TopicAndPartition partition = new TopicAndPartition(TOPIC, 0);
+        PartitionOffsetTracker tracker = dispatcher.getTracker(partition);
+        assertNotNull(tracker);
+        // the processed messages is committed when idle
+        long timeout = System.currentTimeMillis() + 10000;
+        while (tracker.getCommittedOffset() < 3 && System.currentTimeMillis() < timeout) {
+            Thread.sleep(100);
+        }
+        assertEquals(3, tracker.getCommittedOffset());
+
+        // the other consumer joins the group, and the partition is revoked from the lanes consumer by the rebalance
+        context.startRoute("other");
+        timeout = System.currentTimeMillis() + 10000;
+        while (dispatcher.getTracker(partition) != null && System.currentTimeMillis() < timeout) {
+            Thread.sleep(100);
+        }
+        assertNull("The revoked partition should no longer be tracked", dispatcher.getTracker(partition));
+        assertTrue(tracker.isRevoked());
+
+        // the other consumer continues from the committed offset
+        lanes.reset();
+        lanes.expectedMessageCount(0);
+        other.expectedBodiesReceived("m4", "m5", "m6");
+        sendMessages(4, 6);
+        other.assertIsSatisfied(5000);
+        lanes.assertIsSatisfied();
+        assertNull(dispatcher.getTracker(partition));
+    }
+
+    private void sendMessages(int from, int to) {
+        for (int k = from; k <= to; k++) {
+            producer.send(new KeyedMessage<String, String>(TOPIC, "1", "m" + k));
+        }
+    }
+}
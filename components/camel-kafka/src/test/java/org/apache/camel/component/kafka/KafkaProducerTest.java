@@ -16,20 +16,39 @@
  */
 package org.apache.camel.component.kafka;
 
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
 import java.util.Properties;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
 
-import kafka.javaapi.producer.Producer;
-import kafka.producer.KeyedMessage;
-import org.apache.camel.CamelException;
+import kafka.producer.DefaultPartitioner;
+import org.apache.camel.AsyncCallback;
+import org.apache.camel.CamelExchangeException;
 import org.apache.camel.Exchange;
 import org.apache.camel.Message;
 import org.apache.camel.impl.DefaultMessage;
+import org.apache.kafka.clients.producer.Callback;
+import org.apache.kafka.clients.producer.Producer;
+import org.apache.kafka.clients.producer.ProducerRecord;
+import org.apache.kafka.common.PartitionInfo;
+import org.junit.After;
 import org.junit.Test;
 import org.mockito.ArgumentCaptor;
 import org.mockito.Matchers;
 import org.mockito.Mockito;
+import org.mockito.invocation.InvocationOnMock;
+import org.mockito.stubbing.Answer;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
 
 public class KafkaProducerTest {
 
@@ -38,6 +57,8 @@ public class KafkaProducerTest {
 
     private Exchange exchange = Mockito.mock(Exchange.class);
     private Message in = new DefaultMessage();
+    private AsyncCallback callback = Mockito.mock(AsyncCallback.class);
+    private Thread workerThread;
 
     @SuppressWarnings({"unchecked"})
     public KafkaProducerTest() throws Exception {
@@ -45,14 +66,39 @@ public class KafkaProducerTest {
         endpoint.setBrokers("broker1:1234,broker2:4567");
         producer = new KafkaProducer(endpoint);
         producer.producer = Mockito.mock(Producer.class);
+        producer.partitioner = new DefaultPartitioner(null);
+        producer.workerPool = Executors.newSingleThreadExecutor(new ThreadFactory() {
+            public Thread newThread(Runnable r) {
+                workerThread = new Thread(r, "KafkaProducerTest worker");
+                return workerThread;
+            }
+        });
+
+        List<PartitionInfo> partitions = new ArrayList<PartitionInfo>();
+        for (int i = 0; i < 3; i++) {
+            partitions.add(new PartitionInfo("sometopic", i, null, null, null));
+        }
+        Mockito.when(producer.producer.partitionsFor(Matchers.anyString())).thenReturn(partitions);
+        // acknowledge the messages immediately
+        Mockito.when(producer.producer.send(Matchers.any(ProducerRecord.class), Matchers.any(Callback.class))).thenAnswer(new Answer<Object>() {
+            public Object answer(InvocationOnMock invocation) throws Throwable {
+                ((Callback) invocation.getArguments()[1]).onCompletion(null, null);
+                return null;
+            }
+        });
+    }
+
+    @After
+    public void shutdownWorkerPool() {
+        producer.workerPool.shutdownNow();
     }
 
     @Test
     public void testPropertyBuilder() throws Exception {
-        endpoint.setPartitioner("com.sksamuel.someclass");
+        endpoint.setRequestRequiredAcks((short) -1);
         Properties props = producer.getProps();
-        assertEquals("com.sksamuel.someclass", props.getProperty("partitioner.class"));
-        assertEquals("broker1:1234,broker2:4567", props.getProperty("metadata.broker.list"));
+        assertEquals("-1", props.getProperty("acks"));
+        assertEquals("broker1:1234,broker2:4567", props.getProperty("bootstrap.servers"));
     }
 
     @Test
@@ -62,9 +108,27 @@ public class KafkaProducerTest {
         Mockito.when(exchange.getIn()).thenReturn(in);
         in.setHeader(KafkaConstants.PARTITION_KEY, "4");
 
-        producer.process(exchange);
+        assertFalse(producer.process(exchange, callback));
+
+        Mockito.verify(producer.producer).send(Matchers.any(ProducerRecord.class), Matchers.any(Callback.class));
+        Mockito.verify(callback, Mockito.timeout(5000)).done(false);
+    }
+
+    @Test
+    @SuppressWarnings({"unchecked"})
+    public void processSendsGroupedExchanges() throws Exception {
+        endpoint.setTopic("sometopic");
+        Exchange first = Mockito.mock(Exchange.class);
+        Mockito.when(first.getIn()).thenReturn(new DefaultMessage());
+        Exchange second = Mockito.mock(Exchange.class);
+        Mockito.when(second.getIn()).thenReturn(new DefaultMessage());
+        Mockito.when(exchange.getProperty(Exchange.GROUPED_EXCHANGE)).thenReturn(Arrays.asList(first, second));
+
+        assertFalse(producer.process(exchange, callback));
 
-        Mockito.verify(producer.producer).send(Matchers.any(KeyedMessage.class));
+        Mockito.verify(producer.producer, Mockito.times(2)).send(Matchers.any(ProducerRecord.class), Matchers.any(Callback.class));
+        // the exchange is completed once when all has been sent
+        Mockito.verify(callback, Mockito.timeout(5000)).done(false);
     }
 
     @Test
@@ -74,7 +138,7 @@ public class KafkaProducerTest {
         in.setHeader(KafkaConstants.PARTITION_KEY, "4");
         in.setHeader(KafkaConstants.TOPIC, "anotherTopic");
 
-        producer.process(exchange);
+        producer.process(exchange, callback);
 
         verifySendMessage("4", "anotherTopic", "4");
     }
@@ -87,24 +151,29 @@ public class KafkaProducerTest {
         in.setHeader(KafkaConstants.TOPIC, "anotherTopic");
         in.setHeader(KafkaConstants.KEY, "someKey");
 
-        producer.process(exchange);
+        producer.process(exchange, callback);
 
         verifySendMessage("4", "anotherTopic", "someKey");
     }
 
-    @Test(expected = CamelException.class)
+    @Test
     public void processRequiresTopicInEndpointOrInHeader() throws Exception {
         endpoint.setTopic(null);
         Mockito.when(exchange.getIn()).thenReturn(in);
         in.setHeader(KafkaConstants.PARTITION_KEY, "4");
-        producer.process(exchange);
+        producer.process(exchange, callback);
+
+        Mockito.verify(exchange).setException(Matchers.any(CamelExchangeException.class));
+        Mockito.verify(callback).done(true);
     }
 
     @Test
     public void processDoesNotRequirePartitionHeader() throws Exception {
         endpoint.setTopic("sometopic");
         Mockito.when(exchange.getIn()).thenReturn(in);
-        producer.process(exchange);
+        producer.process(exchange, callback);
+
+        Mockito.verify(callback, Mockito.timeout(5000)).done(false);
     }
 
     @Test
@@ -113,7 +182,7 @@ public class KafkaProducerTest {
         Mockito.when(exchange.getIn()).thenReturn(in);
         in.setHeader(KafkaConstants.PARTITION_KEY, "4");
 
-        producer.process(exchange);
+        producer.process(exchange, callback);
 
         verifySendMessage("4", "someTopic", "4");
     }
@@ -124,11 +193,11 @@ public class KafkaProducerTest {
         Mockito.when(exchange.getIn()).thenReturn(in);
         in.setHeader(KafkaConstants.KEY, "someKey");
 
-        producer.process(exchange);
+        producer.process(exchange, callback);
 
         verifySendMessage("someKey", "someTopic", "someKey");
     }
-    
+
     @Test
     public void processSendMessageWithBridgeEndpoint() throws Exception {
         endpoint.setTopic("someTopic");
@@ -137,16 +206,92 @@ public class KafkaProducerTest {
         in.setHeader(KafkaConstants.TOPIC, "anotherTopic");
         in.setHeader(KafkaConstants.KEY, "someKey");
         
-        producer.process(exchange);
+        producer.process(exchange, callback);
         
         verifySendMessage("someKey", "someTopic", "someKey");
     }
 
+    @Test
+    @SuppressWarnings({"unchecked"})
+    public void processContinuesRoutingUsingWorkerPool() throws Exception {
+        endpoint.setTopic("sometopic");
+        Mockito.when(exchange.getIn()).thenReturn(in);
+        final AtomicReference<Thread> doneThread = new AtomicReference<Thread>();
+        final CountDownLatch latch = new CountDownLatch(1);
+        Mockito.doAnswer(new Answer<Object>() {
+            public Object answer(InvocationOnMock invocation) throws Throwable {
+                doneThread.set(Thread.currentThread());
+                latch.countDown();
+                return null;
+            }
+        }).when(callback).done(false);
+
+        assertFalse(producer.process(exchange, callback));
+
+        assertTrue(latch.await(5, TimeUnit.SECONDS));
+        assertSame(workerThread, doneThread.get());
+    }
+
+    @Test
+    @SuppressWarnings({"unchecked"})
+    public void processCompletesOnceWhenAcknowledgedTwice() throws Exception {
+        endpoint.setTopic("sometopic");
+        Mockito.when(exchange.getIn()).thenReturn(in);
+        Mockito.doAnswer(new Answer<Object>() {
+            public Object answer(InvocationOnMock invocation) throws Throwable {
+                Callback sendCallback = (Callback) invocation.getArguments()[1];
+                sendCallback.onCompletion(null, null);
+                sendCallback.onCompletion(null, new IllegalStateException("Acknowledged twice"));
+                return null;
+            }
+        }).when(producer.producer).send(Matchers.any(ProducerRecord.class), Matchers.any(Callback.class));
+
+        assertFalse(producer.process(exchange, callback));
+
+        Mockito.verify(callback, Mockito.timeout(5000)).done(false);
+        Thread.sleep(100);
+        Mockito.verify(callback).done(false);
+    }
+
+    @Test
+    @SuppressWarnings({"unchecked"})
+    public void processCompletesOnceWhenSendFails() throws Exception {
+        endpoint.setTopic("sometopic");
+        Exchange first = Mockito.mock(Exchange.class);
+        Mockito.when(first.getIn()).thenReturn(new DefaultMessage());
+        Exchange second = Mockito.mock(Exchange.class);
+        Mockito.when(second.getIn()).thenReturn(new DefaultMessage());
+        Exchange third = Mockito.mock(Exchange.class);
+        Mockito.when(third.getIn()).thenReturn(new DefaultMessage());
+        Mockito.when(exchange.getProperty(Exchange.GROUPED_EXCHANGE)).thenReturn(Arrays.asList(first, second, third));
+        // the first message is acknowledged, and sending the second fails without invoking the callback
+        final IllegalStateException cause = new IllegalStateException("Producer closed");
+        Mockito.doAnswer(new Answer<Object>() {
+            public Object answer(InvocationOnMock invocation) throws Throwable {
+                ((Callback) invocation.getArguments()[1]).onCompletion(null, null);
+                return null;
+            }
+        }).doThrow(cause).when(producer.producer).send(Matchers.any(ProducerRecord.class), Matchers.any(Callback.class));
+
+        assertFalse(producer.process(exchange, callback));
+
+        Mockito.verify(producer.producer, Mockito.times(2)).send(Matchers.any(ProducerRecord.class), Matchers.any(Callback.class));
+        Mockito.verify(exchange).setException(cause);
+        Mockito.verify(callback, Mockito.timeout(5000)).done(false);
+        Thread.sleep(100);
+        Mockito.verify(callback).done(false);
+    }
+
     @SuppressWarnings({"unchecked", "rawtypes"})
     protected void verifySendMessage(String partitionKey, String topic, String messageKey) {
-        ArgumentCaptor<KeyedMessage> captor = ArgumentCaptor.forClass(KeyedMessage.class);
-        Mockito.verify(producer.producer).send(captor.capture());
-        assertEquals(partitionKey, captor.getValue().partitionKey());
+        ArgumentCaptor<ProducerRecord> captor = ArgumentCaptor.forClass(ProducerRecord.class);
+        Mockito.verify(producer.producer).send(captor.capture(), Matchers.any(Callback.class));
+        if (partitionKey != null) {
+            // the partition is computed from the partition key by the partitioner
+            assertEquals(Integer.valueOf(producer.partitioner.partition(partitionKey, 3)), captor.getValue().partition());
+        } else {
+            assertEquals(null, captor.getValue().partition());
+        }
         assertEquals(messageKey, captor.getValue().key());
         assertEquals(topic, captor.getValue().topic());
     }
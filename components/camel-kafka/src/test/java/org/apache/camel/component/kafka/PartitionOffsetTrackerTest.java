@@ -0,0 +1,96 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.camel.component.kafka;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class PartitionOffsetTrackerTest {
+
+    private PartitionOffsetTracker tracker = new PartitionOffsetTracker();
+
+    @Test
+    public void nothingToCommitBeforeDispatched() throws Exception {
+        assertEquals(-1, tracker.getOffsetToCommit());
+    }
+
+    @Test
+    public void commitsUpToHighestContiguousProcessedOffset() throws Exception {
+        for (long offset = 10; offset < 15; offset++) {
+            tracker.dispatched(offset);
+        }
+        // nothing processed so the first dispatched offset is committed
+        assertEquals(10, tracker.getOffsetToCommit());
+
+        tracker.processed(10);
+        tracker.processed(11);
+        tracker.processed(13);
+        assertEquals(12, tracker.getOffsetToCommit());
+        assertEquals(2, tracker.getInProgress());
+
+        tracker.processed(12);
+        tracker.processed(14);
+        assertEquals(15, tracker.getOffsetToCommit());
+    }
+
+    @Test
+    public void onlyCommitsNewOffsets() throws Exception {
+        tracker.dispatched(5);
+        tracker.processed(5);
+        assertEquals(6, tracker.getOffsetToCommit());
+        tracker.committed(6);
+        assertEquals(-1, tracker.getOffsetToCommit());
+
+        tracker.dispatched(6);
+        assertEquals(-1, tracker.getOffsetToCommit());
+        tracker.processed(6);
+        assertEquals(7, tracker.getOffsetToCommit());
+    }
+
+    @Test
+    public void redispatchedOffsetDoesNotMoveBackwards() throws Exception {
+        tracker.dispatched(20);
+        tracker.dispatched(21);
+        tracker.processed(20);
+        tracker.processed(21);
+        tracker.committed(tracker.getOffsetToCommit());
+
+        // consumed again after a rebalance
+        tracker.dispatched(20);
+        tracker.processed(20);
+        assertEquals(-1, tracker.getOffsetToCommit());
+        assertEquals(22, tracker.getCommittedOffset());
+    }
+
+    @Test
+    public void revokedPartitionHasNothingToCommit() throws Exception {
+        tracker.dispatched(30);
+        tracker.dispatched(31);
+        tracker.processed(30);
+        assertEquals(31, tracker.getOffsetToCommit());
+
+        tracker.revoke();
+        assertTrue(tracker.isRevoked());
+        assertEquals(-1, tracker.getOffsetToCommit());
+
+        // the messages in progress may still complete
+        tracker.processed(31);
+        assertEquals(-1, tracker.getOffsetToCommit());
+    }
+}
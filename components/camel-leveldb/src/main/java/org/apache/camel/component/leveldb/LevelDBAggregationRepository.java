@@ -18,13 +18,18 @@ package org.apache.camel.component.leveldb;
 
 import java.io.IOException;
 import java.io.UnsupportedEncodingException;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
 import java.util.Collections;
+import java.util.HashMap;
 import java.util.LinkedHashSet;
 import java.util.Set;
 import java.util.concurrent.TimeUnit;
 
 import org.apache.camel.CamelContext;
 import org.apache.camel.Exchange;
+import org.apache.camel.impl.BinaryExchangeCodec;
+import org.apache.camel.spi.OptimisticLockingAggregationRepository;
 import org.apache.camel.spi.RecoverableAggregationRepository;
 import org.apache.camel.support.ServiceSupport;
 import org.apache.camel.util.IOHelper;
@@ -40,10 +45,15 @@ import static org.fusesource.leveldbjni.JniDBFactory.asString;
 
 /**
  * An instance of {@link org.apache.camel.spi.AggregationRepository} which is backed by a {@link LevelDBFile}.
+ * <p/>
+ * Optimistic locking is supported by storing the stored data of the exchange returned from
+ * {@link #get(CamelContext, String)} as an exchange property, which is compared with the current data on update.
  */
-public class LevelDBAggregationRepository extends ServiceSupport implements RecoverableAggregationRepository {
+public class LevelDBAggregationRepository extends ServiceSupport implements RecoverableAggregationRepository, OptimisticLockingAggregationRepository {
 
     private static final Logger LOG = LoggerFactory.getLogger(LevelDBAggregationRepository.class);
+    private static final String STORED_DATA = "CamelLevelDBAggregationStoredData";
+    private final Object writeLock = new Object();
     private LevelDBFile levelDBFile;
     private String persistentFileName;
     private String repositoryName;
@@ -54,6 +64,10 @@ public class LevelDBAggregationRepository extends ServiceSupport implements Reco
     private boolean useRecovery = true;
     private int maximumRedeliveries;
     private String deadLetterUri;
+    private boolean groupCommit;
+    private int maxBatchSize = 1000;
+    private long maxBatchDelay;
+    private LevelDBWriteBatcher writeBatcher;
 
     /**
      * Creates an aggregation repository
@@ -98,33 +112,64 @@ public class LevelDBAggregationRepository extends ServiceSupport implements Reco
         this.repositoryName = repositoryName;
     }
 
-    public Exchange add(final CamelContext camelContext, final String key, final Exchange exchange) {
-        LOG.debug("Adding key [{}] -> {}", key, exchange);
-        try {
-            byte[] lDbKey = keyBuilder(repositoryName, key);
-            final Buffer exchangeBuffer = codec.marshallExchange(camelContext, exchange);
-
-            byte[] rc = null;
-            if (isReturnOldExchange()) {
-                rc = levelDBFile.getDb().get(lDbKey);
-            }
+    /**
+     * The data stored for a key, which is kept as exchange property for optimistic locking.
+     */
+    private static final class StoredData {
+        private final byte[] key;
+        private final byte[] data;
 
-            LOG.trace("Adding key index {} for repository {}", key, repositoryName);
-            levelDBFile.getDb().put(lDbKey, exchangeBuffer.toByteArray(), levelDBFile.getWriteOptions());
-            LOG.trace("Added key index {}", key);
+        private StoredData(byte[] key, byte[] data) {
+            this.key = key;
+            this.data = data;
+        }
+    }
 
-            if (rc == null) {
-                return null;
-            }
+    public Exchange add(CamelContext camelContext, String key, Exchange oldExchange, Exchange newExchange) throws OptimisticLockingException {
+        // the exchange from get has the data we read, which must still be stored, or else nothing may be stored
+        byte[] expected = oldExchange != null ? getStoredData(oldExchange, keyBuilder(repositoryName, key)) : null;
+        try {
+            return doAdd(camelContext, key, newExchange, true, expected);
+        } catch (LevelDBWriteBatcher.ConflictException e) {
+            LOG.trace("Optimistic locking failure adding key {} to repository {}: {}", new Object[]{key, repositoryName, e.getMessage()});
+            throw new OptimisticLockingException();
+        } catch (IOException e) {
+            throw new RuntimeException("Error adding to repository " + repositoryName + " with key " + key, e);
+        }
+    }
 
-            // only return old exchange if enabled
-            if (isReturnOldExchange()) {
-                return codec.unmarshallExchange(camelContext, new Buffer(rc));
-            }
+    public Exchange add(final CamelContext camelContext, final String key, final Exchange exchange) {
+        try {
+            return doAdd(camelContext, key, exchange, false, null);
         } catch (IOException e) {
             throw new RuntimeException("Error adding to repository " + repositoryName + " with key " + key, e);
         }
+    }
 
+    protected Exchange doAdd(CamelContext camelContext, String key, Exchange exchange, boolean optimistic, byte[] expected) throws IOException {
+        LOG.debug("Adding key [{}] -> {}", key, exchange);
+        byte[] lDbKey = keyBuilder(repositoryName, key);
+        final byte[] data = codec.marshallExchange(camelContext, exchange).toByteArray();
+
+        byte[] rc = null;
+        if (isReturnOldExchange()) {
+            rc = expected != null ? expected : levelDBFile.getDb().get(lDbKey);
+        }
+
+        LOG.trace("Adding key index {} for repository {}", key, repositoryName);
+        LevelDBWriteBatcher.Writes writes = new LevelDBWriteBatcher.Writes().put(lDbKey, data);
+        if (optimistic) {
+            writes.expect(lDbKey, expected);
+        }
+        write(writes);
+        // remember the stored data, in case the exchange is updated or removed using optimistic locking
+        exchange.setProperty(STORED_DATA, new StoredData(lDbKey, data));
+        LOG.trace("Added key index {}", key);
+
+        // only return old exchange if enabled
+        if (rc != null && isReturnOldExchange()) {
+            return codec.unmarshallExchange(camelContext, new Buffer(rc));
+        }
         return null;
     }
 
@@ -138,6 +183,7 @@ public class LevelDBAggregationRepository extends ServiceSupport implements Reco
 
             if (rc != null) {
                 answer = codec.unmarshallExchange(camelContext, new Buffer(rc));
+                answer.setProperty(STORED_DATA, new StoredData(lDbKey, rc));
             }
         } catch (IOException e) {
             throw new RuntimeException("Error getting key " + key + " from repository " + repositoryName, e);
@@ -147,36 +193,37 @@ public class LevelDBAggregationRepository extends ServiceSupport implements Reco
         return answer;
     }
 
-    public void remove(final CamelContext camelContext, final String key, final Exchange exchange) {
+    public void remove(final CamelContext camelContext, final String key, final Exchange exchange) throws OptimisticLockingException {
         LOG.debug("Removing key [{}]", key);
 
         try {
             byte[] lDbKey = keyBuilder(repositoryName, key);
+            // the stored data is only present if the exchange was from get or add, and is then expected to be unchanged
+            byte[] expected = getStoredData(exchange, lDbKey);
+            if (expected != null) {
+                exchange.removeProperty(STORED_DATA);
+            }
             final String exchangeId = exchange.getExchangeId();
             final Buffer exchangeBuffer = codec.marshallExchange(camelContext, exchange);
 
             // remove the exchange
-            byte[] rc = levelDBFile.getDb().get(lDbKey);
+            byte[] rc = expected != null ? expected : levelDBFile.getDb().get(lDbKey);
 
             if (rc != null) {
-                WriteBatch batch = levelDBFile.getDb().createWriteBatch();
-                try {
-                    batch.delete(lDbKey);
-                    LOG.trace("Removed key index {} -> {}", key, new Buffer(rc));
-
-                    // add exchange to confirmed index
-                    byte[] confirmedLDBKey = keyBuilder(getRepositoryNameCompleted(), exchangeId);
-                    batch.put(confirmedLDBKey, exchangeBuffer.toByteArray());
-                    LOG.trace("Added confirm index {} for repository {}", exchangeId, getRepositoryNameCompleted());
-
-                    levelDBFile.getDb().write(batch, levelDBFile.getWriteOptions());
-                } finally {
-                    batch.close();
+                // remove the exchange and add it to the confirmed index atomically
+                byte[] confirmedLDBKey = keyBuilder(getRepositoryNameCompleted(), exchangeId);
+                LevelDBWriteBatcher.Writes writes = new LevelDBWriteBatcher.Writes().delete(lDbKey).put(confirmedLDBKey, exchangeBuffer.toByteArray());
+                if (expected != null) {
+                    writes.expect(lDbKey, expected);
                 }
+                write(writes);
+                LOG.trace("Removed key index {} and added confirm index {} for repository {}", new Object[]{key, exchangeId, getRepositoryNameCompleted()});
             } else {
                 LOG.warn("Unable to remove key {} from repository {}: Not Found", key, repositoryName);
             }
-
+        } catch (LevelDBWriteBatcher.ConflictException e) {
+            LOG.trace("Optimistic locking failure removing key {} from repository {}: {}", new Object[]{key, repositoryName, e.getMessage()});
+            throw new OptimisticLockingException();
         } catch (IOException e) {
             throw new RuntimeException("Error removing key " + key + " from repository " + repositoryName, e);
         }
@@ -190,7 +237,15 @@ public class LevelDBAggregationRepository extends ServiceSupport implements Reco
         byte[] rc = levelDBFile.getDb().get(confirmedLDBKey);
 
         if (rc != null) {
-            levelDBFile.getDb().delete(confirmedLDBKey);
+            if (writeBatcher != null) {
+                try {
+                    writeBatcher.write(new LevelDBWriteBatcher.Writes().delete(confirmedLDBKey));
+                } catch (IOException e) {
+                    throw new RuntimeException("Error confirming exchangeId " + exchangeId + " from repository " + repositoryName, e);
+                }
+            } else {
+                levelDBFile.getDb().delete(confirmedLDBKey);
+            }
             LOG.trace("Removed confirm index {} -> {}", exchangeId, new Buffer(rc));
         } else {
             LOG.warn("Unable to confirm exchangeId [{}]", exchangeId + " from repository " + repositoryName + ": Not Found");
@@ -330,10 +385,53 @@ public class LevelDBAggregationRepository extends ServiceSupport implements Reco
         return repositoryName;
     }
 
-    private String getRepositoryNameCompleted() {
+    String getRepositoryNameCompleted() {
         return repositoryName + "-completed";
     }
 
+    LevelDBCamelCodec getCodec() {
+        return codec;
+    }
+
+    /**
+     * Gets the data stored for the key when the exchange was read or added, if the exchange is from this repository.
+     */
+    private static byte[] getStoredData(Exchange exchange, byte[] lDbKey) {
+        Object stored = exchange.getProperty(STORED_DATA);
+        if (stored instanceof StoredData && Arrays.equals(((StoredData) stored).key, lDbKey)) {
+            return ((StoredData) stored).data;
+        }
+        return null;
+    }
+
+    LevelDBWriteBatcher getWriteBatcher() {
+        return writeBatcher;
+    }
+
+    /**
+     * Writes the writes atomically, using group commit if enabled.
+     *
+     * @throws LevelDBWriteBatcher.ConflictException is thrown if an expected value has changed
+     */
+    void write(LevelDBWriteBatcher.Writes writes) throws IOException {
+        if (writeBatcher != null) {
+            writeBatcher.write(writes);
+            return;
+        }
+
+        // the expected values must be checked and the writes written without any other writes in between
+        synchronized (writeLock) {
+            writes.checkExpected(levelDBFile.getDb(), Collections.<ByteBuffer, byte[]>emptyMap());
+            WriteBatch batch = levelDBFile.getDb().createWriteBatch();
+            try {
+                writes.applyTo(batch, new HashMap<ByteBuffer, byte[]>());
+                levelDBFile.getDb().write(batch, levelDBFile.getWriteOptions());
+            } finally {
+                batch.close();
+            }
+        }
+    }
+
     public void setRepositoryName(String repositoryName) {
         this.repositoryName = repositoryName;
     }
@@ -346,6 +444,56 @@ public class LevelDBAggregationRepository extends ServiceSupport implements Reco
         this.sync = sync;
     }
 
+    public BinaryExchangeCodec getBinaryCodec() {
+        return codec.getBinaryCodec();
+    }
+
+    /**
+     * To store the exchanges using the compact binary format of the given codec instead of Java serialization.
+     * Exchanges already stored using Java serialization can still be read.
+     */
+    public void setBinaryCodec(BinaryExchangeCodec binaryCodec) {
+        codec.setBinaryCodec(binaryCodec);
+    }
+
+    public boolean isGroupCommit() {
+        return groupCommit;
+    }
+
+    /**
+     * Whether to coalesce the writes from concurrent add, remove and confirm calls into a single batch,
+     * which is written (and synced if enabled) at once. Each call still waits until its writes has been written.
+     * <p/>
+     * The aggregator only calls add and remove concurrently when optimistic locking is enabled, as otherwise
+     * it holds a lock while aggregating. Without optimistic locking only the confirm calls can be coalesced.
+     */
+    public void setGroupCommit(boolean groupCommit) {
+        this.groupCommit = groupCommit;
+    }
+
+    public int getMaxBatchSize() {
+        return maxBatchSize;
+    }
+
+    /**
+     * The maximum number of writes to coalesce into a single batch when using group commit.
+     */
+    public void setMaxBatchSize(int maxBatchSize) {
+        this.maxBatchSize = maxBatchSize;
+    }
+
+    public long getMaxBatchDelay() {
+        return maxBatchDelay;
+    }
+
+    /**
+     * The maximum time in millis to wait for more writes before writing a batch when using group commit.
+     * Is default zero to write the writes which have been queued while the previous batch was written.
+     */
+    public void setMaxBatchDelay(long maxBatchDelay) {
+        this.maxBatchDelay = maxBatchDelay;
+    }
+
     public boolean isReturnOldExchange() {
         return returnOldExchange;
     }
@@ -413,6 +561,13 @@ public class LevelDBAggregationRepository extends ServiceSupport implements Reco
 
         ServiceHelper.startService(levelDBFile);
 
+        if (groupCommit) {
+            writeBatcher = new LevelDBWriteBatcher(levelDBFile);
+            writeBatcher.setMaxBatchSize(maxBatchSize);
+            writeBatcher.setMaxBatchDelay(maxBatchDelay);
+            ServiceHelper.startService(writeBatcher);
+        }
+
         // log number of existing exchanges
         int current = size(getRepositoryName());
         int completed = size(getRepositoryNameCompleted());
@@ -431,6 +586,9 @@ public class LevelDBAggregationRepository extends ServiceSupport implements Reco
 
     @Override
     protected void doStop() throws Exception {
+        // write any pending writes before stopping the file
+        ServiceHelper.stopService(writeBatcher);
+        writeBatcher = null;
         ServiceHelper.stopService(levelDBFile);
     }
 
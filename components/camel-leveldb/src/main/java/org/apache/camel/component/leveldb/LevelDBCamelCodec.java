@@ -21,6 +21,7 @@ import java.io.IOException;
 import org.apache.camel.CamelContext;
 import org.apache.camel.Endpoint;
 import org.apache.camel.Exchange;
+import org.apache.camel.impl.BinaryExchangeCodec;
 import org.apache.camel.impl.DefaultExchange;
 import org.apache.camel.impl.DefaultExchangeHolder;
 import org.fusesource.hawtbuf.Buffer;
@@ -37,6 +38,7 @@ public final class LevelDBCamelCodec {
 
     private Codec<String> keyCodec = new StringCodec();
     private Codec<DefaultExchangeHolder> exchangeCodec = new ObjectCodec<DefaultExchangeHolder>();
+    private BinaryExchangeCodec binaryCodec;
 
     public Buffer marshallKey(String key) throws IOException {
         DataByteArrayOutputStream baos = new DataByteArrayOutputStream();
@@ -67,13 +69,23 @@ public final class LevelDBCamelCodec {
         if (exchange.getFromEndpoint() != null) {
             DefaultExchangeHolder.addProperty(pe, "CamelAggregatedFromEndpoint", exchange.getFromEndpoint().getEndpointUri());
         }
+        if (binaryCodec != null) {
+            return new Buffer(binaryCodec.marshal(pe));
+        }
         exchangeCodec.encode(pe, baos);
         return baos.toBuffer();
     }
 
     public Exchange unmarshallExchange(CamelContext camelContext, Buffer buffer) throws IOException {
-        DataByteArrayInputStream bais = new DataByteArrayInputStream(buffer);
-        DefaultExchangeHolder pe = exchangeCodec.decode(bais);
+        DefaultExchangeHolder pe;
+        byte[] data = buffer.toByteArray();
+        if (BinaryExchangeCodec.isBinary(data)) {
+            BinaryExchangeCodec codec = binaryCodec != null ? binaryCodec : new BinaryExchangeCodec();
+            pe = codec.unmarshal(camelContext, data);
+        } else {
+            DataByteArrayInputStream bais = new DataByteArrayInputStream(buffer);
+            pe = exchangeCodec.decode(bais);
+        }
         Exchange answer = new DefaultExchange(camelContext);
         DefaultExchangeHolder.unmarshal(answer, pe);
         // restore the from endpoint
@@ -87,4 +99,16 @@ public final class LevelDBCamelCodec {
         return answer;
     }
 
+    public BinaryExchangeCodec getBinaryCodec() {
+        return binaryCodec;
+    }
+
+    /**
+     * To write the exchanges using the compact binary format of the given codec instead of Java serialization.
+     * Exchanges written in either format can be read.
+     */
+    public void setBinaryCodec(BinaryExchangeCodec binaryCodec) {
+        this.binaryCodec = binaryCodec;
+    }
+
 }
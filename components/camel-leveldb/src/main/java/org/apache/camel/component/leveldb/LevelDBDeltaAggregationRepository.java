@@ -0,0 +1,202 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.camel.component.leveldb;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import org.apache.camel.CamelContext;
+import org.apache.camel.Exchange;
+import org.apache.camel.spi.DeltaAggregationRepository;
+import org.apache.camel.util.IOHelper;
+import org.fusesource.hawtbuf.Buffer;
+import org.iq80.leveldb.DBIterator;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import static org.fusesource.leveldbjni.JniDBFactory.asString;
+
+/**
+ * A {@link LevelDBAggregationRepository} which also supports {@link DeltaAggregationRepository}, where each
+ * incoming exchange is stored as a delta, so the aggregated exchange is not stored on each aggregation.
+ * <p/>
+ * The deltas are stored in the repository with the name of this repository with the <tt>-deltas</tt> suffix.
+ * When a group is completed its deltas are removed, and the aggregated exchange is added to the completed
+ * repository in the same write, so recovery works as with {@link LevelDBAggregationRepository}.
+ */
+public class LevelDBDeltaAggregationRepository extends LevelDBAggregationRepository implements DeltaAggregationRepository {
+
+    private static final Logger LOG = LoggerFactory.getLogger(LevelDBDeltaAggregationRepository.class);
+    // the number of deltas per group, which is used as sequence number for the next delta
+    private final ConcurrentMap<String, Integer> sizes = new ConcurrentHashMap<String, Integer>();
+
+    public LevelDBDeltaAggregationRepository() {
+    }
+
+    public LevelDBDeltaAggregationRepository(String repositoryName) {
+        super(repositoryName);
+    }
+
+    public LevelDBDeltaAggregationRepository(String repositoryName, String persistentFileName) {
+        super(repositoryName, persistentFileName);
+    }
+
+    public LevelDBDeltaAggregationRepository(String repositoryName, LevelDBFile levelDBFile) {
+        super(repositoryName, levelDBFile);
+    }
+
+    public int append(CamelContext camelContext, String key, Exchange exchange) {
+        LOG.debug("Appending key [{}] -> {}", key, exchange);
+        try {
+            Integer size = sizes.get(key);
+            if (size == null) {
+                // we may have been restarted so count the existing deltas
+                size = getDeltaKeys(key).size();
+            }
+            final Buffer exchangeBuffer = getCodec().marshallExchange(camelContext, exchange);
+            byte[] deltaKey = deltaKeyBuilder(key, size);
+            write(new LevelDBWriteBatcher.Writes().put(deltaKey, exchangeBuffer.toByteArray()));
+            sizes.put(key, size + 1);
+            LOG.trace("Appended delta {} for key {} in repository {}", new Object[]{size, key, getRepositoryNameDeltas()});
+            return size + 1;
+        } catch (IOException e) {
+            throw new RuntimeException("Error appending to repository " + getRepositoryNameDeltas() + " with key " + key, e);
+        }
+    }
+
+    public List<Exchange> getDeltas(CamelContext camelContext, String key) {
+        List<Exchange> answer = new ArrayList<Exchange>();
+
+        DBIterator it = getLevelDBFile().getDb().iterator();
+        try {
+            String prefix = getRepositoryNameDeltas() + '\0' + key + '\0';
+            for (it.seek(keyBuilder(getRepositoryNameDeltas(), key + '\0')); it.hasNext(); it.next()) {
+                if (!asString(it.peekNext().getKey()).startsWith(prefix)) {
+                    break;
+                }
+                answer.add(getCodec().unmarshallExchange(camelContext, new Buffer(it.peekNext().getValue())));
+            }
+        } catch (IOException e) {
+            throw new RuntimeException("Error getting deltas for key " + key + " from repository " + getRepositoryNameDeltas(), e);
+        } finally {
+            // Make sure you close the iterator to avoid resource leaks.
+            IOHelper.close(it);
+        }
+
+        LOG.debug("Getting deltas for key [{}] -> {} deltas", key, answer.size());
+        return answer;
+    }
+
+    public void removeDeltas(CamelContext camelContext, String key, Exchange aggregated) {
+        LOG.debug("Removing deltas for key [{}]", key);
+        try {
+            final String exchangeId = aggregated.getExchangeId();
+            final Buffer exchangeBuffer = getCodec().marshallExchange(camelContext, aggregated);
+
+            // remove the deltas and add the aggregated exchange to confirmed index in the same write
+            LevelDBWriteBatcher.Writes writes = new LevelDBWriteBatcher.Writes();
+            for (byte[] deltaKey : getDeltaKeys(key)) {
+                writes.delete(deltaKey);
+            }
+            byte[] confirmedLDBKey = keyBuilder(getRepositoryNameCompleted(), exchangeId);
+            writes.put(confirmedLDBKey, exchangeBuffer.toByteArray());
+            write(writes);
+            sizes.remove(key);
+            LOG.trace("Removed deltas for key {} and added confirm index {} for repository {}", new Object[]{key, exchangeId, getRepositoryNameCompleted()});
+        } catch (IOException e) {
+            throw new RuntimeException("Error removing deltas for key " + key + " from repository " + getRepositoryNameDeltas(), e);
+        }
+    }
+
+    public Set<String> getDeltaKeys() {
+        final Set<String> keys = new LinkedHashSet<String>();
+
+        // interval task could potentially be running while we are shutting down so check for that
+        if (!isRunAllowed()) {
+            return null;
+        }
+
+        DBIterator it = getLevelDBFile().getDb().iterator();
+        try {
+            String prefix = getRepositoryNameDeltas() + '\0';
+            for (it.seek(keyBuilder(getRepositoryNameDeltas(), "")); it.hasNext(); it.next()) {
+                if (!isRunAllowed()) {
+                    break;
+                }
+                String keyBuffer = asString(it.peekNext().getKey());
+                if (!keyBuffer.startsWith(prefix)) {
+                    break;
+                }
+                // the key is followed by the sequence number of the delta
+                String key = keyBuffer.substring(prefix.length(), keyBuffer.lastIndexOf('\0'));
+                LOG.trace("getDeltaKey [{}]", key);
+                keys.add(key);
+            }
+        } finally {
+            // Make sure you close the iterator to avoid resource leaks.
+            IOHelper.close(it);
+        }
+
+        return Collections.unmodifiableSet(keys);
+    }
+
+    private List<byte[]> getDeltaKeys(String key) {
+        List<byte[]> answer = new ArrayList<byte[]>();
+
+        DBIterator it = getLevelDBFile().getDb().iterator();
+        try {
+            String prefix = getRepositoryNameDeltas() + '\0' + key + '\0';
+            for (it.seek(keyBuilder(getRepositoryNameDeltas(), key + '\0')); it.hasNext(); it.next()) {
+                byte[] deltaKey = it.peekNext().getKey();
+                if (!asString(deltaKey).startsWith(prefix)) {
+                    break;
+                }
+                answer.add(deltaKey);
+            }
+        } finally {
+            // Make sure you close the iterator to avoid resource leaks.
+            IOHelper.close(it);
+        }
+        return answer;
+    }
+
+    private String getRepositoryNameDeltas() {
+        return getRepositoryName() + "-deltas";
+    }
+
+    private byte[] deltaKeyBuilder(String key, int sequence) {
+        // pad the sequence number so the deltas are sorted in the order they were appended
+        String seq = Integer.toString(sequence);
+        StringBuilder sb = new StringBuilder(key.length() + 11).append(key).append('\0');
+        for (int i = seq.length(); i < 10; i++) {
+            sb.append('0');
+        }
+        return keyBuilder(getRepositoryNameDeltas(), sb.append(seq).toString());
+    }
+
+    @Override
+    protected void doStop() throws Exception {
+        sizes.clear();
+        super.doStop();
+    }
+}
@@ -0,0 +1,327 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.camel.component.leveldb;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.apache.camel.support.ServiceSupport;
+import org.apache.camel.util.ObjectHelper;
+import org.iq80.leveldb.DB;
+import org.iq80.leveldb.WriteBatch;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import static org.fusesource.leveldbjni.JniDBFactory.asString;
+
+/**
+ * Writes to a {@link LevelDBFile} using group commit.
+ * <p/>
+ * The writes from concurrent callers are queued and written by a background thread, which coalesces
+ * all the queued writes into a single {@link WriteBatch}, so there is only one write (and one sync
+ * if the {@link LevelDBFile} is configured to sync) for the whole batch. The batch is flushed when it
+ * has reached the maximum batch size, or when the maximum batch delay has elapsed. The default delay
+ * of zero flushes whatever has been queued while the previous batch was written.
+ * <p/>
+ * The writes from each caller are applied atomically, and only if the expected values of the caller
+ * are still current, which allows compare-and-set updates such as optimistic locking. As the callers
+ * wait for their writes to be written, there is only something to coalesce when several threads
+ * write at the same time.
+ */
+public class LevelDBWriteBatcher extends ServiceSupport {
+
+    private static final Logger LOG = LoggerFactory.getLogger(LevelDBWriteBatcher.class);
+
+    private final LevelDBFile levelDBFile;
+    private final BlockingQueue<WriteRequest> queue = new LinkedBlockingQueue<WriteRequest>();
+    private final AtomicLong batchCounter = new AtomicLong();
+    private final AtomicLong writeCounter = new AtomicLong();
+    private int maxBatchSize = 1000;
+    private long maxBatchDelay;
+    private volatile boolean running;
+    private Thread flusher;
+
+    /**
+     * Thrown when the writes are not written, as the current value of a key differs from the expected value.
+     */
+    public static class ConflictException extends IOException {
+        private static final long serialVersionUID = 1L;
+
+        public ConflictException(String message) {
+            super(message);
+        }
+    }
+
+    /**
+     * The writes which are applied atomically.
+     */
+    public static final class Writes {
+        private final List<byte[]> keys = new ArrayList<byte[]>(2);
+        private final List<byte[]> values = new ArrayList<byte[]>(2);
+        private List<byte[]> expectedKeys;
+        private List<byte[]> expectedValues;
+
+        public Writes put(byte[] key, byte[] value) {
+            keys.add(key);
+            values.add(value);
+            return this;
+        }
+
+        public Writes delete(byte[] key) {
+            keys.add(key);
+            values.add(null);
+            return this;
+        }
+
+        /**
+         * Only apply the writes if the current value of the key is the expected value.
+         *
+         * @param key   the key
+         * @param value the expected value, or <tt>null</tt> if the key is expected to not exist
+         */
+        public Writes expect(byte[] key, byte[] value) {
+            if (expectedKeys == null) {
+                expectedKeys = new ArrayList<byte[]>(1);
+                expectedValues = new ArrayList<byte[]>(1);
+            }
+            expectedKeys.add(key);
+            expectedValues.add(value);
+            return this;
+        }
+
+        /**
+         * Checks the expected values against the values written earlier in the same batch, or else in the database.
+         */
+        void checkExpected(DB db, Map<ByteBuffer, byte[]> written) throws ConflictException {
+            if (expectedKeys == null) {
+                return;
+            }
+            for (int i = 0; i < expectedKeys.size(); i++) {
+                ByteBuffer key = ByteBuffer.wrap(expectedKeys.get(i));
+                byte[] current = written.containsKey(key) ? written.get(key) : db.get(expectedKeys.get(i));
+                if (!Arrays.equals(current, expectedValues.get(i))) {
+                    throw new ConflictException("The value of key " + asString(expectedKeys.get(i)) + " has changed");
+                }
+            }
+        }
+
+        void applyTo(WriteBatch batch, Map<ByteBuffer, byte[]> written) {
+            for (int i = 0; i < keys.size(); i++) {
+                byte[] value = values.get(i);
+                if (value != null) {
+                    batch.put(keys.get(i), value);
+                } else {
+                    batch.delete(keys.get(i));
+                }
+                written.put(ByteBuffer.wrap(keys.get(i)), value);
+            }
+        }
+    }
+
+    private static final class WriteRequest {
+        private final Writes writes;
+        private final CountDownLatch latch = new CountDownLatch(1);
+        private volatile Exception cause;
+
+        private WriteRequest(Writes writes) {
+            this.writes = writes;
+        }
+
+        private void done(Exception cause) {
+            this.cause = cause;
+            latch.countDown();
+        }
+    }
+
+    public LevelDBWriteBatcher(LevelDBFile levelDBFile) {
+        ObjectHelper.notNull(levelDBFile, "levelDBFile");
+        this.levelDBFile = levelDBFile;
+    }
+
+    public int getMaxBatchSize() {
+        return maxBatchSize;
+    }
+
+    /**
+     * The maximum number of callers to coalesce into a single batch.
+     */
+    public void setMaxBatchSize(int maxBatchSize) {
+        this.maxBatchSize = maxBatchSize;
+    }
+
+    public long getMaxBatchDelay() {
+        return maxBatchDelay;
+    }
+
+    /**
+     * The maximum time in millis to wait for more writes before flushing a batch which is not full.
+     */
+    public void setMaxBatchDelay(long maxBatchDelay) {
+        this.maxBatchDelay = maxBatchDelay;
+    }
+
+    /**
+     * Number of batches written
+     */
+    public long getBatchCount() {
+        return batchCounter.get();
+    }
+
+    /**
+     * Number of writes written, where the writes from one caller counts as one
+     */
+    public long getWriteCount() {
+        return writeCounter.get();
+    }
+
+    /**
+     * Writes the writes and waits until they have been written.
+     *
+     * @param writes the writes
+     * @throws ConflictException is thrown if the writes were not written as an expected value has changed
+     * @throws IOException is thrown if the writes could not be written
+     */
+    public void write(Writes writes) throws IOException {
+        if (!running) {
+            throw new IllegalStateException("LevelDBWriteBatcher is not started");
+        }
+        WriteRequest request = new WriteRequest(writes);
+        queue.add(request);
+        // if we were stopped meanwhile the request may not be written by the flusher
+        if (!running && queue.remove(request)) {
+            throw new IllegalStateException("LevelDBWriteBatcher is not started");
+        }
+
+        try {
+            request.latch.await();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted while waiting for writes to be written to " + levelDBFile.getFile(), e);
+        }
+        if (request.cause instanceof IOException) {
+            throw (IOException) request.cause;
+        } else if (request.cause != null) {
+            throw new IOException("Error writing to " + levelDBFile.getFile(), request.cause);
+        }
+    }
+
+    @Override
+    protected void doStart() throws Exception {
+        if (maxBatchSize <= 0) {
+            throw new IllegalArgumentException("MaxBatchSize must be positive, was: " + maxBatchSize);
+        }
+        running = true;
+        flusher = new Thread(new Runnable() {
+            public void run() {
+                flushQueue();
+            }
+        }, "LevelDBWriteBatcher[" + levelDBFile.getFile() + "]");
+        flusher.setDaemon(true);
+        flusher.start();
+    }
+
+    @Override
+    protected void doStop() throws Exception {
+        running = false;
+        if (flusher != null) {
+            // the flusher writes the remaining queued writes before it terminates
+            flusher.join();
+            flusher = null;
+        }
+    }
+
+    private void flushQueue() {
+        List<WriteRequest> batch = new ArrayList<WriteRequest>();
+        while (running || !queue.isEmpty()) {
+            try {
+                WriteRequest first = queue.poll(100, TimeUnit.MILLISECONDS);
+                if (first == null) {
+                    continue;
+                }
+                batch.add(first);
+                queue.drainTo(batch, maxBatchSize - batch.size());
+
+                if (maxBatchDelay > 0) {
+                    long deadline = System.currentTimeMillis() + maxBatchDelay;
+                    while (batch.size() < maxBatchSize) {
+                        long remaining = deadline - System.currentTimeMillis();
+                        WriteRequest next = remaining > 0 ? queue.poll(remaining, TimeUnit.MILLISECONDS) : null;
+                        if (next == null) {
+                            break;
+                        }
+                        batch.add(next);
+                        queue.drainTo(batch, maxBatchSize - batch.size());
+                    }
+                }
+            } catch (InterruptedException e) {
+                LOG.debug("Interrupted while waiting for writes, flushing the writes queued");
+            }
+
+            if (!batch.isEmpty()) {
+                flush(batch);
+                batch.clear();
+            }
+        }
+    }
+
+    private void flush(List<WriteRequest> batch) {
+        Exception cause = null;
+        // the requests which are not written as their expected values have changed
+        Map<WriteRequest, ConflictException> conflicts = null;
+        try {
+            DB db = levelDBFile.getDb();
+            WriteBatch writeBatch = db.createWriteBatch();
+            try {
+                Map<ByteBuffer, byte[]> written = new HashMap<ByteBuffer, byte[]>();
+                for (WriteRequest request : batch) {
+                    try {
+                        request.writes.checkExpected(db, written);
+                    } catch (ConflictException e) {
+                        if (conflicts == null) {
+                            conflicts = new HashMap<WriteRequest, ConflictException>();
+                        }
+                        conflicts.put(request, e);
+                        continue;
+                    }
+                    request.writes.applyTo(writeBatch, written);
+                }
+                db.write(writeBatch, levelDBFile.getWriteOptions());
+            } finally {
+                writeBatch.close();
+            }
+            batchCounter.incrementAndGet();
+            writeCounter.addAndGet(batch.size());
+            LOG.trace("Written batch of {} writes to {}", batch.size(), levelDBFile.getFile());
+        } catch (Exception e) {
+            cause = e;
+        }
+
+        for (WriteRequest request : batch) {
+            request.done(conflicts != null && conflicts.containsKey(request) ? conflicts.get(request) : cause);
+        }
+    }
+}
@@ -0,0 +1,101 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.camel.component.leveldb;
+
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import org.apache.camel.Exchange;
+import org.apache.camel.builder.RouteBuilder;
+import org.apache.camel.component.mock.MockEndpoint;
+import org.apache.camel.processor.aggregate.AggregationStrategy;
+import org.apache.camel.test.junit4.CamelTestSupport;
+import org.junit.Test;
+
+public class LevelDBAggregateOptimisticLockingGroupCommitTest extends CamelTestSupport {
+
+    private LevelDBAggregationRepository repo;
+
+    @Override
+    public void setUp() throws Exception {
+        deleteDirectory("target/data");
+        repo = new LevelDBAggregationRepository("repo1", "target/data/leveldb.dat");
+        repo.setSync(true);
+        repo.setGroupCommit(true);
+        repo.setMaxBatchDelay(5);
+        super.setUp();
+    }
+
+    @Test
+    public void testOptimisticLockingGroupCommit() throws Exception {
+        MockEndpoint mock = getMockEndpoint("mock:aggregated");
+        mock.setResultWaitTime(30 * 1000L);
+        mock.expectedMessageCount(5);
+
+        ExecutorService executor = Executors.newFixedThreadPool(10);
+        for (int i = 0; i < 100; i++) {
+            final int index = i;
+            executor.submit(new Callable<Object>() {
+                public Object call() throws Exception {
+                    template.sendBodyAndHeader("direct:start", index, "id", index % 5);
+                    return null;
+                }
+            });
+        }
+
+        assertMockEndpointsSatisfied();
+        executor.shutdownNow();
+
+        // each group should have all its 20 numbers, as none of the updates may be lost
+        for (Exchange exchange : mock.getReceivedExchanges()) {
+            assertEquals(20, exchange.getIn().getBody(String.class).split(",").length);
+        }
+
+        // the concurrent adds should have been coalesced
+        LevelDBWriteBatcher batcher = repo.getWriteBatcher();
+        log.info("Written {} writes in {} batches", batcher.getWriteCount(), batcher.getBatchCount());
+        assertTrue("Should write fewer batches than writes", batcher.getBatchCount() < batcher.getWriteCount());
+    }
+
+    @Override
+    protected RouteBuilder createRouteBuilder() throws Exception {
+        return new RouteBuilder() {
+            public void configure() throws Exception {
+                from("direct:start")
+                    .aggregate(header("id"), new MyAggregationStrategy())
+                        .completionSize(20).optimisticLocking().aggregationRepository(repo)
+                        .to("mock:aggregated");
+            }
+        };
+    }
+
+    private static class MyAggregationStrategy implements AggregationStrategy {
+
+        public Exchange aggregate(Exchange oldExchange, Exchange newExchange) {
+            if (oldExchange == null) {
+                return newExchange;
+            }
+            String body1 = oldExchange.getIn().getBody(String.class);
+            String body2 = newExchange.getIn().getBody(String.class);
+
+            oldExchange.getIn().setBody(body1 + "," + body2);
+            return oldExchange;
+        }
+    }
+
+}
@@ -0,0 +1,127 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.camel.component.leveldb;
+
+import java.util.List;
+
+import org.apache.camel.Exchange;
+import org.apache.camel.builder.RouteBuilder;
+import org.apache.camel.impl.DefaultExchange;
+import org.apache.camel.processor.aggregate.AggregationStrategy;
+import org.apache.camel.test.junit4.CamelTestSupport;
+import org.junit.Test;
+
+public class LevelDBDeltaAggregationRepositoryTest extends CamelTestSupport {
+
+    private LevelDBDeltaAggregationRepository repo;
+
+    @Override
+    public void setUp() throws Exception {
+        deleteDirectory("target/data");
+        repo = new LevelDBDeltaAggregationRepository("repo1", "target/data/leveldb.dat");
+        super.setUp();
+    }
+
+    @Test
+    public void testAppendAndRemoveDeltas() throws Exception {
+        for (int i = 0; i < 12; i++) {
+            Exchange exchange = new DefaultExchange(context);
+            exchange.getIn().setBody("Hello " + i);
+            assertEquals(i + 1, repo.append(context, "foo", exchange));
+        }
+
+        List<Exchange> deltas = repo.getDeltas(context, "foo");
+        assertEquals(12, deltas.size());
+        for (int i = 0; i < 12; i++) {
+            assertEquals("Hello " + i, deltas.get(i).getIn().getBody());
+        }
+        assertEquals(1, repo.getDeltaKeys().size());
+        assertTrue(repo.getDeltaKeys().contains("foo"));
+        assertEquals(0, repo.getKeys().size());
+
+        // the aggregated exchange should be recoverable until confirmed
+        Exchange aggregated = new DefaultExchange(context);
+        aggregated.getIn().setBody("Bye World");
+        repo.removeDeltas(context, "foo", aggregated);
+
+        assertEquals(0, repo.getDeltas(context, "foo").size());
+        assertEquals(0, repo.getDeltaKeys().size());
+        assertEquals("Bye World", repo.recover(context, aggregated.getExchangeId()).getIn().getBody());
+
+        repo.confirm(context, aggregated.getExchangeId());
+        assertEquals(0, repo.scan(context).size());
+    }
+
+    @Test
+    public void testAggregateDeltas() throws Exception {
+        getMockEndpoint("mock:aggregated").expectedBodiesReceivedInAnyOrder("ABC", "DE");
+
+        template.sendBodyAndHeader("direct:start", "A", "id", 1);
+        template.sendBodyAndHeader("direct:start", "B", "id", 1);
+        template.sendBodyAndHeader("direct:start", "D", "id", 2);
+        template.sendBodyAndHeader("direct:start", "E", "id", 2);
+        template.sendBodyAndHeader("direct:start", "C", "id", 1);
+
+        assertMockEndpointsSatisfied();
+    }
+
+    @Test
+    public void testAggregateDeltasAfterRestart() throws Exception {
+        getMockEndpoint("mock:aggregated").expectedBodiesReceived("ABC");
+
+        template.sendBodyAndHeader("direct:start", "A", "id", 1);
+        template.sendBodyAndHeader("direct:start", "B", "id", 1);
+
+        // the aggregated exchange in memory is lost, so it must be aggregated from the stored deltas
+        context.stopRoute("aggregate");
+        context.startRoute("aggregate");
+        assertEquals(2, repo.getDeltas(context, "1").size());
+
+        template.sendBodyAndHeader("direct:start", "C", "id", 1);
+
+        assertMockEndpointsSatisfied();
+        assertEquals(0, repo.getDeltaKeys().size());
+    }
+
+    @Override
+    protected RouteBuilder createRouteBuilder() throws Exception {
+        return new RouteBuilder() {
+            @Override
+            public void configure() throws Exception {
+                from("direct:start").routeId("aggregate")
+                    .aggregate(header("id"), new MyAggregationStrategy())
+                        .aggregationRepository(repo)
+                        .completionSize(3).completionTimeout(2000)
+                        .to("mock:aggregated");
+            }
+        };
+    }
+
+    public static class MyAggregationStrategy implements AggregationStrategy {
+
+        public Exchange aggregate(Exchange oldExchange, Exchange newExchange) {
+            if (oldExchange == null) {
+                return newExchange;
+            }
+            String body1 = oldExchange.getIn().getBody(String.class);
+            String body2 = newExchange.getIn().getBody(String.class);
+
+            oldExchange.getIn().setBody(body1 + body2);
+            return oldExchange;
+        }
+    }
+}
@@ -0,0 +1,168 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.camel.component.leveldb;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.camel.Exchange;
+import org.apache.camel.impl.DefaultExchange;
+import org.apache.camel.test.junit4.CamelTestSupport;
+import org.junit.Test;
+
+import static org.fusesource.leveldbjni.JniDBFactory.asString;
+import static org.fusesource.leveldbjni.JniDBFactory.bytes;
+
+public class LevelDBWriteBatcherTest extends CamelTestSupport {
+
+    private LevelDBFile levelDBFile;
+
+    @Override
+    public void setUp() throws Exception {
+        super.setUp();
+        deleteDirectory("target/data");
+        File file = new File("target/data/leveldb.dat");
+        levelDBFile = new LevelDBFile();
+        levelDBFile.setFile(file);
+        levelDBFile.setSync(true);
+        levelDBFile.start();
+    }
+
+    @Override
+    public void tearDown() throws Exception {
+        levelDBFile.stop();
+        super.tearDown();
+    }
+
+    @Test
+    public void testConcurrentWrites() throws Exception {
+        final LevelDBWriteBatcher batcher = new LevelDBWriteBatcher(levelDBFile);
+        batcher.setMaxBatchSize(50);
+        batcher.setMaxBatchDelay(10);
+        batcher.start();
+
+        ExecutorService executor = Executors.newFixedThreadPool(10);
+        List<Future<Object>> futures = new ArrayList<Future<Object>>();
+        for (int i = 0; i < 500; i++) {
+            final int num = i;
+            futures.add(executor.submit(new Callable<Object>() {
+                public Object call() throws Exception {
+                    batcher.write(new LevelDBWriteBatcher.Writes().put(bytes("key" + num), bytes("value" + num)));
+                    return null;
+                }
+            }));
+        }
+        for (Future<Object> future : futures) {
+            future.get(20, TimeUnit.SECONDS);
+        }
+        executor.shutdownNow();
+
+        for (int i = 0; i < 500; i++) {
+            assertEquals("value" + i, asString(levelDBFile.getDb().get(bytes("key" + i))));
+        }
+        // the writes from the concurrent callers should have been coalesced
+        assertEquals(500, batcher.getWriteCount());
+        assertTrue("Should write fewer batches than writes, was: " + batcher.getBatchCount(), batcher.getBatchCount() < 250);
+        batcher.stop();
+    }
+
+    @Test
+    public void testExpectedValues() throws Exception {
+        LevelDBWriteBatcher batcher = new LevelDBWriteBatcher(levelDBFile);
+        batcher.start();
+
+        batcher.write(new LevelDBWriteBatcher.Writes().put(bytes("foo"), bytes("Hello")).expect(bytes("foo"), null));
+        try {
+            batcher.write(new LevelDBWriteBatcher.Writes().put(bytes("foo"), bytes("Bye")).expect(bytes("foo"), null));
+            fail("Should have thrown exception");
+        } catch (LevelDBWriteBatcher.ConflictException e) {
+            // expected
+        }
+        assertEquals("Hello", asString(levelDBFile.getDb().get(bytes("foo"))));
+
+        batcher.write(new LevelDBWriteBatcher.Writes().put(bytes("bar"), bytes("World")).delete(bytes("foo")).expect(bytes("foo"), bytes("Hello")));
+        assertNull(levelDBFile.getDb().get(bytes("foo")));
+        assertEquals("World", asString(levelDBFile.getDb().get(bytes("bar"))));
+        assertEquals(3, batcher.getWriteCount());
+        batcher.stop();
+    }
+
+    @Test
+    public void testConcurrentExpectedValues() throws Exception {
+        final LevelDBWriteBatcher batcher = new LevelDBWriteBatcher(levelDBFile);
+        batcher.setMaxBatchDelay(50);
+        batcher.start();
+
+        // all the writers expects the key to not exist, so only one of them can write it, even in the same batch
+        ExecutorService executor = Executors.newFixedThreadPool(10);
+        List<Future<Boolean>> futures = new ArrayList<Future<Boolean>>();
+        for (int i = 0; i < 10; i++) {
+            final int num = i;
+            futures.add(executor.submit(new Callable<Boolean>() {
+                public Boolean call() throws Exception {
+                    try {
+                        batcher.write(new LevelDBWriteBatcher.Writes().put(bytes("foo"), bytes("value" + num)).expect(bytes("foo"), null));
+                        return true;
+                    } catch (LevelDBWriteBatcher.ConflictException e) {
+                        return false;
+                    }
+                }
+            }));
+        }
+        int written = 0;
+        for (Future<Boolean> future : futures) {
+            if (future.get(20, TimeUnit.SECONDS)) {
+                written++;
+            }
+        }
+        executor.shutdownNow();
+
+        assertEquals(1, written);
+        batcher.stop();
+    }
+
+    @Test
+    public void testGroupCommitRepositoryRecover() throws Exception {
+        LevelDBAggregationRepository repo = new LevelDBAggregationRepository("repo1", "target/data/leveldb-repo.dat");
+        repo.setGroupCommit(true);
+        repo.start();
+
+        Exchange exchange = new DefaultExchange(context);
+        exchange.getIn().setBody("Hello World");
+        repo.add(context, "foo", exchange);
+        assertEquals("Hello World", repo.get(context, "foo").getIn().getBody());
+
+        // completed exchanges should be recoverable until confirmed
+        repo.remove(context, "foo", exchange);
+        assertNull(repo.get(context, "foo"));
+        Set<String> scanned = repo.scan(context);
+        assertEquals(1, scanned.size());
+        assertTrue(scanned.contains(exchange.getExchangeId()));
+        assertEquals("Hello World", repo.recover(context, exchange.getExchangeId()).getIn().getBody());
+
+        repo.confirm(context, exchange.getExchangeId());
+        assertEquals(0, repo.scan(context).size());
+        repo.stop();
+    }
+}
@@ -47,6 +47,7 @@ import org.apache.camel.RuntimeCamelException;
 import org.apache.camel.TypeConverter;
 import org.apache.camel.component.netty4.NettyConstants;
 import org.apache.camel.component.netty4.NettyConverter;
+import org.apache.camel.component.netty4.NettyHelper;
 import org.apache.camel.spi.HeaderFilterStrategy;
 import org.apache.camel.util.ExchangeHelper;
 import org.apache.camel.util.IOHelper;
@@ -346,7 +347,7 @@ public class DefaultNettyHttpBinding implements NettyHttpBinding, Cloneable {
         }
 
         if (body instanceof ByteBuf) {
-            buffer = (ByteBuf) body;
+            buffer = (ByteBuf) NettyHelper.getWritableBody(message.getExchange(), body);
         } else {
             // try to convert to buffer first
             buffer = message.getBody(ByteBuf.class);
@@ -454,7 +455,7 @@ public class DefaultNettyHttpBinding implements NettyHttpBinding, Cloneable {
             // support bodies as native Netty
             ByteBuf buffer;
             if (body instanceof ByteBuf) {
-                buffer = (ByteBuf) body;
+                buffer = (ByteBuf) NettyHelper.getWritableBody(message.getExchange(), body);
             } else {
                 // try to convert to buffer first
                 buffer = message.getBody(ByteBuf.class);
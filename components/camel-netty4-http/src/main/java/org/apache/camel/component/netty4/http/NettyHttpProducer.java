@@ -25,6 +25,7 @@ import org.apache.camel.AsyncCallback;
 import org.apache.camel.Exchange;
 import org.apache.camel.component.netty4.NettyConfiguration;
 import org.apache.camel.component.netty4.NettyConstants;
+import org.apache.camel.component.netty4.NettyHelper;
 import org.apache.camel.component.netty4.NettyProducer;
 
 
@@ -97,6 +98,10 @@ public class NettyHttpProducer extends NettyProducer {
                     // TODO Remove this part of ByteBuffer right away
                     if (response != null) {
                         response.content().retain();
+                        if (getConfiguration().isRetainByteBuf()) {
+                            // release the response when the exchange is done
+                            NettyHelper.releaseWhenDone(exchange, response);
+                        }
                         // the actual url is stored on the IN message in the getRequestBody method as its accessed on-demand
                         String actualUrl = exchange.getIn().getHeader(Exchange.HTTP_URL, String.class);
                         int code = response.getStatus() != null ? response.getStatus().code() : -1;
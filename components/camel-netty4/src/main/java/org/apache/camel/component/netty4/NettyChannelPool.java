@@ -0,0 +1,523 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.camel.component.netty4;
+
+import java.net.ConnectException;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedDeque;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import io.netty.channel.Channel;
+import io.netty.channel.ChannelFuture;
+import io.netty.channel.ChannelFutureListener;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * A non blocking pool of {@link Channel}s used by the {@link NettyProducer}.
+ * <p/>
+ * The pool does not use locks when acquiring and releasing channels, and channels are acquired
+ * asynchronously, where the callback is called when a channel is ready. A new channel is connected
+ * when there is no idle channel, and the maximum number of channels has not been reached.
+ * Otherwise the acquire waits (up to the acquire timeout) for a channel to be released.
+ * <p/>
+ * The idle channels are checked they are still active when acquired, and closed channels are removed
+ * from the pool right away.
+ * <p/>
+ * In shared mode the pool has a single channel which is shared, and is not exclusive to the acquirer.
+ */
+public class NettyChannelPool {
+
+    private static final Logger LOG = LoggerFactory.getLogger(NettyChannelPool.class);
+
+    /**
+     * Connects and closes the channels of the pool.
+     */
+    public interface Connector {
+
+        /**
+         * Connects a new channel
+         */
+        ChannelFuture connect() throws Exception;
+
+        /**
+         * Closes the channel which has been removed from the pool
+         */
+        void close(Channel channel);
+    }
+
+    /**
+     * Callback when acquiring a channel.
+     */
+    public interface AcquireCallback {
+
+        void onAcquired(Channel channel);
+
+        void onFailure(Throwable cause);
+    }
+
+    private final String name;
+    private final Connector connector;
+    private final ScheduledExecutorService scheduler;
+    private final boolean shared;
+    private final int maxActive;
+    private final int maxIdle;
+    private final int minIdle;
+    private final long minEvictableIdle;
+    private final long acquireTimeout;
+
+    // the idle channels with the most recently used first
+    private final ConcurrentLinkedDeque<IdleChannel> idleChannels = new ConcurrentLinkedDeque<IdleChannel>();
+    private final Queue<Waiter> waiters = new ConcurrentLinkedQueue<Waiter>();
+    private final Set<Channel> channels = Collections.newSetFromMap(new ConcurrentHashMap<Channel, Boolean>());
+    // the number of channels in the pool, including the channels being connected
+    private final AtomicInteger size = new AtomicInteger();
+    private final AtomicInteger active = new AtomicInteger();
+    private final AtomicInteger idle = new AtomicInteger();
+    private final AtomicInteger waiting = new AtomicInteger();
+    private final AtomicLong acquireCount = new AtomicLong();
+    private final AtomicLong acquireTime = new AtomicLong();
+    private final AtomicLong maxAcquireTime = new AtomicLong();
+    private final ChannelFutureListener closeListener = new ChannelFutureListener() {
+        public void operationComplete(ChannelFuture future) throws Exception {
+            onClosed(future.channel());
+        }
+    };
+    private volatile ChannelFuture sharedChannel;
+    private volatile boolean closed;
+
+    /**
+     * Creates the pool.
+     *
+     * @param name              name of the pool, such as the remote address, used for logging
+     * @param connector         to connect and close channels
+     * @param scheduler         to schedule the acquire timeouts
+     * @param shared            whether to use a single shared channel
+     * @param maxActive         maximum number of channels, or <tt>-1</tt> for no limit
+     * @param maxIdle           maximum number of idle channels, or <tt>-1</tt> for no limit
+     * @param minIdle           minimum number of idle channels to keep when evicting idle channels
+     * @param minEvictableIdle  the time in millis a channel must be idle before it can be evicted
+     * @param acquireTimeout    the time in millis to wait for a channel to be released when the maximum
+     *                          number of channels has been reached, use zero to fail right away
+     */
+    public NettyChannelPool(String name, Connector connector, ScheduledExecutorService scheduler, boolean shared,
+                            int maxActive, int maxIdle, int minIdle, long minEvictableIdle, long acquireTimeout) {
+        this.name = name;
+        this.connector = connector;
+        this.scheduler = scheduler;
+        this.shared = shared;
+        this.maxActive = maxActive;
+        this.maxIdle = maxIdle;
+        this.minIdle = minIdle;
+        this.minEvictableIdle = minEvictableIdle;
+        this.acquireTimeout = acquireTimeout;
+    }
+
+    /**
+     * Acquires a channel, where the callback is called when the channel is ready.
+     */
+    public void acquire(AcquireCallback callback) {
+        long start = System.nanoTime();
+        if (closed) {
+            callback.onFailure(new IllegalStateException("Pool is closed"));
+            return;
+        }
+        if (shared) {
+            acquireShared(callback, start);
+            return;
+        }
+
+        Channel channel = pollIdle();
+        if (channel != null) {
+            acquired(channel, callback, start);
+        } else if (reserve()) {
+            connect(callback, start);
+        } else if (acquireTimeout <= 0) {
+            callback.onFailure(new NoSuchElementException("Pool exhausted"));
+        } else {
+            Waiter waiter = new Waiter(callback, start);
+            waiting.incrementAndGet();
+            waiters.add(waiter);
+            waiter.timeout = scheduler.schedule(waiter, acquireTimeout, TimeUnit.MILLISECONDS);
+            // a channel may have been released before the waiter was added
+            dispatchWaiters();
+        }
+    }
+
+    /**
+     * Releases the channel back to the pool.
+     */
+    public void release(Channel channel) {
+        if (shared) {
+            // the shared channel is kept until closed
+            return;
+        }
+
+        active.decrementAndGet();
+        if (closed || !channel.isActive()) {
+            destroy(channel);
+            dispatchWaiters();
+            return;
+        }
+
+        Waiter waiter = pollWaiter();
+        if (waiter != null) {
+            // hand over the channel to the waiter
+            acquired(channel, waiter.callback, waiter.start);
+        } else if (maxIdle >= 0 && idle.get() >= maxIdle) {
+            destroy(channel);
+            dispatchWaiters();
+        } else {
+            LOG.trace("Putting channel back to pool {}", channel);
+            addIdle(channel);
+            dispatchWaiters();
+        }
+    }
+
+    /**
+     * Closes the idle channels which has been idle for too long.
+     */
+    public void evict() {
+        long now = System.currentTimeMillis();
+        // the least recently used is last
+        Iterator<IdleChannel> it = idleChannels.descendingIterator();
+        while (it.hasNext() && idle.get() > minIdle) {
+            IdleChannel candidate = it.next();
+            if (now - candidate.since >= minEvictableIdle && idleChannels.removeFirstOccurrence(candidate)) {
+                idle.decrementAndGet();
+                LOG.trace("Evicting idle channel {}", candidate.channel);
+                destroy(candidate.channel);
+            }
+        }
+    }
+
+    /**
+     * Closes the pool and all its idle channels, and fails the waiting acquires.
+     */
+    public void close() {
+        closed = true;
+        IdleChannel candidate;
+        while ((candidate = idleChannels.pollFirst()) != null) {
+            idle.decrementAndGet();
+            destroy(candidate.channel);
+        }
+        Waiter waiter;
+        while ((waiter = pollWaiter()) != null) {
+            waiter.callback.onFailure(new IllegalStateException("Pool is closed"));
+        }
+        ChannelFuture future = sharedChannel;
+        if (future != null) {
+            sharedChannel = null;
+            future.channel().close();
+        }
+    }
+
+    /**
+     * Number of channels in the pool, including the channels being connected
+     */
+    public int getSize() {
+        if (shared) {
+            return sharedChannel != null ? 1 : 0;
+        }
+        return size.get();
+    }
+
+    /**
+     * Number of acquired channels
+     */
+    public int getActive() {
+        if (shared) {
+            return sharedChannel != null ? 1 : 0;
+        }
+        return active.get();
+    }
+
+    /**
+     * Number of idle channels
+     */
+    public int getIdle() {
+        return idle.get();
+    }
+
+    /**
+     * Number of acquires waiting for a channel to be released
+     */
+    public int getWaiting() {
+        return waiting.get();
+    }
+
+    public long getAcquireCount() {
+        return acquireCount.get();
+    }
+
+    /**
+     * Average time in micros to acquire a channel
+     */
+    public long getAverageAcquireTime() {
+        long count = acquireCount.get();
+        return count > 0 ? TimeUnit.NANOSECONDS.toMicros(acquireTime.get() / count) : 0;
+    }
+
+    /**
+     * Maximum time in micros to acquire a channel
+     */
+    public long getMaxAcquireTime() {
+        return TimeUnit.NANOSECONDS.toMicros(maxAcquireTime.get());
+    }
+
+    public void resetStatistics() {
+        acquireCount.set(0);
+        acquireTime.set(0);
+        maxAcquireTime.set(0);
+    }
+
+    private void acquireShared(final AcquireCallback callback, final long start) {
+        ChannelFuture future = sharedChannel;
+        if (future == null || (future.isDone() && (!future.isSuccess() || !future.channel().isActive()))) {
+            synchronized (this) {
+                // only connect the shared channel once
+                future = sharedChannel;
+                if (future == null || (future.isDone() && (!future.isSuccess() || !future.channel().isActive()))) {
+                    try {
+                        future = connector.connect();
+                    } catch (Exception e) {
+                        callback.onFailure(e);
+                        return;
+                    }
+                    sharedChannel = future;
+                }
+            }
+        }
+        future.addListener(new ChannelFutureListener() {
+            public void operationComplete(ChannelFuture future) throws Exception {
+                if (future.isSuccess()) {
+                    recordAcquire(start);
+                    callback.onAcquired(future.channel());
+                } else {
+                    callback.onFailure(connectFailed(future.cause()));
+                }
+            }
+        });
+    }
+
+    private void connect(final AcquireCallback callback, final long start) {
+        ChannelFuture future;
+        try {
+            future = connector.connect();
+        } catch (Exception e) {
+            size.decrementAndGet();
+            callback.onFailure(e);
+            dispatchWaiters();
+            return;
+        }
+        future.addListener(new ChannelFutureListener() {
+            public void operationComplete(ChannelFuture future) throws Exception {
+                if (future.isSuccess()) {
+                    Channel channel = future.channel();
+                    LOG.trace("Created channel: {}", channel);
+                    channels.add(channel);
+                    channel.closeFuture().addListener(closeListener);
+                    acquired(channel, callback, start);
+                } else {
+                    size.decrementAndGet();
+                    callback.onFailure(connectFailed(future.cause()));
+                    dispatchWaiters();
+                }
+            }
+        });
+    }
+
+    private Throwable connectFailed(Throwable cause) {
+        ConnectException answer = new ConnectException("Cannot connect to " + name);
+        if (cause != null) {
+            answer.initCause(cause);
+        }
+        return answer;
+    }
+
+    private void acquired(Channel channel, AcquireCallback callback, long start) {
+        active.incrementAndGet();
+        recordAcquire(start);
+        LOG.trace("Got channel from pool {}", channel);
+        callback.onAcquired(channel);
+    }
+
+    private void recordAcquire(long start) {
+        long time = System.nanoTime() - start;
+        acquireCount.incrementAndGet();
+        acquireTime.addAndGet(time);
+        while (true) {
+            long max = maxAcquireTime.get();
+            if (time <= max || maxAcquireTime.compareAndSet(max, time)) {
+                break;
+            }
+        }
+    }
+
+    /**
+     * Reserves room for a new channel, if the pool is not full
+     */
+    private boolean reserve() {
+        while (true) {
+            int current = size.get();
+            if (maxActive > 0 && current >= maxActive) {
+                return false;
+            }
+            if (size.compareAndSet(current, current + 1)) {
+                return true;
+            }
+        }
+    }
+
+    private Channel pollIdle() {
+        IdleChannel candidate;
+        while ((candidate = idleChannels.pollFirst()) != null) {
+            idle.decrementAndGet();
+            // we need an active channel to be valid
+            if (candidate.channel.isActive()) {
+                return candidate.channel;
+            }
+            destroy(candidate.channel);
+        }
+        return null;
+    }
+
+    private void addIdle(Channel channel) {
+        idle.incrementAndGet();
+        idleChannels.offerFirst(new IdleChannel(channel));
+    }
+
+    private Waiter pollWaiter() {
+        Waiter waiter;
+        while ((waiter = waiters.poll()) != null) {
+            if (waiter.claim()) {
+                waiting.decrementAndGet();
+                return waiter;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Gives idle channels, or room for new channels, to the waiting acquires
+     */
+    private void dispatchWaiters() {
+        while (!waiters.isEmpty() && !closed) {
+            Channel channel = pollIdle();
+            if (channel == null && !reserve()) {
+                return;
+            }
+            Waiter waiter = pollWaiter();
+            if (waiter == null) {
+                // the waiters timed out or was served by someone else
+                if (channel != null) {
+                    addIdle(channel);
+                } else {
+                    size.decrementAndGet();
+                }
+                return;
+            }
+            if (channel != null) {
+                acquired(channel, waiter.callback, waiter.start);
+            } else {
+                connect(waiter.callback, waiter.start);
+            }
+        }
+    }
+
+    private void onClosed(Channel channel) {
+        // remove the closed channel if its idle
+        for (IdleChannel candidate : idleChannels) {
+            if (candidate.channel == channel) {
+                if (idleChannels.removeFirstOccurrence(candidate)) {
+                    idle.decrementAndGet();
+                }
+                break;
+            }
+        }
+        destroy(channel);
+        dispatchWaiters();
+    }
+
+    private void destroy(Channel channel) {
+        // a channel may be destroyed when closed and again when released
+        if (channels.remove(channel)) {
+            size.decrementAndGet();
+            LOG.trace("Destroying channel: {}", channel);
+            connector.close(channel);
+        }
+    }
+
+    @Override
+    public String toString() {
+        return "NettyChannelPool[" + name + "]";
+    }
+
+    private static final class IdleChannel {
+        private final Channel channel;
+        private final long since = System.currentTimeMillis();
+
+        private IdleChannel(Channel channel) {
+            this.channel = channel;
+        }
+    }
+
+    private final class Waiter implements Runnable {
+        private final AcquireCallback callback;
+        private final long start;
+        private final AtomicBoolean done = new AtomicBoolean();
+        private volatile ScheduledFuture<?> timeout;
+
+        private Waiter(AcquireCallback callback, long start) {
+            this.callback = callback;
+            this.start = start;
+        }
+
+        boolean claim() {
+            if (done.compareAndSet(false, true)) {
+                ScheduledFuture<?> task = timeout;
+                if (task != null) {
+                    task.cancel(false);
+                }
+                return true;
+            }
+            return false;
+        }
+
+        @Override
+        public void run() {
+            // timeout waiting for a channel
+            if (claim()) {
+                waiters.remove(this);
+                waiting.decrementAndGet();
+                callback.onFailure(new TimeoutException("Timeout waiting " + acquireTimeout + " millis for a channel from " + name));
+            }
+        }
+    }
+}
@@ -91,12 +91,16 @@ public class NettyConfiguration extends NettyServerBootstrapConfiguration implem
     @UriParam(label = "producer", defaultValue = "true")
     private boolean producerPoolEnabled = true;
     @UriParam(label = "producer")
+    private long producerPoolAcquireTimeout;
+    @UriParam(label = "producer")
     private boolean udpConnectionlessSending;
     @UriParam(label = "consumer")
     private boolean clientMode;
     @UriParam(label = "producer")
     private boolean useByteBuf;
     @UriParam
+    private boolean retainByteBuf;
+    @UriParam
     private boolean udpByteArrayCodec;
     
 
@@ -526,8 +530,8 @@ public class NettyConfiguration extends NettyServerBootstrapConfiguration implem
     }
 
     /**
-     * Sets the cap on the number of objects that can be allocated by the pool
-     * (checked out to clients, or idle awaiting checkout) at a given time. Use a negative value for no limit.
+     * Sets the cap on the number of channels that can be allocated by the pool
+     * (in use, being connected, or idle) at a given time. Use a negative value for no limit.
      */
     public void setProducerPoolMaxActive(int producerPoolMaxActive) {
         this.producerPoolMaxActive = producerPoolMaxActive;
@@ -538,7 +542,7 @@ public class NettyConfiguration extends NettyServerBootstrapConfiguration implem
     }
 
     /**
-     * Sets the minimum number of instances allowed in the producer pool before the evictor thread (if active) spawns new objects.
+     * Sets the minimum number of idle channels to keep in the producer pool when evicting idle channels.
      */
     public void setProducerPoolMinIdle(int producerPoolMinIdle) {
         this.producerPoolMinIdle = producerPoolMinIdle;
@@ -549,7 +553,7 @@ public class NettyConfiguration extends NettyServerBootstrapConfiguration implem
     }
 
     /**
-     * Sets the cap on the number of "idle" instances in the pool.
+     * Sets the cap on the number of "idle" channels in the pool.
      */
     public void setProducerPoolMaxIdle(int producerPoolMaxIdle) {
         this.producerPoolMaxIdle = producerPoolMaxIdle;
@@ -560,7 +564,7 @@ public class NettyConfiguration extends NettyServerBootstrapConfiguration implem
     }
 
     /**
-     * Sets the minimum amount of time (value in millis) an object may sit idle in the pool before it is eligible for eviction by the idle object evictor.
+     * Sets the minimum amount of time (value in millis) a channel may sit idle in the pool before it is eligible for eviction by the idle channel evictor.
      */
     public void setProducerPoolMinEvictableIdle(long producerPoolMinEvictableIdle) {
         this.producerPoolMinEvictableIdle = producerPoolMinEvictableIdle;
@@ -578,6 +582,19 @@ public class NettyConfiguration extends NettyServerBootstrapConfiguration implem
         this.producerPoolEnabled = producerPoolEnabled;
     }
 
+    public long getProducerPoolAcquireTimeout() {
+        return producerPoolAcquireTimeout;
+    }
+
+    /**
+     * Sets the time (value in millis) to wait for a channel to be released back to the producer pool,
+     * when the pool has reached its maximum number of active channels.
+     * The waiting does not block any threads. Use zero (the default) to fail right away when the pool is exhausted.
+     */
+    public void setProducerPoolAcquireTimeout(long producerPoolAcquireTimeout) {
+        this.producerPoolAcquireTimeout = producerPoolAcquireTimeout;
+    }
+
     public boolean isUdpConnectionlessSending() {
         return udpConnectionlessSending;
     }
@@ -612,6 +629,19 @@ public class NettyConfiguration extends NettyServerBootstrapConfiguration implem
         this.useByteBuf = useByteBuf;
     }
 
+    public boolean isRetainByteBuf() {
+        return retainByteBuf;
+    }
+
+    /**
+     * If the retainByteBuf is true, the received {@link ByteBuf} is kept as the message body without copying its content,
+     * and is released when the exchange is done. This applies to the consumer and to the reply of the producer,
+     * when the received message is a {@link ByteBuf}, such as when not using any codec.
+     */
+    public void setRetainByteBuf(boolean retainByteBuf) {
+        this.retainByteBuf = retainByteBuf;
+    }
+
     public boolean isUdpByteArrayCodec() {
         return udpByteArrayCodec;
     }
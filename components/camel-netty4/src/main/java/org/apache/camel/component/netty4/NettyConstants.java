@@ -35,6 +35,7 @@ public final class NettyConstants {
     public static final String NETTY_SSL_CLIENT_CERT_NOT_BEFORE = "CamelNettySSLClientCertNotBefore";
     public static final String NETTY_SSL_CLIENT_CERT_NOT_AFTER = "CamelNettySSLClientCertNotAfter";
     public static final String NETTY_REQUEST_TIMEOUT = "CamelNettyRequestTimeout";
+    public static final String NETTY_RETAINED_BUFFERS = "CamelNettyRetainedBuffers";
 
     private NettyConstants() {
         // Utility class
@@ -21,6 +21,7 @@ import java.io.InputStream;
 import java.io.ObjectInput;
 import java.io.ObjectInputStream;
 import java.io.UnsupportedEncodingException;
+import java.nio.ByteBuffer;
 
 import javax.xml.transform.dom.DOMSource;
 import javax.xml.transform.sax.SAXSource;
@@ -69,9 +70,30 @@ public final class NettyConverter {
 
     @Converter
     public static InputStream toInputStream(ByteBuf buffer, Exchange exchange) {
+        if (NettyHelper.isReleasedWhenDone(exchange, buffer)) {
+            // the buffer is retained as message body, so do not consume it
+            return toInputStreamView(buffer);
+        }
         return new ByteBufInputStream(buffer);
     }
 
+    /**
+     * Returns a view of the readable bytes of the buffer as {@link InputStream} without copying the content.
+     * Reading from the stream does not change the reader index of the buffer.
+     */
+    public static InputStream toInputStreamView(ByteBuf buffer) {
+        return new ByteBufInputStream(buffer.duplicate());
+    }
+
+    /**
+     * Returns a view of the readable bytes of the buffer as NIO {@link ByteBuffer}, which does not copy the content
+     * unless the buffer is a composite of several buffers.
+     */
+    @Converter
+    public static ByteBuffer toNioByteBuffer(ByteBuf buffer, Exchange exchange) {
+        return buffer.nioBuffer();
+    }
+
     @Converter
     public static ObjectInput toObjectInput(ByteBuf buffer, Exchange exchange) throws IOException {
         InputStream is = toInputStream(buffer, exchange);
@@ -18,14 +18,22 @@ package org.apache.camel.component.netty4;
 
 import java.net.InetSocketAddress;
 import java.net.SocketAddress;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
 
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.ByteBufHolder;
+import io.netty.channel.AddressedEnvelope;
 import io.netty.channel.Channel;
 import io.netty.channel.ChannelFuture;
 import io.netty.channel.ChannelFutureListener;
 import io.netty.channel.DefaultAddressedEnvelope;
+import io.netty.util.ReferenceCountUtil;
+import io.netty.util.ReferenceCounted;
 
 import org.apache.camel.Exchange;
 import org.apache.camel.NoTypeConversionAvailableException;
+import org.apache.camel.support.SynchronizationAdapter;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -89,6 +97,7 @@ public final class NettyHelper {
     public static void writeBodyAsync(Logger log, Channel channel, SocketAddress remoteAddress, Object body,
                                       Exchange exchange, ChannelFutureListener listener) {
         ChannelFuture future;
+        body = getWritableBody(exchange, body);
         if (remoteAddress != null) {
             if (log.isDebugEnabled()) {
                 log.debug("Channel: {} remote address: {} writing body: {}", new Object[]{channel, remoteAddress, body});
@@ -110,6 +119,93 @@ public final class NettyHelper {
         }
     }
 
+    /**
+     * Retains the given reference counted message (such as a {@link ByteBuf}) which is used as message body,
+     * and releases it when the exchange is done, so the message can be used during routing without copying
+     * its content into a byte array.
+     *
+     * @param exchange the exchange
+     * @param message  the message received from Netty
+     */
+    public static void retainUntilDone(Exchange exchange, Object message) {
+        if (message instanceof ReferenceCounted) {
+            ReferenceCountUtil.retain(message);
+            releaseWhenDone(exchange, message);
+        }
+    }
+
+    /**
+     * Releases the given reference counted message when the exchange is done.
+     * The message must have been retained by the caller.
+     *
+     * @param exchange the exchange
+     * @param message  the retained message
+     */
+    public static void releaseWhenDone(Exchange exchange, Object message) {
+        ByteBuf buffer = getByteBuf(message);
+        if (buffer != null) {
+            // keep track of the buffers released when done, so we do not release them when written
+            @SuppressWarnings("unchecked")
+            List<ByteBuf> buffers = exchange.getProperty(NettyConstants.NETTY_RETAINED_BUFFERS, List.class);
+            if (buffers == null) {
+                buffers = new CopyOnWriteArrayList<ByteBuf>();
+                exchange.setProperty(NettyConstants.NETTY_RETAINED_BUFFERS, buffers);
+            }
+            buffers.add(buffer);
+        }
+        exchange.addOnCompletion(new ReleaseOnCompletion(message));
+    }
+
+    /**
+     * Gets the body to write to the channel. If the body is a {@link ByteBuf} which is released when the exchange
+     * is done (or derived from such a buffer) then a retained duplicate is returned, as Netty releases
+     * the buffer when it has been written.
+     *
+     * @param exchange the exchange
+     * @param body     the body to write
+     * @return the body to write
+     */
+    public static Object getWritableBody(Exchange exchange, Object body) {
+        if (body instanceof ByteBuf && isReleasedWhenDone(exchange, (ByteBuf) body)) {
+            // the duplicate shares the content and reference count, but has its own indexes
+            return ((ByteBuf) body).duplicate().retain();
+        }
+        return body;
+    }
+
+    /**
+     * Whether the given buffer is released when the exchange is done (or derived from such a buffer),
+     * which is the case for the messages received with the retainByteBuf option.
+     *
+     * @param exchange the exchange, may be <tt>null</tt>
+     * @param buffer   the buffer
+     * @return <tt>true</tt> if the buffer is released when the exchange is done
+     */
+    public static boolean isReleasedWhenDone(Exchange exchange, ByteBuf buffer) {
+        if (exchange != null) {
+            List<?> buffers = exchange.getProperty(NettyConstants.NETTY_RETAINED_BUFFERS, List.class);
+            if (buffers != null) {
+                for (ByteBuf current = buffer; current != null; current = current.unwrap()) {
+                    if (buffers.contains(current)) {
+                        return true;
+                    }
+                }
+            }
+        }
+        return false;
+    }
+
+    private static ByteBuf getByteBuf(Object message) {
+        if (message instanceof ByteBuf) {
+            return (ByteBuf) message;
+        } else if (message instanceof ByteBufHolder) {
+            return ((ByteBufHolder) message).content();
+        } else if (message instanceof AddressedEnvelope && ((AddressedEnvelope<?, ?>) message).content() instanceof ByteBuf) {
+            return (ByteBuf) ((AddressedEnvelope<?, ?>) message).content();
+        }
+        return null;
+    }
+
     /**
      * Closes the given channel asynchronously
      *
@@ -125,4 +221,27 @@ public final class NettyHelper {
         }
     }
 
+    /**
+     * Releases the retained message when the exchange is done.
+     */
+    private static final class ReleaseOnCompletion extends SynchronizationAdapter {
+        private final Object message;
+
+        private ReleaseOnCompletion(Object message) {
+            this.message = message;
+        }
+
+        @Override
+        public void onDone(Exchange exchange) {
+            if (!ReferenceCountUtil.release(message) && LOG.isTraceEnabled()) {
+                LOG.trace("Released message: {} which is still referenced", message);
+            }
+        }
+
+        @Override
+        public String toString() {
+            return "ReleaseOnCompletion[" + message + "]";
+        }
+    }
+
 }
@@ -16,13 +16,14 @@
  */
 package org.apache.camel.component.netty4;
 
-import java.net.ConnectException;
 import java.net.InetSocketAddress;
 import java.util.Map;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.CountDownLatch;
 import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledFuture;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
 
 import io.netty.bootstrap.Bootstrap;
 import io.netty.channel.Channel;
@@ -42,18 +43,19 @@ import io.netty.util.concurrent.ImmediateEventExecutor;
 import org.apache.camel.AsyncCallback;
 import org.apache.camel.CamelContext;
 import org.apache.camel.CamelException;
-import org.apache.camel.CamelExchangeException;
 import org.apache.camel.Exchange;
+import org.apache.camel.api.management.ManagedAttribute;
+import org.apache.camel.api.management.ManagedOperation;
+import org.apache.camel.api.management.ManagedResource;
 import org.apache.camel.impl.DefaultAsyncProducer;
 import org.apache.camel.util.CamelLogger;
 import org.apache.camel.util.ExchangeHelper;
 import org.apache.camel.util.IOHelper;
-import org.apache.commons.pool.ObjectPool;
-import org.apache.commons.pool.PoolableObjectFactory;
-import org.apache.commons.pool.impl.GenericObjectPool;
+import org.apache.camel.util.ObjectHelper;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+@ManagedResource(description = "Managed Netty Producer")
 public class NettyProducer extends DefaultAsyncProducer {
     private static final Logger LOG = LoggerFactory.getLogger(NettyProducer.class);
     private final ChannelGroup allChannels = new DefaultChannelGroup("NettyProducer", ImmediateEventExecutor.INSTANCE);
@@ -62,7 +64,8 @@ public class NettyProducer extends DefaultAsyncProducer {
     private ClientInitializerFactory pipelineFactory;
     private CamelLogger noReplyLogger;
     private EventLoopGroup workerGroup;
-    private ObjectPool<Channel> pool;
+    private NettyChannelPool pool;
+    private ScheduledFuture<?> evictionTask;
     private Map<Channel, NettyCamelState> nettyCamelStatesMap = new ConcurrentHashMap<Channel, NettyCamelState>();
 
     public NettyProducer(NettyEndpoint nettyEndpoint, NettyConfiguration configuration) {
@@ -99,28 +102,26 @@ public class NettyProducer extends DefaultAsyncProducer {
                 .withName("NettyClientTCPWorker").build();
         }
         
+        final EventLoopGroup group = getWorkerGroup();
         if (configuration.isProducerPoolEnabled()) {
-            // setup pool where we want an unbounded pool, which allows the pool to shrink on no demand
-            GenericObjectPool.Config config = new GenericObjectPool.Config();
-            config.maxActive = configuration.getProducerPoolMaxActive();
-            config.minIdle = configuration.getProducerPoolMinIdle();
-            config.maxIdle = configuration.getProducerPoolMaxIdle();
-            // we should test on borrow to ensure the channel is still valid
-            config.testOnBorrow = true;
-            // only evict channels which are no longer valid
-            config.testWhileIdle = true;
+            final NettyChannelPool channelPool = new NettyChannelPool(configuration.getAddress(), new NettyProducerChannelConnector(), group, false,
+                    configuration.getProducerPoolMaxActive(), configuration.getProducerPoolMaxIdle(), configuration.getProducerPoolMinIdle(),
+                    configuration.getProducerPoolMinEvictableIdle(), configuration.getProducerPoolAcquireTimeout());
             // run eviction every 30th second
-            config.timeBetweenEvictionRunsMillis = 30 * 1000L;
-            config.minEvictableIdleTimeMillis = configuration.getProducerPoolMinEvictableIdle();
-            config.whenExhaustedAction = GenericObjectPool.WHEN_EXHAUSTED_FAIL;
-            pool = new GenericObjectPool<Channel>(new NettyProducerPoolableObjectFactory(), config);
+            evictionTask = group.scheduleWithFixedDelay(new Runnable() {
+                public void run() {
+                    channelPool.evict();
+                }
+            }, 30, 30, TimeUnit.SECONDS);
+            pool = channelPool;
 
             if (LOG.isDebugEnabled()) {
-                LOG.debug("Created NettyProducer pool[maxActive={}, minIdle={}, maxIdle={}, minEvictableIdleTimeMillis={}] -> {}",
-                        new Object[]{config.maxActive, config.minIdle, config.maxIdle, config.minEvictableIdleTimeMillis, pool});
+                LOG.debug("Created NettyProducer pool[maxActive={}, minIdle={}, maxIdle={}, minEvictableIdleTimeMillis={}, acquireTimeout={}] -> {}",
+                        new Object[]{configuration.getProducerPoolMaxActive(), configuration.getProducerPoolMinIdle(), configuration.getProducerPoolMaxIdle(),
+                            configuration.getProducerPoolMinEvictableIdle(), configuration.getProducerPoolAcquireTimeout(), pool});
             }
         } else {
-            pool = new SharedSingletonObjectPool<Channel>(new NettyProducerPoolableObjectFactory());
+            pool = new NettyChannelPool(configuration.getAddress(), new NettyProducerChannelConnector(), group, true, 1, 1, 0, 0, 0);
             if (LOG.isDebugEnabled()) {
                 LOG.info("Created NettyProducer shared singleton pool -> {}", pool);
             }
@@ -136,14 +137,25 @@ public class NettyProducer extends DefaultAsyncProducer {
 
         if (!configuration.isLazyChannelCreation()) {
             // ensure the connection can be established when we start up
-            Channel channel = pool.borrowObject();
-            pool.returnObject(channel);
+            Channel channel = acquireChannel();
+            pool.release(channel);
         }
     }
 
     @Override
     protected void doStop() throws Exception {
         LOG.debug("Stopping producer at address: {}", configuration.getAddress());
+        if (evictionTask != null) {
+            evictionTask.cancel(false);
+            evictionTask = null;
+        }
+        if (pool != null) {
+            if (LOG.isDebugEnabled()) {
+                LOG.debug("Stopping producer with channel pool[active={}, idle={}]", pool.getActive(), pool.getIdle());
+            }
+            pool.close();
+        }
+
         // close all channels
         LOG.trace("Closing {} channels", allChannels.size());
         ChannelGroupFuture future = allChannels.close();
@@ -155,18 +167,12 @@ public class NettyProducer extends DefaultAsyncProducer {
             workerGroup = null;
         }
 
-        if (pool != null) {
-            if (LOG.isDebugEnabled()) {
-                LOG.debug("Stopping producer with channel pool[active={}, idle={}]", pool.getNumActive(), pool.getNumIdle());
-            }
-            pool.close();
-            pool = null;
-        }
+        pool = null;
 
         super.doStop();
     }
 
-    public boolean process(final Exchange exchange, AsyncCallback callback) {
+    public boolean process(final Exchange exchange, final AsyncCallback callback) {
         if (!isRunAllowed()) {
             if (exchange.getException() == null) {
                 exchange.setException(new RejectedExecutionException());
@@ -175,7 +181,7 @@ public class NettyProducer extends DefaultAsyncProducer {
             return true;
         }
 
-        Object body;
+        final Object body;
         try {
             body = getRequestBody(exchange);
             if (body == null) {
@@ -195,43 +201,49 @@ public class NettyProducer extends DefaultAsyncProducer {
         }
 
         if (LOG.isTraceEnabled()) {
-            LOG.trace("Pool[active={}, idle={}]", pool.getNumActive(), pool.getNumIdle());
+            LOG.trace("Pool[active={}, idle={}, waiting={}]", new Object[]{pool.getActive(), pool.getIdle(), pool.getWaiting()});
         }
 
-        // get a channel from the pool
-        Channel existing;
-        try {
-            existing = pool.borrowObject();
-            if (existing != null) {
-                LOG.trace("Got channel from pool {}", existing);
+        // get a channel from the pool, which may complete later when a new channel is connected
+        // or a channel is released to the pool, so we continue from the pool callback
+        final NettyChannelPool current = pool;
+        current.acquire(new NettyChannelPool.AcquireCallback() {
+            @Override
+            public void onAcquired(Channel channel) {
+                try {
+                    processWithChannel(exchange, callback, body, channel, current);
+                } catch (Exception e) {
+                    // release the channel as the callback is not being used
+                    current.release(channel);
+                    exchange.setException(e);
+                    callback.done(false);
+                }
             }
-        } catch (Exception e) {
-            exchange.setException(e);
-            callback.done(true);
-            return true;
-        }
 
-        // we must have a channel
-        if (existing == null) {
-            exchange.setException(new CamelExchangeException("Cannot get channel from pool", exchange));
-            callback.done(true);
-            return true;
-        }
+            @Override
+            public void onFailure(Throwable cause) {
+                exchange.setException(cause);
+                callback.done(false);
+            }
+        });
+
+        // continue routing asynchronously
+        return false;
+    }
 
+    private void processWithChannel(final Exchange exchange, AsyncCallback callback, Object body, final Channel channel, NettyChannelPool current) {
         if (exchange.getIn().getHeader(NettyConstants.NETTY_REQUEST_TIMEOUT) != null) {
             long timeoutInMs = exchange.getIn().getHeader(NettyConstants.NETTY_REQUEST_TIMEOUT, Long.class);
-            ChannelHandler oldHandler = existing.pipeline().get("timeout");
+            ChannelHandler oldHandler = channel.pipeline().get("timeout");
             ReadTimeoutHandler newHandler = new ReadTimeoutHandler(timeoutInMs, TimeUnit.MILLISECONDS);
             if (oldHandler == null) {
-                existing.pipeline().addBefore("handler", "timeout", newHandler);
+                channel.pipeline().addBefore("handler", "timeout", newHandler);
             } else {
-                existing.pipeline().replace(oldHandler, "timeout", newHandler);
+                channel.pipeline().replace(oldHandler, "timeout", newHandler);
             }
         }
-        
-        // need to declare as final
-        final Channel channel = existing;
-        final AsyncCallback producerCallback = new NettyProducerCallback(channel, callback);
+
+        final AsyncCallback producerCallback = new NettyProducerCallback(channel, callback, current);
 
         // setup state as attachment on the channel, so we can access the state later when needed
         putState(channel, new NettyCamelState(producerCallback, exchange));
@@ -279,9 +291,6 @@ public class NettyProducer extends DefaultAsyncProducer {
                 }
             }
         });
-
-        // continue routing asynchronously
-        return false;
     }
 
     /**
@@ -410,43 +419,46 @@ public class NettyProducer extends DefaultAsyncProducer {
         }
     }
 
-    protected Channel openChannel(ChannelFuture channelFuture) throws Exception {
-        // blocking for channel to be done
-        if (LOG.isTraceEnabled()) {
-            LOG.trace("Waiting for operation to complete {} for {} millis", channelFuture, configuration.getConnectTimeout());
-        }
-        // here we need to wait it in other thread
-        final CountDownLatch channelLatch = new CountDownLatch(1);
-        channelFuture.addListener(new ChannelFutureListener() {
+    /**
+     * Acquires a channel from the pool and waits for the channel to be ready.
+     */
+    protected Channel acquireChannel() throws Exception {
+        final CountDownLatch latch = new CountDownLatch(1);
+        final AtomicReference<Channel> channel = new AtomicReference<Channel>();
+        final AtomicReference<Throwable> cause = new AtomicReference<Throwable>();
+        pool.acquire(new NettyChannelPool.AcquireCallback() {
+            @Override
+            public void onAcquired(Channel answer) {
+                channel.set(answer);
+                latch.countDown();
+            }
+
             @Override
-            public void operationComplete(ChannelFuture cf) throws Exception {
-                channelLatch.countDown();
+            public void onFailure(Throwable failure) {
+                cause.set(failure);
+                latch.countDown();
             }
         });
 
+        if (LOG.isTraceEnabled()) {
+            LOG.trace("Waiting for channel to {} for {} millis", configuration.getAddress(), configuration.getConnectTimeout());
+        }
         try {
-            channelLatch.await(configuration.getConnectTimeout(), TimeUnit.MILLISECONDS);
+            // wait a bit longer than the connect timeout as the pool fails the connect when timed out
+            if (!latch.await(configuration.getConnectTimeout() + configuration.getProducerPoolAcquireTimeout() + 1000L, TimeUnit.MILLISECONDS)) {
+                throw new CamelException("Timeout while waiting for connection to " + configuration.getAddress());
+            }
         } catch (InterruptedException ex) {
             throw new CamelException("Interrupted while waiting for " + "connection to "
                                      + configuration.getAddress());
         }
-
-
-        if (!channelFuture.isDone() || !channelFuture.isSuccess()) {
-            ConnectException cause = new ConnectException("Cannot connect to " + configuration.getAddress());
-            if (channelFuture.cause() != null) {
-                cause.initCause(channelFuture.cause());
-            }
-            throw cause;
+        Throwable failure = cause.get();
+        if (failure instanceof Exception) {
+            throw (Exception) failure;
+        } else if (failure != null) {
+            throw ObjectHelper.wrapRuntimeCamelException(failure);
         }
-        Channel answer = channelFuture.channel();
-        // to keep track of all channels in use
-        allChannels.add(answer);
-
-        if (LOG.isDebugEnabled()) {
-            LOG.debug("Creating connector to address: {}", configuration.getAddress());
-        }
-        return answer;
+        return channel.get();
     }
 
     public NettyConfiguration getConfiguration() {
@@ -462,6 +474,56 @@ public class NettyProducer extends DefaultAsyncProducer {
         return allChannels;
     }
 
+    @ManagedAttribute(description = "Number of channels in the producer pool")
+    public int getPoolSize() {
+        NettyChannelPool current = pool;
+        return current != null ? current.getSize() : 0;
+    }
+
+    @ManagedAttribute(description = "Number of channels in use from the producer pool")
+    public int getPoolActive() {
+        NettyChannelPool current = pool;
+        return current != null ? current.getActive() : 0;
+    }
+
+    @ManagedAttribute(description = "Number of idle channels in the producer pool")
+    public int getPoolIdle() {
+        NettyChannelPool current = pool;
+        return current != null ? current.getIdle() : 0;
+    }
+
+    @ManagedAttribute(description = "Number of exchanges waiting for a channel from the producer pool")
+    public int getPoolWaiting() {
+        NettyChannelPool current = pool;
+        return current != null ? current.getWaiting() : 0;
+    }
+
+    @ManagedAttribute(description = "Number of channels acquired from the producer pool")
+    public long getPoolAcquireCount() {
+        NettyChannelPool current = pool;
+        return current != null ? current.getAcquireCount() : 0;
+    }
+
+    @ManagedAttribute(description = "Average time in micros to acquire a channel from the producer pool")
+    public long getPoolAverageAcquireTime() {
+        NettyChannelPool current = pool;
+        return current != null ? current.getAverageAcquireTime() : 0;
+    }
+
+    @ManagedAttribute(description = "Maximum time in micros to acquire a channel from the producer pool")
+    public long getPoolMaxAcquireTime() {
+        NettyChannelPool current = pool;
+        return current != null ? current.getMaxAcquireTime() : 0;
+    }
+
+    @ManagedOperation(description = "Resets the producer pool acquire statistics")
+    public void resetPoolStatistics() {
+        NettyChannelPool current = pool;
+        if (current != null) {
+            current.resetStatistics();
+        }
+    }
+
     /**
      * Callback that ensures the channel is returned to the pool when we are done.
      */
@@ -469,21 +531,19 @@ public class NettyProducer extends DefaultAsyncProducer {
 
         private final Channel channel;
         private final AsyncCallback callback;
+        private final NettyChannelPool pool;
 
-        private NettyProducerCallback(Channel channel, AsyncCallback callback) {
+        private NettyProducerCallback(Channel channel, AsyncCallback callback, NettyChannelPool pool) {
             this.channel = channel;
             this.callback = callback;
+            this.pool = pool;
         }
 
         @Override
         public void done(boolean doneSync) {
-            // put back in pool
+            // put back in pool, which closes the channel if its no longer connected
             try {
-                // Only put the connected channel back to the pool
-                if (channel.isActive()) {
-                    LOG.trace("Putting channel back to pool {}", channel);
-                    pool.returnObject(channel);
-                }
+                pool.release(channel);
             } catch (Exception e) {
                 LOG.warn("Error returning channel to pool {}. This exception will be ignored.", channel);
             } finally {
@@ -494,46 +554,35 @@ public class NettyProducer extends DefaultAsyncProducer {
     }
 
     /**
-     * Object factory to create {@link Channel} used by the pool.
+     * Connects and closes the {@link Channel}s used by the pool.
      */
-    private final class NettyProducerPoolableObjectFactory implements PoolableObjectFactory<Channel> {
+    private final class NettyProducerChannelConnector implements NettyChannelPool.Connector {
 
         @Override
-        public Channel makeObject() throws Exception {
-            ChannelFuture channelFuture = openConnection();
-            Channel answer = openChannel(channelFuture);
-            LOG.trace("Created channel: {}", answer);
+        public ChannelFuture connect() throws Exception {
+            ChannelFuture answer = openConnection();
+            answer.addListener(new ChannelFutureListener() {
+                @Override
+                public void operationComplete(ChannelFuture future) throws Exception {
+                    if (future.isSuccess()) {
+                        // to keep track of all channels in use
+                        allChannels.add(future.channel());
+                        if (LOG.isDebugEnabled()) {
+                            LOG.debug("Creating connector to address: {}", configuration.getAddress());
+                        }
+                    }
+                }
+            });
             return answer;
         }
 
         @Override
-        public void destroyObject(Channel channel) throws Exception {
-            LOG.trace("Destroying channel: {}", channel);
+        public void close(Channel channel) {
             if (channel.isOpen()) {
                 NettyHelper.close(channel);
             }
             allChannels.remove(channel);
         }
-
-        @Override
-        public boolean validateObject(Channel channel) {
-            // we need a connected channel to be valid
-            boolean answer = channel.isActive();
-            LOG.trace("Validating channel: {} -> {}", channel, answer);
-            return answer;
-        }
-
-        @Override
-        public void activateObject(Channel channel) throws Exception {
-            // noop
-            LOG.trace("activateObject channel: {} -> {}", channel);
-        }
-
-        @Override
-        public void passivateObject(Channel channel) throws Exception {
-            // noop
-            LOG.trace("passivateObject channel: {} -> {}", channel);
-        }
     }
 
 }
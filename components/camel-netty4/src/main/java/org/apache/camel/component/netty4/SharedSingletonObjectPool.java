@@ -26,7 +26,10 @@ import org.apache.commons.pool.PoolableObjectFactory;
  * <p/>
  * This implementation will always return <tt>1</tt> in {@link #getNumActive()} and
  * return <tt>0</tt> in {@link #getNumIdle()}.
+ *
+ * @deprecated the {@link NettyProducer} uses {@link NettyChannelPool}, which has a shared mode
  */
+@Deprecated
 public class SharedSingletonObjectPool<T> implements ObjectPool<T> {
 
     private final PoolableObjectFactory<T> factory;
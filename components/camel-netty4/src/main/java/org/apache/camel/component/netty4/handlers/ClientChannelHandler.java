@@ -212,6 +212,9 @@ public class ClientChannelHandler extends SimpleChannelInboundHandler<Object> {
         // if textline enabled then covert to a String which must be used for textline
         if (producer.getConfiguration().isTextline()) {
             body = producer.getContext().getTypeConverter().mandatoryConvertTo(String.class, exchange, message);
+        } else if (producer.getConfiguration().isRetainByteBuf()) {
+            // keep the received message until the exchange is done, as its released when this method returns
+            NettyHelper.retainUntilDone(exchange, message);
         }
 
         // set the result on either IN or OUT on the original exchange depending on its pattern
@@ -96,6 +96,11 @@ public class ServerChannelHandler extends SimpleChannelInboundHandler<Object> {
         // we want to handle the UoW
         consumer.createUoW(exchange);
 
+        if (consumer.getConfiguration().isRetainByteBuf()) {
+            // keep the received message until the exchange is done, as its released when this method returns
+            NettyHelper.retainUntilDone(exchange, msg);
+        }
+
         beforeProcess(exchange, ctx, msg);
 
         // process accordingly to endpoint configuration
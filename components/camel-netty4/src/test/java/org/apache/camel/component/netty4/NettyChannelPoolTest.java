@@ -0,0 +1,233 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.camel.component.netty4;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+import io.netty.channel.Channel;
+import io.netty.channel.ChannelFuture;
+import io.netty.channel.ChannelInboundHandlerAdapter;
+import io.netty.channel.embedded.EmbeddedChannel;
+import org.junit.After;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+public class NettyChannelPoolTest {
+
+    private final ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor();
+    private final AtomicInteger connected = new AtomicInteger();
+    private final AtomicInteger closed = new AtomicInteger();
+    private final NettyChannelPool.Connector connector = new NettyChannelPool.Connector() {
+        public ChannelFuture connect() throws Exception {
+            connected.incrementAndGet();
+            return new EmbeddedChannel(new ChannelInboundHandlerAdapter()).newSucceededFuture();
+        }
+
+        public void close(Channel channel) {
+            closed.incrementAndGet();
+            channel.close();
+        }
+    };
+
+    @After
+    public void shutdownScheduler() {
+        scheduler.shutdownNow();
+    }
+
+    @Test
+    public void testReleasedChannelIsHandedToWaiter() throws Exception {
+        NettyChannelPool pool = new NettyChannelPool("test", connector, scheduler, false, 1, -1, 0, 0, 5000);
+
+        Channel first = acquire(pool);
+        Callback waiter = new Callback();
+        pool.acquire(waiter);
+        // the pool is exhausted so the acquire is waiting
+        assertNull(waiter.channel.get());
+        assertEquals(1, pool.getWaiting());
+
+        pool.release(first);
+        assertTrue(waiter.latch.await(5, TimeUnit.SECONDS));
+        assertSame(first, waiter.channel.get());
+        assertEquals(0, pool.getWaiting());
+        assertEquals(1, pool.getActive());
+        assertEquals(0, pool.getIdle());
+        assertEquals(1, connected.get());
+        pool.close();
+    }
+
+    @Test
+    public void testWaiterTimeout() throws Exception {
+        NettyChannelPool pool = new NettyChannelPool("test", connector, scheduler, false, 1, -1, 0, 0, 100);
+
+        Channel first = acquire(pool);
+        Callback waiter = new Callback();
+        pool.acquire(waiter);
+
+        assertTrue(waiter.latch.await(5, TimeUnit.SECONDS));
+        assertTrue(waiter.failure.get() instanceof TimeoutException);
+        assertEquals(0, pool.getWaiting());
+
+        // the released channel is not given to the timed out waiter
+        pool.release(first);
+        assertEquals(1, pool.getIdle());
+        assertEquals(0, pool.getActive());
+        pool.close();
+    }
+
+    @Test
+    public void testEvictIdleChannels() throws Exception {
+        NettyChannelPool pool = new NettyChannelPool("test", connector, scheduler, false, -1, -1, 1, 0, 0);
+
+        Channel first = acquire(pool);
+        Channel second = acquire(pool);
+        Channel third = acquire(pool);
+        pool.release(first);
+        pool.release(second);
+        pool.release(third);
+        assertEquals(3, pool.getIdle());
+        assertEquals(3, pool.getSize());
+
+        // keeps the min idle channel, which is the most recently used
+        pool.evict();
+        assertEquals(1, pool.getIdle());
+        assertEquals(1, pool.getSize());
+        assertEquals(2, closed.get());
+        assertFalse(first.isActive());
+        assertFalse(second.isActive());
+        assertTrue(third.isActive());
+        assertSame(third, acquire(pool));
+        pool.close();
+    }
+
+    @Test
+    public void testEvictOnlyChannelsIdleForLong() throws Exception {
+        NettyChannelPool pool = new NettyChannelPool("test", connector, scheduler, false, -1, -1, 0, 60000, 0);
+
+        pool.release(acquire(pool));
+        pool.evict();
+        assertEquals(1, pool.getIdle());
+        assertEquals(0, closed.get());
+        pool.close();
+    }
+
+    @Test
+    public void testClosedIdleChannelIsNotAcquired() throws Exception {
+        NettyChannelPool pool = new NettyChannelPool("test", connector, scheduler, false, -1, -1, 0, 0, 0);
+
+        Channel first = acquire(pool);
+        pool.release(first);
+        first.close();
+        assertEquals(0, pool.getIdle());
+
+        Channel second = acquire(pool);
+        assertTrue(second != first);
+        assertEquals(1, pool.getSize());
+        pool.close();
+    }
+
+    @Test
+    public void testConcurrentAcquireAndRelease() throws Exception {
+        final int maxActive = 4;
+        final NettyChannelPool pool = new NettyChannelPool("test", connector, scheduler, false, maxActive, -1, 0, 0, 10000);
+        // the channels currently acquired, which must be exclusive to the acquirer
+        final Set<Channel> acquired = Collections.newSetFromMap(new ConcurrentHashMap<Channel, Boolean>());
+        final AtomicInteger errors = new AtomicInteger();
+
+        ExecutorService executor = Executors.newFixedThreadPool(10);
+        List<Future<?>> futures = new ArrayList<Future<?>>();
+        for (int i = 0; i < 10; i++) {
+            futures.add(executor.submit(new Runnable() {
+                public void run() {
+                    for (int j = 0; j < 500; j++) {
+                        try {
+                            Channel channel = acquire(pool);
+                            if (!acquired.add(channel) || acquired.size() > maxActive) {
+                                errors.incrementAndGet();
+                            }
+                            acquired.remove(channel);
+                            pool.release(channel);
+                        } catch (Exception e) {
+                            errors.incrementAndGet();
+                        }
+                    }
+                }
+            }));
+        }
+        for (Future<?> future : futures) {
+            future.get(60, TimeUnit.SECONDS);
+        }
+        executor.shutdownNow();
+
+        assertEquals(0, errors.get());
+        assertEquals(5000, pool.getAcquireCount());
+        assertEquals(0, pool.getActive());
+        assertEquals(0, pool.getWaiting());
+        assertTrue("Pool size " + pool.getSize(), pool.getSize() <= maxActive);
+        assertEquals(pool.getSize(), pool.getIdle());
+        assertTrue("Connected " + connected.get(), connected.get() <= maxActive);
+        pool.close();
+    }
+
+    private static Channel acquire(NettyChannelPool pool) throws Exception {
+        Callback callback = new Callback();
+        pool.acquire(callback);
+        if (!callback.latch.await(10, TimeUnit.SECONDS)) {
+            throw new TimeoutException("Timeout acquiring channel");
+        }
+        if (callback.failure.get() != null) {
+            throw new Exception(callback.failure.get());
+        }
+        Channel channel = callback.channel.get();
+        assertNotNull(channel);
+        return channel;
+    }
+
+    private static final class Callback implements NettyChannelPool.AcquireCallback {
+        private final CountDownLatch latch = new CountDownLatch(1);
+        private final AtomicReference<Channel> channel = new AtomicReference<Channel>();
+        private final AtomicReference<Throwable> failure = new AtomicReference<Throwable>();
+
+        public void onAcquired(Channel acquired) {
+            channel.set(acquired);
+            latch.countDown();
+        }
+
+        public void onFailure(Throwable cause) {
+            failure.set(cause);
+            latch.countDown();
+        }
+    }
+}
@@ -16,10 +16,15 @@
  */
 package org.apache.camel.component.netty4;
 
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+
 import io.netty.buffer.ByteBuf;
 import io.netty.buffer.PooledByteBufAllocator;
+import org.apache.camel.Exchange;
 import org.apache.camel.impl.DefaultExchange;
 import org.apache.camel.test.junit4.CamelTestSupport;
+import org.apache.camel.util.IOHelper;
 import org.junit.Before;
 import org.junit.Test;
 
@@ -57,4 +62,35 @@ public class NettyConverterTest extends CamelTestSupport {
         assertEquals(PAYLOAD, result);
     }
 
+    @Test
+    public void testConversionToInputStream() throws Exception {
+        InputStream is = context.getTypeConverter().convertTo(InputStream.class, new DefaultExchange(context), buf);
+        assertNotNull(is);
+        assertEquals(PAYLOAD, IOHelper.loadText(is).trim());
+        // the stream reads the buffer itself
+        assertEquals(0, buf.readableBytes());
+    }
+
+    @Test
+    public void testConversionToInputStreamViewOfRetainedBuffer() throws Exception {
+        Exchange exchange = new DefaultExchange(context);
+        NettyHelper.retainUntilDone(exchange, buf);
+
+        InputStream is = context.getTypeConverter().convertTo(InputStream.class, exchange, buf);
+        assertNotNull(is);
+        assertEquals(PAYLOAD, IOHelper.loadText(is).trim());
+        // the stream is a view which does not change the retained buffer
+        assertEquals(PAYLOAD.length(), buf.readableBytes());
+    }
+
+    @Test
+    public void testConversionToByteBufferView() {
+        ByteBuffer result = context.getTypeConverter().convertTo(ByteBuffer.class, buf);
+        assertNotNull(result);
+        assertEquals(PAYLOAD.length(), result.remaining());
+        // the view shares the content with the buffer
+        buf.setByte(0, 'B');
+        assertEquals('B', result.get(0));
+    }
+
 }
@@ -0,0 +1,83 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.camel.component.netty4;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.apache.camel.Exchange;
+import org.apache.camel.ExchangePattern;
+import org.apache.camel.builder.RouteBuilder;
+import org.apache.camel.util.AsyncProcessorHelper;
+import org.junit.Test;
+
+/**
+ * @version 
+ */
+public class NettyProducerPoolAcquireTimeoutTest extends BaseNettyTest {
+
+    @Test
+    public void testWaitForChannelFromPool() throws Exception {
+        final NettyProducer producer = (NettyProducer) context.getEndpoint(
+                "netty4:tcp://localhost:" + getPort() + "?textline=true&sync=true&producerPoolMaxActive=1&producerPoolAcquireTimeout=10000").createProducer();
+        producer.start();
+
+        ExecutorService executor = Executors.newFixedThreadPool(5);
+        try {
+            List<Future<String>> replies = new ArrayList<Future<String>>();
+            for (int i = 0; i < 10; i++) {
+                final String body = "Hello " + i;
+                replies.add(executor.submit(new Callable<String>() {
+                    public String call() throws Exception {
+                        Exchange exchange = producer.createExchange(ExchangePattern.InOut);
+                        exchange.getIn().setBody(body);
+                        AsyncProcessorHelper.process(producer, exchange);
+                        return exchange.getOut().getBody(String.class);
+                    }
+                }));
+            }
+            for (int i = 0; i < 10; i++) {
+                assertEquals("Bye " + i, replies.get(i).get());
+            }
+
+            // only a single channel is used, as the other exchanges waits for the channel to be released
+            assertEquals(1, producer.getPoolSize());
+            assertEquals(0, producer.getPoolActive());
+            assertEquals(0, producer.getPoolWaiting());
+            assertEquals(10, producer.getPoolAcquireCount());
+        } finally {
+            executor.shutdownNow();
+            producer.stop();
+        }
+    }
+
+    @Override
+    protected RouteBuilder createRouteBuilder() throws Exception {
+        return new RouteBuilder() {
+            @Override
+            public void configure() throws Exception {
+                from("netty4:tcp://localhost:{{port}}?textline=true&sync=true")
+                    .delay(50)
+                    .transform(body().regexReplaceAll("Hello", "Bye"));
+            }
+        };
+    }
+}
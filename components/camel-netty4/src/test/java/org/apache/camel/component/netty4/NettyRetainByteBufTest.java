@@ -0,0 +1,75 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.camel.component.netty4;
+
+import java.io.InputStream;
+import java.util.concurrent.TimeUnit;
+
+import io.netty.buffer.ByteBuf;
+import org.apache.camel.Exchange;
+import org.apache.camel.Processor;
+import org.apache.camel.builder.NotifyBuilder;
+import org.apache.camel.builder.RouteBuilder;
+import org.apache.camel.util.IOHelper;
+import org.junit.Test;
+
+/**
+ * @version 
+ */
+public class NettyRetainByteBufTest extends BaseNettyTest {
+
+    private volatile ByteBuf received;
+    private volatile String receivedText;
+
+    @Test
+    public void testRetainByteBuf() throws Exception {
+        NotifyBuilder notify = new NotifyBuilder(context).fromRoute("server").whenDone(1).create();
+
+        String reply = template.requestBody("direct:start", "Hello World", String.class);
+        assertEquals("Hello World", reply);
+
+        assertTrue(notify.matches(5, TimeUnit.SECONDS));
+        assertEquals("Hello World", receivedText);
+        // the received buffer is released when the exchange is done
+        assertNotNull(received);
+        assertEquals(0, received.refCnt());
+    }
+
+    @Override
+    protected RouteBuilder createRouteBuilder() throws Exception {
+        return new RouteBuilder() {
+            @Override
+            public void configure() throws Exception {
+                from("direct:start")
+                    .to("netty4:tcp://localhost:{{port}}?sync=true&allowDefaultCodec=false&useByteBuf=true&retainByteBuf=true")
+                    // convert the reply while the buffer is retained
+                    .convertBodyTo(String.class);
+
+                // reply with the received buffer
+                from("netty4:tcp://localhost:{{port}}?sync=true&allowDefaultCodec=false&retainByteBuf=true").routeId("server")
+                    .process(new Processor() {
+                        public void process(Exchange exchange) throws Exception {
+                            received = exchange.getIn().getBody(ByteBuf.class);
+                            // the stream is a view of the retained buffer, which does not change the buffer used as reply
+                            InputStream is = exchange.getIn().getBody(InputStream.class);
+                            receivedText = IOHelper.loadText(is).trim();
+                        }
+                    });
+            }
+        };
+    }
+}
@@ -18,6 +18,7 @@ package org.apache.camel.component.sql;
 
 import java.sql.PreparedStatement;
 import java.sql.SQLException;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
 import java.util.Iterator;
@@ -28,8 +29,10 @@ import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 
 import org.apache.camel.Exchange;
+import org.apache.camel.Expression;
 import org.apache.camel.RuntimeExchangeException;
 import org.apache.camel.language.simple.SimpleLanguage;
+import org.apache.camel.util.LRUCache;
 import org.apache.camel.util.StringQuoteHelper;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -37,28 +40,45 @@ import org.springframework.jdbc.core.ArgumentPreparedStatementSetter;
 
 /**
  * Default {@link SqlPrepareStatementStrategy} that supports named query parameters as well index based.
+ * <p/>
+ * The queries with named parameters is parsed once, and the parsed queries (the prepared query and the
+ * named parameters) is kept in a LRU cache, so the queries is not parsed again for every message. The
+ * queries without named parameters, and all the queries when the named parameters is not allowed, is used
+ * as is without being parsed or cached.
  */
 public class DefaultSqlPrepareStatementStrategy implements SqlPrepareStatementStrategy {
 
+    public static final int DEFAULT_CACHE_SIZE = 1000;
+
     private static final Logger LOG = LoggerFactory.getLogger(DefaultSqlPrepareStatementStrategy.class);
     private final char separator;
+    private final LRUCache<String, ParsedQuery> cache;
 
     public DefaultSqlPrepareStatementStrategy() {
         this(',');
     }
 
     public DefaultSqlPrepareStatementStrategy(char separator) {
+        this(separator, DEFAULT_CACHE_SIZE);
+    }
+
+    /**
+     * @param separator  the separator of the parameter values when the message body is a String
+     * @param cacheSize  the maximum number of parsed queries to cache
+     */
+    public DefaultSqlPrepareStatementStrategy(char separator, int cacheSize) {
         this.separator = separator;
+        this.cache = new LRUCache<String, ParsedQuery>(cacheSize);
     }
 
     @Override
     public String prepareQuery(String query, boolean allowNamedParameters) throws SQLException {
-        String answer;
-        if (allowNamedParameters && hasNamedParameters(query)) {
-            // replace all :?word and :?${foo} with just ?
-            answer = query.replaceAll("\\:\\?\\w+|\\:\\?\\$\\{[^\\}]+\\}", "\\?");
-        } else {
-            answer = query;
+        String answer = query;
+        if (allowNamedParameters) {
+            ParsedQuery parsed = parseQuery(query);
+            if (parsed != null && parsed.hasNamedParameters()) {
+                answer = parsed.preparedQuery;
+            }
         }
 
         LOG.trace("Prepared query: {}", answer);
@@ -68,9 +88,10 @@ public class DefaultSqlPrepareStatementStrategy implements SqlPrepareStatementSt
     @Override
     public Iterator<?> createPopulateIterator(final String query, final String preparedQuery, final int expectedParams, final Exchange exchange,
                                               final Object value) throws SQLException {
-        if (hasNamedParameters(query)) {
+        ParsedQuery parsed = parseQuery(query);
+        if (parsed != null && parsed.hasNamedParameters()) {
             // create an iterator that returns the value in the named order
-            return new PopulateIterator(query, exchange, value);
+            return new PopulateIterator(query, parsed, exchange, value);
         } else {
             // if only 1 parameter and the body is a String then use body as is
             if (expectedParams == 1 && value instanceof String) {
@@ -119,25 +140,81 @@ public class DefaultSqlPrepareStatementStrategy implements SqlPrepareStatementSt
     }
 
     protected boolean hasNamedParameters(String query) {
-        NamedQueryParser parser = new NamedQueryParser(query);
-        return parser.next() != null;
+        ParsedQuery parsed = parseQuery(query);
+        return parsed != null && parsed.hasNamedParameters();
     }
 
-    private static final class NamedQueryParser {
+    /**
+     * Number of times a parsed query was found in the cache
+     */
+    public long getCacheHits() {
+        return cache.getHits();
+    }
 
-        private static final Pattern PATTERN = Pattern.compile("\\:\\?(\\w+|\\$\\{[^\\}]+\\})");
-        private final Matcher matcher;
+    /**
+     * Number of times a query was not found in the cache, and had to be parsed
+     */
+    public long getCacheMisses() {
+        return cache.getMisses();
+    }
+
+    /**
+     * Number of parsed queries in the cache
+     */
+    public int getCacheSize() {
+        return cache.size();
+    }
+
+    public int getMaxCacheSize() {
+        return cache.getMaxCacheSize();
+    }
 
-        private NamedQueryParser(String query) {
-            this.matcher = PATTERN.matcher(query);
+    /**
+     * Gets the parsed query from the cache, or parses the query.
+     *
+     * @return the parsed query, or <tt>null</tt> if the query has no named parameters
+     */
+    private ParsedQuery parseQuery(String query) {
+        if (query.indexOf(":?") < 0) {
+            // no named parameters so there is nothing to parse
+            return null;
         }
+        ParsedQuery answer = cache.get(query);
+        if (answer == null) {
+            // parsing the same query concurrently is harmless
+            answer = new ParsedQuery(query);
+            cache.put(query, answer);
+        }
+        return answer;
+    }
+
+    private static final class ParsedQuery {
 
-        public String next() {
-            if (!matcher.find()) {
-                return null;
+        private static final Pattern PATTERN = Pattern.compile("\\:\\?(\\w+|\\$\\{[^\\}]+\\})");
+        private final String preparedQuery;
+        private final String[] names;
+        // the simple expressions of the ${foo} parameters
+        private final Expression[] expressions;
+
+        private ParsedQuery(String query) {
+            List<String> found = new ArrayList<String>();
+            Matcher matcher = PATTERN.matcher(query);
+            while (matcher.find()) {
+                found.add(matcher.group(1));
             }
+            names = found.toArray(new String[found.size()]);
+            expressions = new Expression[names.length];
+            for (int i = 0; i < names.length; i++) {
+                if (names[i].startsWith("${") && names[i].endsWith("}")) {
+                    expressions[i] = SimpleLanguage.expression(names[i]);
+                }
+            }
+            // replace all :?word and :?${foo} with just ?
+            preparedQuery = query.replaceAll("\\:\\?\\w+|\\:\\?\\$\\{[^\\}]+\\}", "\\?");
+        }
 
-            return matcher.group(1);
+        private boolean hasNamedParameters() {
+            return names.length > 0;
         }
     }
 
@@ -145,45 +222,43 @@ public class DefaultSqlPrepareStatementStrategy implements SqlPrepareStatementSt
         private static final String MISSING_PARAMETER_EXCEPTION =
                 "Cannot find key [%s] in message body or headers to use when setting named parameter in query [%s]";
         private final String query;
-        private final NamedQueryParser parser;
+        private final ParsedQuery parsed;
         private final Exchange exchange;
         private final Map<?, ?> bodyMap;
         private final Map<?, ?> headersMap;
-        private String nextParam;
+        private int index;
 
-        private PopulateIterator(String query, Exchange exchange, Object body) {
+        private PopulateIterator(String query, ParsedQuery parsed, Exchange exchange, Object body) {
             this.query = query;
-            this.parser = new NamedQueryParser(query);
+            this.parsed = parsed;
             this.exchange = exchange;
             this.bodyMap = safeMap(exchange.getContext().getTypeConverter().tryConvertTo(Map.class, body));
             this.headersMap = safeMap(exchange.getIn().getHeaders());
-
-            this.nextParam = parser.next();
         }
 
         @Override
         public boolean hasNext() {
-            return nextParam != null;
+            return index < parsed.names.length;
         }
 
         @Override
         public Object next() {
-            if (nextParam == null) {
+            if (!hasNext()) {
                 throw new NoSuchElementException();
             }
 
-            try {
-                if (nextParam.startsWith("${") && nextParam.endsWith("}")) {
-                    return SimpleLanguage.expression(nextParam).evaluate(exchange, Object.class);
-                } else if (bodyMap.containsKey(nextParam)) {
-                    return bodyMap.get(nextParam);
-                } else if (headersMap.containsKey(nextParam)) {
-                    return headersMap.get(nextParam);
-                }
-                throw new RuntimeExchangeException(String.format(MISSING_PARAMETER_EXCEPTION, nextParam, query), exchange);
-            } finally {
-                nextParam = parser.next();
+            String nextParam = parsed.names[index];
+            Expression expression = parsed.expressions[index];
+            index++;
+
+            if (expression != null) {
+                return expression.evaluate(exchange, Object.class);
+            } else if (bodyMap.containsKey(nextParam)) {
+                return bodyMap.get(nextParam);
+            } else if (headersMap.containsKey(nextParam)) {
+                return headersMap.get(nextParam);
             }
+            throw new RuntimeExchangeException(String.format(MISSING_PARAMETER_EXCEPTION, nextParam, query), exchange);
         }
 
         @Override
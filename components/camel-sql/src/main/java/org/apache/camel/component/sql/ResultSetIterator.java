@@ -0,0 +1,120 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.camel.component.sql;
+
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import javax.sql.DataSource;
+
+import org.apache.camel.RuntimeCamelException;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.jdbc.datasource.DataSourceUtils;
+import org.springframework.jdbc.support.JdbcUtils;
+
+/**
+ * Iterates the rows of a {@link ResultSet}, where each row is mapped when it is read from the
+ * result set, so the result of the query is not loaded into memory at once.
+ * <p/>
+ * The result set is closed when all the rows has been read, or the iterator is closed.
+ */
+public class ResultSetIterator implements Iterator<Object> {
+
+    private final ResultSet resultSet;
+    private final RowMapper<?> rowMapper;
+    private final Statement statement;
+    private final Connection connection;
+    private final DataSource dataSource;
+    private final AtomicBoolean closed = new AtomicBoolean();
+    private int rowNumber;
+
+    /**
+     * Creates an iterator where the statement and connection is managed by the caller.
+     */
+    public ResultSetIterator(ResultSet resultSet, RowMapper<?> rowMapper) throws SQLException {
+        this(resultSet, rowMapper, null, null, null);
+    }
+
+    /**
+     * Creates an iterator which also closes the statement, and releases the connection when closed.
+     */
+    public ResultSetIterator(ResultSet resultSet, RowMapper<?> rowMapper, Statement statement,
+                             Connection connection, DataSource dataSource) throws SQLException {
+        this.resultSet = resultSet;
+        this.rowMapper = rowMapper;
+        this.statement = statement;
+        this.connection = connection;
+        this.dataSource = dataSource;
+
+        loadNext();
+    }
+
+    @Override
+    public boolean hasNext() {
+        return !closed.get();
+    }
+
+    @Override
+    public Object next() {
+        if (!hasNext()) {
+            throw new NoSuchElementException();
+        }
+
+        try {
+            Object row = rowMapper.mapRow(resultSet, rowNumber++);
+            loadNext();
+            return row;
+        } catch (SQLException e) {
+            close();
+            throw new RuntimeCamelException("Cannot process result", e);
+        }
+    }
+
+    @Override
+    public void remove() {
+        throw new UnsupportedOperationException("Cannot remove from a database result");
+    }
+
+    /**
+     * Number of rows read
+     */
+    public int getRowNumber() {
+        return rowNumber;
+    }
+
+    public void close() {
+        if (closed.compareAndSet(false, true)) {
+            JdbcUtils.closeResultSet(resultSet);
+            JdbcUtils.closeStatement(statement);
+            if (connection != null) {
+                DataSourceUtils.releaseConnection(connection, dataSource);
+            }
+        }
+    }
+
+    private void loadNext() throws SQLException {
+        boolean hasNext = resultSet.next();
+        if (!hasNext) {
+            close();
+        }
+    }
+}
@@ -0,0 +1,341 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.camel.component.sql;
+
+import java.sql.BatchUpdateException;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.apache.camel.AsyncCallback;
+import org.apache.camel.Exchange;
+import org.apache.camel.impl.DefaultAsyncProducer;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.PreparedStatementCallback;
+
+/**
+ * A producer which executes the statements of many concurrent exchanges together as JDBC batches.
+ * <p/>
+ * The exchanges are queued, and a single thread takes the queued exchanges (up to the max batch size),
+ * and executes the parameters of the exchanges using the same SQL as a single batch, on a connection from
+ * the data source. Each exchange is completed with its own update count, or the error if its statement failed.
+ * The exchanges continue routing using a separate completion pool, so the batch thread can execute the next
+ * batch meanwhile.
+ * <p/>
+ * Transacted exchanges are not batched, as the transaction is bound to the thread processing the exchange,
+ * so their statement is executed by the caller thread.
+ * <p/>
+ * The statements must be updates (such as insert, update or delete), as batches cannot return result sets.
+ */
+public class SqlBatchProducer extends DefaultAsyncProducer {
+    private final String query;
+    private final JdbcTemplate jdbcTemplate;
+    private final SqlPrepareStatementStrategy sqlPrepareStatementStrategy;
+    private final boolean alwaysPopulateStatement;
+    private final boolean useMessageBodyForSql;
+    private final BlockingQueue<BatchEntry> queue = new LinkedBlockingQueue<BatchEntry>();
+    private int parametersCount;
+    private int maxBatchSize = 100;
+    private long maxBatchDelay;
+    private ExecutorService executorService;
+    private ExecutorService completionExecutorService;
+    private final AtomicLong batchCount = new AtomicLong();
+    private final AtomicLong batchedExchangesCount = new AtomicLong();
+
+    public SqlBatchProducer(SqlEndpoint endpoint, String query, JdbcTemplate jdbcTemplate, SqlPrepareStatementStrategy sqlPrepareStatementStrategy,
+                            boolean alwaysPopulateStatement, boolean useMessageBodyForSql) {
+        super(endpoint);
+        this.query = query;
+        this.jdbcTemplate = jdbcTemplate;
+        this.sqlPrepareStatementStrategy = sqlPrepareStatementStrategy;
+        this.alwaysPopulateStatement = alwaysPopulateStatement;
+        this.useMessageBodyForSql = useMessageBodyForSql;
+    }
+
+    @Override
+    public SqlEndpoint getEndpoint() {
+        return (SqlEndpoint) super.getEndpoint();
+    }
+
+    public boolean process(Exchange exchange, AsyncCallback callback) {
+        try {
+            if (exchange.getIn().getHeader(SqlConstants.SQL_RETRIEVE_GENERATED_KEYS, false, Boolean.class)) {
+                throw new IllegalArgumentException("Retrieving generated keys is not supported when batchExchanges=true");
+            }
+
+            String sql;
+            Object value;
+            if (useMessageBodyForSql) {
+                sql = exchange.getIn().getBody(String.class);
+                value = exchange.getIn().getHeader(SqlConstants.SQL_PARAMETERS);
+            } else {
+                String queryHeader = exchange.getIn().getHeader(SqlConstants.SQL_QUERY, String.class);
+                sql = queryHeader != null ? queryHeader : query;
+                value = exchange.getIn().getBody();
+            }
+            String preparedQuery = sqlPrepareStatementStrategy.prepareQuery(sql, getEndpoint().isAllowNamedParameters());
+
+            BatchEntry entry = new BatchEntry(exchange, callback, sql, preparedQuery, value);
+            if (exchange.isTransacted()) {
+                // the statement must be executed by the thread of the transaction
+                executeBatch(Collections.singletonList(entry));
+                callback.done(true);
+                return true;
+            }
+
+            if (!isRunAllowed()) {
+                throw new RejectedExecutionException("SqlBatchProducer is not started so cannot accept exchange: " + exchange);
+            }
+            queue.add(entry);
+            return false;
+        } catch (Exception e) {
+            exchange.setException(e);
+            callback.done(true);
+            return true;
+        }
+    }
+
+    public void setParametersCount(int parametersCount) {
+        this.parametersCount = parametersCount;
+    }
+
+    public int getMaxBatchSize() {
+        return maxBatchSize;
+    }
+
+    public void setMaxBatchSize(int maxBatchSize) {
+        this.maxBatchSize = maxBatchSize;
+    }
+
+    public long getMaxBatchDelay() {
+        return maxBatchDelay;
+    }
+
+    public void setMaxBatchDelay(long maxBatchDelay) {
+        this.maxBatchDelay = maxBatchDelay;
+    }
+
+    /**
+     * Number of batches executed by the batch thread
+     */
+    public long getBatchCount() {
+        return batchCount.get();
+    }
+
+    /**
+     * Number of exchanges executed by the batch thread
+     */
+    public long getBatchedExchangesCount() {
+        return batchedExchangesCount.get();
+    }
+
+    @Override
+    protected void doStart() throws Exception {
+        super.doStart();
+        completionExecutorService = getEndpoint().getCamelContext().getExecutorServiceManager().newDefaultThreadPool(this, "SqlBatchProducerCompletion");
+        executorService = getEndpoint().getCamelContext().getExecutorServiceManager().newSingleThreadExecutor(this, "SqlBatchProducer");
+        executorService.submit(new Runnable() {
+            public void run() {
+                executeBatches();
+            }
+        });
+    }
+
+    @Override
+    protected void doStop() throws Exception {
+        // the batch thread executes the queued exchanges before it terminates
+        if (executorService != null) {
+            getEndpoint().getCamelContext().getExecutorServiceManager().shutdownGraceful(executorService);
+            executorService = null;
+        }
+        BatchEntry entry;
+        while ((entry = queue.poll()) != null) {
+            entry.exchange.setException(new RejectedExecutionException("SqlBatchProducer has been stopped"));
+            entry.callback.done(false);
+        }
+        if (completionExecutorService != null) {
+            getEndpoint().getCamelContext().getExecutorServiceManager().shutdownGraceful(completionExecutorService);
+            completionExecutorService = null;
+        }
+        super.doStop();
+    }
+
+    private void executeBatches() {
+        List<BatchEntry> batch = new ArrayList<BatchEntry>(maxBatchSize);
+        while (isRunAllowed() || !queue.isEmpty()) {
+            try {
+                BatchEntry first = queue.poll(1000, TimeUnit.MILLISECONDS);
+                if (first == null) {
+                    continue;
+                }
+                batch.add(first);
+                queue.drainTo(batch, maxBatchSize - 1);
+                if (maxBatchDelay > 0) {
+                    // wait a little for more exchanges to fill up the batch
+                    long deadline = System.currentTimeMillis() + maxBatchDelay;
+                    while (batch.size() < maxBatchSize && isRunAllowed()) {
+                        long remaining = deadline - System.currentTimeMillis();
+                        BatchEntry next = remaining > 0 ? queue.poll(remaining, TimeUnit.MILLISECONDS) : null;
+                        if (next == null) {
+                            break;
+                        }
+                        batch.add(next);
+                        queue.drainTo(batch, maxBatchSize - batch.size());
+                    }
+                }
+            } catch (InterruptedException e) {
+                log.debug("Interrupted while waiting for exchanges to batch");
+                if (batch.isEmpty()) {
+                    break;
+                }
+            }
+
+            batchCount.incrementAndGet();
+            batchedExchangesCount.addAndGet(batch.size());
+            executeBatch(batch);
+            complete(batch);
+            batch.clear();
+        }
+    }
+
+    private void executeBatch(List<BatchEntry> batch) {
+        log.trace("Executing batch of {} exchanges", batch.size());
+
+        // group the exchanges by their SQL, keeping the order of the exchanges
+        Map<String, List<BatchEntry>> statements = new LinkedHashMap<String, List<BatchEntry>>();
+        for (BatchEntry entry : batch) {
+            List<BatchEntry> entries = statements.get(entry.preparedQuery);
+            if (entries == null) {
+                entries = new ArrayList<BatchEntry>();
+                statements.put(entry.preparedQuery, entries);
+            }
+            entries.add(entry);
+        }
+
+        for (Map.Entry<String, List<BatchEntry>> statement : statements.entrySet()) {
+            final String preparedQuery = statement.getKey();
+            final List<BatchEntry> entries = statement.getValue();
+            try {
+                jdbcTemplate.execute(preparedQuery, new PreparedStatementCallback<Object>() {
+                    public Object doInPreparedStatement(PreparedStatement ps) throws SQLException {
+                        executeStatement(ps, preparedQuery, entries);
+                        return null;
+                    }
+                });
+            } catch (Exception e) {
+                for (BatchEntry entry : entries) {
+                    if (!entry.completed) {
+                        entry.exchange.setException(e);
+                    }
+                }
+            }
+        }
+    }
+
+    private void complete(List<BatchEntry> batch) {
+        ExecutorService completion = completionExecutorService;
+        for (final BatchEntry entry : batch) {
+            if (completion == null) {
+                entry.callback.done(false);
+                continue;
+            }
+            try {
+                completion.submit(new Runnable() {
+                    public void run() {
+                        entry.callback.done(false);
+                    }
+                });
+            } catch (RejectedExecutionException e) {
+                // the completion pool is shutdown so continue routing using the batch thread
+                entry.callback.done(false);
+            }
+        }
+    }
+
+    private void executeStatement(PreparedStatement ps, String preparedQuery, List<BatchEntry> entries) throws SQLException {
+        int expected = parametersCount > 0 ? parametersCount : ps.getParameterMetaData().getParameterCount();
+
+        List<BatchEntry> added = new ArrayList<BatchEntry>(entries.size());
+        for (BatchEntry entry : entries) {
+            try {
+                // only populate if really needed
+                if (alwaysPopulateStatement || expected > 0) {
+                    Iterator<?> i = sqlPrepareStatementStrategy.createPopulateIterator(entry.sql, preparedQuery, expected, entry.exchange, entry.value);
+                    sqlPrepareStatementStrategy.populateStatement(ps, i, expected);
+                }
+                ps.addBatch();
+                added.add(entry);
+            } catch (Exception e) {
+                // only this exchange fails
+                ps.clearParameters();
+                entry.exchange.setException(e);
+                entry.completed = true;
+            }
+        }
+        if (added.isEmpty()) {
+            return;
+        }
+
+        int[] updateCounts;
+        SQLException cause = null;
+        try {
+            updateCounts = ps.executeBatch();
+        } catch (BatchUpdateException e) {
+            // the driver may or may not have continued after the failed statement
+            updateCounts = e.getUpdateCounts() != null ? e.getUpdateCounts() : new int[0];
+            cause = e;
+        }
+        for (int i = 0; i < added.size(); i++) {
+            BatchEntry entry = added.get(i);
+            if (i < updateCounts.length && updateCounts[i] != Statement.EXECUTE_FAILED) {
+                entry.exchange.getIn().setHeader(SqlConstants.SQL_UPDATE_COUNT, updateCounts[i]);
+            } else {
+                entry.exchange.setException(cause);
+            }
+            entry.completed = true;
+        }
+    }
+
+    private static final class BatchEntry {
+        private final Exchange exchange;
+        private final AsyncCallback callback;
+        private final String sql;
+        private final String preparedQuery;
+        private final Object value;
+        private boolean completed;
+
+        private BatchEntry(Exchange exchange, AsyncCallback callback, String sql, String preparedQuery, Object value) {
+            this.exchange = exchange;
+            this.callback = callback;
+            this.sql = sql;
+            this.preparedQuery = preparedQuery;
+            this.value = value;
+        }
+    }
+}
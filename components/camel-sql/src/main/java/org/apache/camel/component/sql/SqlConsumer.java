@@ -34,6 +34,7 @@ import org.apache.camel.util.ObjectHelper;
 import org.springframework.dao.DataAccessException;
 import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.jdbc.core.PreparedStatementCallback;
+import org.springframework.jdbc.datasource.SingleConnectionDataSource;
 
 import static org.springframework.jdbc.support.JdbcUtils.closeResultSet;
 
@@ -97,6 +98,20 @@ public class SqlConsumer extends ScheduledBatchPollingConsumer {
                 log.debug("Executing query: {}", preparedQuery);
                 ResultSet rs = preparedStatement.executeQuery();
                 SqlOutputType outputType = getEndpoint().getOutputType();
+                if (outputType == SqlOutputType.StreamList) {
+                    // process the rows while they are read from the result set, where the on consume queries
+                    // must use the connection of the query, as taking another connection from the data source
+                    // while streaming would deadlock when the pool has only one connection
+                    ResultSetIterator iterator = new ResultSetIterator(rs, getEndpoint().createRowMapper());
+                    JdbcTemplate streamTemplate = new JdbcTemplate(new SingleConnectionDataSource(preparedStatement.getConnection(), true));
+                    try {
+                        return processStream(iterator, streamTemplate);
+                    } catch (Exception e) {
+                        throw ObjectHelper.wrapRuntimeCamelException(e);
+                    } finally {
+                        iterator.close();
+                    }
+                }
                 try {
                     log.trace("Got result list from query: {}, outputType={}", rs, outputType);
                     if (outputType == SqlOutputType.SelectList) {
@@ -185,36 +200,89 @@ public class SqlConsumer extends ScheduledBatchPollingConsumer {
             // update pending number of exchanges
             pendingExchanges = total - index - 1;
 
-            // process the current exchange
-            try {
-                getProcessor().process(exchange);
-            } catch (Exception e) {
-                exchange.setException(e);
+            processData(exchange, data, jdbcTemplate);
+        }
+
+        processBatchComplete(jdbcTemplate);
+
+        return total;
+    }
+
+    /**
+     * Processes the rows from the iterator as they are read, where the total number of rows is
+     * not known until the last row has been read.
+     *
+     * @param iterator          the rows of the query
+     * @param onConsumeTemplate the template to execute the on consume queries, using the connection of the query
+     */
+    protected int processStream(ResultSetIterator iterator, JdbcTemplate onConsumeTemplate) throws Exception {
+        if (!useIterator) {
+            // the iterator is the data of a single exchange
+            if (!iterator.hasNext() && !routeEmptyResultSet) {
+                return 0;
+            }
+            Exchange exchange = createExchange(iterator);
+            exchange.setProperty(Exchange.BATCH_INDEX, 0);
+            exchange.setProperty(Exchange.BATCH_SIZE, 1);
+            exchange.setProperty(Exchange.BATCH_COMPLETE, true);
+            processData(exchange, null, onConsumeTemplate);
+            processBatchComplete(onConsumeTemplate);
+            return 1;
+        }
+
+        int index = 0;
+        while (iterator.hasNext() && isBatchAllowed()) {
+            Object data = iterator.next();
+            Exchange exchange = createExchange(data);
+
+            boolean complete = !iterator.hasNext();
+            exchange.setProperty(Exchange.BATCH_INDEX, index);
+            exchange.setProperty(Exchange.BATCH_COMPLETE, complete);
+            if (complete) {
+                exchange.setProperty(Exchange.BATCH_SIZE, index + 1);
             }
 
-            // pick the on consume to use
-            String sql = exchange.isFailed() ? onConsumeFailed : onConsume;
-            try {
-                // we can only run on consume if there was data
-                if (data != null && sql != null) {
-                    int updateCount = sqlProcessingStrategy.commit(getEndpoint(), exchange, data, jdbcTemplate, sql);
-                    if (expectedUpdateCount > -1 && updateCount != expectedUpdateCount) {
-                        String msg = "Expected update count " + expectedUpdateCount + " but was " + updateCount + " executing query: " + sql;
-                        throw new SQLException(msg);
-                    }
-                }
-            } catch (Exception e) {
-                if (breakBatchOnConsumeFail) {
-                    throw e;
-                } else {
-                    handleException("Error executing onConsume/onConsumeFailed query " + sql, e);
+            processData(exchange, data, onConsumeTemplate);
+            index++;
+        }
+
+        processBatchComplete(onConsumeTemplate);
+
+        return index;
+    }
+
+    private void processData(Exchange exchange, Object data, JdbcTemplate onConsumeTemplate) throws Exception {
+        // process the current exchange
+        try {
+            getProcessor().process(exchange);
+        } catch (Exception e) {
+            exchange.setException(e);
+        }
+
+        // pick the on consume to use
+        String sql = exchange.isFailed() ? onConsumeFailed : onConsume;
+        try {
+            // we can only run on consume if there was data
+            if (data != null && sql != null) {
+                int updateCount = sqlProcessingStrategy.commit(getEndpoint(), exchange, data, onConsumeTemplate, sql);
+                if (expectedUpdateCount > -1 && updateCount != expectedUpdateCount) {
+                    String msg = "Expected update count " + expectedUpdateCount + " but was " + updateCount + " executing query: " + sql;
+                    throw new SQLException(msg);
                 }
             }
+        } catch (Exception e) {
+            if (breakBatchOnConsumeFail) {
+                throw e;
+            } else {
+                handleException("Error executing onConsume/onConsumeFailed query " + sql, e);
+            }
         }
+    }
 
+    private void processBatchComplete(JdbcTemplate onConsumeTemplate) throws Exception {
         try {
             if (onConsumeBatchComplete != null) {
-                int updateCount = sqlProcessingStrategy.commitBatchComplete(getEndpoint(), jdbcTemplate, onConsumeBatchComplete);
+                int updateCount = sqlProcessingStrategy.commitBatchComplete(getEndpoint(), onConsumeTemplate, onConsumeBatchComplete);
                 log.debug("onConsumeBatchComplete update count {}", updateCount);
             }
         } catch (Exception e) {
@@ -224,8 +292,6 @@ public class SqlConsumer extends ScheduledBatchPollingConsumer {
                 handleException("Error executing onConsumeBatchComplete query " + onConsumeBatchComplete, e);
             }
         }
-
-        return total;
     }
 
     public String getOnConsume() {
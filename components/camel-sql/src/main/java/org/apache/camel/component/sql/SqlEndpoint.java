@@ -88,6 +88,12 @@ public class SqlEndpoint extends DefaultPollingEndpoint {
     private String outputHeader;
     @UriParam(label = "producer")
     private boolean useMessageBodyForSql;
+    @UriParam(label = "producer")
+    private boolean batchExchanges;
+    @UriParam(label = "producer", defaultValue = "100")
+    private int maxBatchSize = 100;
+    @UriParam(label = "producer")
+    private long maxBatchDelay;
 
     public SqlEndpoint() {
     }
@@ -112,6 +118,26 @@ public class SqlEndpoint extends DefaultPollingEndpoint {
 
     public Producer createProducer() throws Exception {
         SqlPrepareStatementStrategy prepareStrategy = prepareStatementStrategy != null ? prepareStatementStrategy : new DefaultSqlPrepareStatementStrategy(separator);
+        if (batchExchanges) {
+            // these options are for a single statement per exchange, and are not supported when batching exchanges
+            if (batch) {
+                throw new IllegalArgumentException("You cannot set both batchExchanges=true and batch=true options");
+            }
+            if (noop) {
+                throw new IllegalArgumentException("You cannot set both batchExchanges=true and noop=true options");
+            }
+            if (outputHeader != null) {
+                throw new IllegalArgumentException("You cannot set both batchExchanges=true and outputHeader options");
+            }
+            if (outputType != SqlOutputType.SelectList || outputClass != null) {
+                throw new IllegalArgumentException("You cannot set both batchExchanges=true and outputType/outputClass options");
+            }
+            SqlBatchProducer answer = new SqlBatchProducer(this, query, jdbcTemplate, prepareStrategy, alwaysPopulateStatement, useMessageBodyForSql);
+            answer.setParametersCount(parametersCount);
+            answer.setMaxBatchSize(maxBatchSize);
+            answer.setMaxBatchDelay(maxBatchDelay);
+            return answer;
+        }
         SqlProducer result = new SqlProducer(this, query, jdbcTemplate, prepareStrategy, batch, alwaysPopulateStatement, useMessageBodyForSql);
         result.setParametersCount(parametersCount);
         return result;
@@ -266,6 +292,13 @@ public class SqlEndpoint extends DefaultPollingEndpoint {
      * c) If the outputClass is set, then it will convert the query result into an Java bean object by calling all the setters that match the column names. 
      * It will assume your class has a default constructor to create instance with.
      * d) If the query resulted in more than one rows, it throws an non-unique result exception.
+     * <p/>
+     * StreamList streams the result of the query using an Iterator, which reads and maps each row when it is
+     * iterated, such as using the splitter in streaming mode. The producer keeps the connection until the
+     * exchange is done, so using the data source while iterating the rows takes another connection. The consumer
+     * keeps the connection while processing the rows of the poll, and executes the onConsume queries using the
+     * same connection.
+     * The number of rows fetched at a time from the database can be set using the template.fetchSize option.
      */
     public void setOutputType(SqlOutputType outputType) {
         this.outputType = outputType;
@@ -333,6 +366,45 @@ public class SqlEndpoint extends DefaultPollingEndpoint {
         this.useMessageBodyForSql = useMessageBodyForSql;
     }
 
+    public boolean isBatchExchanges() {
+        return batchExchanges;
+    }
+
+    /**
+     * Whether to execute the statements of concurrent exchanges together as JDBC batches.
+     * <p/>
+     * The exchanges are completed with their own update count, or error. The statement must be an update
+     * (such as insert, update or delete) as the batches cannot return result sets.
+     * This option cannot be combined with the batch, noop, outputHeader, outputType and outputClass options,
+     * and retrieving generated keys is not supported.
+     */
+    public void setBatchExchanges(boolean batchExchanges) {
+        this.batchExchanges = batchExchanges;
+    }
+
+    public int getMaxBatchSize() {
+        return maxBatchSize;
+    }
+
+    /**
+     * The maximum number of exchanges executed as a single batch, when batchExchanges is enabled.
+     */
+    public void setMaxBatchSize(int maxBatchSize) {
+        this.maxBatchSize = maxBatchSize;
+    }
+
+    public long getMaxBatchDelay() {
+        return maxBatchDelay;
+    }
+
+    /**
+     * The maximum time in millis to wait for more exchanges to fill up a batch, when batchExchanges is enabled.
+     * By default the batch is executed right away with the exchanges waiting while the previous batch was executed.
+     */
+    public void setMaxBatchDelay(long maxBatchDelay) {
+        this.maxBatchDelay = maxBatchDelay;
+    }
+
     public String getDataSourceRef() {
         return dataSourceRef;
     }
@@ -361,6 +433,20 @@ public class SqlEndpoint extends DefaultPollingEndpoint {
         return "sql:" + UnsafeUriCharactersEncoder.encode(query);
     }
 
+    /**
+     * Creates the mapper for the rows of the {@link SqlOutputType#StreamList} output type, which maps to the
+     * output class if configured.
+     */
+    @SuppressWarnings("unchecked")
+    protected RowMapper<?> createRowMapper() {
+        if (outputClass != null) {
+            Class<?> outputClazz = getCamelContext().getClassResolver().resolveClass(outputClass);
+            return new BeanPropertyRowMapper(outputClazz);
+        } else {
+            return new ColumnMapRowMapper();
+        }
+    }
+
     @SuppressWarnings("unchecked")
     protected List<?> queryForList(ResultSet rs, boolean allowMapToClass) throws SQLException {
         if (allowMapToClass && outputClass != null) {
@@ -26,15 +26,20 @@ import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
 
+import javax.sql.DataSource;
+
 import org.apache.camel.Exchange;
 import org.apache.camel.NoSuchHeaderException;
 import org.apache.camel.impl.DefaultProducer;
+import org.apache.camel.spi.Synchronization;
 import org.apache.camel.util.ExchangeHelper;
 import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.jdbc.core.PreparedStatementCallback;
 import org.springframework.jdbc.core.PreparedStatementCreator;
+import org.springframework.jdbc.datasource.DataSourceUtils;
 
 import static org.springframework.jdbc.support.JdbcUtils.closeResultSet;
+import static org.springframework.jdbc.support.JdbcUtils.closeStatement;
 
 public class SqlProducer extends DefaultProducer {
     private final String query;
@@ -75,6 +80,11 @@ public class SqlProducer extends DefaultProducer {
         final Boolean shouldRetrieveGeneratedKeys =
             exchange.getIn().getHeader(SqlConstants.SQL_RETRIEVE_GENERATED_KEYS, false, Boolean.class);
 
+        if (getEndpoint().getOutputType() == SqlOutputType.StreamList) {
+            processStreamList(exchange, sql, preparedQuery);
+            return;
+        }
+
         PreparedStatementCreator statementCreator = new PreparedStatementCreator() {
             @Override
             public PreparedStatement createPreparedStatement(Connection con) throws SQLException {
@@ -120,14 +130,7 @@ public class SqlProducer extends DefaultProducer {
                                 ps.addBatch();
                             }
                         } else {
-                            Object value;
-                            if (useMessageBodyForSql) {
-                                value = exchange.getIn().getHeader(SqlConstants.SQL_PARAMETERS);
-                            } else {
-                                value = exchange.getIn().getBody();
-                            }
-                            Iterator<?> i = sqlPrepareStatementStrategy.createPopulateIterator(sql, preparedQuery, expected, exchange, value);
-                            sqlPrepareStatementStrategy.populateStatement(ps, i, expected);
+                            populateStatement(ps, exchange, sql, preparedQuery, expected);
                         }
                     }
 
@@ -210,7 +213,94 @@ public class SqlProducer extends DefaultProducer {
         });
     }
 
+    /**
+     * Populates the statement with the parameters of the exchange, which are the message body, or the
+     * {@link SqlConstants#SQL_PARAMETERS} header when the message body is the SQL.
+     */
+    private void populateStatement(PreparedStatement ps, Exchange exchange, String sql, String preparedQuery, int expected) throws SQLException {
+        Object value;
+        if (useMessageBodyForSql) {
+            value = exchange.getIn().getHeader(SqlConstants.SQL_PARAMETERS);
+        } else {
+            value = exchange.getIn().getBody();
+        }
+        Iterator<?> i = sqlPrepareStatementStrategy.createPopulateIterator(sql, preparedQuery, expected, exchange, value);
+        sqlPrepareStatementStrategy.populateStatement(ps, i, expected);
+    }
+
+    /**
+     * Executes the query and sets an iterator of the rows as the result, where the connection is kept
+     * until the exchange is done.
+     * <p/>
+     * Any other use of the data source while the rows are iterated, such as another sql endpoint in the route,
+     * takes another connection from the data source, so the pool must allow more than one connection per
+     * exchange. In a transacted route the connection of the transaction is used, so no connection is taken.
+     */
+    protected void processStreamList(Exchange exchange, String sql, String preparedQuery) throws Exception {
+        DataSource dataSource = jdbcTemplate.getDataSource();
+        Connection con = DataSourceUtils.getConnection(dataSource);
+        PreparedStatement ps = null;
+        ResultSet rs = null;
+        boolean shouldCloseResources = true;
+        try {
+            ps = con.prepareStatement(preparedQuery);
+            if (jdbcTemplate.getFetchSize() != -1) {
+                ps.setFetchSize(jdbcTemplate.getFetchSize());
+            }
+            if (jdbcTemplate.getMaxRows() != -1) {
+                ps.setMaxRows(jdbcTemplate.getMaxRows());
+            }
+
+            int expected = parametersCount > 0 ? parametersCount : ps.getParameterMetaData().getParameterCount();
+            // only populate if really needed
+            if (alwaysPopulateStatement || expected > 0) {
+                populateStatement(ps, exchange, sql, preparedQuery, expected);
+            }
+
+            rs = ps.executeQuery();
+            ResultSetIterator iterator = new ResultSetIterator(rs, getEndpoint().createRowMapper(), ps, con, dataSource);
+            // the iterator closes the resources when done
+            shouldCloseResources = false;
+            exchange.addOnCompletion(new ResultSetIteratorCompletion(iterator));
+
+            // preserve headers
+            exchange.getOut().getHeaders().putAll(exchange.getIn().getHeaders());
+            if (getEndpoint().isNoop()) {
+                exchange.getOut().setBody(exchange.getIn().getBody());
+            } else if (getEndpoint().getOutputHeader() != null) {
+                exchange.getOut().setBody(exchange.getIn().getBody());
+                exchange.getOut().setHeader(getEndpoint().getOutputHeader(), iterator);
+            } else {
+                exchange.getOut().setBody(iterator);
+            }
+        } finally {
+            if (shouldCloseResources) {
+                closeResultSet(rs);
+                closeStatement(ps);
+                DataSourceUtils.releaseConnection(con, dataSource);
+            }
+        }
+    }
+
     public void setParametersCount(int parametersCount) {
         this.parametersCount = parametersCount;
     }
+
+    private static final class ResultSetIteratorCompletion implements Synchronization {
+        private final ResultSetIterator iterator;
+
+        private ResultSetIteratorCompletion(ResultSetIterator iterator) {
+            this.iterator = iterator;
+        }
+
+        @Override
+        public void onComplete(Exchange exchange) {
+            iterator.close();
+        }
+
+        @Override
+        public void onFailure(Exchange exchange) {
+            iterator.close();
+        }
+    }
 }
@@ -28,6 +28,7 @@ import javax.sql.DataSource;
 
 import org.apache.camel.CamelContext;
 import org.apache.camel.Exchange;
+import org.apache.camel.impl.BinaryExchangeCodec;
 import org.apache.camel.spi.OptimisticLockingAggregationRepository;
 import org.apache.camel.spi.RecoverableAggregationRepository;
 import org.apache.camel.support.ServiceSupport;
@@ -412,10 +413,26 @@ public class JdbcAggregationRepository extends ServiceSupport implements Recover
         this.returnOldExchange = returnOldExchange;
     }
 
+    public JdbcCamelCodec getJdbcCamelCodec() {
+        return codec;
+    }
+
     public void setJdbcCamelCodec(JdbcCamelCodec codec) {
         this.codec = codec;
     }
 
+    public BinaryExchangeCodec getBinaryCodec() {
+        return codec.getBinaryCodec();
+    }
+
+    /**
+     * To store the exchanges using the compact binary format of the given codec instead of Java serialization.
+     * Exchanges already stored using Java serialization can still be read.
+     */
+    public void setBinaryCodec(BinaryExchangeCodec binaryCodec) {
+        codec.setBinaryCodec(binaryCodec);
+    }
+
     public boolean hasHeadersToStoreAsText() {
         return this.headersToStoreAsText != null && !this.headersToStoreAsText.isEmpty();
     }
@@ -454,6 +471,18 @@ public class JdbcAggregationRepository extends ServiceSupport implements Recover
         return repositoryName;
     }
 
+    protected JdbcTemplate getJdbcTemplate() {
+        return jdbcTemplate;
+    }
+
+    protected TransactionTemplate getTransactionTemplate() {
+        return transactionTemplate;
+    }
+
+    protected TransactionTemplate getTransactionTemplateReadOnly() {
+        return transactionTemplateReadOnly;
+    }
+
     public String getRepositoryNameCompleted() {
         return getRepositoryName() + "_completed";
     }
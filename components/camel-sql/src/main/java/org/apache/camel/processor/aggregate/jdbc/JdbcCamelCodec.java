@@ -25,6 +25,7 @@ import java.io.ObjectOutputStream;
 import org.apache.camel.CamelContext;
 import org.apache.camel.Endpoint;
 import org.apache.camel.Exchange;
+import org.apache.camel.impl.BinaryExchangeCodec;
 import org.apache.camel.impl.DefaultExchange;
 import org.apache.camel.impl.DefaultExchangeHolder;
 import org.apache.camel.util.IOHelper;
@@ -34,6 +35,8 @@ import org.apache.camel.util.IOHelper;
  */
 public class JdbcCamelCodec {
 
+    private BinaryExchangeCodec binaryCodec;
+
     public byte[] marshallExchange(CamelContext camelContext, Exchange exchange) throws IOException {
         // use DefaultExchangeHolder to marshal to a serialized object
         DefaultExchangeHolder pe = DefaultExchangeHolder.marshal(exchange, false);
@@ -51,11 +54,20 @@ public class JdbcCamelCodec {
         if (exchange.getFromEndpoint() != null) {
             DefaultExchangeHolder.addProperty(pe, "CamelAggregatedFromEndpoint", exchange.getFromEndpoint().getEndpointUri());
         }
+        if (binaryCodec != null) {
+            return binaryCodec.marshal(pe);
+        }
         return encode(pe);
     }
 
     public Exchange unmarshallExchange(CamelContext camelContext, byte[] buffer) throws IOException, ClassNotFoundException {
-        DefaultExchangeHolder pe = decode(camelContext, buffer);
+        DefaultExchangeHolder pe;
+        if (BinaryExchangeCodec.isBinary(buffer)) {
+            BinaryExchangeCodec codec = binaryCodec != null ? binaryCodec : new BinaryExchangeCodec();
+            pe = codec.unmarshal(camelContext, buffer);
+        } else {
+            pe = decode(camelContext, buffer);
+        }
         Exchange answer = new DefaultExchange(camelContext);
         DefaultExchangeHolder.unmarshal(answer, pe);
         // restore the from endpoint
@@ -69,6 +81,18 @@ public class JdbcCamelCodec {
         return answer;
     }
 
+    public BinaryExchangeCodec getBinaryCodec() {
+        return binaryCodec;
+    }
+
+    /**
+     * To write the exchanges using the compact binary format of the given codec instead of Java serialization.
+     * Exchanges written in either format can be read.
+     */
+    public void setBinaryCodec(BinaryExchangeCodec binaryCodec) {
+        this.binaryCodec = binaryCodec;
+    }
+
     private byte[] encode(Object object) throws IOException {
         ByteArrayOutputStream bytesOut = new ByteArrayOutputStream();
         ObjectOutputStream objectOut = new ObjectOutputStream(bytesOut);
@@ -0,0 +1,172 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.camel.processor.aggregate.jdbc;
+
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import javax.sql.DataSource;
+
+import org.apache.camel.CamelContext;
+import org.apache.camel.Exchange;
+import org.apache.camel.spi.DeltaAggregationRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.jdbc.core.support.AbstractLobCreatingPreparedStatementCallback;
+import org.springframework.jdbc.support.lob.LobCreator;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionStatus;
+import org.springframework.transaction.support.TransactionCallback;
+import org.springframework.transaction.support.TransactionCallbackWithoutResult;
+
+/**
+ * A {@link JdbcAggregationRepository} which also supports {@link DeltaAggregationRepository}, where each
+ * incoming exchange is stored as a delta, so the aggregated exchange is not stored on each aggregation.
+ * <p/>
+ * The deltas are stored in the table with the name of this repository with the <tt>_deltas</tt> suffix,
+ * which must have the columns <tt>id</tt>, <tt>seq</tt> (integer) and <tt>exchange</tt> (blob), with
+ * <tt>id</tt> and <tt>seq</tt> as primary key. When a group is completed its deltas are removed, and the
+ * aggregated exchange is added to the completed table in the same transaction, so recovery works as with
+ * {@link JdbcAggregationRepository}.
+ */
+public class JdbcDeltaAggregationRepository extends JdbcAggregationRepository implements DeltaAggregationRepository {
+
+    private static final Logger LOG = LoggerFactory.getLogger(JdbcDeltaAggregationRepository.class);
+    private static final String ID = "id";
+    private static final String SEQ = "seq";
+    private static final String EXCHANGE = "exchange";
+
+    /**
+     * Creates an aggregation repository
+     */
+    public JdbcDeltaAggregationRepository() {
+    }
+
+    /**
+     * Creates an aggregation repository with the three mandatory parameters
+     */
+    public JdbcDeltaAggregationRepository(PlatformTransactionManager transactionManager, String repositoryName, DataSource dataSource) {
+        super(transactionManager, repositoryName, dataSource);
+    }
+
+    public int append(final CamelContext camelContext, final String key, final Exchange exchange) {
+        return getTransactionTemplate().execute(new TransactionCallback<Integer>() {
+            public Integer doInTransaction(TransactionStatus status) {
+                try {
+                    LOG.debug("Appending key [{}] -> {}", key, exchange);
+
+                    // the deltas are only removed all at once, so the number of deltas is the sequence number of the next delta
+                    final int seq = getJdbcTemplate().queryForObject(
+                            "SELECT COUNT(*) FROM " + getRepositoryNameDeltas() + " WHERE " + ID + " = ?", Integer.class, key);
+                    final byte[] data = getJdbcCamelCodec().marshallExchange(camelContext, exchange);
+                    getJdbcTemplate().execute("INSERT INTO " + getRepositoryNameDeltas() + " (" + ID + ", " + SEQ + ", " + EXCHANGE + ") VALUES (?, ?, ?)",
+                            new AbstractLobCreatingPreparedStatementCallback(getLobHandler()) {
+                                @Override
+                                protected void setValues(PreparedStatement ps, LobCreator lobCreator) throws SQLException {
+                                    ps.setString(1, key);
+                                    ps.setInt(2, seq);
+                                    lobCreator.setBlobAsBytes(ps, 3, data);
+                                }
+                            });
+                    return seq + 1;
+                } catch (Exception e) {
+                    throw new RuntimeException("Error appending to repository " + getRepositoryNameDeltas() + " with key " + key, e);
+                }
+            }
+        });
+    }
+
+    public List<Exchange> getDeltas(final CamelContext camelContext, final String key) {
+        List<byte[]> deltas = getTransactionTemplateReadOnly().execute(new TransactionCallback<List<byte[]>>() {
+            public List<byte[]> doInTransaction(TransactionStatus status) {
+                return getJdbcTemplate().query(
+                        "SELECT " + EXCHANGE + " FROM " + getRepositoryNameDeltas() + " WHERE " + ID + " = ? ORDER BY " + SEQ,
+                        new RowMapper<byte[]>() {
+                            public byte[] mapRow(ResultSet rs, int rowNum) throws SQLException {
+                                return getLobHandler().getBlobAsBytes(rs, EXCHANGE);
+                            }
+                        }, key);
+            }
+        });
+
+        List<Exchange> answer = new ArrayList<Exchange>(deltas.size());
+        try {
+            for (byte[] data : deltas) {
+                answer.add(getJdbcCamelCodec().unmarshallExchange(camelContext, data));
+            }
+        } catch (Exception e) {
+            throw new RuntimeException("Error getting deltas for key " + key + " from repository " + getRepositoryNameDeltas(), e);
+        }
+
+        LOG.debug("Getting deltas for key [{}] -> {} deltas", key, answer.size());
+        return answer;
+    }
+
+    public void removeDeltas(final CamelContext camelContext, final String key, final Exchange aggregated) {
+        getTransactionTemplate().execute(new TransactionCallbackWithoutResult() {
+            protected void doInTransactionWithoutResult(TransactionStatus status) {
+                try {
+                    LOG.debug("Removing deltas for key [{}]", key);
+
+                    // remove the deltas and add the aggregated exchange to the completed table in the same transaction
+                    getJdbcTemplate().update("DELETE FROM " + getRepositoryNameDeltas() + " WHERE " + ID + " = ?", key);
+                    insert(camelContext, aggregated.getExchangeId(), aggregated, getRepositoryNameCompleted());
+                } catch (Exception e) {
+                    throw new RuntimeException("Error removing deltas for key " + key + " from repository " + getRepositoryNameDeltas(), e);
+                }
+            }
+        });
+    }
+
+    public Set<String> getDeltaKeys() {
+        return getTransactionTemplateReadOnly().execute(new TransactionCallback<Set<String>>() {
+            public Set<String> doInTransaction(TransactionStatus status) {
+                List<String> keys = getJdbcTemplate().query("SELECT DISTINCT " + ID + " FROM " + getRepositoryNameDeltas(),
+                        new RowMapper<String>() {
+                            public String mapRow(ResultSet rs, int rowNum) throws SQLException {
+                                String id = rs.getString(ID);
+                                LOG.trace("getDeltaKey [{}]", id);
+                                return id;
+                            }
+                        });
+                return Collections.unmodifiableSet(new LinkedHashSet<String>(keys));
+            }
+        });
+    }
+
+    public String getRepositoryNameDeltas() {
+        return getRepositoryName() + "_deltas";
+    }
+
+    @Override
+    protected void doStart() throws Exception {
+        super.doStart();
+
+        int current = getDeltaKeys().size();
+        if (current > 0) {
+            LOG.info("On startup there are " + current + " aggregate groups of deltas (not completed) in repository: " + getRepositoryNameDeltas());
+        } else {
+            LOG.info("On startup there are no existing aggregate groups of deltas (not completed) in repository: " + getRepositoryNameDeltas());
+        }
+    }
+}
@@ -0,0 +1,94 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.camel.component.sql;
+
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+
+import org.apache.camel.Exchange;
+import org.apache.camel.test.junit4.CamelTestSupport;
+import org.junit.Test;
+
+/**
+ * @version 
+ */
+public class DefaultSqlPrepareStatementStrategyCacheTest extends CamelTestSupport {
+
+    private DefaultSqlPrepareStatementStrategy strategy = new DefaultSqlPrepareStatementStrategy(',', 2);
+
+    @Test
+    public void testParsedQueryIsCached() throws Exception {
+        String query = "insert into projects values (:?id, :?project, :?${header.license})";
+        String prepared = strategy.prepareQuery(query, true);
+        assertEquals("insert into projects values (?, ?, ?)", prepared);
+        assertEquals(1, strategy.getCacheMisses());
+
+        Map<String, Object> body = new HashMap<String, Object>();
+        body.put("id", 4);
+        body.put("project", "Karaf");
+        Exchange exchange = createExchangeWithBody(body);
+        exchange.getIn().setHeader("license", "ASF");
+
+        Iterator<?> it = strategy.createPopulateIterator(query, prepared, 3, exchange, body);
+        assertEquals(4, it.next());
+        assertEquals("Karaf", it.next());
+        assertEquals("ASF", it.next());
+        assertFalse(it.hasNext());
+
+        // parsed only once
+        assertEquals(1, strategy.getCacheMisses());
+        assertEquals(1, strategy.getCacheHits());
+        assertEquals(1, strategy.getCacheSize());
+    }
+
+    @Test
+    public void testCacheIsBounded() throws Exception {
+        strategy.prepareQuery("select * from projects where id = :?a", true);
+        strategy.prepareQuery("select * from projects where id = :?b", true);
+        strategy.prepareQuery("select * from projects where id = :?c", true);
+
+        assertEquals(2, strategy.getCacheSize());
+        assertEquals("select * from projects where id = :?c", strategy.prepareQuery("select * from projects where id = :?c", false));
+    }
+
+    @Test
+    public void testQueryIsNotParsedWhenNamedParametersIsNotAllowed() throws Exception {
+        String query = "select * from projects where id = :?id";
+        assertEquals(query, strategy.prepareQuery(query, false));
+
+        assertEquals(0, strategy.getCacheMisses());
+        assertEquals(0, strategy.getCacheSize());
+    }
+
+    @Test
+    public void testQueryWithoutNamedParametersIsNotCached() throws Exception {
+        String query = "insert into projects values (?, ?, ?)";
+        assertEquals(query, strategy.prepareQuery(query, true));
+
+        Exchange exchange = createExchangeWithBody("4,Karaf,ASF");
+        Iterator<?> it = strategy.createPopulateIterator(query, query, 3, exchange, exchange.getIn().getBody());
+        assertEquals("4", it.next());
+        assertEquals("Karaf", it.next());
+        assertEquals("ASF", it.next());
+        assertFalse(it.hasNext());
+
+        assertEquals(0, strategy.getCacheMisses());
+        assertEquals(0, strategy.getCacheHits());
+        assertEquals(0, strategy.getCacheSize());
+    }
+}
@@ -0,0 +1,189 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.camel.component.sql;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.apache.camel.Exchange;
+import org.apache.camel.builder.RouteBuilder;
+import org.apache.camel.component.mock.MockEndpoint;
+import org.apache.camel.impl.JndiRegistry;
+import org.apache.camel.spring.spi.SpringTransactionPolicy;
+import org.apache.camel.test.junit4.CamelTestSupport;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabase;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabaseBuilder;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabaseType;
+
+/**
+ * @version 
+ */
+public class SqlProducerBatchExchangesTest extends CamelTestSupport {
+
+    private EmbeddedDatabase db;
+    private SqlBatchProducer producer;
+
+    @Test
+    public void testConcurrentExchangesAreBatched() throws Exception {
+        MockEndpoint mock = getMockEndpoint("mock:result");
+        mock.expectedMessageCount(20);
+        mock.allMessages().header(SqlConstants.SQL_UPDATE_COUNT).isEqualTo(1);
+
+        ExecutorService executor = Executors.newFixedThreadPool(10);
+        List<Future<Object>> responses = new ArrayList<Future<Object>>();
+        for (int i = 0; i < 20; i++) {
+            final int id = 10 + i;
+            responses.add(executor.submit(new Callable<Object>() {
+                public Object call() throws Exception {
+                    return template.requestBody("direct:insert", Arrays.asList(id, "P" + id, "ASF"));
+                }
+            }));
+        }
+        for (Future<Object> response : responses) {
+            response.get();
+        }
+        executor.shutdownNow();
+
+        assertMockEndpointsSatisfied();
+
+        JdbcTemplate jdbcTemplate = new JdbcTemplate(db);
+        assertEquals(23, jdbcTemplate.queryForObject("select count(*) from projects", Integer.class).intValue());
+
+        // the concurrent exchanges was executed in fewer batches than exchanges
+        assertEquals(20, producer.getBatchedExchangesCount());
+        assertTrue("Expected fewer batches than exchanges but was " + producer.getBatchCount(), producer.getBatchCount() < 20);
+    }
+
+    @Test
+    public void testTransactedExchangeIsNotBatched() throws Exception {
+        getMockEndpoint("mock:result").expectedMessageCount(0);
+
+        Exchange out = template.send("direct:transacted", createExchangeWithBody(Arrays.asList(10, "P10", "ASF")));
+        assertTrue(out.isFailed());
+
+        assertMockEndpointsSatisfied();
+
+        // the insert was executed by the transaction which was rolled back
+        JdbcTemplate jdbcTemplate = new JdbcTemplate(db);
+        assertEquals(3, jdbcTemplate.queryForObject("select count(*) from projects", Integer.class).intValue());
+        assertEquals(0, producer.getBatchCount());
+    }
+
+    @Test
+    public void testFailedStatementFailsItsExchange() throws Exception {
+        getMockEndpoint("mock:result").expectedMessageCount(0);
+
+        // the id already exists
+        Exchange out = template.send("direct:insert", createExchangeWithBody(Arrays.asList(1, "Dup", "ASF")));
+        assertNotNull(out.getException());
+
+        assertMockEndpointsSatisfied();
+    }
+
+    @Test
+    public void testGeneratedKeysNotSupported() throws Exception {
+        getMockEndpoint("mock:result").expectedMessageCount(0);
+
+        Exchange exchange = createExchangeWithBody(Arrays.asList(10, "P10", "ASF"));
+        exchange.getIn().setHeader(SqlConstants.SQL_RETRIEVE_GENERATED_KEYS, true);
+        Exchange out = template.send("direct:insert", exchange);
+        assertIsInstanceOf(IllegalArgumentException.class, out.getException());
+
+        assertMockEndpointsSatisfied();
+        assertEquals(0, producer.getBatchedExchangesCount());
+    }
+
+    @Test
+    public void testConflictingOptions() throws Exception {
+        assertConflictingOptions("batch=true");
+        assertConflictingOptions("noop=true");
+        assertConflictingOptions("outputHeader=foo");
+        assertConflictingOptions("outputType=SelectOne");
+        assertConflictingOptions("outputClass=java.lang.String");
+    }
+
+    private void assertConflictingOptions(String options) throws Exception {
+        try {
+            context.getEndpoint("sql:insert into projects values (#, #, #)?batchExchanges=true&" + options).createProducer();
+            fail("Should have thrown an exception for " + options);
+        } catch (IllegalArgumentException e) {
+            assertTrue(e.getMessage(), e.getMessage().startsWith("You cannot set both batchExchanges=true"));
+        }
+    }
+
+    @Before
+    public void setUp() throws Exception {
+        db = new EmbeddedDatabaseBuilder()
+            .setType(EmbeddedDatabaseType.DERBY).addScript("sql/createAndPopulateDatabase.sql").build();
+
+        super.setUp();
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        super.tearDown();
+
+        db.shutdown();
+    }
+
+    @Override
+    protected JndiRegistry createRegistry() throws Exception {
+        JndiRegistry reg = super.createRegistry();
+
+        DataSourceTransactionManager txMgr = new DataSourceTransactionManager();
+        txMgr.setDataSource(db);
+        SpringTransactionPolicy txPolicy = new SpringTransactionPolicy();
+        txPolicy.setTransactionManager(txMgr);
+        txPolicy.setPropagationBehaviorName("PROPAGATION_REQUIRED");
+        reg.bind("required", txPolicy);
+
+        return reg;
+    }
+
+    @Override
+    protected RouteBuilder createRouteBuilder() throws Exception {
+        return new RouteBuilder() {
+            public void configure() throws Exception {
+                getContext().getComponent("sql", SqlComponent.class).setDataSource(db);
+
+                // use the producer directly to check how the exchanges was batched
+                producer = (SqlBatchProducer) getContext().getEndpoint("sql:insert into projects values (#, #, #)?batchExchanges=true&maxBatchDelay=50")
+                    .createProducer();
+
+                from("direct:insert")
+                    .process(producer)
+                    .to("mock:result");
+
+                from("direct:transacted")
+                    .transacted("required")
+                    .process(producer)
+                    .throwException(new IllegalStateException("Forced"))
+                    .to("mock:result");
+            }
+        };
+    }
+}
@@ -0,0 +1,115 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.camel.processor.aggregate.jdbc;
+
+import java.util.List;
+import javax.sql.DataSource;
+
+import org.apache.camel.Exchange;
+import org.apache.camel.builder.RouteBuilder;
+import org.apache.camel.impl.DefaultExchange;
+import org.junit.Test;
+import org.springframework.transaction.PlatformTransactionManager;
+
+public class JdbcDeltaAggregationRepositoryTest extends AbstractJdbcAggregationTestSupport {
+
+    private JdbcDeltaAggregationRepository deltaRepo;
+
+    @Override
+    void configureJdbcAggregationRepository() {
+        deltaRepo = new JdbcDeltaAggregationRepository(applicationContext.getBean("txManager1", PlatformTransactionManager.class),
+                "aggregationRepo1", applicationContext.getBean("dataSource1", DataSource.class));
+        repo = deltaRepo;
+    }
+
+    @Test
+    public void testAppendAndRemoveDeltas() throws Exception {
+        for (int i = 0; i < 12; i++) {
+            Exchange exchange = new DefaultExchange(context);
+            exchange.getIn().setBody("Hello " + i);
+            assertEquals(i + 1, deltaRepo.append(context, "foo", exchange));
+        }
+
+        List<Exchange> deltas = deltaRepo.getDeltas(context, "foo");
+        assertEquals(12, deltas.size());
+        for (int i = 0; i < 12; i++) {
+            assertEquals("Hello " + i, deltas.get(i).getIn().getBody());
+        }
+        assertEquals(1, deltaRepo.getDeltaKeys().size());
+        assertTrue(deltaRepo.getDeltaKeys().contains("foo"));
+        assertEquals(0, deltaRepo.getKeys().size());
+
+        // the aggregated exchange should be recoverable until confirmed
+        Exchange aggregated = new DefaultExchange(context);
+        aggregated.getIn().setBody("Bye World");
+        deltaRepo.removeDeltas(context, "foo", aggregated);
+
+        assertEquals(0, deltaRepo.getDeltas(context, "foo").size());
+        assertEquals(0, deltaRepo.getDeltaKeys().size());
+        assertEquals("Bye World", deltaRepo.recover(context, aggregated.getExchangeId()).getIn().getBody());
+
+        deltaRepo.confirm(context, aggregated.getExchangeId());
+        assertEquals(0, deltaRepo.scan(context).size());
+    }
+
+    @Test
+    public void testAggregateDeltas() throws Exception {
+        getMockEndpoint("mock:aggregated").expectedBodiesReceivedInAnyOrder("ABC", "DE");
+
+        template.sendBodyAndHeader("direct:start", "A", "id", 1);
+        template.sendBodyAndHeader("direct:start", "B", "id", 1);
+        template.sendBodyAndHeader("direct:start", "D", "id", 2);
+        template.sendBodyAndHeader("direct:start", "E", "id", 2);
+        template.sendBodyAndHeader("direct:start", "C", "id", 1);
+
+        assertMockEndpointsSatisfied();
+        // the aggregated exchanges is never stored
+        assertEquals(0, deltaRepo.getKeys().size());
+    }
+
+    @Test
+    public void testAggregateDeltasAfterRestart() throws Exception {
+        getMockEndpoint("mock:aggregated").expectedBodiesReceived("ABC");
+
+        template.sendBodyAndHeader("direct:start", "A", "id", 1);
+        template.sendBodyAndHeader("direct:start", "B", "id", 1);
+
+        // the aggregated exchange in memory is lost, so it must be aggregated from the stored deltas
+        context.stopRoute("aggregate");
+        context.startRoute("aggregate");
+        assertEquals(2, deltaRepo.getDeltas(context, "1").size());
+
+        template.sendBodyAndHeader("direct:start", "C", "id", 1);
+
+        assertMockEndpointsSatisfied();
+        assertEquals(0, deltaRepo.getDeltaKeys().size());
+    }
+
+    @Override
+    protected RouteBuilder createRouteBuilder() throws Exception {
+        return new RouteBuilder() {
+            @Override
+            public void configure() throws Exception {
+                from("direct:start").routeId("aggregate")
+                    .aggregate(header("id"), new MyAggregationStrategy())
+                        .aggregationRepository(repo)
+                        .completionSize(3).completionTimeout(2000)
+                        .to("mock:aggregated");
+            }
+        };
+    }
+}
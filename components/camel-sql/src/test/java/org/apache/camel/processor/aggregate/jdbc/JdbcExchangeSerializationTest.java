@@ -19,6 +19,7 @@ package org.apache.camel.processor.aggregate.jdbc;
 import java.util.Date;
 
 import org.apache.camel.Exchange;
+import org.apache.camel.impl.BinaryExchangeCodec;
 import org.apache.camel.impl.DefaultExchange;
 import org.junit.Test;
 
@@ -63,4 +64,30 @@ public class JdbcExchangeSerializationTest extends AbstractJdbcAggregationTestSu
         assertNull(date);
         assertSame(context, actual.getContext());
     }
-}
\ No newline at end of file
+
+    @Test
+    public void testExchangeSerializationBinaryCodec() {
+        Exchange exchange = new DefaultExchange(context);
+        exchange.getIn().setBody("Hello World");
+        exchange.getIn().setHeader("name", "Olivier");
+        exchange.getIn().setHeader("number", 123);
+
+        // store one exchange using Java serialization before switching to the binary format
+        repo.add(context, "foo", exchange);
+
+        repo.setBinaryCodec(new BinaryExchangeCodec());
+        assertNotNull(repo.getBinaryCodec());
+        repo.add(context, "bar", exchange);
+
+        Exchange actual = repo.get(context, "bar");
+        assertEquals("Hello World", actual.getIn().getBody());
+        assertEquals("Olivier", actual.getIn().getHeader("name"));
+        assertEquals(123, actual.getIn().getHeader("number"));
+        assertSame(context, actual.getContext());
+
+        actual = repo.get(context, "foo");
+        assertEquals("Hello World", actual.getIn().getBody());
+        assertEquals("Olivier", actual.getIn().getHeader("name"));
+        assertEquals(123, actual.getIn().getHeader("number"));
+    }
+}
@@ -24,4 +24,10 @@ CREATE TABLE aggregationRepo1_completed (
     id varchar(255) NOT NULL,
     exchange blob NOT NULL,
     constraint aggregationRepo1_completed_pk PRIMARY KEY (id)
-);
\ No newline at end of file
+);
+CREATE TABLE aggregationRepo1_deltas (
+    id varchar(255) NOT NULL,
+    seq integer NOT NULL,
+    exchange blob NOT NULL,
+    constraint aggregationRepo1_deltas_pk PRIMARY KEY (id, seq)
+);
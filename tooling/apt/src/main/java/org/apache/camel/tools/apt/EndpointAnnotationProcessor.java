@@ -16,8 +16,11 @@
  */
 package org.apache.camel.tools.apt;
 
+import java.io.IOException;
 import java.io.PrintWriter;
 import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
@@ -29,13 +32,18 @@ import javax.lang.model.SourceVersion;
 import javax.lang.model.element.Element;
 import javax.lang.model.element.ElementKind;
 import javax.lang.model.element.ExecutableElement;
+import javax.lang.model.element.Modifier;
 import javax.lang.model.element.TypeElement;
 import javax.lang.model.element.VariableElement;
+import javax.lang.model.type.ArrayType;
+import javax.lang.model.type.DeclaredType;
 import javax.lang.model.type.MirroredTypeException;
 import javax.lang.model.type.TypeKind;
 import javax.lang.model.type.TypeMirror;
 import javax.lang.model.util.ElementFilter;
 import javax.lang.model.util.Elements;
+import javax.lang.model.util.Types;
+import javax.tools.JavaFileObject;
 
 import org.apache.camel.spi.Metadata;
 import org.apache.camel.spi.UriEndpoint;
@@ -51,6 +59,9 @@ import static org.apache.camel.tools.apt.Strings.safeNull;
 
 /**
  * Processes all Camel {@link UriEndpoint}s and generate json schema and html documentation for the endpoint/component.
+ * <p/>
+ * Also generates a configurer class for the {@link UriEndpoint}s and {@link UriParams}s which sets the options
+ * by calling the setters directly, so the component does not have to use reflection.
  */
 @SupportedAnnotationTypes({"org.apache.camel.spi.*"})
 @SupportedSourceVersion(SourceVersion.RELEASE_7)
@@ -58,6 +69,8 @@ public class EndpointAnnotationProcessor extends AbstractAnnotationProcessor {
 
     private static final String HEADER_FILTER_STRATEGY_JAVADOC = "To use a custom HeaderFilterStrategy to filter header to and from Camel message.";
 
+    private final Set<String> generatedConfigurers = new HashSet<String>();
+
     public boolean process(Set<? extends TypeElement> annotations, final RoundEnvironment roundEnv) {
         if (roundEnv.processingOver()) {
             return true;
@@ -66,6 +79,13 @@ public class EndpointAnnotationProcessor extends AbstractAnnotationProcessor {
         for (Element element : elements) {
             if (element instanceof TypeElement) {
                 processEndpointClass(roundEnv, (TypeElement) element);
+                processConfigurerClass(roundEnv, (TypeElement) element);
+            }
+        }
+        elements = roundEnv.getElementsAnnotatedWith(UriParams.class);
+        for (Element element : elements) {
+            if (element instanceof TypeElement) {
+                processConfigurerClass(roundEnv, (TypeElement) element);
             }
         }
         return true;
@@ -116,6 +136,179 @@ public class EndpointAnnotationProcessor extends AbstractAnnotationProcessor {
         }
     }
 
+    protected void processConfigurerClass(RoundEnvironment roundEnv, TypeElement classElement) {
+        // only top level classes which we can access from a class in the same package
+        if (classElement.getEnclosingElement().getKind() != ElementKind.PACKAGE || classElement.getModifiers().contains(Modifier.PRIVATE)) {
+            return;
+        }
+        String name = canonicalClassName(classElement.getQualifiedName().toString());
+        if (!generatedConfigurers.add(name)) {
+            return;
+        }
+
+        // gather the options which has a single public setter we can call directly,
+        // the other options are left for the component to set using reflection
+        Set<String> names = new LinkedHashSet<String>();
+        findConfigurerOptions(roundEnv, names, classElement, "");
+        Map<String, String> options = new LinkedHashMap<String, String>();
+        for (String option : names) {
+            String setterType = findConfigurerSetterType(classElement, option);
+            if (setterType != null) {
+                options.put(option, setterType);
+            }
+        }
+
+        String packageName = name.substring(0, name.lastIndexOf("."));
+        String className = classElement.getSimpleName().toString();
+        PrintWriter writer = null;
+        try {
+            JavaFileObject source = processingEnv.getFiler().createSourceFile(name + "Configurer", classElement);
+            writer = new PrintWriter(source.openWriter());
+            writeConfigurerSource(writer, packageName, className, options);
+        } catch (IOException e) {
+            log(e);
+        } finally {
+            if (writer != null) {
+                writer.close();
+            }
+        }
+    }
+
+    protected void writeConfigurerSource(PrintWriter writer, String packageName, String className, Map<String, String> options) {
+        writer.println("/* Generated by camel-apt */");
+        writer.println("package " + packageName + ";");
+        writer.println();
+        writer.println("/**");
+        writer.println(" * Generated by camel-apt - do NOT edit this file!");
+        writer.println(" */");
+        writer.println("@SuppressWarnings({\"unchecked\", \"rawtypes\"})");
+        writer.println("public class " + className + "Configurer extends org.apache.camel.impl.PropertyConfigurerSupport {");
+        writer.println();
+        writer.println("    @Override");
+        writer.println("    public boolean configure(org.apache.camel.CamelContext camelContext, Object target, String name, Object value) throws Exception {");
+        if (options.isEmpty()) {
+            writer.println("        return false;");
+        } else {
+            writer.println("        " + className + " bean = (" + className + ") target;");
+            writer.println("        switch (name) {");
+            for (Map.Entry<String, String> option : options.entrySet()) {
+                String setter = "set" + option.getKey().substring(0, 1).toUpperCase() + option.getKey().substring(1);
+                writer.println("        case \"" + option.getKey() + "\": bean." + setter + "(property(camelContext, " + option.getValue() + ".class, value)); return true;");
+            }
+            writer.println("        default: return false;");
+            writer.println("        }");
+        }
+        writer.println("    }");
+        writer.println();
+        writer.println("}");
+    }
+
+    protected void findConfigurerOptions(RoundEnvironment roundEnv, Set<String> names, TypeElement classElement, String prefix) {
+        while (classElement != null) {
+            List<VariableElement> fieldElements = ElementFilter.fieldsIn(classElement.getEnclosedElements());
+            for (VariableElement fieldElement : fieldElements) {
+                UriParam param = fieldElement.getAnnotation(UriParam.class);
+                if (param != null) {
+                    String name = param.name();
+                    if (isNullOrEmpty(name)) {
+                        name = fieldElement.getSimpleName().toString();
+                    }
+
+                    // nested parameters may have setters on this class as well
+                    Element fieldTypeElement = processingEnv.getTypeUtils().asElement(fieldElement.asType());
+                    UriParams fieldParams = fieldTypeElement != null ? fieldTypeElement.getAnnotation(UriParams.class) : null;
+                    if (fieldParams != null) {
+                        String nestedPrefix = prefix;
+                        String extraPrefix = fieldParams.prefix();
+                        if (!isNullOrEmpty(extraPrefix)) {
+                            nestedPrefix += extraPrefix;
+                        }
+                        findConfigurerOptions(roundEnv, names, (TypeElement) fieldTypeElement, nestedPrefix);
+                    } else {
+                        names.add(prefix + name);
+                    }
+                }
+            }
+
+            // check super classes which may also have @UriParam fields
+            TypeMirror superclass = classElement.getSuperclass();
+            if (superclass.getKind() == TypeKind.DECLARED) {
+                classElement = (TypeElement) ((DeclaredType) superclass).asElement();
+            } else {
+                classElement = null;
+            }
+        }
+    }
+
+    /**
+     * Finds the type of the parameter of the setter for the given option, which is only returned if there is a single
+     * public setter and its type can be used from the generated configurer.
+     */
+    protected String findConfigurerSetterType(TypeElement classElement, String option) {
+        if (!isJavaIdentifier(option)) {
+            return null;
+        }
+        String setter = "set" + option.substring(0, 1).toUpperCase() + option.substring(1);
+
+        Types typeUtils = processingEnv.getTypeUtils();
+        Set<String> types = new HashSet<String>();
+        TypeMirror answer = null;
+        List<ExecutableElement> methods = ElementFilter.methodsIn(processingEnv.getElementUtils().getAllMembers(classElement));
+        for (ExecutableElement method : methods) {
+            if (setter.equals(method.getSimpleName().toString()) && method.getParameters().size() == 1
+                    && method.getModifiers().contains(Modifier.PUBLIC) && !method.getModifiers().contains(Modifier.STATIC)) {
+                TypeMirror type = method.getParameters().get(0).asType();
+                if (type.getKind() == TypeKind.TYPEVAR) {
+                    // cannot know the actual type
+                    return null;
+                }
+                // public setters inherited from a non public class in another package cannot be called
+                Element declaringClass = method.getEnclosingElement();
+                if (!declaringClass.getModifiers().contains(Modifier.PUBLIC)
+                        && !processingEnv.getElementUtils().getPackageOf(declaringClass).equals(processingEnv.getElementUtils().getPackageOf(classElement))) {
+                    return null;
+                }
+                answer = typeUtils.erasure(type);
+                types.add(answer.toString());
+            }
+        }
+        // overloaded setters must be left for reflection which can pick the best setter based on the value
+        if (types.size() != 1 || !isAccessibleType(answer)) {
+            return null;
+        }
+        return answer.toString();
+    }
+
+    private boolean isAccessibleType(TypeMirror type) {
+        if (type.getKind().isPrimitive()) {
+            return true;
+        } else if (type.getKind() == TypeKind.ARRAY) {
+            return isAccessibleType(((ArrayType) type).getComponentType());
+        } else if (type.getKind() == TypeKind.DECLARED) {
+            Element element = ((DeclaredType) type).asElement();
+            while (element != null && element.getKind() != ElementKind.PACKAGE) {
+                if (!element.getModifiers().contains(Modifier.PUBLIC)) {
+                    return false;
+                }
+                element = element.getEnclosingElement();
+            }
+            return true;
+        }
+        return false;
+    }
+
+    private static boolean isJavaIdentifier(String name) {
+        if (isNullOrEmpty(name) || !Character.isJavaIdentifierStart(name.charAt(0))) {
+            return false;
+        }
+        for (int i = 1; i < name.length(); i++) {
+            if (!Character.isJavaIdentifierPart(name.charAt(i))) {
+                return false;
+            }
+        }
+        return true;
+    }
+
     protected void writeHtmlDocumentation(PrintWriter writer, RoundEnvironment roundEnv, TypeElement classElement, UriEndpoint uriEndpoint,
                                           String title, String scheme, String label) {
         writer.println("<html>");